@@ -0,0 +1,109 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.engine.DecisionTrace;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of the scoring path, meant to be run with {@code -prof gc} so the report shows
+ * {@code gc.alloc.rate.norm} per calculation.
+ *
+ * Calls the snapshot overload of the scoring service directly, as the ingest path does, rather
+ * than through the transactional facade. Each decision trace is released after the calculation
+ * the way the journal releases it once the decision is appended. Metrics are disabled, and the fixture logs errors only, because timer
+ * sampling and detection warnings are not part of the scoring path. The trial teardown
+ * repeats a steady-state pass over the samples and fails the run if it allocated more than a
+ * small fixed slack per calculation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+
+    // Covers the thread-local lookup and JIT noise, well below one object per calculation
+    private static final long MAX_BYTES_PER_CALCULATION = 8;
+
+    @Param({"8", "64", "512"})
+    private int ruleCount;
+
+    private BenchmarkFixture fixture;
+    private FraudScoringService fraudScoringService;
+    private RuleSnapshot snapshot;
+    private Transaction[] transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.start(ruleCount, 100, "fraud.detection.metrics.enabled=false");
+        fraudScoringService = fixture.bean(FraudScoringService.class);
+        snapshot = fixture.bean(RuleSnapshotService.class).getCurrentSnapshot();
+        transactions = fixture.sampleTransactions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            verifySteadyStateAllocation();
+        } finally {
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    public double calculateFraudScore(ScoringBenchmark.Cursor cursor) {
+        return score(transactions[cursor.next()]);
+    }
+
+    private double score(Transaction transaction) {
+        double score = fraudScoringService.calculateFraudScore(transaction, snapshot);
+        DecisionTrace trace = transaction.getDecisionTrace();
+        if (trace != null) {
+            transaction.setDecisionTrace(null);
+            DecisionTrace.release(trace);
+        }
+        return score;
+    }
+
+    private void verifySteadyStateAllocation() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int rounds = 16;
+
+        double sink = 0.0;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < rounds; round++) {
+            for (Transaction transaction : transactions) {
+                sink += score(transaction);
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        long calculations = (long) rounds * transactions.length;
+        if (allocated > calculations * MAX_BYTES_PER_CALCULATION) {
+            throw new IllegalStateException(String.format(
+                    "Scoring allocated %d bytes over %d calculations (score sum %.1f)",
+                    allocated, calculations, sink));
+        }
+    }
+}
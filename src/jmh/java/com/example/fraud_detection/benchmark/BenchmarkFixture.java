@@ -0,0 +1,177 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.FraudDetectionApplication;
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.repository.UserRepository;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import com.example.fraud_detection.service.VelocityService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application against a private in-memory H2 database and seeds a
+ * reproducible rule set and per-user transaction history for the benchmarks.
+ */
+final class BenchmarkFixture implements AutoCloseable {
+
+    static final int USER_COUNT = 16;
+    static final int SAMPLE_COUNT = 1024;
+
+    private static final String[] CATEGORIES = {
+            "GROCERY", "ELECTRONICS", "TRAVEL", "RESTAURANT", "gambling", "Cryptocurrency", "CASH_ADVANCE", "FUEL"
+    };
+    private static final String[] LOCATIONS = {
+            "New York, NY", "San Francisco, CA", "London, UK", "Lagos, Nigeria", "Moscow, Russia", "Austin, TX"
+    };
+    private static final RuleType[] RULE_TYPES = RuleType.values();
+
+    private final ConfigurableApplicationContext context;
+    private final List<User> users = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    private BenchmarkFixture(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static BenchmarkFixture start(int ruleCount, int historySize, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "logging.level.com.example.fraud_detection=ERROR"));
+        args.addAll(List.of(properties));
+        // Passed as arguments: builder properties rank below application.properties and would be ignored
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FraudDetectionApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.stream().map(property -> "--" + property).toArray(String[]::new));
+
+        BenchmarkFixture fixture = new BenchmarkFixture(context);
+        fixture.seedRules(ruleCount);
+        fixture.seedHistory(historySize);
+        return fixture;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Builds unsaved transactions spread over the seeded users, categories and locations.
+     */
+    Transaction[] sampleTransactions() {
+        Transaction[] samples = new Transaction[SAMPLE_COUNT];
+        for (int i = 0; i < samples.length; i++) {
+            Transaction transaction = new Transaction(users.get(i % users.size()), randomAmount(),
+                    TransactionType.PURCHASE);
+            transaction.setMerchantCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            transaction.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+            transaction.setIpAddress("10.0." + random.nextInt(256) + "." + random.nextInt(256));
+            samples[i] = transaction;
+        }
+        return samples;
+    }
+
+    TransactionRequest[] sampleRequests() {
+        TransactionRequest[] samples = new TransactionRequest[SAMPLE_COUNT];
+        for (int i = 0; i < samples.length; i++) {
+            TransactionRequest request = new TransactionRequest(users.get(i % users.size()).getId(),
+                    randomAmount(), TransactionType.PURCHASE);
+            request.setMerchantCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            request.setLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+            samples[i] = request;
+        }
+        return samples;
+    }
+
+    /**
+     * Builds a representative rule of the given type with realistic settings.
+     */
+    FraudRule ruleOfType(RuleType ruleType, int index) {
+        FraudRule rule = new FraudRule("Benchmark " + ruleType + " " + index, ruleType, 5.0 + random.nextInt(30));
+        switch (ruleType) {
+            case AMOUNT_THRESHOLD:
+                rule.setThresholdAmount(BigDecimal.valueOf(1000 + random.nextInt(50000)));
+                break;
+            case VELOCITY_CHECK:
+                rule.setTimeWindowMinutes(new int[] {5, 10, 30, 60}[random.nextInt(4)]);
+                rule.setMaxOccurrences(3 + random.nextInt(20));
+                break;
+            case MERCHANT_CATEGORY:
+                rule.setMerchantCategory(index < CATEGORIES.length ? CATEGORIES[index] : "CATEGORY_" + index);
+                break;
+            case LOCATION_BASED:
+                rule.setLocationRestriction(index < LOCATIONS.length ? LOCATIONS[index].split(",")[0] : "city-" + index);
+                break;
+            case SPEND_VELOCITY:
+                rule.setTimeWindowMinutes(new int[] {5, 10, 30, 60}[random.nextInt(4)]);
+                rule.setThresholdAmount(BigDecimal.valueOf(5000 + random.nextInt(100000)));
+                break;
+            case IP_FAN_OUT:
+                rule.setTimeWindowMinutes(new int[] {5, 10, 30, 60}[random.nextInt(4)]);
+                rule.setMaxDistinctUsers(3 + random.nextInt(10));
+                break;
+            case IP_BASED:
+                rule.setIpRanges("10.0." + (index & 255) + ".0/24, 10." + (1 + (index & 127)) + ".0.0/16");
+                break;
+            default:
+                break;
+        }
+        return rule;
+    }
+
+    private void seedRules(int ruleCount) {
+        FraudRuleRepository fraudRuleRepository = bean(FraudRuleRepository.class);
+        fraudRuleRepository.deleteAll();
+
+        List<FraudRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(ruleOfType(RULE_TYPES[i % RULE_TYPES.length], i / RULE_TYPES.length));
+        }
+        fraudRuleRepository.saveAll(rules);
+        bean(RuleSnapshotService.class).refresh();
+    }
+
+    private void seedHistory(int historySize) {
+        UserRepository userRepository = bean(UserRepository.class);
+        for (int i = 0; i < USER_COUNT; i++) {
+            users.add(userRepository.save(new User("bench_user_" + i, "bench" + i + "@example.com", "Bench User " + i)));
+        }
+
+        TransactionRepository transactionRepository = bean(TransactionRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : users) {
+            List<Transaction> history = new ArrayList<>(historySize);
+            for (int i = 0; i < historySize; i++) {
+                Transaction transaction = new Transaction(user, randomAmount(), TransactionType.PURCHASE);
+                transaction.setTransactionTime(now.minusMinutes(random.nextInt(24 * 60)));
+                history.add(transaction);
+            }
+            transactionRepository.saveAll(history);
+        }
+        bean(VelocityService.class).rebuild();
+    }
+
+    private BigDecimal randomAmount() {
+        return BigDecimal.valueOf(100 + random.nextInt(2_000_000), 2);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
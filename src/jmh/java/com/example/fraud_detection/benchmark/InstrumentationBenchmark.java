@@ -0,0 +1,66 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.FraudScoringService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the per-check and per-rule scoring metrics.
+ *
+ * Compare the {@code metricsEnabled=false} rows against the others; a sample interval of 1
+ * shows the worst case where every calculation is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean metricsEnabled;
+
+    @Param({"1", "16"})
+    private int timingSampleInterval;
+
+    @Param({"8", "64"})
+    private int ruleCount;
+
+    private BenchmarkFixture fixture;
+    private FraudScoringService fraudScoringService;
+    private Transaction[] transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.start(ruleCount, 100,
+                "fraud.detection.metrics.enabled=" + metricsEnabled,
+                "fraud.detection.metrics.timing-sample-interval=" + timingSampleInterval);
+        fraudScoringService = fixture.bean(FraudScoringService.class);
+        transactions = fixture.sampleTransactions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public double calculateFraudScore(ScoringBenchmark.Cursor cursor) {
+        return fraudScoringService.calculateFraudScore(transactions[cursor.next()]);
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.FraudDetectionApplication;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.repository.UserRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.VelocityService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for {@code POST /api/transactions}.
+ *
+ * Without {@code --url} it boots the application on a random port against a private in-memory
+ * database and seeds users with scored history through the repositories; with {@code --url}
+ * it creates the users through {@code /api/users} on the running instance, which then starts
+ * without history. Each user then sends transactions as a Poisson process that now and then
+ * turns into a burst of closely spaced transactions, scaled so the total matches {@code --rate}.
+ *
+ * Latency is measured from the moment a transaction was scheduled, not from when it could be
+ * sent, so a stalled server shows up as latency instead of a lower send rate. Service time,
+ * from send to response, is reported alongside. Requests that fail or time out are recorded at
+ * the time they failed, so dropping requests never makes the percentiles look better.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--users=1000 --rate=500 --duration=60"
+ * </pre>
+ *
+ * Options, all {@code --name=value}: url, users (1000), history (50 per user), history-days (30),
+ * rate (200 per second), duration (60 s), warmup (10 s), max-in-flight (256), burst-probability
+ * (0.05), burst-size (8), burst-gap-ms (2000), away-probability (0.03), types and categories
+ * (weighted mixes, see {@link LoadMix}), report-interval (5 s), seed (42), hgrm (file for the
+ * full response-time distribution, in ms), and set (an application property for the booted
+ * instance, repeatable).
+ */
+public final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Map<String, String> options;
+    private final List<String> properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Recorder responseTimes = new Recorder(3);
+    private final Recorder serviceTimes = new Recorder(3);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile long measureFromNanos;
+
+    private LoadGenerator(Map<String, String> options, List<String> properties) {
+        this.options = options;
+        this.properties = properties;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> properties = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            if (name.equals("set")) {
+                properties.add(arg.substring(equals + 1));
+            } else {
+                options.put(name, arg.substring(equals + 1));
+            }
+        }
+        new LoadGenerator(options, properties).run();
+    }
+
+    private void run() throws Exception {
+        int userCount = intOption("users", 1000);
+        if (userCount <= 0) {
+            throw new IllegalArgumentException("--users must be at least 1, was " + userCount);
+        }
+        Random random = new Random(longOption("seed", 42));
+        LoadMix mix = new LoadMix(options.getOrDefault("types", LoadMix.DEFAULT_TYPES),
+                options.getOrDefault("categories", LoadMix.DEFAULT_CATEGORIES),
+                doubleOption("away-probability", 0.03));
+        List<LoadMix.Profile> profiles = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            profiles.add(mix.profile(i, random));
+        }
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.get("url");
+        List<Long> userIds;
+        try {
+            if (baseUrl == null) {
+                context = startInstance();
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                userIds = seedInProcess(context, mix, profiles, random);
+            } else {
+                userIds = seedOverHttp(baseUrl, userCount);
+            }
+            drive(URI.create(baseUrl + "/api/transactions"), mix, profiles, userIds, random);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startInstance() throws IOException {
+        Path workDirectory = Files.createTempDirectory("fraud-load");
+        // Devtools would relaunch this class's main method with the application's arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Passed as command-line arguments, which take precedence over application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "logging.level.com.example.fraud_detection=ERROR",
+                "fraud.detection.journal.directory=" + workDirectory.resolve("journal"),
+                "fraud.detection.archive.directory=" + workDirectory.resolve("archive")));
+        arguments.addAll(properties);
+        return new SpringApplicationBuilder(FraudDetectionApplication.class)
+                .run(arguments.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    private List<Long> seedInProcess(ConfigurableApplicationContext context, LoadMix mix,
+                                     List<LoadMix.Profile> profiles, Random random) {
+        int historySize = intOption("history", 50);
+        int historyDays = intOption("history-days", 30);
+        long startNanos = System.nanoTime();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        List<Long> userIds = new ArrayList<>(profiles.size());
+        List<Transaction> pending = new ArrayList<>();
+        for (int i = 0; i < profiles.size(); i++) {
+            User user = userRepository.save(new User("load_user_" + i, "load" + i + "@example.com", "Load User " + i));
+            userIds.add(user.getId());
+            pending.addAll(mix.history(user, profiles.get(i), historySize, historyDays, random));
+            if (pending.size() >= 5000) {
+                transactionRepository.saveAll(pending);
+                pending.clear();
+            }
+        }
+        transactionRepository.saveAll(pending);
+        context.getBean(VelocityService.class).rebuild();
+        context.getBean(IpActivityService.class).rebuild();
+        context.getBean(DashboardCounterService.class).reconcile();
+
+        System.out.printf("Seeded %d users with %d transactions of history in %d ms%n", profiles.size(),
+                (long) profiles.size() * historySize, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return userIds;
+    }
+
+    private List<Long> seedOverHttp(String baseUrl, int userCount) throws IOException, InterruptedException {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<Long> userIds = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            Map<String, String> user = Map.of("username", "load_" + run + "_" + i,
+                    "email", "load_" + run + "_" + i + "@example.com", "fullName", "Load User " + i);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(user)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Creating user " + i + " failed with "
+                        + response.statusCode() + ": " + response.body());
+            }
+            userIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        System.out.printf("Created %d users on %s%n", userCount, baseUrl);
+        return userIds;
+    }
+
+    /**
+     * Sends the schedule from a single thread and records the responses as they complete.
+     */
+    private void drive(URI target, LoadMix mix, List<LoadMix.Profile> profiles, List<Long> userIds, Random random)
+            throws Exception {
+        double rate = doubleOption("rate", 200);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(intOption("warmup", 10));
+        long durationNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 60));
+        int maxInFlight = intOption("max-in-flight", 256);
+        double burstProbability = doubleOption("burst-probability", 0.05);
+        int burstSize = intOption("burst-size", 8);
+        double burstGapNanos = TimeUnit.MILLISECONDS.toNanos(intOption("burst-gap-ms", 2000));
+        // Each quiet arrival is followed on average by burstProbability * burstSize burst arrivals
+        // spread over as many gaps; the quiet interval is what is left to keep the total at rate
+        double burstsPerArrival = burstProbability * burstSize;
+        double userIntervalNanos = 1e9 * userIds.size() * (1 + burstsPerArrival) / rate
+                - burstsPerArrival * burstGapNanos;
+        if (userIntervalNanos <= 0) {
+            throw new IllegalArgumentException("Bursts alone exceed " + rate + "/s; lower the burst settings or add users");
+        }
+
+        long startNanos = System.nanoTime();
+        measureFromNanos = startNanos + warmupNanos;
+        long endNanos = measureFromNanos + durationNanos;
+        PriorityQueue<Arrival> schedule = new PriorityQueue<>(userIds.size());
+        for (int user = 0; user < userIds.size(); user++) {
+            schedule.add(new Arrival(user, startNanos + exponential(random, userIntervalNanos)));
+        }
+
+        Histogram totalResponseTimes = new Histogram(3);
+        Histogram totalServiceTimes = new Histogram(3);
+        long reportIntervalSeconds = intOption("report-interval", 5);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> report(totalResponseTimes, totalServiceTimes, startNanos),
+                reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+
+        System.out.printf("Sending %.0f transactions/s from %d users to %s for %d s after a %d s warm-up%n",
+                rate, userIds.size(), target, TimeUnit.NANOSECONDS.toSeconds(durationNanos),
+                TimeUnit.NANOSECONDS.toSeconds(warmupNanos));
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        while (true) {
+            Arrival arrival = schedule.poll();
+            if (arrival.dueNanos >= endNanos) {
+                break;
+            }
+            long waitNanos = arrival.dueNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            byte[] body = objectMapper.writeValueAsBytes(
+                    mix.request(userIds.get(arrival.user), profiles.get(arrival.user), random));
+            inFlight.acquire();
+            send(target, body, arrival.dueNanos, inFlight);
+
+            if (arrival.burstRemaining > 0) {
+                arrival.burstRemaining--;
+                arrival.dueNanos += exponential(random, burstGapNanos);
+            } else {
+                arrival.dueNanos += exponential(random, userIntervalNanos);
+                if (random.nextDouble() < burstProbability) {
+                    arrival.burstRemaining = burstSize;
+                }
+            }
+            schedule.add(arrival);
+        }
+        // Long enough for every request still in flight to answer or time out and be recorded
+        long drainSeconds = REQUEST_TIMEOUT.toSeconds() + 5;
+        if (!inFlight.tryAcquire(maxInFlight, drainSeconds, TimeUnit.SECONDS)) {
+            System.out.printf("%d requests still in flight after %d s%n",
+                    maxInFlight - inFlight.availablePermits(), drainSeconds);
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(5, TimeUnit.SECONDS);
+
+        synchronized (totalResponseTimes) {
+            totalResponseTimes.add(responseTimes.getIntervalHistogram());
+            totalServiceTimes.add(serviceTimes.getIntervalHistogram());
+            printSummary(totalResponseTimes, totalServiceTimes, (System.nanoTime() - measureFromNanos) / 1e9);
+        }
+    }
+
+    private void send(URI target, byte[] body, long scheduledNanos, Semaphore inFlight) {
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .header("Content-Type", "application/json")
+                .timeout(REQUEST_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        long sentNanos = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long doneNanos = System.nanoTime();
+            inFlight.release();
+            if (scheduledNanos < measureFromNanos) {
+                return;
+            }
+            if (error != null) {
+                if (error instanceof HttpTimeoutException || error.getCause() instanceof HttpTimeoutException) {
+                    timeouts.increment();
+                } else {
+                    failures.increment();
+                }
+            } else {
+                statusCounts.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+            }
+            responseTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(doneNanos - scheduledNanos));
+            serviceTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(doneNanos - sentNanos));
+        });
+    }
+
+    private void report(Histogram totalResponseTimes, Histogram totalServiceTimes, long startNanos) {
+        Histogram interval = responseTimes.getIntervalHistogram();
+        synchronized (totalResponseTimes) {
+            totalResponseTimes.add(interval);
+            totalServiceTimes.add(serviceTimes.getIntervalHistogram());
+        }
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        if (interval.getTotalCount() == 0) {
+            System.out.printf("%5d s  warming up%n", elapsedSeconds);
+            return;
+        }
+        double seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+        System.out.printf("%5d s  %8.1f/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  max %8.2f ms%n",
+                elapsedSeconds, interval.getTotalCount() / seconds, millis(interval.getValueAtPercentile(50)),
+                millis(interval.getValueAtPercentile(99)), millis(interval.getValueAtPercentile(99.9)),
+                millis(interval.getMaxValue()));
+    }
+
+    private void printSummary(Histogram responses, Histogram services, double seconds) throws IOException {
+        PrintStream out = System.out;
+        out.printf("%nRecorded %d requests in %.1f s: %.1f/s%n", responses.getTotalCount(), seconds,
+                responses.getTotalCount() / seconds);
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, count) -> statuses.put(status, count.sum()));
+        out.printf("Status codes %s, %d timed out, %d failed without a response (all included below)%n",
+                statuses, timeouts.sum(), failures.sum());
+        out.printf("%-14s %10s %10s %10s %10s %10s%n", "", "p50", "p90", "p99", "p999", "max");
+        printPercentiles(out, "response (ms)", responses);
+        printPercentiles(out, "service (ms)", services);
+
+        String hgrm = options.get("hgrm");
+        if (hgrm != null) {
+            try (PrintStream file = new PrintStream(Files.newOutputStream(Path.of(hgrm)))) {
+                responses.outputPercentileDistribution(file, 1000.0);
+            }
+            out.printf("Response time distribution written to %s%n", hgrm);
+        }
+    }
+
+    private static void printPercentiles(PrintStream out, String label, Histogram histogram) {
+        out.printf("%-14s %10.2f %10.2f %10.2f %10.2f %10.2f%n", label,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static long exponential(Random random, double meanNanos) {
+        return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private long longOption(String name, long defaultValue) {
+        return options.containsKey(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * A user's next scheduled transaction and what is left of the burst it belongs to.
+     */
+    private static final class Arrival implements Comparable<Arrival> {
+
+        private final int user;
+        private long dueNanos;
+        private int burstRemaining;
+
+        Arrival(int user, long dueNanos) {
+            this.user = user;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public int compareTo(Arrival other) {
+            return Long.compare(dueNanos, other.dueNanos);
+        }
+    }
+}
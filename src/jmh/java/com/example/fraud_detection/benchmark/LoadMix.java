@@ -0,0 +1,153 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Synthetic traffic for the load generator: weighted transaction type and merchant category
+ * mixes, and per-user profiles that keep most of a user's activity at a home location and
+ * IP address around a user-specific typical amount.
+ */
+final class LoadMix {
+
+    static final String DEFAULT_TYPES = "PURCHASE=80,WITHDRAWAL=8,TRANSFER=6,REFUND=3,DEPOSIT=3";
+    static final String DEFAULT_CATEGORIES = "GROCERY=24,RESTAURANT=20,RETAIL=16,FUEL=10,ELECTRONICS=9,"
+            + "TRAVEL=8,UTILITIES=8,GAMBLING=2,CRYPTOCURRENCY=2,CASH_ADVANCE=1";
+
+    private static final String[] LOCATIONS = {
+            "New York, NY", "San Francisco, CA", "Chicago, IL", "Austin, TX", "Seattle, WA", "Miami, FL",
+            "Boston, MA", "Denver, CO", "London, UK", "Toronto, Canada"
+    };
+    private static final String[] TRAVEL_LOCATIONS = {
+            "Paris, France", "Tokyo, Japan", "Lagos, Nigeria", "Moscow, Russia", "Sao Paulo, Brazil"
+    };
+
+    private final Weighted<TransactionType> types;
+    private final Weighted<String> categories;
+    private final double awayProbability;
+
+    LoadMix(String typeMix, String categoryMix, double awayProbability) {
+        this.types = Weighted.parse(typeMix, TransactionType::valueOf);
+        this.categories = Weighted.parse(categoryMix, Function.identity());
+        this.awayProbability = awayProbability;
+    }
+
+    Profile profile(int index, Random random) {
+        // Typical amounts are log-normal across users: most spend tens of dollars, a few thousands
+        double typicalAmount = Math.exp(3.5 + random.nextGaussian());
+        return new Profile(LOCATIONS[random.nextInt(LOCATIONS.length)],
+                "10." + (index >> 16 & 255) + "." + (index >> 8 & 255) + "." + (index & 255),
+                "****" + String.format("%04d", random.nextInt(10_000)), typicalAmount);
+    }
+
+    TransactionRequest request(Long userId, Profile profile, Random random) {
+        TransactionRequest request = new TransactionRequest(userId, amount(profile, random), types.pick(random));
+        String category = categories.pick(random);
+        request.setMerchantCategory(category);
+        request.setMerchantName(category.charAt(0) + category.substring(1).toLowerCase() + " #" + random.nextInt(500));
+        boolean away = random.nextDouble() < awayProbability;
+        request.setLocation(away ? TRAVEL_LOCATIONS[random.nextInt(TRAVEL_LOCATIONS.length)] : profile.location);
+        request.setIpAddress(away ? "172.16." + random.nextInt(256) + "." + random.nextInt(256) : profile.ipAddress);
+        request.setCardNumberMasked(profile.cardNumberMasked);
+        return request;
+    }
+
+    /**
+     * Builds already-scored history for a user, spread uniformly over the given number of days.
+     */
+    List<Transaction> history(User user, Profile profile, int count, int days, Random random) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> history = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TransactionRequest request = request(user.getId(), profile, random);
+            Transaction transaction = new Transaction(user, request.getAmount(), request.getTransactionType());
+            transaction.setMerchantName(request.getMerchantName());
+            transaction.setMerchantCategory(request.getMerchantCategory());
+            transaction.setLocation(request.getLocation());
+            transaction.setIpAddress(request.getIpAddress());
+            transaction.setCardNumberMasked(request.getCardNumberMasked());
+            transaction.setTransactionTime(now.minusSeconds(1 + (long) (random.nextDouble() * days * 86_400)));
+            transaction.setFraudStatus(FraudStatus.LEGITIMATE);
+            history.add(transaction);
+        }
+        return history;
+    }
+
+    private static BigDecimal amount(Profile profile, Random random) {
+        double amount = profile.typicalAmount * Math.exp(0.8 * random.nextGaussian());
+        return BigDecimal.valueOf(Math.min(Math.max(amount, 0.5), 50_000)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static final class Profile {
+
+        private final String location;
+        private final String ipAddress;
+        private final String cardNumberMasked;
+        private final double typicalAmount;
+
+        Profile(String location, String ipAddress, String cardNumberMasked, double typicalAmount) {
+            this.location = location;
+            this.ipAddress = ipAddress;
+            this.cardNumberMasked = cardNumberMasked;
+            this.typicalAmount = typicalAmount;
+        }
+    }
+
+    /**
+     * Values picked in proportion to weights given as {@code NAME=weight,NAME=weight}.
+     */
+    static final class Weighted<T> {
+
+        private final List<T> values;
+        private final double[] cumulative;
+
+        private Weighted(List<T> values, double[] cumulative) {
+            this.values = values;
+            this.cumulative = cumulative;
+        }
+
+        static <T> Weighted<T> parse(String mix, Function<String, T> parser) {
+            List<T> values = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (String entry : mix.split(",")) {
+                String[] parts = entry.trim().split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected NAME=weight in mix: " + entry);
+                }
+                values.add(parser.apply(parts[0].trim()));
+                weights.add(Double.parseDouble(parts[1].trim()));
+            }
+            double[] cumulative = new double[weights.size()];
+            double total = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                total += weights.get(i);
+                cumulative[i] = total;
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("Mix has no positive weight: " + mix);
+            }
+            return new Weighted<>(values, cumulative);
+        }
+
+        T pick(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            for (int i = 0; i < cumulative.length; i++) {
+                if (target < cumulative[i]) {
+                    return values.get(i);
+                }
+            }
+            return values.get(values.size() - 1);
+        }
+    }
+}
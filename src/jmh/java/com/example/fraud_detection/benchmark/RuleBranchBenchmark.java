@@ -0,0 +1,62 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.model.RuleType;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.FraudScoringService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single {@code applyFraudRule} evaluation for each rule type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBranchBenchmark {
+
+    @Param({"AMOUNT_THRESHOLD", "VELOCITY_CHECK", "MERCHANT_CATEGORY", "LOCATION_BASED", "TIME_BASED", "IP_BASED", "IP_FAN_OUT", "SPEND_VELOCITY"})
+    private RuleType ruleType;
+
+    @Param({"0", "1000"})
+    private int historySize;
+
+    private BenchmarkFixture fixture;
+    private FraudScoringService fraudScoringService;
+    private CompiledRule rule;
+    private Transaction[] transactions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.start(0, historySize);
+        fraudScoringService = fixture.bean(FraudScoringService.class);
+        rule = CompiledRule.compile(fixture.ruleOfType(ruleType, 0));
+        transactions = fixture.sampleTransactions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public boolean applyFraudRule(ScoringBenchmark.Cursor cursor) {
+        return fraudScoringService.applyFraudRule(transactions[cursor.next()], rule);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.fraud_detection.benchmark;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.FraudDetectionService;
+import com.example.fraud_detection.service.FraudScoringService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the scoring hot path for growing rule sets and user histories.
+ *
+ * Run with {@code -prof gc} to track allocation per operation alongside throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @Param({"8", "64", "512"})
+    private int ruleCount;
+
+    @Param({"0", "100", "1000"})
+    private int historySize;
+
+    private BenchmarkFixture fixture;
+    private FraudDetectionService fraudDetectionService;
+    private FraudScoringService fraudScoringService;
+    private Transaction[] transactions;
+    private TransactionRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = BenchmarkFixture.start(ruleCount, historySize);
+        fraudDetectionService = fixture.bean(FraudDetectionService.class);
+        fraudScoringService = fixture.bean(FraudScoringService.class);
+        transactions = fixture.sampleTransactions();
+        requests = fixture.sampleRequests();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            position = (position + 1) & (BenchmarkFixture.SAMPLE_COUNT - 1);
+            return position;
+        }
+    }
+
+    @Benchmark
+    public double calculateFraudScore(Cursor cursor) {
+        return fraudScoringService.calculateFraudScore(transactions[cursor.next()]);
+    }
+
+    @Benchmark
+    public boolean checkUnusualMerchant(Cursor cursor) {
+        return fraudScoringService.checkUnusualMerchant(transactions[cursor.next()]);
+    }
+
+    @Benchmark
+    public Transaction createAndAnalyzeTransaction(Cursor cursor) {
+        return fraudDetectionService.createAndAnalyzeTransaction(requests[cursor.next()]);
+    }
+}
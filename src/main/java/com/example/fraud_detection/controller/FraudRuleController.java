@@ -1,8 +1,13 @@
 package com.example.fraud_detection.controller;
 
+import com.example.fraud_detection.dto.BacktestReport;
+import com.example.fraud_detection.dto.BacktestRequest;
+import com.example.fraud_detection.engine.RuleSnapshot;
 import com.example.fraud_detection.model.FraudRule;
 import com.example.fraud_detection.model.RuleType;
 import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.service.BacktestService;
+import com.example.fraud_detection.service.RuleSnapshotService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,7 +16,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -24,6 +31,12 @@ public class FraudRuleController {
     @Autowired
     private FraudRuleRepository fraudRuleRepository;
 
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private BacktestService backtestService;
+
     @GetMapping
     public ResponseEntity<List<FraudRule>> getAllFraudRules() {
         logger.info("GET /api/fraud-rules - Fetching all fraud rules");
@@ -38,6 +51,36 @@ public class FraudRuleController {
         return ResponseEntity.ok(activeFraudRules);
     }
 
+    @GetMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> getRuleSnapshot() {
+        logger.info("GET /api/fraud-rules/snapshot - Fetching current rule snapshot");
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", snapshot.getVersion());
+        body.put("compiledAt", snapshot.getCompiledAt());
+        body.put("ruleCount", snapshot.getRules().size());
+        body.put("rejectedRuleCount", snapshot.getRejectedRuleCount());
+        body.put("indexedMerchantCategories", snapshot.getMerchantCategoryIndex().getCategoryCount());
+        body.put("indexedLocationPatterns", snapshot.getLocationMatcher().getPatternCount());
+        body.put("indexedIpPrefixes", snapshot.getIpPrefixTrie().getPrefixCount());
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/backtest")
+    public ResponseEntity<?> backtest(@Valid @RequestBody BacktestRequest backtestRequest) {
+        logger.info("POST /api/fraud-rules/backtest - Backtesting rules over {} to {}",
+                   backtestRequest.getFrom(), backtestRequest.getTo());
+        
+        try {
+            BacktestReport report = backtestService.run(backtestRequest);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected backtest: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<FraudRule> getFraudRuleById(@PathVariable Long id) {
         logger.info("GET /api/fraud-rules/{} - Fetching fraud rule by id", id);
@@ -62,8 +105,13 @@ public class FraudRuleController {
     public ResponseEntity<?> createFraudRule(@Valid @RequestBody FraudRule fraudRule) {
         logger.info("POST /api/fraud-rules - Creating new fraud rule: {}", fraudRule.getRuleName());
         
+        if (!ruleSnapshotService.isCompilable(fraudRule)) {
+            return rejectUncompilable(fraudRule);
+        }
+        
         try {
             FraudRule savedFraudRule = fraudRuleRepository.save(fraudRule);
+            ruleSnapshotService.refresh();
             logger.info("Successfully created fraud rule with id: {}", savedFraudRule.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(savedFraudRule);
         } catch (Exception e) {
@@ -82,9 +130,13 @@ public class FraudRuleController {
                 logger.warn("Fraud rule not found with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
+            if (!ruleSnapshotService.isCompilable(fraudRule)) {
+                return rejectUncompilable(fraudRule);
+            }
             
             fraudRule.setId(id);
             FraudRule updatedFraudRule = fraudRuleRepository.save(fraudRule);
+            ruleSnapshotService.refresh();
             logger.info("Successfully updated fraud rule: {}", updatedFraudRule.getId());
             return ResponseEntity.ok(updatedFraudRule);
         } catch (Exception e) {
@@ -105,6 +157,7 @@ public class FraudRuleController {
             }
             
             fraudRuleRepository.deleteById(id);
+            ruleSnapshotService.refresh();
             logger.info("Successfully deleted fraud rule: {}", id);
             return ResponseEntity.ok().body("Fraud rule deleted successfully");
         } catch (Exception e) {
@@ -125,8 +178,12 @@ public class FraudRuleController {
             }
             
             FraudRule rule = fraudRule.get();
+            if (!rule.getIsActive() && !ruleSnapshotService.isCompilable(rule)) {
+                return rejectUncompilable(rule);
+            }
             rule.setIsActive(!rule.getIsActive());
             FraudRule updatedRule = fraudRuleRepository.save(rule);
+            ruleSnapshotService.refresh();
             
             logger.info("Successfully toggled fraud rule status: {} - Now: {}", 
                        updatedRule.getId(), updatedRule.getIsActive());
@@ -136,4 +193,13 @@ public class FraudRuleController {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A rule that does not compile would be saved but left out of every snapshot.
+     */
+    private ResponseEntity<String> rejectUncompilable(FraudRule fraudRule) {
+        logger.warn("Rejected fraud rule {}: {} rule does not compile", fraudRule.getRuleName(), fraudRule.getRuleType());
+        return ResponseEntity.badRequest().body("Error: " + fraudRule.getRuleType()
+                + " rule is missing the settings its type requires or names no readable IP range");
+    }
+}
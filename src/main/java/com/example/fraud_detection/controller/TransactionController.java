@@ -1,20 +1,43 @@
 package com.example.fraud_detection.controller;
 
+import com.example.fraud_detection.dto.BatchTransactionResponse;
+import com.example.fraud_detection.dto.ReanalysisRequest;
+import com.example.fraud_detection.dto.TransactionPage;
 import com.example.fraud_detection.dto.TransactionRequest;
 import com.example.fraud_detection.model.Transaction;
 import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.ReanalysisJob;
+import com.example.fraud_detection.model.TransactionArchive;
 import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.AsyncScoringService;
 import com.example.fraud_detection.service.FraudDetectionService;
+import com.example.fraud_detection.service.ReanalysisService;
+import com.example.fraud_detection.service.TransactionArchiveService;
+import com.example.fraud_detection.service.TransactionImportService;
+import com.example.fraud_detection.service.TransactionQueryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -29,11 +52,53 @@ public class TransactionController {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private AsyncScoringService asyncScoringService;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private ReanalysisService reanalysisService;
+
+    @Autowired
+    private TransactionArchiveService transactionArchiveService;
+
+    @Autowired
+    private TransactionImportService transactionImportService;
+
+    @Value("${fraud.detection.async.subscription-timeout-ms:30000}")
+    private long subscriptionTimeoutMs;
+
+    @Value("${fraud.detection.batch.max-size:5000}")
+    private int maxBatchSize;
+
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        logger.info("GET /api/transactions - Fetching all transactions");
-        List<Transaction> transactions = transactionRepository.findAll();
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<?> getAllTransactions(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
+        logger.info("GET /api/transactions - Fetching page of transactions");
+        return findPage(null, cursor, limit);
+    }
+
+    // Written on the request thread like the import: an export of the whole table runs longer
+    // than an async request timeout allows
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportTransactions(@RequestParam(required = false) FraudStatus status,
+                                   HttpServletResponse response) throws IOException {
+        logger.info("GET /api/transactions/export - Streaming transactions with status: {}", status);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        transactionQueryService.exportTransactions(status, response.getOutputStream());
+    }
+
+    private ResponseEntity<?> findPage(FraudStatus status, String cursor, Integer limit) {
+        try {
+            TransactionPage page = transactionQueryService.findPage(status, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected transaction page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -54,19 +119,131 @@ public class TransactionController {
         logger.info("POST /api/transactions - Creating and analyzing new transaction for user: {}", 
                    transactionRequest.getUserId());
         
+        if (asyncScoringService.isEnabled()) {
+            return acceptTransaction(transactionRequest);
+        }
+        
         try {
             Transaction analyzedTransaction = fraudDetectionService.createAndAnalyzeTransaction(transactionRequest);
+            if (analyzedTransaction.getId() == null) {
+                // Scored and buffered; write-behind acknowledges before the insert commits
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(analyzedTransaction);
+            }
             logger.info("Successfully created and analyzed transaction with id: {} - Status: {}, Score: {}", 
                        analyzedTransaction.getId(), 
                        analyzedTransaction.getFraudStatus(), 
                        analyzedTransaction.getFraudScore());
             return ResponseEntity.status(HttpStatus.CREATED).body(analyzedTransaction);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected transaction - write-behind buffer is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .body("Error: " + e.getMessage());
         } catch (RuntimeException e) {
             logger.error("Error creating transaction: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
 
+    private ResponseEntity<?> acceptTransaction(TransactionRequest transactionRequest) {
+        try {
+            Transaction transaction = asyncScoringService.submit(transactionRequest);
+            if (transaction.getFraudStatus() != FraudStatus.PENDING) {
+                // Scored inline because the queue was saturated
+                return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
+            }
+            
+            logger.info("Accepted transaction with id: {} for asynchronous scoring", transaction.getId());
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", transaction.getId());
+            body.put("fraudStatus", transaction.getFraudStatus());
+            body.put("statusUrl", "/api/transactions/" + transaction.getId());
+            body.put("eventsUrl", "/api/transactions/" + transaction.getId() + "/events");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected transaction - scoring queue is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .body("Error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error accepting transaction: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/events")
+    public ResponseEntity<SseEmitter> subscribeToTransaction(@PathVariable Long id) {
+        logger.info("GET /api/transactions/{}/events - Subscribing to scoring result", id);
+        if (!transactionRepository.existsById(id)) {
+            logger.warn("Transaction not found with id: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        
+        SseEmitter emitter = new SseEmitter(subscriptionTimeoutMs);
+        asyncScoringService.awaitResult(id).whenComplete((transaction, error) -> {
+            try {
+                if (error != null) {
+                    emitter.send(SseEmitter.event().name("error").data("Error: " + error.getMessage()));
+                } else {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("id", transaction.getId());
+                    result.put("fraudStatus", transaction.getFraudStatus());
+                    result.put("fraudScore", transaction.getFraudScore());
+                    result.put("fraudReason", transaction.getFraudReason());
+                    emitter.send(SseEmitter.event().name("scored").data(result));
+                }
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransactions(@RequestBody List<TransactionRequest> transactionRequests) {
+        logger.info("POST /api/transactions/batch - Creating and analyzing {} transactions", 
+                   transactionRequests.size());
+        
+        if (transactionRequests.size() > maxBatchSize) {
+            logger.warn("Rejected batch of {} transactions, limit is {}", transactionRequests.size(), maxBatchSize);
+            return ResponseEntity.badRequest().body("Error: Batch size exceeds limit of " + maxBatchSize);
+        }
+        
+        try {
+            BatchTransactionResponse response = fraudDetectionService.createAndAnalyzeTransactions(transactionRequests);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            logger.error("Error creating transaction batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    // Written on the request thread rather than as a StreamingResponseBody: an import runs as
+    // long as its upload, which an async request timeout would cut short
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    public void importTransactions(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        TransactionImportService.Format format = MediaType.parseMediaType("text/csv").includes(contentType)
+                ? TransactionImportService.Format.CSV
+                : TransactionImportService.Format.NDJSON;
+        logger.info("POST /api/transactions/import - Importing {} records", format);
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            transactionImportService.importTransactions(request.getInputStream(), format, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected import: {}", e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                response.getWriter().write("Error: " + e.getMessage());
+            }
+        }
+    }
+
     @PostMapping("/{id}/analyze")
     public ResponseEntity<?> analyzeTransaction(@PathVariable Long id) {
         logger.info("POST /api/transactions/{}/analyze - Re-analyzing transaction", id);
@@ -90,6 +267,73 @@ public class TransactionController {
         }
     }
 
+    @PostMapping("/reanalysis")
+    public ResponseEntity<?> startReanalysis(@Valid @RequestBody ReanalysisRequest reanalysisRequest) {
+        logger.info("POST /api/transactions/reanalysis - Re-analyzing {} transactions from {} to {}",
+                   reanalysisRequest.getStatus() != null ? reanalysisRequest.getStatus() : "all",
+                   reanalysisRequest.getFrom(), reanalysisRequest.getTo());
+
+        try {
+            ReanalysisJob job = reanalysisService.startJob(reanalysisRequest);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected re-analysis: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/reanalysis")
+    public ResponseEntity<List<ReanalysisJob>> getReanalysisJobs() {
+        logger.info("GET /api/transactions/reanalysis - Fetching re-analysis jobs");
+        return ResponseEntity.ok(reanalysisService.findJobs());
+    }
+
+    @GetMapping("/reanalysis/{jobId}")
+    public ResponseEntity<ReanalysisJob> getReanalysisJob(@PathVariable Long jobId) {
+        logger.info("GET /api/transactions/reanalysis/{} - Fetching re-analysis job", jobId);
+        return reanalysisService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reanalysis/{jobId}/cancel")
+    public ResponseEntity<?> cancelReanalysisJob(@PathVariable Long jobId) {
+        logger.info("POST /api/transactions/reanalysis/{}/cancel - Cancelling re-analysis job", jobId);
+        if (!reanalysisService.cancelJob(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<?> getArchivedTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) FraudStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("GET /api/transactions/archive - Scanning archived transactions from {} to {}", from, to);
+        try {
+            return ResponseEntity.ok(transactionArchiveService.findArchived(from, to, userId, status, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected archive scan: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/archive/parts")
+    public ResponseEntity<List<TransactionArchive>> getArchiveParts() {
+        logger.info("GET /api/transactions/archive/parts - Fetching archive catalogue");
+        return ResponseEntity.ok(transactionArchiveService.findArchives());
+    }
+
+    @PostMapping("/archive/run")
+    public ResponseEntity<List<TransactionArchive>> runArchive() {
+        logger.info("POST /api/transactions/archive/run - Archiving transactions past the retention");
+        return ResponseEntity.ok(transactionArchiveService.archiveExpired());
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Transaction>> getTransactionsByUser(@PathVariable Long userId) {
         logger.info("GET /api/transactions/user/{} - Fetching transactions by user", userId);
@@ -100,31 +344,32 @@ public class TransactionController {
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Transaction>> getTransactionsByStatus(@PathVariable FraudStatus status) {
+    public ResponseEntity<?> getTransactionsByStatus(@PathVariable FraudStatus status,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(required = false) Integer limit) {
         logger.info("GET /api/transactions/status/{} - Fetching transactions by fraud status", status);
-        List<Transaction> transactions = transactionRepository.findByFraudStatus(status);
-        return ResponseEntity.ok(transactions);
+        return findPage(status, cursor, limit);
     }
 
     @GetMapping("/fraudulent")
-    public ResponseEntity<List<Transaction>> getFraudulentTransactions() {
+    public ResponseEntity<?> getFraudulentTransactions(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
         logger.info("GET /api/transactions/fraudulent - Fetching fraudulent transactions");
-        List<Transaction> fraudulentTransactions = transactionRepository.findByFraudStatus(FraudStatus.FRAUDULENT);
-        return ResponseEntity.ok(fraudulentTransactions);
+        return findPage(FraudStatus.FRAUDULENT, cursor, limit);
     }
 
     @GetMapping("/suspicious")
-    public ResponseEntity<List<Transaction>> getSuspiciousTransactions() {
+    public ResponseEntity<?> getSuspiciousTransactions(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
         logger.info("GET /api/transactions/suspicious - Fetching suspicious transactions");
-        List<Transaction> suspiciousTransactions = transactionRepository.findByFraudStatus(FraudStatus.SUSPICIOUS);
-        return ResponseEntity.ok(suspiciousTransactions);
+        return findPage(FraudStatus.SUSPICIOUS, cursor, limit);
     }
 
     @GetMapping("/legitimate")
-    public ResponseEntity<List<Transaction>> getLegitimateTransactions() {
+    public ResponseEntity<?> getLegitimateTransactions(@RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit) {
         logger.info("GET /api/transactions/legitimate - Fetching legitimate transactions");
-        List<Transaction> legitimateTransactions = transactionRepository.findByFraudStatus(FraudStatus.LEGITIMATE);
-        return ResponseEntity.ok(legitimateTransactions);
+        return findPage(FraudStatus.LEGITIMATE, cursor, limit);
     }
 
     @PutMapping("/{id}/status")
@@ -1,5 +1,6 @@
 package com.example.fraud_detection.controller;
 
+import com.example.fraud_detection.dto.TransactionPage;
 import com.example.fraud_detection.model.Transaction;
 import com.example.fraud_detection.model.User;
 import com.example.fraud_detection.model.FraudRule;
@@ -7,11 +8,14 @@ import com.example.fraud_detection.model.FraudStatus;
 import com.example.fraud_detection.repository.TransactionRepository;
 import com.example.fraud_detection.repository.UserRepository;
 import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import com.example.fraud_detection.service.TransactionQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 import java.util.Optional;
@@ -28,13 +32,19 @@ public class WebController {
     @Autowired
     private FraudRuleRepository fraudRuleRepository;
 
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+
     @GetMapping("/")
     public String home(Model model) {
-        long userCount = userRepository.count();
-        long transactionCount = transactionRepository.count();
-        long fraudulentCount = transactionRepository.findByFraudStatus(FraudStatus.FRAUDULENT).size();
-        long suspiciousCount = transactionRepository.findByFraudStatus(FraudStatus.SUSPICIOUS).size();
-        long ruleCount = fraudRuleRepository.count();
+        long userCount = dashboardCounterService.getUserCount();
+        long transactionCount = dashboardCounterService.getTransactionCount();
+        long fraudulentCount = dashboardCounterService.getTransactionCount(FraudStatus.FRAUDULENT);
+        long suspiciousCount = dashboardCounterService.getTransactionCount(FraudStatus.SUSPICIOUS);
+        long ruleCount = dashboardCounterService.getRuleCount();
 
         model.addAttribute("userCount", userCount);
         model.addAttribute("transactionCount", transactionCount);
@@ -65,9 +75,19 @@ public class WebController {
     }
 
     @GetMapping("/transactions")
-    public String transactions(Model model) {
-        List<Transaction> transactions = transactionRepository.findAll();
-        model.addAttribute("transactions", transactions);
+    public String transactions(@RequestParam(required = false) String cursor, Model model) {
+        TransactionPage page;
+        try {
+            page = transactionQueryService.findPage(null, cursor, null);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/transactions";
+        }
+        model.addAttribute("transactions", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("transactionCount", dashboardCounterService.getTransactionCount());
+        model.addAttribute("legitimateCount", dashboardCounterService.getTransactionCount(FraudStatus.LEGITIMATE));
+        model.addAttribute("suspiciousCount", dashboardCounterService.getTransactionCount(FraudStatus.SUSPICIOUS));
+        model.addAttribute("fraudulentCount", dashboardCounterService.getTransactionCount(FraudStatus.FRAUDULENT));
         return "transactions";
     }
 
@@ -103,11 +123,14 @@ public class WebController {
 
     @GetMapping("/fraud-dashboard")
     public String fraudDashboard(Model model) {
-        List<Transaction> fraudulentTransactions = transactionRepository.findByFraudStatus(FraudStatus.FRAUDULENT);
-        List<Transaction> suspiciousTransactions = transactionRepository.findByFraudStatus(FraudStatus.SUSPICIOUS);
+        // Show the most recent page of each; the totals come from counts
+        List<Transaction> fraudulentTransactions = transactionQueryService.findPage(FraudStatus.FRAUDULENT, null, null).getItems();
+        List<Transaction> suspiciousTransactions = transactionQueryService.findPage(FraudStatus.SUSPICIOUS, null, null).getItems();
         
         model.addAttribute("fraudulentTransactions", fraudulentTransactions);
         model.addAttribute("suspiciousTransactions", suspiciousTransactions);
+        model.addAttribute("fraudulentCount", dashboardCounterService.getTransactionCount(FraudStatus.FRAUDULENT));
+        model.addAttribute("suspiciousCount", dashboardCounterService.getTransactionCount(FraudStatus.SUSPICIOUS));
         
         return "fraud-dashboard";
     }
@@ -0,0 +1,76 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.FraudStatus;
+import java.time.LocalDateTime;
+
+public class BacktestChange {
+
+    private Long transactionId;
+    private LocalDateTime transactionTime;
+    private FraudStatus storedStatus;
+    private Double storedScore;
+    private FraudStatus backtestStatus;
+    private double backtestScore;
+
+    // Constructors
+    public BacktestChange() {}
+
+    public BacktestChange(Long transactionId, LocalDateTime transactionTime, FraudStatus storedStatus,
+                          Double storedScore, FraudStatus backtestStatus, double backtestScore) {
+        this.transactionId = transactionId;
+        this.transactionTime = transactionTime;
+        this.storedStatus = storedStatus;
+        this.storedScore = storedScore;
+        this.backtestStatus = backtestStatus;
+        this.backtestScore = backtestScore;
+    }
+
+    // Getters and Setters
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public LocalDateTime getTransactionTime() {
+        return transactionTime;
+    }
+
+    public void setTransactionTime(LocalDateTime transactionTime) {
+        this.transactionTime = transactionTime;
+    }
+
+    public FraudStatus getStoredStatus() {
+        return storedStatus;
+    }
+
+    public void setStoredStatus(FraudStatus storedStatus) {
+        this.storedStatus = storedStatus;
+    }
+
+    public Double getStoredScore() {
+        return storedScore;
+    }
+
+    public void setStoredScore(Double storedScore) {
+        this.storedScore = storedScore;
+    }
+
+    public FraudStatus getBacktestStatus() {
+        return backtestStatus;
+    }
+
+    public void setBacktestStatus(FraudStatus backtestStatus) {
+        this.backtestStatus = backtestStatus;
+    }
+
+    public double getBacktestScore() {
+        return backtestScore;
+    }
+
+    public void setBacktestScore(double backtestScore) {
+        this.backtestScore = backtestScore;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.FraudStatus;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class BacktestReport {
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int ruleCount;
+    private int rejectedRuleCount;
+    private long scored;
+    private long replayed;
+    private long changed;
+    // Stored status -> backtest status -> transactions
+    private Map<FraudStatus, Map<FraudStatus, Long>> confusion = new EnumMap<>(FraudStatus.class);
+    private List<BacktestChange> changes = new ArrayList<>();
+    private boolean changesTruncated;
+    private long elapsedMillis;
+
+    // Constructors
+    public BacktestReport() {}
+
+    public BacktestReport(LocalDateTime from, LocalDateTime to, int ruleCount, int rejectedRuleCount) {
+        this.from = from;
+        this.to = to;
+        this.ruleCount = ruleCount;
+        this.rejectedRuleCount = rejectedRuleCount;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public void setRuleCount(int ruleCount) {
+        this.ruleCount = ruleCount;
+    }
+
+    public int getRejectedRuleCount() {
+        return rejectedRuleCount;
+    }
+
+    public void setRejectedRuleCount(int rejectedRuleCount) {
+        this.rejectedRuleCount = rejectedRuleCount;
+    }
+
+    /**
+     * @return Transactions inside the time range that were scored
+     */
+    public long getScored() {
+        return scored;
+    }
+
+    public void setScored(long scored) {
+        this.scored = scored;
+    }
+
+    /**
+     * @return All transactions read, including those before the range that only warm up the windows
+     */
+    public long getReplayed() {
+        return replayed;
+    }
+
+    public void setReplayed(long replayed) {
+        this.replayed = replayed;
+    }
+
+    /**
+     * @return Scored transactions whose decided status would change; PENDING ones are not counted
+     */
+    public long getChanged() {
+        return changed;
+    }
+
+    public void setChanged(long changed) {
+        this.changed = changed;
+    }
+
+    public Map<FraudStatus, Map<FraudStatus, Long>> getConfusion() {
+        return confusion;
+    }
+
+    public void setConfusion(Map<FraudStatus, Map<FraudStatus, Long>> confusion) {
+        this.confusion = confusion;
+    }
+
+    public List<BacktestChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<BacktestChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * @return true if more transactions changed than are listed in {@link #getChanges()}
+     */
+    public boolean isChangesTruncated() {
+        return changesTruncated;
+    }
+
+    public void setChangesTruncated(boolean changesTruncated) {
+        this.changesTruncated = changesTruncated;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.FraudRule;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BacktestRequest {
+
+    @NotNull(message = "Start of the time range is required")
+    private LocalDateTime from;
+
+    @NotNull(message = "End of the time range is required")
+    private LocalDateTime to;
+
+    // Candidate rule set; the currently active rules are used when omitted
+    private List<FraudRule> rules;
+
+    // Constructors
+    public BacktestRequest() {}
+
+    public BacktestRequest(LocalDateTime from, LocalDateTime to, List<FraudRule> rules) {
+        this.from = from;
+        this.to = to;
+        this.rules = rules;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    /**
+     * @return End of the time range, exclusive
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public List<FraudRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<FraudRule> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.fraud_detection.dto;
+
+import java.util.List;
+
+public class BatchTransactionResponse {
+
+    private int received;
+    private int created;
+    private int failed;
+    private List<BatchTransactionResult> results;
+
+    // Constructors
+    public BatchTransactionResponse() {}
+
+    public BatchTransactionResponse(List<BatchTransactionResult> results) {
+        this.results = results;
+        this.received = results.size();
+        for (BatchTransactionResult result : results) {
+            if (result.getError() == null) {
+                created++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchTransactionResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchTransactionResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.FraudStatus;
+
+public class BatchTransactionResult {
+
+    private int index;
+    private Long transactionId;
+    private FraudStatus fraudStatus;
+    private Double fraudScore;
+    private String error;
+
+    // Constructors
+    public BatchTransactionResult() {}
+
+    public static BatchTransactionResult success(int index, Long transactionId, FraudStatus fraudStatus, Double fraudScore) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.index = index;
+        result.transactionId = transactionId;
+        result.fraudStatus = fraudStatus;
+        result.fraudScore = fraudScore;
+        return result;
+    }
+
+    public static BatchTransactionResult failure(int index, String error) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.index = index;
+        result.error = error;
+        return result;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public FraudStatus getFraudStatus() {
+        return fraudStatus;
+    }
+
+    public void setFraudStatus(FraudStatus fraudStatus) {
+        this.fraudStatus = fraudStatus;
+    }
+
+    public Double getFraudScore() {
+        return fraudScore;
+    }
+
+    public void setFraudScore(Double fraudScore) {
+        this.fraudScore = fraudScore;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchTransactionResult{" +
+                "index=" + index +
+                ", transactionId=" + transactionId +
+                ", fraudStatus=" + fraudStatus +
+                ", fraudScore=" + fraudScore +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
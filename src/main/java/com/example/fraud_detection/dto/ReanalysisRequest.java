@@ -0,0 +1,54 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.FraudStatus;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+public class ReanalysisRequest {
+
+    // Re-score only transactions currently in this status; all statuses when omitted
+    private FraudStatus status;
+
+    @NotNull(message = "Start of the time range is required")
+    private LocalDateTime from;
+
+    @NotNull(message = "End of the time range is required")
+    private LocalDateTime to;
+
+    // Constructors
+    public ReanalysisRequest() {}
+
+    public ReanalysisRequest(FraudStatus status, LocalDateTime from, LocalDateTime to) {
+        this.status = status;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters and Setters
+    public FraudStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(FraudStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    /**
+     * @return End of the time range, exclusive
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.fraud_detection.dto;
+
+public class TransactionImportSummary {
+
+    private long received;
+    private long created;
+    private long failed;
+    private long elapsedMillis;
+
+    // Constructors
+    public TransactionImportSummary() {}
+
+    public TransactionImportSummary(long received, long created, long failed, long elapsedMillis) {
+        this.received = received;
+        this.created = created;
+        this.failed = failed;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters and Setters
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionImportSummary{" +
+                "received=" + received +
+                ", created=" + created +
+                ", failed=" + failed +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
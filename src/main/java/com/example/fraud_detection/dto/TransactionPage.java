@@ -0,0 +1,39 @@
+package com.example.fraud_detection.dto;
+
+import com.example.fraud_detection.model.Transaction;
+
+import java.util.List;
+
+public class TransactionPage {
+
+    private List<Transaction> items;
+    private String nextCursor;
+
+    // Constructors
+    public TransactionPage() {}
+
+    public TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Transaction> items) {
+        this.items = items;
+    }
+
+    /**
+     * @return Token for the following page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.fraud_detection.engine;
+
+/**
+ * Recent activity that velocity and IP fan-out checks are evaluated against.
+ *
+ * Live scoring reads the in-memory windows of the velocity and IP activity services; a
+ * backtest replays history into its own {@link ReplayActivityHistory} instead. Minutes are
+ * minutes since the epoch (UTC) and both bounds are inclusive.
+ */
+public interface ActivityHistory {
+
+    /**
+     * @return Number of transactions of the user between the two minutes
+     */
+    long countUserTransactions(Long userId, long fromMinute, long toMinute);
+
+    /**
+     * @return Total amount of the user's transactions between the two minutes, in cents as
+     *         from {@code Transaction.getAmountCents()}
+     */
+    long sumUserAmountCents(Long userId, long fromMinute, long toMinute);
+
+    /**
+     * Checks an IP address against fan-out limits; a limit of zero or less is ignored.
+     *
+     * @return true if any limit is reached between the two minutes
+     */
+    boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+                            int maxTransactions, int maxDistinctUsers, int maxDistinctCards);
+}
@@ -0,0 +1,53 @@
+package com.example.fraud_detection.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount limit compared in whole cents instead of {@link BigDecimal}.
+ *
+ * For a threshold of whole cents {@code t}, {@code amount > t} holds exactly when the amount
+ * rounded up to the next cent is greater than {@code t}, so comparing pre-computed ceiling
+ * cents gives the same answer as {@code amount.compareTo(threshold) > 0}. Thresholds with
+ * sub-cent digits fall back to that comparison.
+ */
+public final class AmountThreshold {
+
+    private final BigDecimal threshold;
+    private final long thresholdCents;
+    private final long floorCents;
+    private final boolean wholeCents;
+
+    public AmountThreshold(BigDecimal threshold) {
+        this.threshold = threshold;
+        BigDecimal cents = threshold.movePointRight(2);
+        // Also fall back for thresholds beyond the capped range of Transaction.getAmountCents()
+        this.wholeCents = cents.signum() == 0 || cents.stripTrailingZeros().scale() <= 0
+                && cents.toBigInteger().bitLength() < 63;
+        this.thresholdCents = wholeCents ? cents.setScale(0, RoundingMode.UNNECESSARY).longValue() : 0L;
+        BigDecimal floor = cents.setScale(0, RoundingMode.FLOOR);
+        this.floorCents = floor.toBigInteger().bitLength() < 64 ? floor.longValue()
+                : floor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    /**
+     * An integer total exceeds the threshold exactly when it exceeds the threshold's floor.
+     *
+     * @param totalCents A total of whole cents, such as a sum of {@code Transaction.getAmountCents()}
+     */
+    public boolean isExceededByTotal(long totalCents) {
+        return totalCents > floorCents;
+    }
+
+    /**
+     * @param amountCents The amount in cents rounded up, as from {@code Transaction.getAmountCents()}
+     * @param amount The same amount, only read for thresholds with sub-cent digits
+     */
+    public boolean isExceededBy(long amountCents, BigDecimal amount) {
+        return wholeCents ? amountCents > thresholdCents : amount.compareTo(threshold) > 0;
+    }
+
+    public BigDecimal getThreshold() {
+        return threshold;
+    }
+}
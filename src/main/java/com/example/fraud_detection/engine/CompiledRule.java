@@ -0,0 +1,218 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, pre-validated view of an active {@link FraudRule}.
+ *
+ * Rules that lack the fields their type needs can never match, so they are rejected at
+ * compile time instead of being re-checked on every transaction.
+ */
+public final class CompiledRule {
+
+    private final long id;
+    private final String ruleName;
+    private final RuleType ruleType;
+    private final double riskScore;
+    private final BigDecimal thresholdAmount;
+    private final AmountThreshold amountThreshold;
+    private final int timeWindowMinutes;
+    private final int maxOccurrences;
+    private final int maxDistinctUsers;
+    private final int maxDistinctCards;
+    private final String merchantCategory;
+    private final String locationRestriction;
+    private final List<IpPrefix> ipPrefixes;
+
+    private CompiledRule(FraudRule rule) {
+        this(rule, Collections.emptyList());
+    }
+
+    private CompiledRule(FraudRule rule, List<IpPrefix> ipPrefixes) {
+        this.id = rule.getId() != null ? rule.getId() : -1L;
+        this.ruleName = rule.getRuleName();
+        this.ruleType = rule.getRuleType();
+        this.riskScore = rule.getRiskScore() != null ? rule.getRiskScore() : 0.0;
+        this.thresholdAmount = rule.getThresholdAmount();
+        this.amountThreshold = thresholdAmount != null ? new AmountThreshold(thresholdAmount) : null;
+        this.timeWindowMinutes = rule.getTimeWindowMinutes() != null ? rule.getTimeWindowMinutes() : 0;
+        this.maxOccurrences = rule.getMaxOccurrences() != null ? rule.getMaxOccurrences() : 0;
+        this.maxDistinctUsers = rule.getMaxDistinctUsers() != null ? rule.getMaxDistinctUsers() : 0;
+        this.maxDistinctCards = rule.getMaxDistinctCards() != null ? rule.getMaxDistinctCards() : 0;
+        this.merchantCategory = rule.getMerchantCategory();
+        this.locationRestriction = rule.getLocationRestriction() != null
+                ? rule.getLocationRestriction().toLowerCase() : null;
+        this.ipPrefixes = Collections.unmodifiableList(ipPrefixes);
+    }
+
+    /**
+     * Compiles a rule, or returns null if it is missing the settings its type requires.
+     * IP rules may only use inline ranges.
+     */
+    public static CompiledRule compile(FraudRule rule) {
+        return compile(rule, IpRangeSource.NONE);
+    }
+
+    /**
+     * Compiles a rule, reading the range file of IP rules from the given source.
+     */
+    public static CompiledRule compile(FraudRule rule, IpRangeSource ipRangeSource) {
+        if (rule.getRuleType() == null) {
+            return null;
+        }
+        switch (rule.getRuleType()) {
+            case AMOUNT_THRESHOLD:
+                return rule.getThresholdAmount() != null ? new CompiledRule(rule) : null;
+            case VELOCITY_CHECK:
+                return rule.getTimeWindowMinutes() != null && rule.getMaxOccurrences() != null
+                        ? new CompiledRule(rule) : null;
+            case MERCHANT_CATEGORY:
+                return rule.getMerchantCategory() != null ? new CompiledRule(rule) : null;
+            case LOCATION_BASED:
+                return rule.getLocationRestriction() != null ? new CompiledRule(rule) : null;
+            case SPEND_VELOCITY:
+                return rule.getTimeWindowMinutes() != null && rule.getThresholdAmount() != null
+                        ? new CompiledRule(rule) : null;
+            case IP_FAN_OUT:
+                return rule.getTimeWindowMinutes() != null
+                        && (rule.getMaxOccurrences() != null || rule.getMaxDistinctUsers() != null
+                            || rule.getMaxDistinctCards() != null)
+                        ? new CompiledRule(rule) : null;
+            case IP_BASED:
+                List<IpPrefix> prefixes = parseIpRanges(rule, ipRangeSource);
+                return prefixes != null && !prefixes.isEmpty() ? new CompiledRule(rule, prefixes) : null;
+            default:
+                return new CompiledRule(rule);
+        }
+    }
+
+    /**
+     * @return Null if the range file cannot be read; invalid entries are skipped
+     */
+    private static List<IpPrefix> parseIpRanges(FraudRule rule, IpRangeSource ipRangeSource) {
+        List<String> entries = new ArrayList<>();
+        if (rule.getIpRanges() != null) {
+            Collections.addAll(entries, rule.getIpRanges().split("[,\\s]+"));
+        }
+        if (rule.getIpRangeFile() != null && !rule.getIpRangeFile().isBlank()) {
+            try {
+                entries.addAll(ipRangeSource.read(rule.getIpRangeFile().trim()));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        List<IpPrefix> prefixes = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            try {
+                prefixes.add(IpPrefix.parse(entry));
+            } catch (IllegalArgumentException e) {
+                // A malformed line must not disable the rest of a large list
+            }
+        }
+        return prefixes;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public RuleType getRuleType() {
+        return ruleType;
+    }
+
+    public double getRiskScore() {
+        return riskScore;
+    }
+
+    public BigDecimal getThresholdAmount() {
+        return thresholdAmount;
+    }
+
+    /**
+     * @return The threshold prepared for comparison in cents, null for rules without one
+     */
+    public AmountThreshold getAmountThreshold() {
+        return amountThreshold;
+    }
+
+    public int getTimeWindowMinutes() {
+        return timeWindowMinutes;
+    }
+
+    public int getMaxOccurrences() {
+        return maxOccurrences;
+    }
+
+    /**
+     * @return Distinct users per IP in the window that trigger the rule, 0 if not limited
+     */
+    public int getMaxDistinctUsers() {
+        return maxDistinctUsers;
+    }
+
+    /**
+     * @return Distinct cards per IP in the window that trigger the rule, 0 if not limited
+     */
+    public int getMaxDistinctCards() {
+        return maxDistinctCards;
+    }
+
+    public String getMerchantCategory() {
+        return merchantCategory;
+    }
+
+    /**
+     * @return The location restriction, already lower-cased
+     */
+    public String getLocationRestriction() {
+        return locationRestriction;
+    }
+
+    /**
+     * @return The parsed CIDR ranges of an IP rule, empty for other types
+     */
+    public List<IpPrefix> getIpPrefixes() {
+        return ipPrefixes;
+    }
+
+    /**
+     * @return true if any range of this IP rule contains the address
+     */
+    public boolean matchesIpAddress(String ipAddress) {
+        IpPrefix address = ipAddress != null ? IpPrefix.parseAddress(ipAddress.trim()) : null;
+        if (address == null) {
+            return false;
+        }
+        for (IpPrefix prefix : ipPrefixes) {
+            if (prefix.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledRule{" +
+                "id=" + id +
+                ", ruleName='" + ruleName + '\'' +
+                ", ruleType=" + ruleType +
+                ", riskScore=" + riskScore +
+                '}';
+    }
+}
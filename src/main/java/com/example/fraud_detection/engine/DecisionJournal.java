@@ -0,0 +1,290 @@
+package com.example.fraud_detection.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of scoring decisions in fixed-size binary records, written through
+ * memory-mapped segment files.
+ *
+ * An append claims the next sequence number with one atomic increment, which fixes its
+ * segment and slot, and writes the record into the mapped segment; the record's header is
+ * written last with release semantics, so readers only see complete records. Appends never
+ * lock, wait or touch the file system: a background roller maps each segment before the
+ * sequence reaches it, forces finished segments to disk and deletes the oldest ones beyond
+ * the retention, which opening the journal applies as well. An append whose segment is not
+ * mapped yet is dropped and counted instead of waiting. Records reach the page cache
+ * immediately, so they survive a process crash, but only segments the roller has forced are
+ * safe from an operating system crash.
+ *
+ * Record layout, little-endian, {@link #RECORD_SIZE} bytes:
+ * <pre>
+ *   0  header: magic (32) | flags (8) | checks (8) | skipped checks (8) | status ordinal (8)
+ *   8  sequence            16 transaction id        24 user id
+ *  32  epoch millis        40 rule snapshot version 48 score (double)
+ *  56  first skipped rule  64 rule hit bitmap, {@link DecisionTrace#RULE_WORDS} words
+ * </pre>
+ * The first skipped rule position is -1, and zero in journals written before scoring could
+ * stop early, unless {@link #FLAG_STOPPED_EARLY} is set.
+ */
+public final class DecisionJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionJournal.class);
+
+    public static final int RECORD_SIZE = 128;
+    public static final int MAGIC = 0x464A4431;
+    public static final int FLAG_RULES_TRUNCATED = 1;
+    public static final int FLAG_STOPPED_EARLY = 2;
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String MANIFEST_PREFIX = "snapshot-";
+    static final String MANIFEST_SUFFIX = ".rules";
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Slots of mapped segments by index; the roller keeps the current and the next one mapped
+    private static final int RING_SIZE = 4;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int retainedSegments;
+    private final AtomicLong sequence;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicReferenceArray<Segment> ring = new AtomicReferenceArray<>(RING_SIZE);
+    private final Thread roller;
+    private volatile boolean open = true;
+    private long forcedThrough;
+    private boolean rollerFailing;
+
+    /**
+     * Opens a journal in the directory, starting a new segment after any written ones, and
+     * deletes the oldest segments beyond the retention.
+     */
+    public DecisionJournal(Path directory, int recordsPerSegment, int retainedSegments) throws IOException {
+        if (recordsPerSegment <= 0 || (long) recordsPerSegment * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Records per segment out of range: " + recordsPerSegment);
+        }
+        if (retainedSegments < 2) {
+            throw new IllegalArgumentException("At least two segments must be retained: " + retainedSegments);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.retainedSegments = retainedSegments;
+
+        List<Path> existing = DecisionJournalReader.segments(directory);
+        long firstIndex = existing.isEmpty() ? 0 : segmentIndex(existing.get(existing.size() - 1)) + 1;
+        // The previous run mapped segments ahead that it never wrote to; continue in those
+        for (int i = existing.size() - 1; i >= 0 && isUnwritten(existing.get(i)); i--) {
+            firstIndex = segmentIndex(existing.get(i));
+        }
+        for (Path segment : existing) {
+            if (segmentIndex(segment) <= firstIndex - retainedSegments) {
+                Files.delete(segment);
+            }
+        }
+        this.sequence = new AtomicLong(firstIndex * recordsPerSegment);
+        this.forcedThrough = firstIndex;
+        map(firstIndex);
+        map(firstIndex + 1);
+
+        roller = new Thread(this::roll, "decision-journal-roller");
+        roller.setDaemon(true);
+        roller.start();
+    }
+
+    /**
+     * Appends one decision without blocking.
+     *
+     * @return false if the record was dropped because its segment was not mapped yet
+     */
+    public boolean append(long transactionId, long userId, long epochMillis, long ruleSetVersion,
+                          double score, int statusOrdinal, DecisionTrace trace) {
+        long seq = sequence.getAndIncrement();
+        long segmentIndex = seq / recordsPerSegment;
+        int slot = (int) (seq - segmentIndex * recordsPerSegment);
+        if (slot == 0) {
+            // Entering a new segment; have the roller map the one after it
+            LockSupport.unpark(roller);
+        }
+        Segment segment = ring.get((int) (segmentIndex % RING_SIZE));
+        if (segment == null || segment.index != segmentIndex) {
+            dropped.incrementAndGet();
+            LockSupport.unpark(roller);
+            return false;
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = slot * RECORD_SIZE;
+        LONGS.set(buffer, offset + 8, seq);
+        LONGS.set(buffer, offset + 16, transactionId);
+        LONGS.set(buffer, offset + 24, userId);
+        LONGS.set(buffer, offset + 32, epochMillis);
+        LONGS.set(buffer, offset + 40, ruleSetVersion);
+        LONGS.set(buffer, offset + 48, Double.doubleToRawLongBits(score));
+        LONGS.set(buffer, offset + 56, (long) trace.getFirstSkippedRule());
+        for (int word = 0; word < DecisionTrace.RULE_WORDS; word++) {
+            LONGS.set(buffer, offset + 64 + word * 8, trace.getRuleWord(word));
+        }
+        int flags = (trace.isTruncated() ? FLAG_RULES_TRUNCATED : 0)
+                | (trace.isStoppedEarly() ? FLAG_STOPPED_EARLY : 0);
+        long header = ((long) MAGIC << 32) | ((long) flags << 24) | ((long) (trace.getChecks() & 0xFF) << 16)
+                | ((long) (trace.getSkippedChecks() & 0xFF) << 8) | (statusOrdinal & 0xFF);
+        LONGS.setRelease(buffer, offset, header);
+        return true;
+    }
+
+    /**
+     * Writes the rules of a snapshot version, one line per position, unless already written,
+     * so readers can name the rules of a hit bitmap.
+     */
+    public void describeSnapshot(long version, List<String> rulesByPosition) throws IOException {
+        Path manifest = directory.resolve(manifestFileName(version));
+        if (!Files.exists(manifest)) {
+            Path temporary = Files.write(directory.resolve(manifest.getFileName() + ".tmp"), rulesByPosition);
+            Files.move(temporary, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    static String manifestFileName(long version) {
+        return MANIFEST_PREFIX + version + MANIFEST_SUFFIX;
+    }
+
+    /**
+     * @return Number of appends dropped because their segment was not mapped in time
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Sequence number the next append will claim
+     */
+    public long getNextSequence() {
+        return sequence.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops the roller and forces every mapped segment to disk.
+     */
+    @Override
+    public void close() {
+        open = false;
+        LockSupport.unpark(roller);
+        try {
+            roller.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < RING_SIZE; i++) {
+            Segment segment = ring.get(i);
+            if (segment != null) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    private void roll() {
+        while (open) {
+            try {
+                long current = sequence.get() / recordsPerSegment;
+                for (long index = current; index <= current + 1; index++) {
+                    Segment mapped = ring.get((int) (index % RING_SIZE));
+                    if (mapped == null || mapped.index != index) {
+                        map(index);
+                    }
+                }
+                // Finished segments no longer change; make them durable and apply the retention
+                for (; forcedThrough < current; forcedThrough++) {
+                    Segment finished = ring.get((int) (forcedThrough % RING_SIZE));
+                    if (finished != null && finished.index == forcedThrough) {
+                        finished.buffer.force();
+                    }
+                    long expired = forcedThrough + 1 - retainedSegments;
+                    if (expired >= 0) {
+                        Files.deleteIfExists(segmentPath(expired));
+                    }
+                }
+                if (rollerFailing) {
+                    rollerFailing = false;
+                    logger.info("Decision journal roller recovered in {}", directory);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // Appends keep being dropped and counted until mapping succeeds again; logged once per streak
+                if (!rollerFailing) {
+                    rollerFailing = true;
+                    logger.error("Decision journal roller failed in {}, dropping appends until it recovers",
+                            directory, e);
+                }
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private void map(long index) throws IOException {
+        Path path = segmentPath(index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) recordsPerSegment * RECORD_SIZE);
+            ring.set((int) (index % RING_SIZE), new Segment(index, buffer));
+        }
+    }
+
+    /**
+     * @return true if no slot of the segment holds a committed record
+     */
+    private static boolean isUnwritten(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+                if ((int) ((long) LONGS.get(buffer, offset) >>> 32) == MAGIC) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+
+        private final long index;
+        private final MappedByteBuffer buffer;
+
+        Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+}
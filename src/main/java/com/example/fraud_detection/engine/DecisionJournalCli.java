@@ -0,0 +1,190 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Command line access to a decision journal directory, run against the application jar with
+ * {@code java -cp fraud_detection.jar -Dloader.main=com.example.fraud_detection.engine.DecisionJournalCli
+ * org.springframework.boot.loader.launch.PropertiesLauncher <command> <directory> [filters]}.
+ *
+ * <pre>
+ *   replay &lt;directory&gt;                   prints every decision in sequence order
+ *   grep &lt;directory&gt; [filters]           prints the decisions matching all filters
+ *     --transaction ID  --user ID  --status STATUS  --version V  --rule POSITION
+ *     --min-score S  --limit N
+ * </pre>
+ *
+ * Rule positions are printed with the rule id and name when the journal holds the manifest
+ * of the record's snapshot version, and as {@code #position:unknown} when it does not.
+ * Decisions whose scoring stopped early list the checks and rules it skipped.
+ */
+public final class DecisionJournalCli {
+
+    private final PrintStream out;
+    private final Path directory;
+    private final Map<Long, List<String>> manifests = new HashMap<>();
+
+    private DecisionJournalCli(PrintStream out, Path directory) {
+        this.out = out;
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !("replay".equals(args[0]) || "grep".equals(args[0]))) {
+            System.err.println("Usage: replay <directory> | grep <directory> [--transaction ID] [--user ID]"
+                    + " [--status STATUS] [--version V] [--rule POSITION] [--min-score S] [--limit N]");
+            System.exit(2);
+            return;
+        }
+        Path directory = Paths.get(args[1]);
+        if (!Files.isDirectory(directory)) {
+            System.err.println("Not a journal directory: " + directory);
+            System.exit(1);
+            return;
+        }
+
+        Predicate<DecisionRecord> filter = record -> true;
+        long limit = Long.MAX_VALUE;
+        try {
+            for (int i = 2; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--transaction" -> {
+                        long id = Long.parseLong(value);
+                        filter = filter.and(record -> record.getTransactionId() == id);
+                    }
+                    case "--user" -> {
+                        long id = Long.parseLong(value);
+                        filter = filter.and(record -> record.getUserId() == id);
+                    }
+                    case "--status" -> {
+                        FraudStatus status = FraudStatus.valueOf(value.toUpperCase());
+                        filter = filter.and(record -> record.getStatus() == status);
+                    }
+                    case "--version" -> {
+                        long version = Long.parseLong(value);
+                        filter = filter.and(record -> record.getRuleSetVersion() == version);
+                    }
+                    case "--rule" -> {
+                        int position = Integer.parseInt(value);
+                        filter = filter.and(record -> record.hitRule(position));
+                    }
+                    case "--min-score" -> {
+                        double minScore = Double.parseDouble(value);
+                        filter = filter.and(record -> record.getScore() >= minScore);
+                    }
+                    case "--limit" -> limit = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown filter " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        new DecisionJournalCli(System.out, directory).print(filter, limit);
+    }
+
+    private void print(Predicate<DecisionRecord> filter, long limit) throws IOException {
+        long[] printed = {0};
+        long read = DecisionJournalReader.read(directory, record -> {
+            if (filter.test(record)) {
+                out.println(format(record));
+                printed[0]++;
+            }
+            return printed[0] < limit;
+        });
+        out.flush();
+        System.err.println(printed[0] + " of " + read + " decisions");
+    }
+
+    private String format(DecisionRecord record) {
+        StringBuilder line = new StringBuilder()
+                .append(record.getSequence()).append('\t')
+                .append(record.getTimestamp()).append('\t')
+                .append("tx=").append(record.getTransactionId()).append('\t')
+                .append("user=").append(record.getUserId()).append('\t')
+                .append(record.getStatus()).append('\t')
+                .append("score=").append(record.getScore()).append('\t')
+                .append("v=").append(record.getRuleSetVersion()).append('\t')
+                .append("checks=").append(formatChecks(record.getChecks())).append('\t')
+                .append("rules=");
+        List<String> manifest = manifest(record.getRuleSetVersion());
+        int[] positions = record.getHitRulePositions();
+        for (int i = 0; i < positions.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            int position = positions[i];
+            line.append(manifest != null && position < manifest.size() ? manifest.get(position) : unknownRule(position));
+        }
+        if (record.isRulesTruncated()) {
+            line.append(",...");
+        }
+        if (record.isStoppedEarly()) {
+            List<String> skipped = new ArrayList<>();
+            if (record.getSkippedChecks() != 0) {
+                skipped.add(formatChecks(record.getSkippedChecks()));
+            }
+            int first = record.getFirstSkippedRule();
+            if (first >= 0 && manifest != null) {
+                skipped.addAll(manifest.subList(Math.min(first, manifest.size()), manifest.size()));
+            } else if (first >= 0) {
+                skipped.add(unknownRule(first) + "+");
+            }
+            line.append('\t').append("skipped=").append(String.join(",", skipped));
+        }
+        return line.toString();
+    }
+
+    private static String unknownRule(int position) {
+        return "#" + position + ":unknown";
+    }
+
+    private static String formatChecks(int checks) {
+        StringBuilder names = new StringBuilder();
+        appendCheck(names, checks, DecisionTrace.AMOUNT_CHECK, "amount");
+        appendCheck(names, checks, DecisionTrace.VELOCITY_CHECK, "velocity");
+        appendCheck(names, checks, DecisionTrace.MERCHANT_CHECK, "merchant");
+        appendCheck(names, checks, DecisionTrace.TIME_CHECK, "time");
+        return names.length() > 0 ? names.toString() : "-";
+    }
+
+    private static void appendCheck(StringBuilder names, int checks, int check, String name) {
+        if ((checks & check) != 0) {
+            if (names.length() > 0) {
+                names.append(',');
+            }
+            names.append(name);
+        }
+    }
+
+    /**
+     * @return The rules of a snapshot version by position, or null if its manifest is missing
+     */
+    private List<String> manifest(long version) {
+        return manifests.computeIfAbsent(version, v -> {
+            Path file = directory.resolve(DecisionJournal.manifestFileName(v));
+            try {
+                return Files.isRegularFile(file) ? Files.readAllLines(file) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.fraud_detection.engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Reads the records of a {@link DecisionJournal} directory in sequence order.
+ *
+ * Reading is safe while the journal is being written: slots whose header is not committed
+ * yet, and the unused tail of segments closed by a restart, are skipped.
+ */
+public final class DecisionJournalReader {
+
+    private DecisionJournalReader() {
+    }
+
+    /**
+     * @return Segment files of the directory, oldest first
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(DecisionJournal.SEGMENT_PREFIX)
+                                && name.endsWith(DecisionJournal.SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(DecisionJournal::segmentIndex))
+                    .toList());
+        }
+    }
+
+    /**
+     * Passes every committed record to the visitor until it returns false.
+     *
+     * @return Number of records visited
+     */
+    public static long read(Path directory, Predicate<DecisionRecord> visitor) throws IOException {
+        long visited = 0;
+        for (Path segment : segments(directory)) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            int slots = buffer.capacity() / DecisionJournal.RECORD_SIZE;
+            for (int slot = 0; slot < slots; slot++) {
+                DecisionRecord record = readSlot(buffer, slot * DecisionJournal.RECORD_SIZE);
+                if (record == null) {
+                    continue;
+                }
+                visited++;
+                if (!visitor.test(record)) {
+                    return visited;
+                }
+            }
+        }
+        return visited;
+    }
+
+    private static DecisionRecord readSlot(MappedByteBuffer buffer, int offset) {
+        long header = (long) DecisionJournal.LONGS.getAcquire(buffer, offset);
+        if ((int) (header >>> 32) != DecisionJournal.MAGIC) {
+            return null;
+        }
+        long[] ruleHits = new long[DecisionTrace.RULE_WORDS];
+        for (int word = 0; word < ruleHits.length; word++) {
+            ruleHits[word] = (long) DecisionJournal.LONGS.get(buffer, offset + 64 + word * 8);
+        }
+        return new DecisionRecord(
+                (long) DecisionJournal.LONGS.get(buffer, offset + 8),
+                (long) DecisionJournal.LONGS.get(buffer, offset + 16),
+                (long) DecisionJournal.LONGS.get(buffer, offset + 24),
+                (long) DecisionJournal.LONGS.get(buffer, offset + 32),
+                (long) DecisionJournal.LONGS.get(buffer, offset + 40),
+                Double.longBitsToDouble((long) DecisionJournal.LONGS.get(buffer, offset + 48)),
+                (int) (header & 0xFF),
+                (int) ((header >>> 16) & 0xFF),
+                (int) ((header >>> 8) & 0xFF),
+                (int) ((header >>> 24) & 0xFF),
+                (int) (long) DecisionJournal.LONGS.get(buffer, offset + 56),
+                ruleHits);
+    }
+}
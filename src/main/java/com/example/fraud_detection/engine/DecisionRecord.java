@@ -0,0 +1,146 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * One decision read back from a {@link DecisionJournal}.
+ */
+public final class DecisionRecord {
+
+    private static final FraudStatus[] STATUSES = FraudStatus.values();
+
+    private final long sequence;
+    private final long transactionId;
+    private final long userId;
+    private final long epochMillis;
+    private final long ruleSetVersion;
+    private final double score;
+    private final int statusOrdinal;
+    private final int checks;
+    private final int skippedChecks;
+    private final int flags;
+    private final int firstSkippedRule;
+    private final long[] ruleHits;
+
+    DecisionRecord(long sequence, long transactionId, long userId, long epochMillis, long ruleSetVersion,
+                   double score, int statusOrdinal, int checks, int skippedChecks, int flags,
+                   int firstSkippedRule, long[] ruleHits) {
+        this.sequence = sequence;
+        this.transactionId = transactionId;
+        this.userId = userId;
+        this.epochMillis = epochMillis;
+        this.ruleSetVersion = ruleSetVersion;
+        this.score = score;
+        this.statusOrdinal = statusOrdinal;
+        this.checks = checks;
+        this.skippedChecks = skippedChecks;
+        this.flags = flags;
+        this.firstSkippedRule = firstSkippedRule;
+        this.ruleHits = ruleHits;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+    public long getRuleSetVersion() {
+        return ruleSetVersion;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return The decided status, or null if the journal was written by a build with more statuses
+     */
+    public FraudStatus getStatus() {
+        return statusOrdinal < STATUSES.length ? STATUSES[statusOrdinal] : null;
+    }
+
+    /**
+     * @return Bit set of the built-in checks that fired, see the {@link DecisionTrace} constants
+     */
+    public int getChecks() {
+        return checks;
+    }
+
+    /**
+     * @return true if scoring stopped once the outcome was decided, leaving checks or rules unevaluated
+     */
+    public boolean isStoppedEarly() {
+        return (flags & DecisionJournal.FLAG_STOPPED_EARLY) != 0;
+    }
+
+    /**
+     * @return Bit set of the built-in checks an early stop skipped, see the {@link DecisionTrace} constants
+     */
+    public int getSkippedChecks() {
+        return skippedChecks;
+    }
+
+    /**
+     * @return Snapshot position from which on every rule was skipped by an early stop, or -1
+     */
+    public int getFirstSkippedRule() {
+        return isStoppedEarly() ? firstSkippedRule : -1;
+    }
+
+    /**
+     * @return true if rules beyond the bitmap fired and are missing from {@link #getHitRulePositions()}
+     */
+    public boolean isRulesTruncated() {
+        return (flags & DecisionJournal.FLAG_RULES_TRUNCATED) != 0;
+    }
+
+    public boolean hitRule(int position) {
+        return position >= 0 && position < DecisionTrace.MAX_RULES
+                && (ruleHits[position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * @return Snapshot positions of the rules that fired, ascending
+     */
+    public int[] getHitRulePositions() {
+        int[] positions = new int[Arrays.stream(ruleHits).mapToInt(Long::bitCount).sum()];
+        int n = 0;
+        for (int word = 0; word < ruleHits.length; word++) {
+            for (long bits = ruleHits[word]; bits != 0; bits &= bits - 1) {
+                positions[n++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return positions;
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionRecord{" +
+                "sequence=" + sequence +
+                ", transactionId=" + transactionId +
+                ", userId=" + userId +
+                ", timestamp=" + getTimestamp() +
+                ", ruleSetVersion=" + ruleSetVersion +
+                ", score=" + score +
+                ", status=" + getStatus() +
+                ", checks=" + checks +
+                ", rules=" + Arrays.toString(getHitRulePositions()) +
+                (isRulesTruncated() ? ", truncated" : "") +
+                (isStoppedEarly() ? ", skippedChecks=" + skippedChecks + ", skippedFrom=" + getFirstSkippedRule() : "") +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.fraud_detection.engine;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Which built-in checks and snapshot rules fired while scoring one transaction.
+ *
+ * Rules are identified by their position in the snapshot, which together with the snapshot
+ * version names the rule. Positions beyond {@link #MAX_RULES} are not kept and mark the
+ * trace truncated. A calculation that stops once its outcome is decided also records the
+ * built-in checks it skipped and the first skipped rule position; every later position was
+ * skipped too. Reused by each scoring thread, so clearing and filling it allocates nothing.
+ *
+ * A trace kept on a transaction until its decision is journaled comes from a shared pool and
+ * goes back to it once appended, so the ingest path does not allocate one per transaction.
+ */
+public final class DecisionTrace {
+
+    // Enough for the decisions of full write-behind and async batches awaiting their commit
+    private static final int POOL_CAPACITY = 4096;
+    private static final ArrayBlockingQueue<DecisionTrace> POOL = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    public static final int AMOUNT_CHECK = 1;
+    public static final int VELOCITY_CHECK = 1 << 1;
+    public static final int MERCHANT_CHECK = 1 << 2;
+    public static final int TIME_CHECK = 1 << 3;
+
+    public static final int RULE_WORDS = 8;
+    public static final int MAX_RULES = RULE_WORDS * Long.SIZE;
+
+    private final long[] rules = new long[RULE_WORDS];
+    private int checks;
+    private boolean truncated;
+    private int skippedChecks;
+    private int firstSkippedRule = -1;
+
+    /**
+     * @return A pooled trace, or a new one if the pool is empty; its content is undefined
+     */
+    public static DecisionTrace acquire() {
+        DecisionTrace trace = POOL.poll();
+        return trace != null ? trace : new DecisionTrace();
+    }
+
+    /**
+     * Returns a trace no transaction refers to any more to the pool; dropped if it is full.
+     */
+    public static void release(DecisionTrace trace) {
+        POOL.offer(trace);
+    }
+
+    public void clear() {
+        for (int i = 0; i < RULE_WORDS; i++) {
+            rules[i] = 0L;
+        }
+        checks = 0;
+        truncated = false;
+        skippedChecks = 0;
+        firstSkippedRule = -1;
+    }
+
+    public void hitCheck(int check) {
+        checks |= check;
+    }
+
+    public void hitRule(int position) {
+        if (position < MAX_RULES) {
+            rules[position >>> 6] |= 1L << position;
+        } else {
+            truncated = true;
+        }
+    }
+
+    public void skipCheck(int check) {
+        skippedChecks |= check;
+    }
+
+    /**
+     * Marks the rules from the given snapshot position to the last one as not evaluated.
+     */
+    public void skipRulesFrom(int position) {
+        firstSkippedRule = position;
+    }
+
+    public void copyFrom(DecisionTrace other) {
+        System.arraycopy(other.rules, 0, rules, 0, RULE_WORDS);
+        checks = other.checks;
+        truncated = other.truncated;
+        skippedChecks = other.skippedChecks;
+        firstSkippedRule = other.firstSkippedRule;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    /**
+     * @return Bits of rule positions {@code 64 * word} to {@code 64 * word + 63}
+     */
+    public long getRuleWord(int word) {
+        return rules[word];
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public int getSkippedChecks() {
+        return skippedChecks;
+    }
+
+    /**
+     * @return Snapshot position of the first rule skipped by an early stop, or -1 if none was
+     */
+    public int getFirstSkippedRule() {
+        return firstSkippedRule;
+    }
+
+    public boolean isStoppedEarly() {
+        return skippedChecks != 0 || firstSkippedRule >= 0;
+    }
+}
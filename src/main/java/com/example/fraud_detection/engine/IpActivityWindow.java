@@ -0,0 +1,191 @@
+package com.example.fraud_detection.engine;
+
+import java.util.Arrays;
+
+/**
+ * Bounded ring of the most recent transactions seen from one IP address.
+ *
+ * Each entry keeps only the minute, user id and a card key, so memory per IP is fixed. When
+ * the ring is full the oldest entry is overwritten, which means every count saturates at the
+ * capacity; limits should be set below it.
+ */
+public final class IpActivityWindow {
+
+    /** Card key of transactions without a card number */
+    public static final int NO_CARD = 0;
+
+    private final long[] minutes;
+    private final long[] userIds;
+    private final int[] cardKeys;
+    // Scratch for distinct counting, guarded by the window's lock
+    private final long[] scratchUsers;
+    private final long[] scratchCards;
+
+    private int head;
+    private int size;
+    private int cardCount;
+    private long latestMinute = Long.MIN_VALUE;
+
+    public IpActivityWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.minutes = new long[capacity];
+        this.userIds = new long[capacity];
+        this.cardKeys = new int[capacity];
+        this.scratchUsers = new long[capacity];
+        this.scratchCards = new long[capacity];
+    }
+
+    /**
+     * Canonical key of an IP address: trimmed and lower-cased, or null if blank.
+     */
+    public static String normalizeAddress(String ipAddress) {
+        if (ipAddress == null) {
+            return null;
+        }
+        String trimmed = ipAddress.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase();
+    }
+
+    /**
+     * Maps a masked card number to a non-zero key; collisions only under-count distinct cards.
+     */
+    public static int cardKey(String cardNumberMasked) {
+        if (cardNumberMasked == null || cardNumberMasked.isEmpty()) {
+            return NO_CARD;
+        }
+        int key = cardNumberMasked.hashCode();
+        return key != NO_CARD ? key : 1;
+    }
+
+    public synchronized void add(long epochMinute, long userId, int cardKey) {
+        minutes[head] = epochMinute;
+        userIds[head] = userId;
+        cardKeys[head] = cardKey;
+        head = (head + 1) % minutes.length;
+        size = Math.min(size + 1, minutes.length);
+        latestMinute = Math.max(latestMinute, epochMinute);
+    }
+
+    /**
+     * Forgets the most recent matching entry of a transaction that was never persisted.
+     */
+    public synchronized void remove(long epochMinute, long userId, int cardKey) {
+        for (int n = 0; n < size; n++) {
+            int slot = slot(n);
+            if (minutes[slot] == epochMinute && userIds[slot] == userId && cardKeys[slot] == cardKey) {
+                // Tombstone keeps the ring order; it is outside every window
+                minutes[slot] = Long.MIN_VALUE;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counts transactions, distinct users and distinct cards between two minutes, inclusive.
+     */
+    public synchronized Counts count(long fromMinute, long toMinute) {
+        int transactions = collect(fromMinute, toMinute);
+        return new Counts(transactions, distinct(scratchUsers, transactions), distinct(scratchCards, cardCount));
+    }
+
+    /**
+     * Checks the window against fan-out limits without allocating. A limit of zero or less is ignored.
+     *
+     * @return true if any limit is reached between the two minutes, inclusive
+     */
+    public synchronized boolean reaches(long fromMinute, long toMinute,
+                                        int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+        int transactions = collect(fromMinute, toMinute);
+        return (maxTransactions > 0 && transactions >= maxTransactions)
+                || (maxDistinctUsers > 0 && transactions >= maxDistinctUsers
+                    && distinct(scratchUsers, transactions) >= maxDistinctUsers)
+                || (maxDistinctCards > 0 && cardCount >= maxDistinctCards
+                    && distinct(scratchCards, cardCount) >= maxDistinctCards);
+    }
+
+    /**
+     * Returns the most recent minute with a recorded transaction, or {@link Long#MIN_VALUE} if empty.
+     */
+    public synchronized long getLatestMinute() {
+        return latestMinute;
+    }
+
+    public int getCapacity() {
+        return minutes.length;
+    }
+
+    /**
+     * Copies the users and cards inside the window into the scratch arrays.
+     *
+     * @return Number of transactions in the window; {@link #cardCount} holds the number of cards
+     */
+    private int collect(long fromMinute, long toMinute) {
+        int transactions = 0;
+        cardCount = 0;
+        for (int n = 0; n < size; n++) {
+            int slot = slot(n);
+            long minute = minutes[slot];
+            if (minute < fromMinute || minute > toMinute) {
+                continue;
+            }
+            scratchUsers[transactions++] = userIds[slot];
+            if (cardKeys[slot] != NO_CARD) {
+                scratchCards[cardCount++] = cardKeys[slot];
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * @return Ring slot of the n-th most recent entry
+     */
+    private int slot(int n) {
+        return Math.floorMod(head - 1 - n, minutes.length);
+    }
+
+    private static long distinct(long[] values, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, length);
+        long distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (values[i] != values[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Activity of one IP inside a window.
+     */
+    public static final class Counts {
+
+        public static final Counts EMPTY = new Counts(0, 0, 0);
+
+        private final long transactions;
+        private final long distinctUsers;
+        private final long distinctCards;
+
+        Counts(long transactions, long distinctUsers, long distinctCards) {
+            this.transactions = transactions;
+            this.distinctUsers = distinctUsers;
+            this.distinctCards = distinctCards;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        public long getDistinctUsers() {
+            return distinctUsers;
+        }
+
+        public long getDistinctCards() {
+            return distinctCards;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.fraud_detection.engine;
+
+/**
+ * An IPv4 or IPv6 CIDR prefix held as a 128-bit key.
+ *
+ * IPv4 is mapped into {@code ::ffff:0:0/96}, so one trie serves both families and IPv4-mapped
+ * IPv6 addresses match IPv4 ranges. Parsing never resolves host names.
+ */
+public final class IpPrefix {
+
+    public static final int MAX_LENGTH = 128;
+
+    private static final long IPV4_MAPPED = 0xFFFFL << 32;
+    private static final int IPV4_OFFSET = 96;
+
+    private final long high;
+    private final long low;
+    private final int length;
+
+    IpPrefix(long high, long low, int length) {
+        this.high = length >= 64 ? high : high & mask(length);
+        this.low = length >= 64 ? low & mask(length - 64) : 0L;
+        this.length = length;
+    }
+
+    /**
+     * Parses a prefix such as {@code 10.0.0.0/8}, {@code 2001:db8::/32} or a bare address.
+     *
+     * @throws IllegalArgumentException if the text is not a valid prefix
+     */
+    public static IpPrefix parse(String cidr) {
+        String text = cidr.trim();
+        int slash = text.indexOf('/');
+        String address = slash < 0 ? text : text.substring(0, slash);
+
+        IpPrefix parsed = parseAddress(address);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid IP address: " + cidr);
+        }
+        if (slash < 0) {
+            return parsed;
+        }
+
+        boolean ipv4 = address.indexOf(':') < 0;
+        int length = parseDecimal(text, slash + 1, text.length(), ipv4 ? 32 : MAX_LENGTH);
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid prefix length: " + cidr);
+        }
+        return new IpPrefix(parsed.high, parsed.low, ipv4 ? IPV4_OFFSET + length : length);
+    }
+
+    /**
+     * Parses a single IPv4 or IPv6 address.
+     *
+     * @return The address as a full-length prefix, or null if it is not a valid address
+     */
+    public static IpPrefix parseAddress(String address) {
+        long[] key = new long[2];
+        return parseAddress(address, key, new int[8]) ? new IpPrefix(key[0], key[1], MAX_LENGTH) : null;
+    }
+
+    /**
+     * Parses a single IPv4 or IPv6 address into caller-owned buffers without allocating.
+     *
+     * @param key Receives the high and low halves of the address
+     * @param groups Scratch space of at least eight entries
+     * @return false if it is not a valid address
+     */
+    public static boolean parseAddress(String address, long[] key, int[] groups) {
+        if (address == null || address.isEmpty()) {
+            return false;
+        }
+        if (address.indexOf(':') < 0) {
+            long ipv4 = parseIpv4(address, 0, address.length());
+            if (ipv4 < 0) {
+                return false;
+            }
+            key[0] = 0L;
+            key[1] = IPV4_MAPPED | ipv4;
+            return true;
+        }
+        return parseIpv6(address, key, groups);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return Bit {@code index} of the key, counted from the most significant bit
+     */
+    int bit(int index) {
+        return bit(high, low, index);
+    }
+
+    /**
+     * @return Number of leading bits shared with the other key, capped at {@code limit}
+     */
+    int commonLength(long otherHigh, long otherLow, int limit) {
+        return commonLength(high, low, otherHigh, otherLow, limit);
+    }
+
+    static int bit(long high, long low, int index) {
+        return index < 64 ? (int) (high >>> (63 - index)) & 1 : (int) (low >>> (127 - index)) & 1;
+    }
+
+    static int commonLength(long high, long low, long otherHigh, long otherLow, int limit) {
+        long diff = high ^ otherHigh;
+        int common = diff != 0 ? Long.numberOfLeadingZeros(diff) : 64 + Long.numberOfLeadingZeros(low ^ otherLow);
+        return Math.min(common, limit);
+    }
+
+    public boolean contains(IpPrefix address) {
+        return address.length >= length && contains(address.high, address.low);
+    }
+
+    /**
+     * @return true if the full-length address given by its two halves lies inside this prefix
+     */
+    public boolean contains(long addressHigh, long addressLow) {
+        return commonLength(addressHigh, addressLow, length) == length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x/%d", high, low, length);
+    }
+
+    private static long mask(int length) {
+        return length <= 0 ? 0L : -1L << (64 - length);
+    }
+
+    /**
+     * @return The address as an unsigned 32-bit value, or -1 if invalid
+     */
+    private static long parseIpv4(String text, int from, int to) {
+        long value = 0;
+        int start = from;
+        for (int part = 0; part < 4; part++) {
+            int end = part < 3 ? text.indexOf('.', start) : to;
+            if (end < 0 || end > to) {
+                return -1;
+            }
+            int octet = parseDecimal(text, start, end, 255);
+            if (octet < 0) {
+                return -1;
+            }
+            value = (value << 8) | octet;
+            start = end + 1;
+        }
+        return value;
+    }
+
+    private static boolean parseIpv6(String text, long[] key, int[] groups) {
+        int count = 0;
+        int gap = -1;
+        int i = 0;
+        int length = text.length();
+
+        if (text.startsWith("::")) {
+            gap = 0;
+            i = 2;
+        }
+        while (i < length) {
+            if (count == 8) {
+                return false;
+            }
+            int end = i;
+            while (end < length && text.charAt(end) != ':') {
+                end++;
+            }
+
+            // An embedded IPv4 address fills the last two groups
+            if (text.lastIndexOf('.', end - 1) >= i) {
+                if (end != length || count > 6) {
+                    return false;
+                }
+                long ipv4 = parseIpv4(text, i, end);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xFFFF);
+                i = end;
+                break;
+            }
+
+            int group = parseHex(text, i, end);
+            if (group < 0) {
+                return false;
+            }
+            groups[count++] = group;
+
+            if (end == length) {
+                i = end;
+                break;
+            }
+            if (end + 1 < length && text.charAt(end + 1) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                i = end + 2;
+            } else {
+                if (end + 1 == length) {
+                    return false;
+                }
+                i = end + 1;
+            }
+        }
+
+        if (gap < 0 ? count != 8 : count > 7) {
+            return false;
+        }
+        if (gap >= 0) {
+            int shift = 8 - count;
+            System.arraycopy(groups, gap, groups, gap + shift, count - gap);
+            for (int g = gap; g < gap + shift; g++) {
+                groups[g] = 0;
+            }
+        }
+
+        long high = 0;
+        long low = 0;
+        for (int g = 0; g < 4; g++) {
+            high = (high << 16) | groups[g];
+            low = (low << 16) | groups[g + 4];
+        }
+        key[0] = high;
+        key[1] = low;
+        return true;
+    }
+
+    private static int parseDecimal(String text, int from, int to, int max) {
+        if (to <= from || to - from > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= max ? value : -1;
+    }
+
+    private static int parseHex(String text, int from, int to) {
+        if (to <= from || to - from > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
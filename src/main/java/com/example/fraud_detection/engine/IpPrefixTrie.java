@@ -0,0 +1,181 @@
+package com.example.fraud_detection.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path-compressed binary (Patricia) trie over the CIDR ranges of every {@code IP_BASED} rule.
+ *
+ * A lookup walks one node per distinct prefix length on the address's path and reports every
+ * rule with a range containing the address, not only the longest match. The trie is built
+ * from node objects and then flattened into parallel arrays, so lookups touch a few array
+ * slots instead of chasing pointers. Built once per {@link RuleSnapshot}, off the scoring
+ * threads, and immutable afterwards.
+ */
+public final class IpPrefixTrie {
+
+    private static final int[] NO_RULES = new int[0];
+
+    private final long[] highs;
+    private final long[] lows;
+    private final int[] lengths;
+    private final int[] zeroChildren;
+    private final int[] oneChildren;
+    private final int[][] outputs;
+    private final int prefixCount;
+
+    private IpPrefixTrie(long[] highs, long[] lows, int[] lengths, int[] zeroChildren, int[] oneChildren,
+                         int[][] outputs, int prefixCount) {
+        this.highs = highs;
+        this.lows = lows;
+        this.lengths = lengths;
+        this.zeroChildren = zeroChildren;
+        this.oneChildren = oneChildren;
+        this.outputs = outputs;
+        this.prefixCount = prefixCount;
+    }
+
+    /**
+     * Compiles the ranges of the given rules into one trie.
+     *
+     * @param rules All compiled rules of a snapshot; positions are reported back on match
+     */
+    static IpPrefixTrie build(List<CompiledRule> rules, List<Integer> ipRuleIndexes) {
+        Node root = new Node(new IpPrefix(0L, 0L, 0));
+        int prefixCount = 0;
+        for (int index : ipRuleIndexes) {
+            for (IpPrefix prefix : rules.get(index).getIpPrefixes()) {
+                insert(root, prefix, index);
+                prefixCount++;
+            }
+        }
+
+        // Flatten breadth-first so the top of the trie shares cache lines
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            for (Node child : node.children) {
+                if (child != null) {
+                    child.position = nodes.size();
+                    nodes.add(child);
+                }
+            }
+        }
+
+        int size = nodes.size();
+        long[] highs = new long[size];
+        long[] lows = new long[size];
+        int[] lengths = new int[size];
+        int[] zeroChildren = new int[size];
+        int[] oneChildren = new int[size];
+        int[][] outputs = new int[size][];
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(i);
+            highs[i] = node.prefix.getHigh();
+            lows[i] = node.prefix.getLow();
+            lengths[i] = node.prefix.getLength();
+            zeroChildren[i] = node.children[0] != null ? node.children[0].position : -1;
+            oneChildren[i] = node.children[1] != null ? node.children[1].position : -1;
+            outputs[i] = node.ruleIndexes.isEmpty() ? NO_RULES
+                    : node.ruleIndexes.stream().mapToInt(Integer::intValue).distinct().toArray();
+        }
+        return new IpPrefixTrie(highs, lows, lengths, zeroChildren, oneChildren, outputs, prefixCount);
+    }
+
+    /**
+     * Adds the position in {@link RuleSnapshot#getRules()} of every rule with a range containing
+     * the address, given by its two halves as parsed by {@link IpPrefix#parseAddress}.
+     *
+     * @return true if any rule matched
+     */
+    public boolean match(long addressHigh, long addressLow, RuleMatches matches) {
+        boolean matched = false;
+        int node = prefixCount == 0 ? -1 : 0;
+        while (node >= 0) {
+            int length = lengths[node];
+            if (IpPrefix.commonLength(addressHigh, addressLow, highs[node], lows[node], length) < length) {
+                break;
+            }
+            int[] found = outputs[node];
+            for (int index : found) {
+                matches.add(index);
+                matched = true;
+            }
+            if (length == IpPrefix.MAX_LENGTH) {
+                break;
+            }
+            node = IpPrefix.bit(addressHigh, addressLow, length) == 0 ? zeroChildren[node] : oneChildren[node];
+        }
+        return matched;
+    }
+
+    /**
+     * @return Number of ranges compiled into the trie, counting duplicates
+     */
+    public int getPrefixCount() {
+        return prefixCount;
+    }
+
+    /**
+     * @return Number of trie nodes after path compression
+     */
+    public int getNodeCount() {
+        return lengths.length;
+    }
+
+    private static void insert(Node root, IpPrefix prefix, int ruleIndex) {
+        Node node = root;
+        while (true) {
+            int length = node.prefix.getLength();
+            // Invariant: the prefix shares the node's first `length` bits
+            if (prefix.getLength() == length) {
+                node.ruleIndexes.add(ruleIndex);
+                return;
+            }
+
+            int bit = prefix.bit(length);
+            Node child = node.children[bit];
+            if (child == null) {
+                node.children[bit] = new Node(prefix, ruleIndex);
+                return;
+            }
+
+            int childLength = child.prefix.getLength();
+            int common = prefix.commonLength(child.prefix.getHigh(), child.prefix.getLow(),
+                    Math.min(childLength, prefix.getLength()));
+            if (common == childLength) {
+                node = child;
+                continue;
+            }
+
+            // Split the edge at the first differing bit, or where the new prefix ends
+            Node split = new Node(new IpPrefix(prefix.getHigh(), prefix.getLow(), common));
+            split.children[child.prefix.bit(common)] = child;
+            node.children[bit] = split;
+            if (common == prefix.getLength()) {
+                split.ruleIndexes.add(ruleIndex);
+            } else {
+                split.children[prefix.bit(common)] = new Node(prefix, ruleIndex);
+            }
+            return;
+        }
+    }
+
+    private static final class Node {
+
+        private final IpPrefix prefix;
+        private final Node[] children = new Node[2];
+        private final List<Integer> ruleIndexes = new ArrayList<>(1);
+        private int position;
+
+        private Node(IpPrefix prefix) {
+            this.prefix = prefix;
+        }
+
+        private Node(IpPrefix prefix, int ruleIndex) {
+            this(prefix);
+            ruleIndexes.add(ruleIndex);
+        }
+    }
+}
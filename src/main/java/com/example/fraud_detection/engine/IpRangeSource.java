@@ -0,0 +1,23 @@
+package com.example.fraud_detection.engine;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Resolves the named range file of an {@code IP_BASED} rule to its CIDR entries.
+ */
+@FunctionalInterface
+public interface IpRangeSource {
+
+    /** Source for contexts without range files; rules that reference one are rejected */
+    IpRangeSource NONE = name -> {
+        throw new IOException("IP range files are not available");
+    };
+
+    /**
+     * @param name The file name stored on the rule
+     * @return One CIDR range or address per entry
+     * @throws IOException if the file cannot be read or is not allowed
+     */
+    List<String> read(String name) throws IOException;
+}
@@ -0,0 +1,206 @@
+package com.example.fraud_detection.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over the location restrictions of every {@code LOCATION_BASED} rule,
+ * so one pass over a transaction's location finds all matching rules.
+ *
+ * Matches exactly what {@code location.toLowerCase().contains(restriction)} did per rule:
+ * restrictions arrive lower-cased from {@link CompiledRule}, the location is folded with the
+ * same default-locale conversion, and an empty restriction matches any location.
+ * Built once per {@link RuleSnapshot} and immutable afterwards.
+ */
+public final class LocationMatcher {
+
+    private static final int[] NO_RULES = new int[0];
+
+    // Goto function per state as sorted keys with parallel targets
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failure;
+    // Rule positions reported at each state, including those reached through failure links
+    private final int[][] outputs;
+    private final int[] alwaysMatching;
+    private final int patternCount;
+    // Per-character ASCII folding equals String.toLowerCase() except in these locales
+    private final boolean asciiFoldingExact;
+
+    private LocationMatcher(char[][] keys, int[][] targets, int[] failure, int[][] outputs,
+                            int[] alwaysMatching, int patternCount) {
+        this.keys = keys;
+        this.targets = targets;
+        this.failure = failure;
+        this.outputs = outputs;
+        this.alwaysMatching = alwaysMatching;
+        this.patternCount = patternCount;
+        String language = Locale.getDefault().getLanguage();
+        this.asciiFoldingExact = !language.equals("tr") && !language.equals("az") && !language.equals("lt");
+    }
+
+    /**
+     * Compiles the location restrictions of the given rules into one automaton.
+     *
+     * @param rules All compiled rules of a snapshot; positions are reported back on match
+     */
+    static LocationMatcher build(List<CompiledRule> rules, List<Integer> locationRuleIndexes) {
+        Map<String, List<Integer>> rulesByPattern = new LinkedHashMap<>();
+        List<Integer> empty = new ArrayList<>();
+        for (int index : locationRuleIndexes) {
+            String pattern = rules.get(index).getLocationRestriction();
+            if (pattern.isEmpty()) {
+                empty.add(index);
+            } else {
+                rulesByPattern.computeIfAbsent(pattern, key -> new ArrayList<>()).add(index);
+            }
+        }
+
+        // Trie construction
+        List<TreeMap<Character, Integer>> transitions = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        transitions.add(new TreeMap<>());
+        stateOutputs.add(new ArrayList<>());
+        for (Map.Entry<String, List<Integer>> entry : rulesByPattern.entrySet()) {
+            int state = 0;
+            for (char c : entry.getKey().toCharArray()) {
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.add(new TreeMap<>());
+                    stateOutputs.add(new ArrayList<>());
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            stateOutputs.get(state).addAll(entry.getValue());
+        }
+
+        int stateCount = transitions.size();
+        char[][] keys = new char[stateCount][];
+        int[][] targets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> edges = transitions.get(state);
+            keys[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                keys[state][i] = edge.getKey();
+                targets[state][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // Failure links in breadth-first order, so a state's failure target is final before its children
+        int[] failure = new int[stateCount];
+        int[][] outputs = new int[stateCount][];
+        outputs[0] = NO_RULES;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(stateOutputs.get(state), outputs[failure[state]]);
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = targets[state][i];
+                int fallback = failure[state];
+                while (fallback != 0 && next(keys, targets, fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int target = next(keys, targets, fallback, c);
+                failure[child] = target >= 0 && target != child ? target : 0;
+                queue.add(child);
+            }
+        }
+
+        int[] alwaysMatching = empty.stream().mapToInt(Integer::intValue).toArray();
+        return new LocationMatcher(keys, targets, failure, outputs, alwaysMatching, rulesByPattern.size());
+    }
+
+    /**
+     * Adds the position in {@link RuleSnapshot#getRules()} of every rule matching the location.
+     *
+     * ASCII locations are folded character by character as they are scanned; anything else is
+     * lower-cased as a whole first, which is the only case that allocates.
+     *
+     * @return true if any rule matched
+     */
+    public boolean match(String location, RuleMatches matches) {
+        if (location == null) {
+            return false;
+        }
+
+        boolean matched = false;
+        for (int index : alwaysMatching) {
+            matches.add(index);
+            matched = true;
+        }
+        if (patternCount == 0) {
+            return matched;
+        }
+
+        boolean foldAscii = asciiFoldingExact && isAscii(location);
+        String text = foldAscii ? location : location.toLowerCase();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (foldAscii && c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            int target = next(keys, targets, state, c);
+            while (target < 0 && state != 0) {
+                state = failure[state];
+                target = next(keys, targets, state, c);
+            }
+            state = target < 0 ? 0 : target;
+
+            for (int index : outputs[state]) {
+                matches.add(index);
+                matched = true;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return Number of distinct non-empty restrictions compiled into the automaton
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int next(char[][] keys, int[][] targets, int state, char c) {
+        int i = Arrays.binarySearch(keys[state], c);
+        return i >= 0 ? targets[state][i] : -1;
+    }
+
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(inherited, inherited.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            merged[inherited.length + i] = own.get(i);
+        }
+        return merged;
+    }
+}
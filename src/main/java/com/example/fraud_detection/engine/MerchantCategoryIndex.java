@@ -0,0 +1,137 @@
+package com.example.fraud_detection.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Case-insensitive hash index from merchant category to every {@code MERCHANT_CATEGORY} rule
+ * that matches it, so a single lookup resolves all category rules for a transaction.
+ *
+ * Categories are compared with {@link String#equalsIgnoreCase}, exactly as rules were matched
+ * one by one, and hashed over case-folded characters so a lookup never builds a normalized
+ * copy of the input. Built once per {@link RuleSnapshot} and immutable afterwards.
+ */
+public final class MerchantCategoryIndex {
+
+    // Open addressing with linear probing; the table is at most half full
+    private final String[] categories;
+    private final Match[] matches;
+    private final int mask;
+    private final int categoryCount;
+
+    private MerchantCategoryIndex(String[] categories, Match[] matches, int categoryCount) {
+        this.categories = categories;
+        this.matches = matches;
+        this.mask = categories.length - 1;
+        this.categoryCount = categoryCount;
+    }
+
+    /**
+     * Indexes the category rules among the given rules.
+     *
+     * @param rules All compiled rules of a snapshot; positions are kept for per-rule metrics
+     */
+    static MerchantCategoryIndex build(List<CompiledRule> rules, List<Integer> categoryRuleIndexes) {
+        // Group rules whose categories are equal ignoring case, keeping the first spelling as key
+        List<List<Integer>> groups = new ArrayList<>();
+        int capacity = Integer.highestOneBit(Math.max(1, categoryRuleIndexes.size()) * 4);
+        String[] table = new String[capacity];
+        int[] groupOfSlot = new int[capacity];
+        for (int index : categoryRuleIndexes) {
+            String category = rules.get(index).getMerchantCategory();
+            int slot = hash(category) & (capacity - 1);
+            while (table[slot] != null && !table[slot].equalsIgnoreCase(category)) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (table[slot] == null) {
+                table[slot] = category;
+                groupOfSlot[slot] = groups.size();
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groupOfSlot[slot]).add(index);
+        }
+
+        Match[] matches = new Match[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table[slot] != null) {
+                matches[slot] = new Match(rules, groups.get(groupOfSlot[slot]));
+            }
+        }
+        return new MerchantCategoryIndex(table, matches, groups.size());
+    }
+
+    /**
+     * @return Every rule matching the category, or null if none does
+     */
+    public Match find(String merchantCategory) {
+        if (merchantCategory == null || categoryCount == 0) {
+            return null;
+        }
+        int slot = hash(merchantCategory) & mask;
+        String candidate;
+        while ((candidate = categories[slot]) != null) {
+            if (candidate.equalsIgnoreCase(merchantCategory)) {
+                return matches[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    /**
+     * Hash that agrees with {@link String#equalsIgnoreCase}: characters it treats as equal
+     * fold to the same value here.
+     */
+    private static int hash(String category) {
+        int hash = 0;
+        for (int i = 0; i < category.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(category.charAt(i)));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The category rules sharing one category and their combined risk score.
+     */
+    public static final class Match {
+
+        private final List<CompiledRule> rules;
+        private final int[] ruleIndexes;
+        private final double combinedScore;
+
+        private Match(List<CompiledRule> snapshotRules, List<Integer> indexes) {
+            List<CompiledRule> matched = new ArrayList<>(indexes.size());
+            int[] positions = new int[indexes.size()];
+            double score = 0.0;
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = indexes.get(i);
+                CompiledRule rule = snapshotRules.get(positions[i]);
+                matched.add(rule);
+                score += rule.getRiskScore();
+            }
+            this.rules = Collections.unmodifiableList(matched);
+            this.ruleIndexes = positions;
+            this.combinedScore = score;
+        }
+
+        public List<CompiledRule> getRules() {
+            return rules;
+        }
+
+        /**
+         * @return Positions of the matched rules in {@link RuleSnapshot#getRules()}; do not modify
+         */
+        public int[] getRuleIndexes() {
+            return ruleIndexes;
+        }
+
+        public double getCombinedScore() {
+            return combinedScore;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.fraud_detection.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Activity history rebuilt by replaying stored transactions in time order, for backtests.
+ *
+ * Every recorded transaction gets the next sequence number, and {@link #asOf} answers as if
+ * nothing after a given one had been recorded yet. A whole chunk can therefore be recorded
+ * up front and then scored in parallel, each transaction against exactly the history live
+ * scoring would have had: everything before it and itself. IP windows keep the most recent
+ * {@code maxEventsPerIp} transactions as of that point, like the live bounded windows.
+ *
+ * Only events inside the horizon behind the replay position are kept, so memory follows the
+ * activity of one horizon rather than the length of the replayed range. Recording is
+ * single-threaded; between recordings any number of threads may query concurrently.
+ */
+public final class ReplayActivityHistory implements ActivityHistory {
+
+    private final int horizonMinutes;
+    private final int maxEventsPerIp;
+    private final Map<Long, MinuteLog> users = new HashMap<>();
+    private final Map<String, IpLog> ips = new HashMap<>();
+    private long nextSequence;
+
+    public ReplayActivityHistory(int horizonMinutes, int maxEventsPerIp) {
+        if (horizonMinutes <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizonMinutes);
+        }
+        if (maxEventsPerIp <= 0) {
+            throw new IllegalArgumentException("IP window capacity must be positive: " + maxEventsPerIp);
+        }
+        this.horizonMinutes = horizonMinutes;
+        this.maxEventsPerIp = maxEventsPerIp;
+    }
+
+    /**
+     * Records one transaction; calls must come in non-decreasing minute order.
+     *
+     * @return Sequence number of the transaction, to read the history {@link #asOf} it
+     */
+    public long record(Long userId, long epochMinute, long amountCents, String ipAddress, String cardNumberMasked) {
+        long sequence = nextSequence++;
+        users.computeIfAbsent(userId, id -> new MinuteLog()).add(epochMinute, amountCents, sequence);
+        String ip = IpActivityWindow.normalizeAddress(ipAddress);
+        if (ip != null) {
+            ips.computeIfAbsent(ip, key -> new IpLog())
+                    .add(epochMinute, userId, IpActivityWindow.cardKey(cardNumberMasked), sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Forgets everything that no window ending at or after {@code epochMinute} can reach, and
+     * IP activity that later transactions' bounded windows no longer hold.
+     */
+    public void advanceTo(long epochMinute) {
+        long cutoff = epochMinute - horizonMinutes;
+        users.values().removeIf(log -> log.pruneBefore(cutoff));
+        ips.values().removeIf(log -> log.prune(cutoff, maxEventsPerIp));
+    }
+
+    /**
+     * @return The history as it stood right after the transaction with the given sequence
+     *         number was recorded
+     */
+    public ActivityHistory asOf(long sequence) {
+        return new ActivityHistory() {
+            @Override
+            public long countUserTransactions(Long userId, long fromMinute, long toMinute) {
+                return ReplayActivityHistory.this.countUserTransactions(userId, fromMinute, toMinute, sequence);
+            }
+
+            @Override
+            public long sumUserAmountCents(Long userId, long fromMinute, long toMinute) {
+                return ReplayActivityHistory.this.sumUserAmountCents(userId, fromMinute, toMinute, sequence);
+            }
+
+            @Override
+            public boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+                                           int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+                return ReplayActivityHistory.this.reachesIpLimits(ipAddress, fromMinute, toMinute,
+                        maxTransactions, maxDistinctUsers, maxDistinctCards, sequence);
+            }
+        };
+    }
+
+    @Override
+    public long countUserTransactions(Long userId, long fromMinute, long toMinute) {
+        return countUserTransactions(userId, fromMinute, toMinute, Long.MAX_VALUE);
+    }
+
+    @Override
+    public long sumUserAmountCents(Long userId, long fromMinute, long toMinute) {
+        return sumUserAmountCents(userId, fromMinute, toMinute, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+                                   int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+        return reachesIpLimits(ipAddress, fromMinute, toMinute, maxTransactions, maxDistinctUsers, maxDistinctCards,
+                Long.MAX_VALUE);
+    }
+
+    public int getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    private long countUserTransactions(Long userId, long fromMinute, long toMinute, long sequence) {
+        MinuteLog log = users.get(userId);
+        return log != null ? log.count(Math.max(fromMinute, toMinute - horizonMinutes), toMinute, sequence) : 0;
+    }
+
+    private long sumUserAmountCents(Long userId, long fromMinute, long toMinute, long sequence) {
+        MinuteLog log = users.get(userId);
+        return log != null ? log.sum(Math.max(fromMinute, toMinute - horizonMinutes), toMinute, sequence) : 0;
+    }
+
+    private boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute, int maxTransactions,
+                                    int maxDistinctUsers, int maxDistinctCards, long sequence) {
+        String ip = IpActivityWindow.normalizeAddress(ipAddress);
+        IpLog log = ip != null ? ips.get(ip) : null;
+        return log != null && log.reaches(Math.max(fromMinute, toMinute - horizonMinutes), toMinute,
+                maxTransactions, maxDistinctUsers, maxDistinctCards, sequence, maxEventsPerIp);
+    }
+
+    private static long distinct(long[] values, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        Arrays.sort(values, 0, length);
+        long distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (values[i] != values[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Sorted minutes of one user's transactions with the running total of their cents and
+     * their sequence numbers, held in a growable ring. Minutes and sequence numbers both
+     * ascend, so the entries recorded up to a sequence number are a prefix.
+     */
+    private static final class MinuteLog {
+
+        private long[] minutes = new long[8];
+        private long[] totals = new long[8];
+        private long[] sequences = new long[8];
+        private int head;
+        private int size;
+        // Running total just before the oldest retained entry
+        private long prunedTotal;
+
+        void add(long minute, long cents, long sequence) {
+            if (size == minutes.length) {
+                resize(size * 2);
+            }
+            long total = (size > 0 ? totalAt(size - 1) : prunedTotal) + cents;
+            int slot = (head + size) % minutes.length;
+            minutes[slot] = minute;
+            totals[slot] = total;
+            sequences[slot] = sequence;
+            size++;
+        }
+
+        /**
+         * @return true if the log became empty
+         */
+        boolean pruneBefore(long minute) {
+            while (size > 0 && minutes[head] < minute) {
+                prunedTotal = totals[head];
+                head = (head + 1) % minutes.length;
+                size--;
+            }
+            if (size == 0) {
+                return true;
+            }
+            if (size < minutes.length / 4 && minutes.length > 8) {
+                resize(Math.max(8, minutes.length / 2));
+            }
+            return false;
+        }
+
+        long count(long fromMinute, long toMinute, long sequence) {
+            if (toMinute < fromMinute) {
+                return 0;
+            }
+            int recorded = recordedThrough(sequence);
+            return Math.min(firstAfter(toMinute), recorded) - Math.min(firstAfter(fromMinute - 1), recorded);
+        }
+
+        long sum(long fromMinute, long toMinute, long sequence) {
+            if (toMinute < fromMinute) {
+                return 0;
+            }
+            int recorded = recordedThrough(sequence);
+            return totalBefore(Math.min(firstAfter(toMinute), recorded))
+                    - totalBefore(Math.min(firstAfter(fromMinute - 1), recorded));
+        }
+
+        /**
+         * @return Running total of the entries before the given logical position
+         */
+        private long totalBefore(int position) {
+            return position > 0 ? totalAt(position - 1) : prunedTotal;
+        }
+
+        /**
+         * @return Logical position of the first minute greater than the given one
+         */
+        private int firstAfter(long minute) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (at(mid) <= minute) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return Number of entries recorded up to the sequence number
+         */
+        private int recordedThrough(long sequence) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sequences[(head + mid) % minutes.length] <= sequence) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void resize(int capacity) {
+            long[] resizedMinutes = new long[capacity];
+            long[] resizedTotals = new long[capacity];
+            long[] resizedSequences = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % minutes.length;
+                resizedMinutes[i] = minutes[slot];
+                resizedTotals[i] = totals[slot];
+                resizedSequences[i] = sequences[slot];
+            }
+            minutes = resizedMinutes;
+            totals = resizedTotals;
+            sequences = resizedSequences;
+            head = 0;
+        }
+
+        private long at(int i) {
+            return minutes[(head + i) % minutes.length];
+        }
+
+        private long totalAt(int i) {
+            return totals[(head + i) % minutes.length];
+        }
+    }
+
+    /**
+     * One IP's transactions in record order, as parallel arrays compacted when pruned.
+     */
+    private static final class IpLog {
+
+        private long[] minutes = new long[8];
+        private long[] userIds = new long[8];
+        private int[] cardKeys = new int[8];
+        private long[] sequences = new long[8];
+        private int size;
+
+        void add(long minute, long userId, int cardKey, long sequence) {
+            if (size == minutes.length) {
+                int capacity = size * 2;
+                minutes = Arrays.copyOf(minutes, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                cardKeys = Arrays.copyOf(cardKeys, capacity);
+                sequences = Arrays.copyOf(sequences, capacity);
+            }
+            minutes[size] = minute;
+            userIds[size] = userId;
+            cardKeys[size] = cardKey;
+            sequences[size] = sequence;
+            size++;
+        }
+
+        /**
+         * Keeps the entries from the cutoff minute on, and at most the capacity most recent.
+         *
+         * @return true if the log became empty
+         */
+        boolean prune(long cutoff, int capacity) {
+            int first = Math.max(0, size - capacity);
+            while (first < size && minutes[first] < cutoff) {
+                first++;
+            }
+            if (first > 0) {
+                int kept = size - first;
+                System.arraycopy(minutes, first, minutes, 0, kept);
+                System.arraycopy(userIds, first, userIds, 0, kept);
+                System.arraycopy(cardKeys, first, cardKeys, 0, kept);
+                System.arraycopy(sequences, first, sequences, 0, kept);
+                size = kept;
+            }
+            return size == 0;
+        }
+
+        /**
+         * Checks the limits against the capacity most recent entries recorded up to the
+         * sequence number, as a live bounded window would hold them.
+         */
+        boolean reaches(long fromMinute, long toMinute, int maxTransactions, int maxDistinctUsers,
+                        int maxDistinctCards, long sequence, int capacity) {
+            int end = recordedThrough(sequence);
+            int start = Math.max(0, end - capacity);
+            int transactions = 0;
+            int cards = 0;
+            for (int i = start; i < end; i++) {
+                if (minutes[i] >= fromMinute && minutes[i] <= toMinute) {
+                    transactions++;
+                    if (cardKeys[i] != IpActivityWindow.NO_CARD) {
+                        cards++;
+                    }
+                }
+            }
+            if (maxTransactions > 0 && transactions >= maxTransactions) {
+                return true;
+            }
+            if (maxDistinctUsers > 0 && transactions >= maxDistinctUsers
+                    && distinct(collect(start, end, fromMinute, toMinute, transactions, false), transactions)
+                            >= maxDistinctUsers) {
+                return true;
+            }
+            return maxDistinctCards > 0 && cards >= maxDistinctCards
+                    && distinct(collect(start, end, fromMinute, toMinute, cards, true), cards) >= maxDistinctCards;
+        }
+
+        /**
+         * @return The user ids, or the card keys, of the entries inside the window
+         */
+        private long[] collect(int start, int end, long fromMinute, long toMinute, int length, boolean cards) {
+            long[] values = new long[length];
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                if (minutes[i] < fromMinute || minutes[i] > toMinute) {
+                    continue;
+                }
+                if (!cards) {
+                    values[n++] = userIds[i];
+                } else if (cardKeys[i] != IpActivityWindow.NO_CARD) {
+                    values[n++] = cardKeys[i];
+                }
+            }
+            return values;
+        }
+
+        private int recordedThrough(long sequence) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sequences[mid] <= sequence) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
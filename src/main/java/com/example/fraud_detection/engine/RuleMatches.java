@@ -0,0 +1,60 @@
+package com.example.fraud_detection.engine;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, de-duplicated list of rule positions matched during one calculation.
+ *
+ * Membership is tracked with generation stamps, so resetting is O(1) and the buffers only
+ * grow until they fit the largest snapshot; after that a calculation allocates nothing.
+ * Not thread-safe: each scoring thread keeps its own instance.
+ */
+public final class RuleMatches {
+
+    private int[] stamps = new int[0];
+    private int generation;
+    private int[] matched = new int[16];
+    private int size;
+
+    /**
+     * Starts a new calculation over a snapshot with the given number of rules.
+     */
+    public void reset(int ruleCount) {
+        if (stamps.length < ruleCount) {
+            stamps = new int[ruleCount];
+            generation = 0;
+        }
+        generation++;
+        if (generation == 0) {
+            // Stamps wrapped around; clear them so no stale entry looks current
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds a rule position unless it was already matched in this calculation.
+     */
+    public void add(int ruleIndex) {
+        if (stamps[ruleIndex] == generation) {
+            return;
+        }
+        stamps[ruleIndex] = generation;
+        if (size == matched.length) {
+            matched = Arrays.copyOf(matched, size * 2);
+        }
+        matched[size++] = ruleIndex;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The rule position of the i-th match, in the order matches were added
+     */
+    public int get(int i) {
+        return matched[i];
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of compiled active rules, identified by a version number.
+ *
+ * A snapshot is built once per rule change and then shared by every scoring thread, so it
+ * must never be mutated after construction.
+ *
+ * Rules are positioned in evaluation order: the rules answered by the category, location and
+ * IP indexes first, then the scanned rules that only read the transaction's own fields, then
+ * the scanned rules that read activity history, each group from the highest risk score down.
+ * The scanned rules thus take the last positions, in the order they are evaluated, and the
+ * rules an early-terminated calculation skips are always the positions from some point on.
+ */
+public final class RuleSnapshot {
+
+    private final long version;
+    private final LocalDateTime compiledAt;
+    private final List<CompiledRule> rules;
+    private final Map<RuleType, List<CompiledRule>> rulesByType;
+    private final int[] scannedRuleIndexes;
+    private final int historyRuleOffset;
+    private final double[] minimumRemainingScores;
+    private final int longestUserWindowMinutes;
+    private final MerchantCategoryIndex merchantCategoryIndex;
+    private final LocationMatcher locationMatcher;
+    private final IpPrefixTrie ipPrefixTrie;
+    private final int rejectedRuleCount;
+
+    private RuleSnapshot(long version, List<CompiledRule> rules, int rejectedRuleCount) {
+        this.version = version;
+        this.compiledAt = LocalDateTime.now();
+        this.rules = Collections.unmodifiableList(rules);
+        this.rejectedRuleCount = rejectedRuleCount;
+
+        Map<RuleType, List<CompiledRule>> grouped = new EnumMap<>(RuleType.class);
+        for (RuleType type : RuleType.values()) {
+            grouped.put(type, new ArrayList<>());
+        }
+        for (CompiledRule rule : rules) {
+            grouped.get(rule.getRuleType()).add(rule);
+        }
+        grouped.replaceAll((type, typed) -> Collections.unmodifiableList(typed));
+        this.rulesByType = Collections.unmodifiableMap(grouped);
+
+        List<Integer> categoryRuleIndexes = new ArrayList<>();
+        List<Integer> locationRuleIndexes = new ArrayList<>();
+        List<Integer> ipRuleIndexes = new ArrayList<>();
+        List<Integer> scanned = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            RuleType ruleType = rules.get(i).getRuleType();
+            if (ruleType == RuleType.MERCHANT_CATEGORY) {
+                categoryRuleIndexes.add(i);
+            } else if (ruleType == RuleType.LOCATION_BASED) {
+                locationRuleIndexes.add(i);
+            } else if (ruleType == RuleType.IP_BASED) {
+                ipRuleIndexes.add(i);
+            } else {
+                scanned.add(i);
+            }
+        }
+        this.merchantCategoryIndex = MerchantCategoryIndex.build(this.rules, categoryRuleIndexes);
+        this.locationMatcher = LocationMatcher.build(this.rules, locationRuleIndexes);
+        this.ipPrefixTrie = IpPrefixTrie.build(this.rules, ipRuleIndexes);
+        this.scannedRuleIndexes = scanned.stream().mapToInt(Integer::intValue).toArray();
+
+        int offset = 0;
+        while (offset < scannedRuleIndexes.length
+                && !readsHistory(rules.get(scannedRuleIndexes[offset]).getRuleType())) {
+            offset++;
+        }
+        this.historyRuleOffset = offset;
+
+        int longest = 0;
+        for (CompiledRule rule : rules) {
+            if (rule.getRuleType() == RuleType.VELOCITY_CHECK || rule.getRuleType() == RuleType.SPEND_VELOCITY) {
+                longest = Math.max(longest, rule.getTimeWindowMinutes());
+            }
+        }
+        this.longestUserWindowMinutes = longest;
+
+        // Suffix sums of negative scores: what the scanned rules not yet evaluated can still take away
+        this.minimumRemainingScores = new double[scannedRuleIndexes.length + 1];
+        for (int i = scannedRuleIndexes.length - 1; i >= 0; i--) {
+            double riskScore = rules.get(scannedRuleIndexes[i]).getRiskScore();
+            minimumRemainingScores[i] = minimumRemainingScores[i + 1] + Math.min(0.0, riskScore);
+        }
+    }
+
+    /**
+     * Compiles the given active rules into a new snapshot.
+     */
+    public static RuleSnapshot compile(long version, List<FraudRule> activeRules) {
+        return compile(version, activeRules, IpRangeSource.NONE);
+    }
+
+    /**
+     * Compiles the given active rules into a new snapshot, reading IP range files from the source.
+     */
+    public static RuleSnapshot compile(long version, List<FraudRule> activeRules, IpRangeSource ipRangeSource) {
+        List<CompiledRule> compiled = new ArrayList<>(activeRules.size());
+        int rejected = 0;
+        for (FraudRule rule : activeRules) {
+            CompiledRule compiledRule = CompiledRule.compile(rule, ipRangeSource);
+            if (compiledRule != null) {
+                compiled.add(compiledRule);
+            } else {
+                rejected++;
+            }
+        }
+        compiled.sort(Comparator.comparingInt((CompiledRule rule) -> evaluationGroup(rule.getRuleType()))
+                .thenComparing(Comparator.comparingDouble(CompiledRule::getRiskScore).reversed()));
+        return new RuleSnapshot(version, compiled, rejected);
+    }
+
+    private static int evaluationGroup(RuleType ruleType) {
+        if (ruleType == RuleType.MERCHANT_CATEGORY || ruleType == RuleType.LOCATION_BASED
+                || ruleType == RuleType.IP_BASED) {
+            return 0;
+        }
+        return readsHistory(ruleType) ? 2 : 1;
+    }
+
+    /**
+     * @return true for rule types evaluated against the user or IP activity windows
+     */
+    public static boolean readsHistory(RuleType ruleType) {
+        return ruleType == RuleType.VELOCITY_CHECK || ruleType == RuleType.SPEND_VELOCITY
+                || ruleType == RuleType.IP_FAN_OUT;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getCompiledAt() {
+        return compiledAt;
+    }
+
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+
+    public List<CompiledRule> getRules(RuleType ruleType) {
+        return rulesByType.get(ruleType);
+    }
+
+    /**
+     * @return Positions in {@link #getRules()} of the rules that no index answers and must be
+     *         evaluated one by one, ascending and in evaluation order; do not modify
+     */
+    public int[] getScannedRuleIndexes() {
+        return scannedRuleIndexes;
+    }
+
+    /**
+     * @return Offset in {@link #getScannedRuleIndexes()} of the first rule that reads activity
+     *         history, or its length if none does
+     */
+    public int getHistoryRuleOffset() {
+        return historyRuleOffset;
+    }
+
+    /**
+     * @return Lowest total the scanned rules from the given offset on can add, zero unless some
+     *         carry a negative risk score
+     */
+    public double getMinimumRemainingScore(int scannedOffset) {
+        return minimumRemainingScores[scannedOffset];
+    }
+
+    /**
+     * @return Longest window of the rules reading a user's activity, zero if there are none
+     */
+    public int getLongestUserWindowMinutes() {
+        return longestUserWindowMinutes;
+    }
+
+    public MerchantCategoryIndex getMerchantCategoryIndex() {
+        return merchantCategoryIndex;
+    }
+
+    public LocationMatcher getLocationMatcher() {
+        return locationMatcher;
+    }
+
+    public IpPrefixTrie getIpPrefixTrie() {
+        return ipPrefixTrie;
+    }
+
+    /**
+     * @return Number of active rules left out because they are missing required settings
+     */
+    public int getRejectedRuleCount() {
+        return rejectedRuleCount;
+    }
+}
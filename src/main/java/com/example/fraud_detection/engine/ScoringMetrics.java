@@ -0,0 +1,271 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the scoring hot path: hits and latency of every built-in check and
+ * active rule, plus end-to-end transaction latency broken down by outcome.
+ *
+ * Hits are counted on every evaluation. Check and rule latency is only taken for a sampled
+ * subset of calculations, and consecutive evaluations share one clock read, so the timed
+ * path costs a single {@code System.nanoTime()} per evaluation and the untimed path none.
+ * Hit rate is {@code fraud.scoring.rule.hits / fraud.scoring.calculations}; calculations that
+ * stop once their outcome is decided are counted with the evaluations they skipped.
+ */
+public final class ScoringMetrics {
+
+    /** Marks a calculation whose checks are not being timed */
+    public static final long UNTIMED = Long.MIN_VALUE;
+
+    /** Fixed stages of {@code calculateFraudScore}, tagged by the method or index they evaluate */
+    public enum Check {
+        AMOUNT_THRESHOLD("checkAmountThreshold"),
+        VELOCITY("checkVelocityFraud"),
+        UNUSUAL_MERCHANT("checkUnusualMerchant"),
+        UNUSUAL_TIME("checkUnusualTime"),
+        MERCHANT_CATEGORY_RULES("merchantCategoryIndex"),
+        LOCATION_RULES("locationMatcher"),
+        IP_RULES("ipPrefixTrie");
+
+        private final String methodName;
+
+        Check(String methodName) {
+            this.methodName = methodName;
+        }
+    }
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final Meters NOOP = new Meters(null, null);
+
+    private final MeterRegistry registry;
+    private final int timingSampleMask;
+    private final Counter calculations;
+    private final Counter earlyStops;
+    private final Counter skippedEvaluations;
+    private final Map<Check, Meters> checks = new EnumMap<>(Check.class);
+    private final Map<FraudStatus, Timer> transactionTimers = new EnumMap<>(FraudStatus.class);
+    private final Timer failedTransactionTimer;
+
+    private volatile SnapshotMeters snapshotMeters;
+
+    private ScoringMetrics(MeterRegistry registry, int timingSampleInterval) {
+        this.registry = registry;
+        this.timingSampleMask = Integer.highestOneBit(Math.max(1, timingSampleInterval)) - 1;
+
+        if (registry == null) {
+            calculations = null;
+            earlyStops = null;
+            skippedEvaluations = null;
+            failedTransactionTimer = null;
+            for (Check check : Check.values()) {
+                checks.put(check, NOOP);
+            }
+            return;
+        }
+
+        calculations = Counter.builder("fraud.scoring.calculations")
+                .description("Fraud score calculations")
+                .register(registry);
+        earlyStops = Counter.builder("fraud.scoring.early.stops")
+                .description("Calculations stopped once their outcome was decided")
+                .register(registry);
+        skippedEvaluations = Counter.builder("fraud.scoring.skipped")
+                .description("Checks and rules left unevaluated by early stops")
+                .register(registry);
+        for (Check check : Check.values()) {
+            checks.put(check, new Meters(
+                    Counter.builder("fraud.scoring.check.hits").tag("check", check.methodName).register(registry),
+                    Timer.builder("fraud.scoring.check").tag("check", check.methodName).register(registry)));
+        }
+        for (FraudStatus status : FraudStatus.values()) {
+            transactionTimers.put(status, transactionTimer(status.name()));
+        }
+        failedTransactionTimer = transactionTimer("ERROR");
+    }
+
+    /**
+     * @param timingSampleInterval Time one in this many calculations, rounded down to a power of two
+     */
+    public static ScoringMetrics create(MeterRegistry registry, int timingSampleInterval) {
+        return new ScoringMetrics(registry, timingSampleInterval);
+    }
+
+    /**
+     * Metrics that record nothing, for comparing against the instrumented path.
+     */
+    public static ScoringMetrics disabled() {
+        return new ScoringMetrics(null, 1);
+    }
+
+    /**
+     * Counts a calculation and decides whether its checks are timed.
+     *
+     * @return The start mark to pass to the first {@link Meters#record}, or {@link #UNTIMED}
+     */
+    public long startCalculation() {
+        if (registry == null) {
+            return UNTIMED;
+        }
+        calculations.increment();
+        if ((ThreadLocalRandom.current().nextInt() & timingSampleMask) != 0) {
+            return UNTIMED;
+        }
+        return System.nanoTime();
+    }
+
+    public Meters check(Check check) {
+        return checks.get(check);
+    }
+
+    /**
+     * Meters of the rules of the newest snapshot scored against; meters of rules it no longer
+     * holds are removed from the registry, so deleted and edited rules do not linger as series.
+     * A calculation still running against an older snapshot records into no rule meters.
+     *
+     * @return Meters for the rules of the snapshot, index-aligned with {@link RuleSnapshot#getRules()}
+     */
+    public Meters[] rules(RuleSnapshot snapshot) {
+        SnapshotMeters current = snapshotMeters;
+        if (current != null && current.snapshot == snapshot) {
+            return current.meters;
+        }
+        Meters[] meters = new Meters[snapshot.getRules().size()];
+        if (registry == null) {
+            Arrays.fill(meters, NOOP);
+            snapshotMeters = new SnapshotMeters(snapshot, meters);
+            return meters;
+        }
+
+        synchronized (this) {
+            current = snapshotMeters;
+            if (current != null && current.snapshot == snapshot) {
+                return current.meters;
+            }
+            if (current != null && current.snapshot.getVersion() > snapshot.getVersion()) {
+                Arrays.fill(meters, NOOP);
+                return meters;
+            }
+            Set<Meter.Id> kept = new HashSet<>();
+            for (int i = 0; i < meters.length; i++) {
+                meters[i] = ruleMeters(snapshot.getRules().get(i));
+                kept.add(meters[i].hits.getId());
+                kept.add(meters[i].timer.getId());
+            }
+            if (current != null) {
+                for (Meters replaced : current.meters) {
+                    if (!kept.contains(replaced.hits.getId())) {
+                        registry.remove(replaced.hits);
+                    }
+                    if (!kept.contains(replaced.timer.getId())) {
+                        registry.remove(replaced.timer);
+                    }
+                }
+            }
+            snapshotMeters = new SnapshotMeters(snapshot, meters);
+            return meters;
+        }
+    }
+
+    /**
+     * Counts a calculation that stopped once its outcome was decided.
+     *
+     * @param skipped Number of checks and rules it did not evaluate
+     */
+    public void recordEarlyStop(int skipped) {
+        if (registry == null) {
+            return;
+        }
+        earlyStops.increment();
+        skippedEvaluations.increment(skipped);
+    }
+
+    /**
+     * Records the end-to-end latency of creating and scoring a transaction.
+     *
+     * @param fraudStatus The resulting status, or null if the transaction failed
+     * @param startNanos {@code System.nanoTime()} taken when the request started
+     */
+    public void recordTransaction(FraudStatus fraudStatus, long startNanos) {
+        if (registry == null) {
+            return;
+        }
+        Timer timer = fraudStatus != null ? transactionTimers.get(fraudStatus) : failedTransactionTimer;
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Meters ruleMeters(CompiledRule rule) {
+        String id = String.valueOf(rule.getId());
+        String type = rule.getRuleType().name();
+        return new Meters(
+                Counter.builder("fraud.scoring.rule.hits")
+                        .tag("rule.id", id).tag("rule.type", type)
+                        .register(registry),
+                Timer.builder("fraud.scoring.rule")
+                        .tag("rule.id", id).tag("rule.type", type)
+                        .register(registry));
+    }
+
+    private Timer transactionTimer(String outcome) {
+        return Timer.builder("fraud.transaction.create")
+                .description("Latency of creating and scoring a single transaction")
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Hit counter and latency timer of a single check or rule.
+     */
+    public static final class Meters {
+
+        private final Counter hits;
+        private final Timer timer;
+
+        private Meters(Counter hits, Timer timer) {
+            this.hits = hits;
+            this.timer = timer;
+        }
+
+        /**
+         * Records one evaluation.
+         *
+         * @param mark The start mark of this evaluation, or {@link #UNTIMED}
+         * @return The start mark of the next evaluation
+         */
+        public long record(boolean hit, long mark) {
+            if (hit && hits != null) {
+                hits.increment();
+            }
+            if (mark == UNTIMED || timer == null) {
+                return UNTIMED;
+            }
+            long now = System.nanoTime();
+            timer.record(now - mark, TimeUnit.NANOSECONDS);
+            return now;
+        }
+    }
+
+    private static final class SnapshotMeters {
+
+        private final RuleSnapshot snapshot;
+        private final Meters[] meters;
+
+        private SnapshotMeters(RuleSnapshot snapshot, Meters[] meters) {
+            this.snapshot = snapshot;
+            this.meters = meters;
+        }
+    }
+}
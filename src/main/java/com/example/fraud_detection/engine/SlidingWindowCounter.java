@@ -0,0 +1,155 @@
+package com.example.fraud_detection.engine;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative event counts bucketed by minute, held only for minutes that saw an event.
+ *
+ * Each entry holds the running total of events up to and including its minute, so the
+ * number of events between any two minutes inside the horizon is the difference of two
+ * binary-searched entries. Windows that reach further back than the horizon are clamped to
+ * it. Deltas need not be one, so the same structure keeps running sums such as spend in cents.
+ *
+ * Entries older than the horizon are folded into a base total as newer minutes arrive, so the
+ * memory held follows the number of active minutes rather than the horizon.
+ */
+public final class SlidingWindowCounter {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int horizonMinutes;
+
+    private long[] entryMinutes = new long[INITIAL_CAPACITY];
+    private long[] entryTotals = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private long latestMinute = EMPTY;
+    // Running total of every event folded out of the entries
+    private long baseTotal;
+    private long total;
+
+    public SlidingWindowCounter(int horizonMinutes) {
+        if (horizonMinutes <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizonMinutes);
+        }
+        this.horizonMinutes = horizonMinutes;
+    }
+
+    /**
+     * Adds {@code delta} events at the given minute. Late events are folded into every
+     * retained entry at or after their minute.
+     */
+    public synchronized void add(long epochMinute, long delta) {
+        total += delta;
+        if (latestMinute == EMPTY || epochMinute > latestMinute) {
+            append(epochMinute, total);
+            latestMinute = epochMinute;
+            trimBeforeHorizon();
+            return;
+        }
+
+        int from;
+        if (epochMinute < oldestRetainedMinute()) {
+            // Too old for its own entry; it counts toward no window, like the minutes around it
+            baseTotal += delta;
+            from = 0;
+        } else {
+            int index = Arrays.binarySearch(entryMinutes, 0, size, epochMinute);
+            if (index < 0) {
+                from = -index - 1;
+                insert(from, epochMinute, from == 0 ? baseTotal : entryTotals[from - 1]);
+            } else {
+                from = index;
+            }
+        }
+        for (int i = from; i < size; i++) {
+            entryTotals[i] += delta;
+        }
+    }
+
+    /**
+     * Counts events whose minute lies between {@code fromMinute} and {@code toMinute}, inclusive.
+     */
+    public synchronized long count(long fromMinute, long toMinute) {
+        if (latestMinute == EMPTY || toMinute < fromMinute) {
+            return 0;
+        }
+        return totalThrough(toMinute) - totalThrough(fromMinute - 1);
+    }
+
+    /**
+     * Returns the most recent minute with a recorded event, or {@link Long#MIN_VALUE} if empty.
+     */
+    public synchronized long getLatestMinute() {
+        return latestMinute;
+    }
+
+    public int getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    private long totalThrough(long minute) {
+        if (minute >= latestMinute) {
+            return total;
+        }
+        // Clamp first: events older than the horizon stay folded into the oldest retained minute
+        long clamped = Math.max(minute, oldestRetainedMinute());
+        int index = Arrays.binarySearch(entryMinutes, 0, size, clamped);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? baseTotal : entryTotals[index];
+    }
+
+    private long oldestRetainedMinute() {
+        return latestMinute - horizonMinutes;
+    }
+
+    private void append(long minute, long runningTotal) {
+        if (size == entryMinutes.length) {
+            resize(size * 2);
+        }
+        entryMinutes[size] = minute;
+        entryTotals[size] = runningTotal;
+        size++;
+    }
+
+    private void insert(int index, long minute, long runningTotal) {
+        if (size == entryMinutes.length) {
+            resize(size * 2);
+        }
+        System.arraycopy(entryMinutes, index, entryMinutes, index + 1, size - index);
+        System.arraycopy(entryTotals, index, entryTotals, index + 1, size - index);
+        entryMinutes[index] = minute;
+        entryTotals[index] = runningTotal;
+        size++;
+    }
+
+    /**
+     * Folds the entries before the oldest retained minute into the base total and gives back
+     * capacity a past burst left unused.
+     */
+    private void trimBeforeHorizon() {
+        long oldest = oldestRetainedMinute();
+        if (entryMinutes[0] >= oldest) {
+            return;
+        }
+        int keep = 0;
+        while (entryMinutes[keep] < oldest) {
+            keep++;
+        }
+        baseTotal = entryTotals[keep - 1];
+        size -= keep;
+        System.arraycopy(entryMinutes, keep, entryMinutes, 0, size);
+        System.arraycopy(entryTotals, keep, entryTotals, 0, size);
+        if (entryMinutes.length > INITIAL_CAPACITY && size < entryMinutes.length / 4) {
+            resize(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+    }
+
+    private void resize(int capacity) {
+        entryMinutes = Arrays.copyOf(entryMinutes, capacity);
+        entryTotals = Arrays.copyOf(entryTotals, capacity);
+    }
+}
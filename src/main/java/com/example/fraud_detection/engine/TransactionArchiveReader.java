@@ -0,0 +1,445 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Scans an archive file written by {@link TransactionArchiveWriter}.
+ *
+ * A scan skips the row groups whose time range misses the query, then in each remaining group
+ * inflates only the columns its filters need, moving on if no row matches; the other columns
+ * are inflated to rebuild the matching rows. Columns are decoded into primitive arrays sized
+ * to one row group and reused across groups. Rebuilt transactions are detached and reference
+ * their user by id only.
+ */
+public final class TransactionArchiveReader {
+
+    // Digest of no ids; digestId folds the first id into it
+    public static final long INITIAL_ID_DIGEST = 0x46544131L;
+
+    private final Path file;
+    private final int rows;
+    private final long minTime;
+    private final long maxTime;
+    private final Map<String, Integer> columns;
+    private final List<RowGroup> groups;
+    private final int maxGroupRows;
+
+    private TransactionArchiveReader(Path file, int rows, long minTime, long maxTime, Map<String, Integer> columns,
+                                     List<RowGroup> groups) {
+        this.file = file;
+        this.rows = rows;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.columns = columns;
+        this.groups = groups;
+        this.maxGroupRows = groups.stream().mapToInt(group -> group.rows).max().orElse(0);
+    }
+
+    /**
+     * Reads the header and footer of an archive file.
+     */
+    public static TransactionArchiveReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != TransactionArchiveWriter.MAGIC) {
+                throw new IOException("Not a transaction archive: " + file);
+            }
+            int version = in.readInt();
+            if (version != TransactionArchiveWriter.VERSION) {
+                throw new IOException("Unsupported archive version " + version + ": " + file);
+            }
+            int columnCount = in.readInt();
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                columns.put(in.readUTF(), i);
+            }
+
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TransactionArchiveWriter.TRAILER_SIZE,
+                    TransactionArchiveWriter.TRAILER_SIZE, file);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != TransactionArchiveWriter.MAGIC || footerOffset < channel.position()
+                    || footerOffset > size - TransactionArchiveWriter.TRAILER_SIZE) {
+                throw new IOException("Archive " + file + " is incomplete");
+            }
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(read(channel, footerOffset,
+                    (int) (size - TransactionArchiveWriter.TRAILER_SIZE - footerOffset), file).array()));
+            int rows = footer.readInt();
+            long minTime = footer.readLong();
+            long maxTime = footer.readLong();
+            int groupCount = footer.readInt();
+            List<RowGroup> groups = new ArrayList<>(groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                RowGroup group = new RowGroup(footer.readLong(), footer.readInt(), footer.readLong(),
+                        footer.readLong(), columnCount);
+                long offset = group.offset;
+                for (int i = 0; i < columnCount; i++) {
+                    group.blocks[i] = new Block(offset, footer.readInt(), footer.readInt());
+                    offset += group.blocks[i].compressedLength;
+                }
+                groups.add(group);
+            }
+            return new TransactionArchiveReader(file, rows, minTime, maxTime, columns, groups);
+        }
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public LocalDateTime getMinTime() {
+        return TransactionArchiveWriter.fromEpochMicros(minTime);
+    }
+
+    public LocalDateTime getMaxTime() {
+        return TransactionArchiveWriter.fromEpochMicros(maxTime);
+    }
+
+    /**
+     * Passes the rows in [from, to) matching the optional user and status filters to the
+     * visitor, in time order, until it returns false.
+     *
+     * @return Number of rows visited
+     */
+    public long scan(LocalDateTime from, LocalDateTime to, Long userId, FraudStatus status,
+                     Predicate<Transaction> visitor) throws IOException {
+        long fromMicros = TransactionArchiveWriter.toEpochMicros(from);
+        long toMicros = TransactionArchiveWriter.toEpochMicros(to);
+        if (rows == 0 || maxTime < fromMicros || minTime >= toMicros) {
+            return 0;
+        }
+
+        LongValues times = new LongValues(maxGroupRows);
+        LongValues userIds = new LongValues(maxGroupRows);
+        StringValues statuses = new StringValues(maxGroupRows);
+        LongValues ids = new LongValues(maxGroupRows);
+        LongValues amounts = new LongValues(maxGroupRows);
+        StringValues types = new StringValues(maxGroupRows);
+        StringValues merchantNames = new StringValues(maxGroupRows);
+        StringValues merchantCategories = new StringValues(maxGroupRows);
+        StringValues locations = new StringValues(maxGroupRows);
+        LongValues createdAts = new LongValues(maxGroupRows);
+        DoubleValues scores = new DoubleValues(maxGroupRows);
+        StringValues reasons = new StringValues(maxGroupRows);
+        StringValues cardNumbers = new StringValues(maxGroupRows);
+        StringValues ipAddresses = new StringValues(maxGroupRows);
+        LongValues ruleSetVersions = new LongValues(maxGroupRows);
+        BitSet matches = new BitSet(maxGroupRows);
+
+        long visited = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (RowGroup group : groups) {
+                if (group.maxTime < fromMicros || group.minTime >= toMicros) {
+                    continue;
+                }
+                int groupRows = group.rows;
+                times.decode(inflate(channel, group, TransactionArchiveWriter.TRANSACTION_TIME), groupRows, true);
+                matches.clear();
+                for (int row = 0; row < groupRows; row++) {
+                    long time = times.values[row];
+                    if (time >= fromMicros && time < toMicros) {
+                        matches.set(row);
+                    }
+                }
+                userIds.decode(inflate(channel, group, TransactionArchiveWriter.USER_ID), groupRows, false);
+                if (userId != null) {
+                    long wanted = userId;
+                    for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                        if (!userIds.present[row] || userIds.values[row] != wanted) {
+                            matches.clear(row);
+                        }
+                    }
+                }
+                statuses.decode(inflate(channel, group, TransactionArchiveWriter.FRAUD_STATUS), groupRows);
+                if (status != null) {
+                    int wanted = statuses.codeOf(status.name());
+                    for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                        if (statuses.codes[row] != wanted) {
+                            matches.clear(row);
+                        }
+                    }
+                }
+                if (matches.isEmpty()) {
+                    continue;
+                }
+
+                ids.decode(inflate(channel, group, TransactionArchiveWriter.ID), groupRows, true);
+                amounts.decode(inflate(channel, group, TransactionArchiveWriter.AMOUNT), groupRows, false);
+                types.decode(inflate(channel, group, TransactionArchiveWriter.TRANSACTION_TYPE), groupRows);
+                merchantNames.decode(inflate(channel, group, TransactionArchiveWriter.MERCHANT_NAME), groupRows);
+                merchantCategories.decode(inflate(channel, group, TransactionArchiveWriter.MERCHANT_CATEGORY), groupRows);
+                locations.decode(inflate(channel, group, TransactionArchiveWriter.LOCATION), groupRows);
+                createdAts.decode(inflate(channel, group, TransactionArchiveWriter.CREATED_AT), groupRows, true);
+                scores.decode(inflate(channel, group, TransactionArchiveWriter.FRAUD_SCORE), groupRows);
+                reasons.decode(inflate(channel, group, TransactionArchiveWriter.FRAUD_REASON), groupRows);
+                cardNumbers.decode(inflate(channel, group, TransactionArchiveWriter.CARD_NUMBER_MASKED), groupRows);
+                ipAddresses.decode(inflate(channel, group, TransactionArchiveWriter.IP_ADDRESS), groupRows);
+                ruleSetVersions.decode(inflate(channel, group, TransactionArchiveWriter.RULE_SET_VERSION), groupRows, false);
+
+                for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                    User user = new User();
+                    user.setId(userIds.get(row));
+
+                    Transaction transaction = new Transaction();
+                    transaction.setId(ids.get(row));
+                    transaction.setUser(user);
+                    transaction.setAmount(BigDecimal.valueOf(amounts.values[row], 2));
+                    String type = types.get(row);
+                    transaction.setTransactionType(type != null ? TransactionType.valueOf(type) : null);
+                    transaction.setMerchantName(merchantNames.get(row));
+                    transaction.setMerchantCategory(merchantCategories.get(row));
+                    transaction.setLocation(locations.get(row));
+                    transaction.setTransactionTime(TransactionArchiveWriter.fromEpochMicros(times.values[row]));
+                    transaction.setCreatedAt(createdAts.present[row]
+                            ? TransactionArchiveWriter.fromEpochMicros(createdAts.values[row]) : null);
+                    String fraudStatus = statuses.get(row);
+                    transaction.setFraudStatus(fraudStatus != null ? FraudStatus.valueOf(fraudStatus) : null);
+                    transaction.setFraudScore(scores.present[row] ? scores.values[row] : null);
+                    transaction.setFraudReason(reasons.get(row));
+                    transaction.setCardNumberMasked(cardNumbers.get(row));
+                    transaction.setIpAddress(ipAddresses.get(row));
+                    transaction.setRuleSetVersion(ruleSetVersions.get(row));
+
+                    visited++;
+                    if (!visitor.test(transaction)) {
+                        return visited;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * @return Digest of every archived id in file order, as {@link #digestId} folds them
+     */
+    public long digestIds() throws IOException {
+        LongValues ids = new LongValues(maxGroupRows);
+        long digest = INITIAL_ID_DIGEST;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (RowGroup group : groups) {
+                ids.decode(inflate(channel, group, TransactionArchiveWriter.ID), group.rows, true);
+                for (int row = 0; row < group.rows; row++) {
+                    digest = digestId(digest, ids.present[row] ? ids.values[row] : 0L);
+                }
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Folds one more id into an order-sensitive digest.
+     */
+    public static long digestId(long digest, long id) {
+        long mixed = (id ^ (id >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return digest * 31 + (mixed ^ (mixed >>> 33));
+    }
+
+    private byte[] inflate(FileChannel channel, RowGroup group, String column) throws IOException {
+        Integer position = columns.get(column);
+        if (position == null) {
+            throw new IOException("Archive " + file + " has no column " + column);
+        }
+        Block block = group.blocks[position];
+        ByteBuffer compressed = read(channel, block.offset, block.compressedLength, file);
+        byte[] raw = new byte[block.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+            }
+            if (inflated != raw.length) {
+                throw new IOException("Archive " + file + " is corrupt in column " + column);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Archive " + file + " is corrupt in column " + column, e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length, Path file) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IOException("Archive " + file + " is truncated");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Archive " + file + " is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * A nullable long column of one row group.
+     */
+    private static final class LongValues {
+
+        private final long[] values;
+        private final boolean[] present;
+
+        LongValues(int capacity) {
+            values = new long[capacity];
+            present = new boolean[capacity];
+        }
+
+        void decode(byte[] raw, int rows, boolean delta) {
+            ByteBuffer in = ByteBuffer.wrap(raw);
+            long previous = 0;
+            for (int row = 0; row < rows; row++) {
+                present[row] = readVarLong(in) != 0;
+                if (!present[row]) {
+                    continue;
+                }
+                long zigZag = readVarLong(in);
+                long value = (zigZag >>> 1) ^ -(zigZag & 1);
+                if (delta) {
+                    value += previous;
+                    previous = value;
+                }
+                values[row] = value;
+            }
+        }
+
+        Long get(int row) {
+            return present[row] ? values[row] : null;
+        }
+    }
+
+    /**
+     * A nullable double column of one row group.
+     */
+    private static final class DoubleValues {
+
+        private final double[] values;
+        private final boolean[] present;
+
+        DoubleValues(int capacity) {
+            values = new double[capacity];
+            present = new boolean[capacity];
+        }
+
+        void decode(byte[] raw, int rows) {
+            ByteBuffer in = ByteBuffer.wrap(raw);
+            for (int row = 0; row < rows; row++) {
+                present[row] = in.get() != 0;
+                if (present[row]) {
+                    values[row] = Double.longBitsToDouble(in.getLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * A nullable string column of one row group, as dictionary codes; code zero is null.
+     */
+    private static final class StringValues {
+
+        private final int[] codes;
+        private String[] dictionary;
+
+        StringValues(int capacity) {
+            codes = new int[capacity];
+        }
+
+        void decode(byte[] raw, int rows) throws IOException {
+            ByteBuffer in = ByteBuffer.wrap(raw);
+            int dictionarySize = (int) readVarLong(in);
+            dictionary = new String[dictionarySize + 1];
+            DataInputStream dictionaryIn = new DataInputStream(
+                    new ByteArrayInputStream(raw, in.position(), raw.length - in.position()));
+            int consumed = dictionaryIn.available();
+            for (int code = 1; code <= dictionarySize; code++) {
+                dictionary[code] = dictionaryIn.readUTF();
+            }
+            in.position(in.position() + consumed - dictionaryIn.available());
+            for (int row = 0; row < rows; row++) {
+                codes[row] = (int) readVarLong(in);
+            }
+        }
+
+        String get(int row) {
+            return dictionary[codes[row]];
+        }
+
+        /**
+         * @return Code of the value in this row group, or -1 if no row holds it
+         */
+        int codeOf(String value) {
+            for (int code = 1; code < dictionary.length; code++) {
+                if (dictionary[code].equals(value)) {
+                    return code;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class RowGroup {
+
+        private final long offset;
+        private final int rows;
+        private final long minTime;
+        private final long maxTime;
+        private final Block[] blocks;
+
+        RowGroup(long offset, int rows, long minTime, long maxTime, int columns) {
+            this.offset = offset;
+            this.rows = rows;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.blocks = new Block[columns];
+        }
+    }
+
+    private static final class Block {
+
+        private final long offset;
+        private final int rawLength;
+        private final int compressedLength;
+
+        Block(long offset, int rawLength, int compressedLength) {
+            this.offset = offset;
+            this.rawLength = rawLength;
+            this.compressedLength = compressedLength;
+        }
+    }
+}
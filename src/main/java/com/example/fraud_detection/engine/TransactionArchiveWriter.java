@@ -0,0 +1,372 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes transactions, in time order, to a compressed columnar archive file.
+ *
+ * Rows are buffered in row groups of a fixed size; when a group is full each of its columns
+ * is deflated into its own block and written out, so memory is bounded by one group however
+ * many rows the file holds, and a reader only inflates the groups and columns a query needs.
+ * Ids, user ids and times are delta encoded as zig-zag varints, amounts as their unscaled
+ * cents, and strings and enums through a per-group, per-column dictionary. The file is
+ * written under a temporary name and moved into place once complete; closing an unfinished
+ * writer deletes it.
+ *
+ * File layout, big-endian:
+ * <pre>
+ *   magic (32) | version (32) | columns (32) | per column: name (UTF)
+ *   row groups: per column, one block
+ *   footer: rows (32) | min time (64) | max time (64) | row groups (32)
+ *     per group: offset (64) | rows (32) | min time (64) | max time (64)
+ *       per column: raw length (32) | compressed length (32)
+ *   footer offset (64) | magic (32)
+ * </pre>
+ */
+public final class TransactionArchiveWriter implements Closeable {
+
+    public static final int MAGIC = 0x46544131;
+    static final int VERSION = 2;
+    static final int TRAILER_SIZE = 12;
+
+    static final String ID = "id";
+    static final String USER_ID = "user_id";
+    static final String AMOUNT = "amount";
+    static final String TRANSACTION_TYPE = "transaction_type";
+    static final String MERCHANT_NAME = "merchant_name";
+    static final String MERCHANT_CATEGORY = "merchant_category";
+    static final String LOCATION = "location";
+    static final String TRANSACTION_TIME = "transaction_time";
+    static final String CREATED_AT = "created_at";
+    static final String FRAUD_STATUS = "fraud_status";
+    static final String FRAUD_SCORE = "fraud_score";
+    static final String FRAUD_REASON = "fraud_reason";
+    static final String CARD_NUMBER_MASKED = "card_number_masked";
+    static final String IP_ADDRESS = "ip_address";
+    static final String RULE_SET_VERSION = "rule_set_version";
+
+    static final List<String> COLUMNS = List.of(ID, USER_ID, AMOUNT, TRANSACTION_TYPE, MERCHANT_NAME,
+            MERCHANT_CATEGORY, LOCATION, TRANSACTION_TIME, CREATED_AT, FRAUD_STATUS, FRAUD_SCORE, FRAUD_REASON,
+            CARD_NUMBER_MASKED, IP_ADDRESS, RULE_SET_VERSION);
+
+    private final Path file;
+    private final Path temporary;
+    private final int rowGroupSize;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream footerGroups = new ByteArrayOutputStream();
+    private final DataOutputStream footerGroupsOut = new DataOutputStream(footerGroups);
+
+    // Encoded in COLUMNS order
+    private final LongColumn ids = new LongColumn(true);
+    private final LongColumn userIds = new LongColumn(false);
+    private final LongColumn amounts = new LongColumn(false);
+    private final StringColumn transactionTypes = new StringColumn();
+    private final StringColumn merchantNames = new StringColumn();
+    private final StringColumn merchantCategories = new StringColumn();
+    private final StringColumn locations = new StringColumn();
+    private final LongColumn transactionTimes = new LongColumn(true);
+    private final LongColumn createdAts = new LongColumn(true);
+    private final StringColumn fraudStatuses = new StringColumn();
+    private final DoubleColumn fraudScores = new DoubleColumn();
+    private final StringColumn fraudReasons = new StringColumn();
+    private final StringColumn cardNumbers = new StringColumn();
+    private final StringColumn ipAddresses = new StringColumn();
+    private final LongColumn ruleSetVersions = new LongColumn(false);
+    private final List<ColumnEncoder> columns = List.of(ids, userIds, amounts, transactionTypes, merchantNames,
+            merchantCategories, locations, transactionTimes, createdAts, fraudStatuses, fraudScores, fraudReasons,
+            cardNumbers, ipAddresses, ruleSetVersions);
+
+    private int rows;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private int groups;
+    private int groupRows;
+    private long groupMinTime = Long.MAX_VALUE;
+    private long groupMaxTime = Long.MIN_VALUE;
+    private boolean finished;
+
+    /**
+     * Starts the file under its temporary name.
+     */
+    public TransactionArchiveWriter(Path file, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+        }
+        this.file = file;
+        this.rowGroupSize = rowGroupSize;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        // Unbuffered, so the channel position is always where the next byte goes
+        this.out = new DataOutputStream(Channels.newOutputStream(channel));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(COLUMNS.size());
+        for (String column : COLUMNS) {
+            out.writeUTF(column);
+        }
+    }
+
+    /**
+     * Adds a row, writing out the row group it completes.
+     */
+    public void append(Transaction transaction) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Archive " + file + " is already finished");
+        }
+        long time = toEpochMicros(transaction.getTransactionTime());
+        groupMinTime = Math.min(groupMinTime, time);
+        groupMaxTime = Math.max(groupMaxTime, time);
+
+        ids.add(transaction.getId());
+        userIds.add(transaction.getUser().getId());
+        amounts.add(transaction.getAmount().movePointRight(2).longValueExact());
+        transactionTypes.add(transaction.getTransactionType() != null ? transaction.getTransactionType().name() : null);
+        merchantNames.add(transaction.getMerchantName());
+        merchantCategories.add(transaction.getMerchantCategory());
+        locations.add(transaction.getLocation());
+        transactionTimes.add(time);
+        createdAts.add(transaction.getCreatedAt() != null ? toEpochMicros(transaction.getCreatedAt()) : null);
+        fraudStatuses.add(transaction.getFraudStatus() != null ? transaction.getFraudStatus().name() : null);
+        fraudScores.add(transaction.getFraudScore());
+        fraudReasons.add(transaction.getFraudReason());
+        cardNumbers.add(transaction.getCardNumberMasked());
+        ipAddresses.add(transaction.getIpAddress());
+        ruleSetVersions.add(transaction.getRuleSetVersion());
+        if (++groupRows == rowGroupSize) {
+            writeGroup();
+        }
+    }
+
+    public int getRowCount() {
+        return rows + groupRows;
+    }
+
+    /**
+     * Writes the last row group and the footer, syncs the file, then moves it into place.
+     *
+     * @return Size of the file in bytes
+     */
+    public long finish() throws IOException {
+        if (groupRows > 0) {
+            writeGroup();
+        }
+        long footerOffset = channel.position();
+        out.writeInt(rows);
+        out.writeLong(rows > 0 ? minTime : 0);
+        out.writeLong(rows > 0 ? maxTime : 0);
+        out.writeInt(groups);
+        footerGroups.writeTo(out);
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.flush();
+        channel.force(true);
+        channel.close();
+        deflater.end();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+        return Files.size(file);
+    }
+
+    /**
+     * Discards the file unless it was finished.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            finished = true;
+            channel.close();
+            deflater.end();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        footerGroupsOut.writeLong(channel.position());
+        footerGroupsOut.writeInt(groupRows);
+        footerGroupsOut.writeLong(groupMinTime);
+        footerGroupsOut.writeLong(groupMaxTime);
+        for (ColumnEncoder column : columns) {
+            byte[] raw = column.toBytes();
+            compressed.reset();
+            deflater.reset();
+            try (OutputStream deflated = new DeflaterOutputStream(compressed, deflater)) {
+                deflated.write(raw);
+            }
+            compressed.writeTo(out);
+            footerGroupsOut.writeInt(raw.length);
+            footerGroupsOut.writeInt(compressed.size());
+            column.reset();
+        }
+
+        rows += groupRows;
+        minTime = Math.min(minTime, groupMinTime);
+        maxTime = Math.max(maxTime, groupMaxTime);
+        groups++;
+        groupRows = 0;
+        groupMinTime = Long.MAX_VALUE;
+        groupMaxTime = Long.MIN_VALUE;
+    }
+
+    static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private interface ColumnEncoder {
+
+        byte[] toBytes();
+
+        /**
+         * Empties the column for the next row group.
+         */
+        void reset();
+    }
+
+    /**
+     * Nullable longs: a presence varint, then the zig-zag value, relative to the previous
+     * present value of the row group when delta encoded.
+     */
+    private static final class LongColumn implements ColumnEncoder {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final boolean delta;
+        private long previous;
+
+        LongColumn(boolean delta) {
+            this.delta = delta;
+        }
+
+        void add(Long value) {
+            if (value == null) {
+                bytes.write(0);
+                return;
+            }
+            long encoded = delta ? value - previous : value;
+            previous = value;
+            bytes.write(1);
+            writeVarLong(bytes, (encoded << 1) ^ (encoded >> 63));
+        }
+
+        @Override
+        public byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public void reset() {
+            bytes.reset();
+            previous = 0;
+        }
+    }
+
+    /**
+     * Nullable doubles: a presence byte, then the raw bits.
+     */
+    private static final class DoubleColumn implements ColumnEncoder {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        void add(Double value) {
+            if (value == null) {
+                bytes.write(0);
+                return;
+            }
+            bytes.write(1);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes.write((int) (bits >>> shift));
+            }
+        }
+
+        @Override
+        public byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public void reset() {
+            bytes.reset();
+        }
+    }
+
+    /**
+     * Nullable strings: the row group's dictionary, then one varint code per row, zero for null.
+     */
+    private static final class StringColumn implements ColumnEncoder {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final ByteArrayOutputStream rowCodes = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        private final DataOutputStream dictionaryOut = new DataOutputStream(dictionary);
+
+        void add(String value) {
+            if (value == null) {
+                rowCodes.write(0);
+                return;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size() + 1;
+                codes.put(value, code);
+                try {
+                    dictionaryOut.writeUTF(value);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Value too long to archive: " + value.length() + " chars", e);
+                }
+            }
+            writeVarLong(rowCodes, code);
+        }
+
+        @Override
+        public byte[] toBytes() {
+            ByteArrayOutputStream block = new ByteArrayOutputStream(dictionary.size() + rowCodes.size() + 5);
+            writeVarLong(block, codes.size());
+            block.writeBytes(dictionary.toByteArray());
+            block.writeBytes(rowCodes.toByteArray());
+            return block.toByteArray();
+        }
+
+        @Override
+        public void reset() {
+            codes.clear();
+            rowCodes.reset();
+            dictionary.reset();
+        }
+    }
+}
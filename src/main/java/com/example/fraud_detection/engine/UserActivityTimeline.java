@@ -0,0 +1,135 @@
+package com.example.fraud_detection.engine;
+
+import java.util.Arrays;
+
+/**
+ * One user's transactions over a fixed range of minutes, as sorted minutes with running
+ * counts and cents, so that every window inside the range is answered with two binary
+ * searches.
+ *
+ * A timeline is filled between {@link #begin} and {@link #complete} and reused for the next
+ * user; it belongs to one thread at a time. Minutes are minutes since the epoch (UTC) and
+ * both bounds are inclusive.
+ */
+public final class UserActivityTimeline {
+
+    private long[] minutes = new long[16];
+    private long[] counts = new long[16];
+    private long[] cents = new long[16];
+    private int size;
+    private Long userId;
+    private long fromMinute;
+    private long toMinute;
+    private boolean complete;
+
+    /**
+     * Empties the timeline to be filled with the user's activity between the two minutes.
+     */
+    public void begin(Long userId, long fromMinute, long toMinute) {
+        this.userId = userId;
+        this.fromMinute = fromMinute;
+        this.toMinute = toMinute;
+        this.size = 0;
+        this.complete = false;
+    }
+
+    /**
+     * Adds transactions at a minute; minutes outside the range are ignored. Minutes are
+     * expected in ascending order, anything earlier is inserted in place.
+     */
+    public void add(long minute, long count, long amountCents) {
+        if (complete) {
+            throw new IllegalStateException("Timeline is already complete");
+        }
+        if (minute < fromMinute || minute > toMinute) {
+            return;
+        }
+        int position = size > 0 && minute >= minutes[size - 1] ? size : firstAfter(minute - 1);
+        if (position > 0 && minutes[position - 1] == minute) {
+            position--;
+        }
+        if (position < size && minutes[position] == minute) {
+            counts[position] += count;
+            cents[position] += amountCents;
+            return;
+        }
+        if (size == minutes.length) {
+            int capacity = size * 2;
+            minutes = Arrays.copyOf(minutes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+        }
+        System.arraycopy(minutes, position, minutes, position + 1, size - position);
+        System.arraycopy(counts, position, counts, position + 1, size - position);
+        System.arraycopy(cents, position, cents, position + 1, size - position);
+        minutes[position] = minute;
+        counts[position] = count;
+        cents[position] = amountCents;
+        size++;
+    }
+
+    /**
+     * Turns the added values into running totals; the timeline answers windows from now on.
+     */
+    public void complete() {
+        for (int i = 1; i < size; i++) {
+            counts[i] += counts[i - 1];
+            cents[i] += cents[i - 1];
+        }
+        complete = true;
+    }
+
+    /**
+     * @return true if the timeline is complete for the user and holds the whole window
+     */
+    public boolean covers(Long userId, long fromMinute, long toMinute) {
+        return complete && userId != null && userId.equals(this.userId)
+                && fromMinute >= this.fromMinute && toMinute <= this.toMinute;
+    }
+
+    /**
+     * @return Number of transactions between the two minutes
+     */
+    public long count(long fromMinute, long toMinute) {
+        return toMinute < fromMinute ? 0 : totalBefore(counts, firstAfter(toMinute)) - totalBefore(counts, firstAfter(fromMinute - 1));
+    }
+
+    /**
+     * @return Total amount of the transactions between the two minutes, in cents
+     */
+    public long sumCents(long fromMinute, long toMinute) {
+        return toMinute < fromMinute ? 0 : totalBefore(cents, firstAfter(toMinute)) - totalBefore(cents, firstAfter(fromMinute - 1));
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return Number of distinct minutes with activity
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long totalBefore(long[] totals, int position) {
+        return position > 0 ? totals[position - 1] : 0;
+    }
+
+    /**
+     * @return Position of the first minute greater than the given one
+     */
+    private int firstAfter(long minute) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minutes[mid] <= minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
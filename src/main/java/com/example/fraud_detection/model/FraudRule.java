@@ -35,12 +35,27 @@ public class FraudRule {
     @Column(name = "max_occurrences")
     private Integer maxOccurrences;
 
+    // IP_FAN_OUT limits, reached like maxOccurrences, which limits the transactions per IP in the window
+    @Column(name = "max_distinct_users")
+    private Integer maxDistinctUsers;
+
+    @Column(name = "max_distinct_cards")
+    private Integer maxDistinctCards;
+
     @Column(name = "merchant_category")
     private String merchantCategory;
 
     @Column(name = "location_restriction")
     private String locationRestriction;
 
+    // CIDR ranges or addresses separated by commas or whitespace
+    @Column(name = "ip_ranges", length = 4000)
+    private String ipRanges;
+
+    // Name of a range file in the configured IP range directory, one CIDR per line
+    @Column(name = "ip_range_file")
+    private String ipRangeFile;
+
     @NotNull(message = "Risk score is required")
     @Column(name = "risk_score", nullable = false)
     private Double riskScore;
@@ -131,6 +146,22 @@ public class FraudRule {
         this.maxOccurrences = maxOccurrences;
     }
 
+    public Integer getMaxDistinctUsers() {
+        return maxDistinctUsers;
+    }
+
+    public void setMaxDistinctUsers(Integer maxDistinctUsers) {
+        this.maxDistinctUsers = maxDistinctUsers;
+    }
+
+    public Integer getMaxDistinctCards() {
+        return maxDistinctCards;
+    }
+
+    public void setMaxDistinctCards(Integer maxDistinctCards) {
+        this.maxDistinctCards = maxDistinctCards;
+    }
+
     public String getMerchantCategory() {
         return merchantCategory;
     }
@@ -147,6 +178,22 @@ public class FraudRule {
         this.locationRestriction = locationRestriction;
     }
 
+    public String getIpRanges() {
+        return ipRanges;
+    }
+
+    public void setIpRanges(String ipRanges) {
+        this.ipRanges = ipRanges;
+    }
+
+    public String getIpRangeFile() {
+        return ipRangeFile;
+    }
+
+    public void setIpRangeFile(String ipRangeFile) {
+        this.ipRangeFile = ipRangeFile;
+    }
+
     public Double getRiskScore() {
         return riskScore;
     }
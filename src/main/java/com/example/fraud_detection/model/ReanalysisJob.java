@@ -0,0 +1,248 @@
+package com.example.fraud_detection.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reanalysis_jobs")
+public class ReanalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private ReanalysisJobState state = ReanalysisJobState.QUEUED;
+
+    // Only transactions with this stored status are re-scored; null re-scores every status
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status_filter")
+    private FraudStatus statusFilter;
+
+    @Column(name = "range_start", nullable = false)
+    private LocalDateTime rangeStart;
+
+    // Exclusive
+    @Column(name = "range_end", nullable = false)
+    private LocalDateTime rangeEnd;
+
+    // Keyset position of the last transaction whose chunk was committed
+    @Column(name = "checkpoint_time")
+    private LocalDateTime checkpointTime;
+
+    @Column(name = "checkpoint_id")
+    private Long checkpointId;
+
+    @Column(name = "total")
+    private long total;
+
+    @Column(name = "processed")
+    private long processed;
+
+    @Column(name = "changed")
+    private long changed;
+
+    // Time spent working on chunks, across restarts
+    @Column(name = "active_millis")
+    private long activeMillis;
+
+    @Column(name = "rule_set_version")
+    private Long ruleSetVersion;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public ReanalysisJob() {}
+
+    public ReanalysisJob(FraudStatus statusFilter, LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        this.statusFilter = statusFilter;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    /**
+     * @return true once the job will do no more work
+     */
+    public boolean isFinished() {
+        return state == ReanalysisJobState.COMPLETED || state == ReanalysisJobState.FAILED
+                || state == ReanalysisJobState.CANCELLED;
+    }
+
+    /**
+     * @return Transactions re-scored per second of active work
+     */
+    public double getThroughputPerSecond() {
+        return activeMillis > 0 ? processed * 1000.0 / activeMillis : 0.0;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ReanalysisJobState getState() {
+        return state;
+    }
+
+    public void setState(ReanalysisJobState state) {
+        this.state = state;
+    }
+
+    public FraudStatus getStatusFilter() {
+        return statusFilter;
+    }
+
+    public void setStatusFilter(FraudStatus statusFilter) {
+        this.statusFilter = statusFilter;
+    }
+
+    public LocalDateTime getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(LocalDateTime rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public LocalDateTime getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(LocalDateTime rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public LocalDateTime getCheckpointTime() {
+        return checkpointTime;
+    }
+
+    public void setCheckpointTime(LocalDateTime checkpointTime) {
+        this.checkpointTime = checkpointTime;
+    }
+
+    public Long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(Long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    /**
+     * @return Transactions matching the filter when the job was created
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * @return Re-scored transactions whose status changed
+     */
+    public long getChanged() {
+        return changed;
+    }
+
+    public void setChanged(long changed) {
+        this.changed = changed;
+    }
+
+    public long getActiveMillis() {
+        return activeMillis;
+    }
+
+    public void setActiveMillis(long activeMillis) {
+        this.activeMillis = activeMillis;
+    }
+
+    /**
+     * @return Version of the rule snapshot the job scores against, set when it starts running
+     */
+    public Long getRuleSetVersion() {
+        return ruleSetVersion;
+    }
+
+    public void setRuleSetVersion(Long ruleSetVersion) {
+        this.ruleSetVersion = ruleSetVersion;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ReanalysisJob{" +
+                "id=" + id +
+                ", state=" + state +
+                ", statusFilter=" + statusFilter +
+                ", processed=" + processed +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.fraud_detection.model;
+
+public enum ReanalysisJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -6,5 +6,7 @@ public enum RuleType {
     LOCATION_BASED,
     MERCHANT_CATEGORY,
     TIME_BASED,
-    IP_BASED
+    IP_BASED,
+    IP_FAN_OUT,
+    SPEND_VELOCITY
 }
\ No newline at end of file
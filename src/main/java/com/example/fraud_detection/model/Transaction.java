@@ -1,17 +1,22 @@
 package com.example.fraud_detection.model;
 
+import com.example.fraud_detection.engine.DecisionTrace;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "transactions")
 public class Transaction {
 
+    // Pooled sequence ids let Hibernate batch inserts, which IDENTITY columns rule out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "User is required")
@@ -60,6 +65,19 @@ public class Transaction {
     @Column(name = "ip_address")
     private String ipAddress;
 
+    @Column(name = "rule_set_version")
+    private Long ruleSetVersion;
+
+    // Derived from amount on first use so repeated scoring compares primitives
+    @Transient
+    private long amountCents = UNKNOWN_CENTS;
+
+    private static final long UNKNOWN_CENTS = Long.MIN_VALUE;
+
+    // What fired in the last scoring, until the decision is written to the journal
+    @Transient
+    private DecisionTrace decisionTrace;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -101,6 +119,36 @@ public class Transaction {
 
     public void setAmount(BigDecimal amount) {
         this.amount = amount;
+        this.amountCents = UNKNOWN_CENTS;
+    }
+
+    /**
+     * @return The amount in cents, rounded up to the next cent and capped at the range of long
+     */
+    @JsonIgnore
+    public long getAmountCents() {
+        if (amountCents == UNKNOWN_CENTS && amount != null) {
+            amountCents = toCents(amount);
+        }
+        return amountCents;
+    }
+
+    /**
+     * Converts an amount the way {@link #getAmountCents()} does, for amounts read without an entity
+     */
+    public static long toCents(BigDecimal amount) {
+        BigDecimal cents = amount.movePointRight(2).setScale(0, RoundingMode.CEILING);
+        return cents.unscaledValue().bitLength() < 64 ? cents.longValue()
+                : cents.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE + 1;
+    }
+
+    @JsonIgnore
+    public DecisionTrace getDecisionTrace() {
+        return decisionTrace;
+    }
+
+    public void setDecisionTrace(DecisionTrace decisionTrace) {
+        this.decisionTrace = decisionTrace;
     }
 
     public TransactionType getTransactionType() {
@@ -191,6 +239,14 @@ public class Transaction {
         this.ipAddress = ipAddress;
     }
 
+    public Long getRuleSetVersion() {
+        return ruleSetVersion;
+    }
+
+    public void setRuleSetVersion(Long ruleSetVersion) {
+        this.ruleSetVersion = ruleSetVersion;
+    }
+
     @Override
     public String toString() {
         return "Transaction{" +
@@ -0,0 +1,117 @@
+package com.example.fraud_detection.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transaction_archives")
+public class TransactionArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The month of transaction times the file holds, [bucketStart, bucketEnd)
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "bucket_end", nullable = false)
+    private LocalDateTime bucketEnd;
+
+    // Relative to the archive directory
+    @Column(name = "file_name", nullable = false, unique = true)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "byte_size", nullable = false)
+    private long byteSize;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public TransactionArchive() {}
+
+    public TransactionArchive(LocalDateTime bucketStart, LocalDateTime bucketEnd, String fileName,
+                              long rowCount, long byteSize) {
+        this.bucketStart = bucketStart;
+        this.bucketEnd = bucketEnd;
+        this.fileName = fileName;
+        this.rowCount = rowCount;
+        this.byteSize = byteSize;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public LocalDateTime getBucketEnd() {
+        return bucketEnd;
+    }
+
+    public void setBucketEnd(LocalDateTime bucketEnd) {
+        this.bucketEnd = bucketEnd;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(long byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionArchive{" +
+                "id=" + id +
+                ", bucketStart=" + bucketStart +
+                ", fileName='" + fileName + '\'' +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+}
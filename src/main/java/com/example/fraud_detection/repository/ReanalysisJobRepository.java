@@ -0,0 +1,17 @@
+package com.example.fraud_detection.repository;
+
+import com.example.fraud_detection.model.ReanalysisJob;
+import com.example.fraud_detection.model.ReanalysisJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReanalysisJobRepository extends JpaRepository<ReanalysisJob, Long> {
+
+    List<ReanalysisJob> findByStateInOrderByIdAsc(Collection<ReanalysisJobState> states);
+    
+    List<ReanalysisJob> findAllByOrderByIdDesc();
+}
@@ -0,0 +1,19 @@
+package com.example.fraud_detection.repository;
+
+import com.example.fraud_detection.model.TransactionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, Long> {
+
+    List<TransactionArchive> findAllByOrderByBucketStartAscIdAsc();
+    
+    List<TransactionArchive> findByBucketStartLessThanAndBucketEndGreaterThanOrderByBucketStartAscIdAsc(
+            LocalDateTime end, LocalDateTime start);
+    
+    long countByBucketStart(LocalDateTime bucketStart);
+}
@@ -4,14 +4,23 @@ import com.example.fraud_detection.model.Transaction;
 import com.example.fraud_detection.model.User;
 import com.example.fraud_detection.model.FraudStatus;
 import com.example.fraud_detection.model.TransactionType;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -22,6 +31,34 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     List<Transaction> findByFraudStatus(FraudStatus fraudStatus);
     
+    long countByFraudStatus(FraudStatus fraudStatus);
+    
+    @Query("SELECT t.fraudStatus, COUNT(t) FROM Transaction t GROUP BY t.fraudStatus")
+    List<Object[]> countGroupedByFraudStatus();
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user ORDER BY t.transactionTime DESC, t.id DESC")
+    List<Transaction> findFirstPage(Limit limit);
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user WHERE t.transactionTime < :time OR (t.transactionTime = :time AND t.id < :id) ORDER BY t.transactionTime DESC, t.id DESC")
+    List<Transaction> findPageBefore(@Param("time") LocalDateTime time, @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user WHERE t.fraudStatus = :status ORDER BY t.transactionTime DESC, t.id DESC")
+    List<Transaction> findFirstPageByStatus(@Param("status") FraudStatus fraudStatus, Limit limit);
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user WHERE t.fraudStatus = :status AND (t.transactionTime < :time OR (t.transactionTime = :time AND t.id < :id)) ORDER BY t.transactionTime DESC, t.id DESC")
+    List<Transaction> findPageByStatusBefore(@Param("status") FraudStatus fraudStatus, @Param("time") LocalDateTime time, @Param("id") Long id, Limit limit);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user ORDER BY t.transactionTime DESC, t.id DESC")
+    Stream<Transaction> streamAllForExport();
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user WHERE t.fraudStatus = :status ORDER BY t.transactionTime DESC, t.id DESC")
+    Stream<Transaction> streamByStatusForExport(@Param("status") FraudStatus fraudStatus);
+    
+    @Query("SELECT t.id FROM Transaction t WHERE t.fraudStatus = :status ORDER BY t.id")
+    List<Long> findIdsByFraudStatus(@Param("status") FraudStatus fraudStatus);
+    
     List<Transaction> findByUserAndFraudStatus(User user, FraudStatus fraudStatus);
     
     @Query("SELECT t FROM Transaction t WHERE t.user = :user AND t.transactionTime >= :time ORDER BY t.transactionTime DESC")
@@ -43,4 +80,53 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     @Query("SELECT t FROM Transaction t WHERE t.ipAddress = :ipAddress AND t.transactionTime >= :time")
     List<Transaction> findByIpAddressSince(@Param("ipAddress") String ipAddress, @Param("time") LocalDateTime time);
-}
\ No newline at end of file
+    
+    @Query("SELECT t.id, t.transactionTime, t.amount FROM Transaction t " +
+           "WHERE t.user.id = :userId AND t.transactionTime >= :start AND t.transactionTime < :end " +
+           "ORDER BY t.transactionTime")
+    List<Object[]> findUserActivityBetween(@Param("userId") Long userId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.user.id, t.transactionTime, t.amount, t.id, t.createdAt FROM Transaction t WHERE t.transactionTime >= :time")
+    Stream<Object[]> streamUserActivitySince(@Param("time") LocalDateTime time);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.ipAddress, t.user.id, t.cardNumberMasked, t.transactionTime, t.id, t.createdAt FROM Transaction t " +
+           "WHERE t.ipAddress IS NOT NULL AND t.transactionTime >= :time ORDER BY t.transactionTime")
+    Stream<Object[]> streamIpActivitySince(@Param("time") LocalDateTime time);
+    
+    // Scalar columns only, so replayed chunks never enter the persistence context
+    @Query("SELECT t.id, t.user.id, t.amount, t.merchantCategory, t.location, t.ipAddress, t.cardNumberMasked, " +
+           "t.transactionTime, t.fraudStatus, t.fraudScore FROM Transaction t " +
+           "WHERE t.transactionTime < :end AND (t.transactionTime > :time OR (t.transactionTime = :time AND t.id > :id)) " +
+           "ORDER BY t.transactionTime, t.id")
+    List<Object[]> findReplayChunkAfter(@Param("end") LocalDateTime end, @Param("time") LocalDateTime time,
+                                          @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.transactionTime >= :start AND t.transactionTime < :end " +
+           "AND (:status IS NULL OR t.fraudStatus = :status)")
+    long countInRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                      @Param("status") FraudStatus fraudStatus);
+    
+    @Query("SELECT MIN(t.transactionTime) FROM Transaction t")
+    LocalDateTime findOldestTransactionTime();
+    
+    // Every column, so archived rows are rebuilt without entering the persistence context
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id, t.user.id, t.amount, t.transactionType, t.merchantName, t.merchantCategory, t.location, " +
+           "t.transactionTime, t.createdAt, t.fraudStatus, t.fraudScore, t.fraudReason, t.cardNumberMasked, " +
+           "t.ipAddress, t.ruleSetVersion FROM Transaction t " +
+           "WHERE t.transactionTime >= :start AND t.transactionTime < :end ORDER BY t.transactionTime, t.id")
+    Stream<Object[]> streamForArchive(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // Locks the rows until the transaction ends, so the ids read are the ids a following range delete removes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id FROM Transaction t " +
+           "WHERE t.transactionTime >= :start AND t.transactionTime < :end ORDER BY t.transactionTime, t.id")
+    Stream<Long> lockIdsForArchive(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.transactionTime >= :start AND t.transactionTime < :end")
+    int deleteInRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,29 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncScoringService {
+
+    /**
+     * @return true if transactions are accepted as PENDING and scored in the background
+     */
+    boolean isEnabled();
+
+    /**
+     * Persists a transaction as PENDING and queues it for scoring
+     * @param transactionRequest The transaction request
+     * @return The pending transaction, or the scored one if the queue was full and it ran inline
+     * @throws java.util.concurrent.RejectedExecutionException if the queue is full and the policy is to reject
+     */
+    Transaction submit(TransactionRequest transactionRequest);
+
+    /**
+     * Returns a future that completes once the transaction has been scored
+     * @param transactionId The transaction id
+     * @return The future result, already completed if the transaction is not waiting to be scored
+     */
+    CompletableFuture<Transaction> awaitResult(Long transactionId);
+}
@@ -0,0 +1,15 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.BacktestReport;
+import com.example.fraud_detection.dto.BacktestRequest;
+
+public interface BacktestService {
+
+    /**
+     * Scores stored transactions in a time range against a candidate rule set without writing anything
+     * @param request The time range and candidate rules
+     * @return Confusion counts against the stored statuses and the transactions that would change
+     * @throws IllegalArgumentException if the time range is empty
+     */
+    BacktestReport run(BacktestRequest request);
+}
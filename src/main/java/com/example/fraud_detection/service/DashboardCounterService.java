@@ -0,0 +1,32 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.model.FraudStatus;
+
+public interface DashboardCounterService {
+
+    /**
+     * @return Total number of transactions
+     */
+    long getTransactionCount();
+
+    /**
+     * @param fraudStatus The status to count
+     * @return Number of transactions currently in the given status
+     */
+    long getTransactionCount(FraudStatus fraudStatus);
+
+    /**
+     * @return Total number of users
+     */
+    long getUserCount();
+
+    /**
+     * @return Total number of fraud rules
+     */
+    long getRuleCount();
+
+    /**
+     * Resets every counter from the database to correct any drift
+     */
+    void reconcile();
+}
@@ -0,0 +1,13 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.model.Transaction;
+
+public interface DecisionJournalService {
+
+    /**
+     * Appends the decision of a scored, committed transaction to the journal and clears its
+     * decision trace; transactions without a trace are ignored
+     * @param transaction The transaction with its id, score, status and rule set version set
+     */
+    void record(Transaction transaction);
+}
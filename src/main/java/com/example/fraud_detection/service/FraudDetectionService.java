@@ -1,8 +1,14 @@
 package com.example.fraud_detection.service;
 
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.RuleSnapshot;
 import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.dto.BatchTransactionResponse;
 import com.example.fraud_detection.dto.TransactionRequest;
 
+import java.util.List;
+
 public interface FraudDetectionService {
     
     /**
@@ -19,6 +25,20 @@ public interface FraudDetectionService {
      */
     Transaction createAndAnalyzeTransaction(TransactionRequest transactionRequest);
     
+    /**
+     * Persists a transaction from a request as PENDING without scoring it
+     * @param transactionRequest The transaction request
+     * @return The saved pending transaction
+     */
+    Transaction createPendingTransaction(TransactionRequest transactionRequest);
+    
+    /**
+     * Creates, scores and persists a batch of transactions in one database round
+     * @param transactionRequests The transaction requests, in submission order
+     * @return Per-request results; invalid requests are reported without failing the batch
+     */
+    BatchTransactionResponse createAndAnalyzeTransactions(List<TransactionRequest> transactionRequests);
+    
     /**
      * Calculates the fraud risk score for a transaction
      * @param transaction The transaction to score
@@ -26,6 +46,17 @@ public interface FraudDetectionService {
      */
     double calculateFraudScore(Transaction transaction);
     
+    /**
+     * Calculates the fraud risk score against a given rule snapshot and activity history,
+     * without recording metrics or logging detections; what fired is kept as the
+     * transaction's decision trace
+     * @param transaction The transaction to score
+     * @param snapshot The rules to score against, which need not be the installed snapshot
+     * @param history The activity velocity and IP fan-out checks are evaluated against
+     * @return The fraud risk score (0.0 - 100.0)
+     */
+    double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot, ActivityHistory history);
+    
     /**
      * Checks if a transaction exceeds the amount threshold
      * @param transaction The transaction to check
@@ -39,4 +70,26 @@ public interface FraudDetectionService {
      * @return true if velocity is suspicious
      */
     boolean checkVelocityFraud(Transaction transaction);
+    
+    /**
+     * Checks if a transaction is in a built-in high-risk merchant category
+     * @param transaction The transaction to check
+     * @return true if the merchant category is high-risk
+     */
+    boolean checkUnusualMerchant(Transaction transaction);
+    
+    /**
+     * Checks if a transaction happened at an unusual hour (2 AM - 5 AM)
+     * @param transaction The transaction to check
+     * @return true if the time is unusual
+     */
+    boolean checkUnusualTime(Transaction transaction);
+    
+    /**
+     * Evaluates a single compiled fraud rule against a transaction
+     * @param transaction The transaction to check
+     * @param rule The rule to apply
+     * @return true if the rule matches
+     */
+    boolean applyFraudRule(Transaction transaction, CompiledRule rule);
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.engine.ScoringMetrics;
+import com.example.fraud_detection.model.Transaction;
+
+public interface FraudScoringService {
+
+    /**
+     * Calculates the fraud risk score against the installed rule snapshot and live activity
+     * @param transaction The transaction to score
+     * @return The fraud risk score (0.0 - 100.0)
+     */
+    double calculateFraudScore(Transaction transaction);
+
+    /**
+     * Calculates the fraud risk score against live activity, recording metrics; while the
+     * journal is enabled, what fired is kept as the transaction's decision trace
+     * @param transaction The transaction to score
+     * @param snapshot The rules to score against
+     * @return The fraud risk score (0.0 - 100.0)
+     */
+    double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot);
+
+    /**
+     * Calculates the fraud risk score against a given rule snapshot and activity history,
+     * without recording metrics or logging detections; while the journal is enabled, what
+     * fired is kept as the transaction's decision trace
+     * @param transaction The transaction to score
+     * @param snapshot The rules to score against, which need not be the installed snapshot
+     * @param history The activity velocity and IP fan-out checks are evaluated against
+     * @return The fraud risk score (0.0 - 100.0)
+     */
+    double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot, ActivityHistory history);
+
+    /**
+     * @return The meters live scoring records into
+     */
+    ScoringMetrics getMetrics();
+
+    /**
+     * Checks if a transaction exceeds the amount threshold
+     * @param transaction The transaction to check
+     * @return true if amount is suspicious
+     */
+    boolean checkAmountThreshold(Transaction transaction);
+
+    /**
+     * Checks for velocity fraud against live activity
+     * @param transaction The transaction to check
+     * @return true if velocity is suspicious
+     */
+    boolean checkVelocityFraud(Transaction transaction);
+
+    /**
+     * Checks if a transaction is in a built-in high-risk merchant category
+     * @param transaction The transaction to check
+     * @return true if the merchant category is high-risk
+     */
+    boolean checkUnusualMerchant(Transaction transaction);
+
+    /**
+     * Checks if a transaction happened at an unusual hour (2 AM - 5 AM)
+     * @param transaction The transaction to check
+     * @return true if the time is unusual
+     */
+    boolean checkUnusualTime(Transaction transaction);
+
+    /**
+     * Evaluates a single compiled fraud rule against a transaction
+     * @param transaction The transaction to check
+     * @param rule The rule to apply
+     * @return true if the rule matches
+     */
+    boolean applyFraudRule(Transaction transaction, CompiledRule rule);
+}
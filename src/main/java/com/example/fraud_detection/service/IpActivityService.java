@@ -0,0 +1,48 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.engine.IpActivityWindow;
+import com.example.fraud_detection.model.Transaction;
+
+import java.time.LocalDateTime;
+
+public interface IpActivityService {
+
+    /**
+     * Records a transaction in its IP address's window; transactions without an IP are ignored
+     * @param transaction The saved transaction
+     */
+    void recordTransaction(Transaction transaction);
+
+    /**
+     * Removes a previously recorded transaction that was never persisted
+     * @param transaction The transaction to forget
+     */
+    void discardTransaction(Transaction transaction);
+
+    /**
+     * Counts an IP address's transactions, distinct users and distinct cards between two instants (inclusive)
+     * @param ipAddress The IP address to count for
+     * @param start Window start
+     * @param end Window end
+     * @return The activity in the window, empty if the IP is not tracked
+     */
+    IpActivityWindow.Counts countActivity(String ipAddress, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Checks an IP address's window against fan-out limits without allocating
+     * @param ipAddress The IP address to check
+     * @param startMinute Window start as minutes since the epoch (UTC)
+     * @param endMinute Window end as minutes since the epoch (UTC)
+     * @param maxTransactions Transactions that reach the limit, ignored if zero
+     * @param maxDistinctUsers Distinct users that reach the limit, ignored if zero
+     * @param maxDistinctCards Distinct cards that reach the limit, ignored if zero
+     * @return true if any limit is reached
+     */
+    boolean reachesLimits(String ipAddress, long startMinute, long endMinute,
+                          int maxTransactions, int maxDistinctUsers, int maxDistinctCards);
+
+    /**
+     * Rebuilds all windows from the transactions table
+     */
+    void rebuild();
+}
@@ -0,0 +1,36 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.ReanalysisRequest;
+import com.example.fraud_detection.model.ReanalysisJob;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReanalysisService {
+
+    /**
+     * Queues a background job that re-scores stored transactions against the current rules
+     * @param request The status and time range filter
+     * @return The queued job
+     * @throws IllegalArgumentException if the time range is empty
+     */
+    ReanalysisJob startJob(ReanalysisRequest request);
+
+    /**
+     * @param jobId The job to look up
+     * @return The job with its current progress, if it exists
+     */
+    Optional<ReanalysisJob> findJob(Long jobId);
+
+    /**
+     * @return All jobs, most recent first
+     */
+    List<ReanalysisJob> findJobs();
+
+    /**
+     * Stops a queued or running job after its current chunk; committed chunks stay re-scored
+     * @param jobId The job to cancel
+     * @return false if the job does not exist or has already finished
+     */
+    boolean cancelJob(Long jobId);
+}
@@ -0,0 +1,37 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+
+import java.util.List;
+
+public interface RuleSnapshotService {
+
+    /**
+     * Returns the snapshot currently used for scoring
+     * @return The current rule snapshot, compiled on first use if necessary
+     */
+    RuleSnapshot getCurrentSnapshot();
+
+    /**
+     * Recompiles the active rules, atomically replaces the current snapshot and publishes it as
+     * an application event
+     * @return The newly installed snapshot
+     */
+    RuleSnapshot refresh();
+
+    /**
+     * Compiles the given rules without installing them, e.g. to evaluate a candidate rule set
+     * @param rules The rules to compile; inactive rules are left out
+     * @return A snapshot with version 0, which no installed snapshot uses
+     */
+    RuleSnapshot compile(List<FraudRule> rules);
+
+    /**
+     * Checks that a rule compiles, as it must to be part of any snapshot
+     * @param rule The rule to check, active or not
+     * @return false if the rule is missing the settings its type requires or, for an IP rule,
+     *         names no readable range
+     */
+    boolean isCompilable(FraudRule rule);
+}
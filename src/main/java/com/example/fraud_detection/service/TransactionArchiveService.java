@@ -0,0 +1,38 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.TransactionPage;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.TransactionArchive;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionArchiveService {
+
+    /**
+     * Archives every calendar month of transactions older than the retention to a file and
+     * drops its rows from the transactions table; skipped while a re-analysis job is unfinished
+     * @return The archive parts written by this run
+     */
+    List<TransactionArchive> archiveExpired();
+
+    /**
+     * @return Every archive part, oldest bucket first
+     */
+    List<TransactionArchive> findArchives();
+
+    /**
+     * Scans the archive files covering a time range, one page at a time, ordered by
+     * transaction time and then id
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @param userId Optional user filter, null for all users
+     * @param status Optional fraud status filter, null for all transactions
+     * @param cursor Opaque token from a previous page, or null for the first page
+     * @param limit Requested page size, clamped to the configured maximum
+     * @return Detached transactions referencing their user by id, and the cursor of the next page
+     * @throws IllegalArgumentException if the time range is empty or the cursor is malformed
+     */
+    TransactionPage findArchived(LocalDateTime from, LocalDateTime to, Long userId, FraudStatus status,
+                                 String cursor, Integer limit);
+}
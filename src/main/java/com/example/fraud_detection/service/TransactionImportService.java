@@ -0,0 +1,32 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.TransactionImportSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface TransactionImportService {
+
+    enum Format {
+        // One TransactionRequest JSON object per line
+        NDJSON,
+        // A header row naming TransactionRequest properties, then one record per line
+        CSV
+    }
+
+    /**
+     * Reads transaction records line by line, scores and persists them in batches through the
+     * batch ingestion path, and writes one NDJSON result per record followed by a summary line.
+     * Each batch's results are flushed before the next batch is read, so memory stays bounded
+     * by the batch size however large the body is
+     * @param body The records, UTF-8 encoded
+     * @param format How the records are encoded
+     * @param results Destination for the result lines; each result's index is its record's line number
+     * @return The totals written in the summary line
+     * @throws IllegalArgumentException if a CSV header names an unknown column or lacks a required
+     *         one, before anything is written
+     */
+    TransactionImportSummary importTransactions(InputStream body, Format format, OutputStream results)
+            throws IOException;
+}
@@ -0,0 +1,26 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.dto.TransactionPage;
+import com.example.fraud_detection.model.FraudStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface TransactionQueryService {
+
+    /**
+     * Returns one page of transactions, newest first, using keyset pagination on (transactionTime, id)
+     * @param status Optional fraud status filter, null for all transactions
+     * @param cursor Token from a previous page, null for the first page
+     * @param limit Requested page size, clamped to the configured maximum
+     * @return The page and the cursor for the next one
+     */
+    TransactionPage findPage(FraudStatus status, String cursor, Integer limit);
+
+    /**
+     * Streams matching transactions as newline-delimited JSON without holding the result set in memory
+     * @param status Optional fraud status filter, null for all transactions
+     * @param outputStream Destination for the NDJSON lines
+     */
+    void exportTransactions(FraudStatus status, OutputStream outputStream) throws IOException;
+}
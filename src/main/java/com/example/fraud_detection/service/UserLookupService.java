@@ -0,0 +1,30 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.model.User;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserLookupService {
+
+    /**
+     * Finds a user for the ingest path, from the cache when possible
+     * @param userId The user to find
+     * @return The user, active or not, or empty if it does not exist
+     */
+    Optional<User> findUser(Long userId);
+
+    /**
+     * Finds several users, loading only the ones not cached with a single query
+     * @param userIds The users to find
+     * @return The users found, by id
+     */
+    Map<Long, User> findUsers(Collection<Long> userIds);
+
+    /**
+     * Drops a user from the cache, again once the current transaction commits
+     * @param userId The user that changed
+     */
+    void invalidate(Long userId);
+}
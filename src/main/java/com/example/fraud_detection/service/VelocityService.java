@@ -0,0 +1,69 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.engine.UserActivityTimeline;
+import com.example.fraud_detection.model.Transaction;
+
+import java.time.LocalDateTime;
+
+public interface VelocityService {
+
+    /**
+     * Records a persisted transaction in its user's sliding window
+     * @param transaction The saved transaction
+     */
+    void recordTransaction(Transaction transaction);
+
+    /**
+     * Removes a previously recorded transaction that was never persisted
+     * @param transaction The transaction to forget
+     */
+    void discardTransaction(Transaction transaction);
+
+    /**
+     * Counts a user's transactions between two instants (inclusive)
+     * @param userId The user to count for
+     * @param start Window start
+     * @param end Window end
+     * @return The number of recorded transactions in the window
+     */
+    long countTransactions(Long userId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Counts a user's transactions between two minutes (inclusive) without allocating
+     * @param userId The user to count for
+     * @param startMinute Window start as minutes since the epoch (UTC)
+     * @param endMinute Window end as minutes since the epoch (UTC)
+     * @return The number of recorded transactions in the window
+     */
+    long countTransactions(Long userId, long startMinute, long endMinute);
+
+    /**
+     * Sums a user's spend between two minutes (inclusive) without allocating
+     * @param userId The user to sum for
+     * @param startMinute Window start as minutes since the epoch (UTC)
+     * @param endMinute Window end as minutes since the epoch (UTC)
+     * @return The total amount of the recorded transactions in the window, in cents
+     */
+    long sumAmountCents(Long userId, long startMinute, long endMinute);
+
+    /**
+     * Fills a timeline with a user's transactions between two minutes (inclusive) in one read,
+     * so any number of windows inside that range are answered without another read
+     * @param userId The user to load for
+     * @param startMinute Range start as minutes since the epoch (UTC)
+     * @param endMinute Range end as minutes since the epoch (UTC)
+     * @param timeline The timeline to fill; it is complete on return
+     */
+    void loadTimeline(Long userId, long startMinute, long endMinute, UserActivityTimeline timeline);
+
+    /**
+     * @return true if windows are answered from memory, false if every window read queries
+     *         the database and scoring should load a timeline once per transaction instead
+     */
+    boolean isInMemory();
+
+    /**
+     * Rebuilds all windows from the transactions table
+     */
+    void rebuild();
+}
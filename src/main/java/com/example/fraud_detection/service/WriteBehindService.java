@@ -0,0 +1,22 @@
+package com.example.fraud_detection.service;
+
+import com.example.fraud_detection.model.Transaction;
+
+public interface WriteBehindService {
+
+    /**
+     * @return true if scored transactions are group-committed by a background writer
+     */
+    boolean isEnabled();
+
+    /**
+     * Queues a scored, not yet persisted transaction for the next group commit
+     * @param transaction The scored transaction, already recorded in the activity windows
+     * @return The saved transaction once its batch committed when acknowledging after flush,
+     *         or the same unsaved transaction right away when acknowledging after enqueue
+     * @throws java.util.concurrent.RejectedExecutionException if the buffer is full
+     * @throws IllegalStateException if write-behind is stopped, or when acknowledging after
+     *         flush, if the batch failed or did not commit within the flush timeout
+     */
+    Transaction write(Transaction transaction);
+}
@@ -0,0 +1,275 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.AsyncScoringService;
+import com.example.fraud_detection.service.FraudDetectionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class AsyncScoringServiceImpl implements AsyncScoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncScoringServiceImpl.class);
+
+    public enum SaturationPolicy {
+        /** Refuse new transactions while the queue is full */
+        REJECT,
+        /** Score on the request thread while the queue is full */
+        CALLER_RUNS
+    }
+
+    @Autowired
+    private FraudDetectionService fraudDetectionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.async.worker-count:8}")
+    private int workerCount;
+
+    @Value("${fraud.detection.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${fraud.detection.async.saturation-policy:REJECT}")
+    private SaturationPolicy saturationPolicy;
+
+    // Longest a subscriber waits for a pending transaction nothing has queued
+    @Value("${fraud.detection.async.subscription-timeout-ms:30000}")
+    private long subscriptionTimeoutMs;
+
+    private final Map<Long, CompletableFuture<Transaction>> inFlight = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter callerRunsCounter;
+    private Counter failedCounter;
+    private Timer queueWaitTimer;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "fraud-scoring-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("fraud.async.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Transactions waiting to be scored")
+                .register(meterRegistry);
+        Gauge.builder("fraud.async.queue.capacity", executor, pool -> queueCapacity)
+                .register(meterRegistry);
+        Gauge.builder("fraud.async.workers.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        acceptedCounter = meterRegistry.counter("fraud.async.accepted");
+        rejectedCounter = meterRegistry.counter("fraud.async.saturated", "policy", SaturationPolicy.REJECT.name());
+        callerRunsCounter = meterRegistry.counter("fraud.async.saturated", "policy", SaturationPolicy.CALLER_RUNS.name());
+        failedCounter = meterRegistry.counter("fraud.async.failed");
+        queueWaitTimer = meterRegistry.timer("fraud.async.queue.wait");
+
+        logger.info("Asynchronous scoring enabled - {} workers, queue capacity {}, saturation policy {}",
+                   workerCount, queueCapacity, saturationPolicy);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                // Unscored transactions stay PENDING and are queued again on the next start
+                logger.warn("Stopped with {} transactions still queued", executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Re-queues transactions left PENDING by a previous shutdown; those the queue has no room
+     * for are scored here, so none is stranded until the next restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingTransactions() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> pendingIds = transactionRepository.findIdsByFraudStatus(FraudStatus.PENDING);
+        int queued = 0;
+        int scoredInline = 0;
+        for (Long id : pendingIds) {
+            if (enqueue(id)) {
+                queued++;
+                continue;
+            }
+            // Scoring here while the queue is full also paces the rest to the workers
+            try {
+                scoreAndComplete(id);
+            } catch (RuntimeException e) {
+                // Already logged; the transaction stays PENDING for the next start
+            }
+            scoredInline++;
+        }
+        if (!pendingIds.isEmpty()) {
+            logger.info("Re-queued {} and scored {} inline of {} pending transactions",
+                       queued, scoredInline, pendingIds.size());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Transaction submit(TransactionRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("Asynchronous scoring is disabled");
+        }
+        if (saturationPolicy == SaturationPolicy.REJECT && executor.getQueue().remainingCapacity() == 0) {
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Scoring queue is full");
+        }
+
+        Transaction pending = fraudDetectionService.createPendingTransaction(request);
+        acceptedCounter.increment();
+        if (enqueue(pending.getId())) {
+            return pending;
+        }
+
+        // The queue filled up after the pre-check; score inline rather than strand the transaction
+        callerRunsCounter.increment();
+        return scoreAndComplete(pending.getId());
+    }
+
+    @Override
+    public CompletableFuture<Transaction> awaitResult(Long transactionId) {
+        CompletableFuture<Transaction> result = inFlight.get(transactionId);
+        if (result != null) {
+            return result;
+        }
+        Optional<Transaction> stored = transactionRepository.findById(transactionId);
+        if (stored.isEmpty()) {
+            return CompletableFuture.failedFuture(new RuntimeException("Transaction not found with id: " + transactionId));
+        }
+        if (stored.get().getFraudStatus() != FraudStatus.PENDING) {
+            return CompletableFuture.completedFuture(stored.get());
+        }
+
+        // Not scored yet and not queued either: it is about to be queued or is being scored
+        // inline. Wait for it, and read it again in case scoring finished before the wait began.
+        CompletableFuture<Transaction> created = new CompletableFuture<>();
+        result = inFlight.putIfAbsent(transactionId, created);
+        if (result == null) {
+            result = created;
+            expireIfNeverScored(transactionId, created);
+        }
+        CompletableFuture<Transaction> waiting = result;
+        transactionRepository.findById(transactionId)
+                .filter(transaction -> transaction.getFraudStatus() != FraudStatus.PENDING)
+                .ifPresent(scored -> {
+                    inFlight.remove(transactionId, waiting);
+                    waiting.complete(scored);
+                });
+        return result;
+    }
+
+    /**
+     * A pending transaction whose scoring failed is never queued again until a restart, so a
+     * future registered by a subscriber fails after the subscription timeout and is dropped
+     * however it completes.
+     */
+    private void expireIfNeverScored(Long transactionId, CompletableFuture<Transaction> waiting) {
+        waiting.whenComplete((transaction, error) -> inFlight.remove(transactionId, waiting));
+        CompletableFuture.delayedExecutor(subscriptionTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            inFlight.remove(transactionId, waiting);
+            waiting.completeExceptionally(new TimeoutException("Transaction " + transactionId
+                    + " was not scored within " + subscriptionTimeoutMs + " ms"));
+        });
+    }
+
+    private boolean enqueue(Long transactionId) {
+        // Reuses the future of anyone already waiting for the transaction
+        inFlight.computeIfAbsent(transactionId, id -> new CompletableFuture<>());
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    scoreAndComplete(transactionId);
+                } catch (RuntimeException e) {
+                    // Already logged and handed to any waiting subscribers
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The caller scores it inline, which completes the future
+            return false;
+        }
+    }
+
+    /**
+     * Scores and commits the transaction, then completes the future waiting for it; the future
+     * stays registered until the score is committed so a late subscriber never reads PENDING.
+     */
+    private Transaction scoreAndComplete(Long transactionId) {
+        try {
+            Transaction scored = transactionTemplate.execute(status -> transactionRepository.findById(transactionId)
+                    .map(fraudDetectionService::analyzeTransaction)
+                    .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId)));
+            CompletableFuture<Transaction> result = inFlight.remove(transactionId);
+            if (result != null) {
+                result.complete(scored);
+            }
+            return scored;
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            logger.error("Error scoring pending transaction {}: {}", transactionId, e.getMessage());
+            CompletableFuture<Transaction> result = inFlight.remove(transactionId);
+            if (result != null) {
+                result.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.BacktestChange;
+import com.example.fraud_detection.dto.BacktestReport;
+import com.example.fraud_detection.dto.BacktestRequest;
+import com.example.fraud_detection.engine.ReplayActivityHistory;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.BacktestService;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays stored transactions in time order, chunk by chunk, and scores each chunk on a
+ * fork-join pool against a candidate snapshot.
+ *
+ * Velocity and IP fan-out checks read a {@link ReplayActivityHistory} that is warmed up with
+ * the transactions one horizon before the range, so windows at its start are complete. A
+ * chunk is recorded into the history in time order and each transaction is scored against
+ * the history as of its own record: the transactions before it and itself, including those
+ * of its own minute, but none after it. Live scoring records a transaction before scoring it
+ * too, so both count the same transactions, up to arrival order within the same instant.
+ * Memory is bounded by the chunk size, one horizon of activity and the reported changes.
+ */
+@Service
+public class BacktestServiceImpl implements BacktestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BacktestServiceImpl.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FraudRuleRepository fraudRuleRepository;
+
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private FraudScoringService fraudScoringService;
+
+    @Value("${fraud.detection.backtest.chunk-size:5000}")
+    private int chunkSize;
+
+    // Zero uses one worker per available processor
+    @Value("${fraud.detection.backtest.parallelism:0}")
+    private int parallelism;
+
+    @Value("${fraud.detection.backtest.max-reported-changes:1000}")
+    private int maxReportedChanges;
+
+    @Value("${fraud.detection.velocity-check-window-minutes:60}")
+    private int velocityCheckWindowMinutes;
+
+    @Value("${fraud.detection.ip-activity.max-events-per-ip:512}")
+    private int maxEventsPerIp;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public BacktestReport run(BacktestRequest request) {
+        if (!request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("Backtest range is empty: " + request.getFrom() + " to " + request.getTo());
+        }
+        long startMillis = System.currentTimeMillis();
+
+        List<FraudRule> candidates = request.getRules() != null
+                ? request.getRules()
+                : fraudRuleRepository.findByIsActive(true);
+        RuleSnapshot snapshot = ruleSnapshotService.compile(candidates);
+        int horizonMinutes = ReplayChunk.horizonMinutes(snapshot, velocityCheckWindowMinutes);
+        ReplayActivityHistory history = new ReplayActivityHistory(horizonMinutes, maxEventsPerIp);
+
+        BacktestReport report = new BacktestReport(request.getFrom(), request.getTo(),
+                snapshot.getRules().size(), snapshot.getRejectedRuleCount());
+        long[][] confusion = new long[FraudStatus.values().length][FraudStatus.values().length];
+        ReplayChunk chunk = new ReplayChunk(chunkSize);
+
+        logger.info("Backtesting {} rules over {} to {} with a {} minute warm-up",
+                   snapshot.getRules().size(), request.getFrom(), request.getTo(), horizonMinutes);
+
+        // Keyset position; the first chunk starts with everything at the warm-up start
+        LocalDateTime afterTime = request.getFrom().minusMinutes(horizonMinutes);
+        Long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<Object[]> rows = transactionRepository.findReplayChunkAfter(
+                    request.getTo(), afterTime, afterId, Limit.of(chunkSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // Everything from the start of the range on is scored
+            chunk.load(rows, request.getFrom(), Long.MIN_VALUE, null);
+            chunk.recordInto(history);
+            chunk.score(pool, fraudScoringService, snapshot, history);
+            tally(chunk, confusion, report);
+            chunk.releaseTraces();
+
+            Transaction last = chunk.last();
+            afterTime = last.getTransactionTime();
+            afterId = last.getId();
+            report.setReplayed(report.getReplayed() + chunk.size);
+            if (rows.size() < chunkSize) {
+                break;
+            }
+        }
+
+        report.setConfusion(toMap(confusion));
+        report.setElapsedMillis(System.currentTimeMillis() - startMillis);
+        logger.info("Backtest scored {} transactions ({} replayed), {} would change status, in {} ms",
+                   report.getScored(), report.getReplayed(), report.getChanged(), report.getElapsedMillis());
+        return report;
+    }
+
+    private void tally(ReplayChunk chunk, long[][] confusion, BacktestReport report) {
+        for (int i = 0; i < chunk.size; i++) {
+            if (!chunk.selected[i]) {
+                continue;
+            }
+            FraudStatus stored = chunk.storedStatuses[i];
+            FraudStatus backtest = FraudDetectionServiceImpl.statusForScore(chunk.scores[i]);
+            confusion[stored.ordinal()][backtest.ordinal()]++;
+            report.setScored(report.getScored() + 1);
+
+            if (stored == FraudStatus.PENDING || stored == backtest) {
+                continue;
+            }
+            report.setChanged(report.getChanged() + 1);
+            if (report.getChanges().size() < maxReportedChanges) {
+                Transaction transaction = chunk.transactions[i];
+                report.getChanges().add(new BacktestChange(transaction.getId(), transaction.getTransactionTime(),
+                        stored, chunk.storedScores[i], backtest, chunk.scores[i]));
+            } else {
+                report.setChangesTruncated(true);
+            }
+        }
+    }
+
+    private static Map<FraudStatus, Map<FraudStatus, Long>> toMap(long[][] confusion) {
+        Map<FraudStatus, Map<FraudStatus, Long>> result = new EnumMap<>(FraudStatus.class);
+        for (FraudStatus stored : FraudStatus.values()) {
+            Map<FraudStatus, Long> row = new EnumMap<>(FraudStatus.class);
+            for (FraudStatus backtest : FraudStatus.values()) {
+                long count = confusion[stored.ordinal()][backtest.ordinal()];
+                if (count > 0) {
+                    row.put(backtest, count);
+                }
+            }
+            if (!row.isEmpty()) {
+                result.put(stored, row);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.UserRepository;
+import com.example.fraud_detection.service.UserLookupService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded cache of users in front of {@link UserRepository} for the ingest path.
+ *
+ * Caffeine's W-TinyLFU admission keeps the hot users that most traffic comes from, and the
+ * TTL bounds how long a change made outside {@code UserService} can go unnoticed. Inactive
+ * users are cached like active ones, so they are rejected without a database hit. Hit and
+ * miss counts are published as the {@code cache.gets} meter of the {@code users} cache.
+ */
+@Service
+public class CachingUserLookupServiceImpl implements UserLookupService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${fraud.detection.user-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, User> users;
+
+    @PostConstruct
+    void start() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    @Override
+    public Optional<User> findUser(Long userId) {
+        // Missing users are not cached, so a user created later is found on its first transaction
+        return Optional.ofNullable(users.get(userId, id -> userRepository.findById(id).orElse(null)));
+    }
+
+    @Override
+    public Map<Long, User> findUsers(Collection<Long> userIds) {
+        return users.getAll(userIds, missing -> {
+            Map<Long, User> loaded = new HashMap<>();
+            for (User user : userRepository.findAllById(new ArrayList<>(missing))) {
+                loaded.put(user.getId(), user);
+            }
+            return loaded;
+        });
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        users.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A lookup racing the change may have cached the state from before the commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    users.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.repository.UserRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps dashboard totals in memory so rendering them never touches the database.
+ *
+ * Counters follow Hibernate post-commit events, so rolled-back writes are never counted.
+ * Bulk JPQL statements bypass those events; the scheduled reconciliation corrects them.
+ */
+@Service
+public class DashboardCounterServiceImpl implements DashboardCounterService,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCounterServiceImpl.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FraudRuleRepository fraudRuleRepository;
+
+    private final AtomicLong[] statusCounts = new AtomicLong[FraudStatus.values().length];
+    private final AtomicLong userCount = new AtomicLong();
+    private final AtomicLong ruleCount = new AtomicLong();
+
+    private volatile int fraudStatusIndex = -1;
+
+    public DashboardCounterServiceImpl() {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = new AtomicLong();
+        }
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public long getTransactionCount() {
+        long total = 0;
+        for (AtomicLong count : statusCounts) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTransactionCount(FraudStatus fraudStatus) {
+        return statusCounts[fraudStatus.ordinal()].get();
+    }
+
+    @Override
+    public long getUserCount() {
+        return userCount.get();
+    }
+
+    @Override
+    public long getRuleCount() {
+        return ruleCount.get();
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${fraud.detection.counters.reconcile-interval-ms:60000}",
+               initialDelayString = "${fraud.detection.counters.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        long[] counted = new long[statusCounts.length];
+        List<Object[]> grouped = transactionRepository.countGroupedByFraudStatus();
+        for (Object[] row : grouped) {
+            if (row[0] != null) {
+                counted[((FraudStatus) row[0]).ordinal()] = (Long) row[1];
+            }
+        }
+
+        long drift = 0;
+        for (int i = 0; i < counted.length; i++) {
+            drift += Math.abs(statusCounts[i].getAndSet(counted[i]) - counted[i]);
+        }
+        drift += Math.abs(userCount.getAndSet(userRepository.count()) - userCount.get());
+        drift += Math.abs(ruleCount.getAndSet(fraudRuleRepository.count()) - ruleCount.get());
+
+        if (drift > 0) {
+            logger.debug("Reconciled dashboard counters - corrected drift of {}", drift);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Transaction transaction) {
+            // The inserted state, not the entity: a status set after the insert arrives as an update
+            Object[] state = event.getState();
+            adjust(state != null ? (FraudStatus) state[fraudStatusIndex(event.getPersister())]
+                    : transaction.getFraudStatus(), 1);
+        } else if (entity instanceof User) {
+            userCount.incrementAndGet();
+        } else if (entity instanceof FraudRule) {
+            ruleCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Transaction) || event.getOldState() == null) {
+            return;
+        }
+        int index = fraudStatusIndex(event.getPersister());
+        FraudStatus previous = (FraudStatus) event.getOldState()[index];
+        FraudStatus current = (FraudStatus) event.getState()[index];
+        if (previous != current) {
+            adjust(previous, -1);
+            adjust(current, 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Transaction) {
+            Object[] state = event.getDeletedState();
+            adjust(state != null ? (FraudStatus) state[fraudStatusIndex(event.getPersister())]
+                    : ((Transaction) entity).getFraudStatus(), -1);
+        } else if (entity instanceof User) {
+            userCount.decrementAndGet();
+        } else if (entity instanceof FraudRule) {
+            ruleCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing was counted before commit
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return entityClass == Transaction.class || entityClass == User.class || entityClass == FraudRule.class;
+    }
+
+    private void adjust(FraudStatus fraudStatus, long delta) {
+        if (fraudStatus != null) {
+            statusCounts[fraudStatus.ordinal()].addAndGet(delta);
+        }
+    }
+
+    private int fraudStatusIndex(EntityPersister persister) {
+        int index = fraudStatusIndex;
+        if (index < 0) {
+            index = Arrays.asList(persister.getPropertyNames()).indexOf("fraudStatus");
+            fraudStatusIndex = index;
+        }
+        return index;
+    }
+}
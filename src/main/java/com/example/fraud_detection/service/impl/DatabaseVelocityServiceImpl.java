@@ -0,0 +1,172 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.UserActivityTimeline;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.VelocityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Velocity windows read from the transactions table, for deployments that cannot keep
+ * per-user windows in memory.
+ *
+ * Transactions are recorded before they are inserted, and a write-behind or batch insert
+ * commits after scoring, so the few recorded transactions the table may not show yet are
+ * kept per user and added to every read until a read finds them committed.
+ */
+@Service
+@ConditionalOnProperty(name = "fraud.detection.velocity.store", havingValue = "database")
+public class DatabaseVelocityServiceImpl implements VelocityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseVelocityServiceImpl.class);
+
+    private static final Transaction[] NONE = new Transaction[0];
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${fraud.detection.velocity.eviction-interval-ms:300000}")
+    private long evictionIntervalMs;
+
+    // Replaced rather than modified, so reads need no lock
+    private final Map<Long, Transaction[]> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordTransaction(Transaction transaction) {
+        inFlight.merge(transaction.getUser().getId(), new Transaction[] {transaction}, (recorded, added) -> {
+            Transaction[] merged = Arrays.copyOf(recorded, recorded.length + 1);
+            merged[recorded.length] = added[0];
+            return merged;
+        });
+    }
+
+    @Override
+    public void discardTransaction(Transaction transaction) {
+        inFlight.computeIfPresent(transaction.getUser().getId(),
+                (userId, recorded) -> without(recorded, candidate -> candidate == transaction));
+    }
+
+    @Override
+    public long countTransactions(Long userId, LocalDateTime start, LocalDateTime end) {
+        return countTransactions(userId, toEpochMinute(start), toEpochMinute(end));
+    }
+
+    @Override
+    public long countTransactions(Long userId, long startMinute, long endMinute) {
+        UserActivityTimeline timeline = new UserActivityTimeline();
+        loadTimeline(userId, startMinute, endMinute, timeline);
+        return timeline.count(startMinute, endMinute);
+    }
+
+    @Override
+    public long sumAmountCents(Long userId, long startMinute, long endMinute) {
+        UserActivityTimeline timeline = new UserActivityTimeline();
+        loadTimeline(userId, startMinute, endMinute, timeline);
+        return timeline.sumCents(startMinute, endMinute);
+    }
+
+    /**
+     * Reads the range with one index range scan on (user_id, transaction_time), then adds the
+     * recorded transactions the rows do not include.
+     */
+    @Override
+    public void loadTimeline(Long userId, long startMinute, long endMinute, UserActivityTimeline timeline) {
+        timeline.begin(userId, startMinute, endMinute);
+        Transaction[] recorded = inFlight.getOrDefault(userId, NONE);
+        Set<Long> insertedIds = null;
+        for (Transaction transaction : recorded) {
+            if (transaction.getId() != null) {
+                if (insertedIds == null) {
+                    insertedIds = new HashSet<>();
+                }
+                insertedIds.add(transaction.getId());
+            }
+        }
+
+        Set<Long> committedIds = null;
+        List<Object[]> rows = transactionRepository.findUserActivityBetween(
+                userId, toTime(startMinute), toTime(endMinute + 1));
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            if (insertedIds != null && insertedIds.contains(id)) {
+                if (committedIds == null) {
+                    committedIds = new HashSet<>();
+                }
+                committedIds.add(id);
+            }
+            timeline.add(toEpochMinute((LocalDateTime) row[1]), 1, Transaction.toCents((BigDecimal) row[2]));
+        }
+
+        for (Transaction transaction : recorded) {
+            if (committedIds == null || !committedIds.contains(transaction.getId())) {
+                timeline.add(toEpochMinute(transaction.getTransactionTime()), 1, transaction.getAmountCents());
+            }
+        }
+        timeline.complete();
+
+        if (committedIds != null) {
+            Set<Long> committed = committedIds;
+            inFlight.computeIfPresent(userId,
+                    (id, current) -> without(current, candidate -> committed.contains(candidate.getId())));
+        }
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * Nothing to rebuild: every read goes to the transactions table.
+     */
+    @Override
+    public void rebuild() {
+        logger.debug("Velocity windows are read from the database; nothing to rebuild");
+    }
+
+    /**
+     * Forgets recorded transactions inserted longer than an interval ago, which have committed
+     * by then even if no read has found them.
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.velocity.eviction-interval-ms:300000}")
+    public void evictCommitted() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(evictionIntervalMs * 1_000_000);
+        for (Long userId : inFlight.keySet()) {
+            inFlight.computeIfPresent(userId, (id, recorded) -> without(recorded,
+                    candidate -> candidate.getId() != null && candidate.getTransactionTime().isBefore(cutoff)));
+        }
+    }
+
+    /**
+     * @return The recorded transactions except those matching, or null to remove the user
+     */
+    private static Transaction[] without(Transaction[] recorded, Predicate<Transaction> dropped) {
+        Transaction[] kept = Arrays.stream(recorded).filter(dropped.negate()).toArray(Transaction[]::new);
+        return kept.length > 0 ? kept : null;
+    }
+
+    private static LocalDateTime toTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
@@ -1,22 +1,37 @@
 package com.example.fraud_detection.service.impl;
 
+import com.example.fraud_detection.dto.BatchTransactionResponse;
+import com.example.fraud_detection.dto.BatchTransactionResult;
 import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.RuleSnapshot;
 import com.example.fraud_detection.model.*;
-import com.example.fraud_detection.repository.FraudRuleRepository;
 import com.example.fraud_detection.repository.TransactionRepository;
-import com.example.fraud_detection.repository.UserRepository;
 import com.example.fraud_detection.service.FraudDetectionService;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import com.example.fraud_detection.service.UserLookupService;
+import com.example.fraud_detection.service.VelocityService;
+import com.example.fraud_detection.service.WriteBehindService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -28,58 +43,234 @@ public class FraudDetectionServiceImpl implements FraudDetectionService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserLookupService userLookupService;
 
     @Autowired
-    private FraudRuleRepository fraudRuleRepository;
+    private WriteBehindService writeBehindService;
 
-    @Value("${fraud.detection.max-amount-threshold:10000.00}")
-    private BigDecimal maxAmountThreshold;
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private VelocityService velocityService;
 
-    @Value("${fraud.detection.velocity-check-window-minutes:60}")
-    private int velocityCheckWindowMinutes;
+    @Autowired
+    private IpActivityService ipActivityService;
 
-    @Value("${fraud.detection.max-transactions-per-window:5}")
-    private int maxTransactionsPerWindow;
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private FraudScoringService fraudScoringService;
 
     @Override
     public Transaction analyzeTransaction(Transaction transaction) {
         logger.info("Analyzing transaction: {}", transaction.getId());
         
-        double fraudScore = calculateFraudScore(transaction);
-        transaction.setFraudScore(fraudScore);
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        scoreAndApply(transaction, snapshot);
         
-        List<String> reasons = new ArrayList<>();
+        logger.info("Transaction {} analyzed - Status: {}, Score: {}", 
+                   transaction.getId(), transaction.getFraudStatus(), transaction.getFraudScore());
         
-        // Determine fraud status based on score and rules
+        return transactionRepository.save(transaction);
+    }
+
+    private void scoreAndApply(Transaction transaction, RuleSnapshot snapshot) {
+        applyFraudScore(transaction, fraudScoringService.calculateFraudScore(transaction, snapshot), snapshot);
+    }
+
+    private void applyFraudScore(Transaction transaction, double fraudScore, RuleSnapshot snapshot) {
+        transaction.setFraudScore(fraudScore);
+        transaction.setRuleSetVersion(snapshot.getVersion());
+        
+        // Determine fraud status and reason based on score
+        transaction.setFraudStatus(statusForScore(fraudScore));
+        String reason = reasonForScore(fraudScore);
+        if (reason != null) {
+            transaction.setFraudReason(reason);
+        }
+    }
+
+    /**
+     * @return The status a transaction with the given fraud score is assigned
+     */
+    static FraudStatus statusForScore(double fraudScore) {
         if (fraudScore >= 80.0) {
-            transaction.setFraudStatus(FraudStatus.FRAUDULENT);
-            reasons.add("High fraud score: " + fraudScore);
+            return FraudStatus.FRAUDULENT;
         } else if (fraudScore >= 50.0) {
-            transaction.setFraudStatus(FraudStatus.SUSPICIOUS);
-            reasons.add("Moderate fraud score: " + fraudScore);
-        } else {
-            transaction.setFraudStatus(FraudStatus.LEGITIMATE);
+            return FraudStatus.SUSPICIOUS;
         }
-        
-        // Set fraud reason
-        if (!reasons.isEmpty()) {
-            transaction.setFraudReason(String.join("; ", reasons));
+        return FraudStatus.LEGITIMATE;
+    }
+
+    /**
+     * @return The fraud reason recorded for the given score, or null if the previous reason is kept
+     */
+    static String reasonForScore(double fraudScore) {
+        FraudStatus status = statusForScore(fraudScore);
+        if (status == FraudStatus.FRAUDULENT) {
+            return "High fraud score: " + fraudScore;
+        } else if (status == FraudStatus.SUSPICIOUS) {
+            return "Moderate fraud score: " + fraudScore;
         }
-        
-        logger.info("Transaction {} analyzed - Status: {}, Score: {}", 
-                   transaction.getId(), transaction.getFraudStatus(), fraudScore);
-        
-        return transactionRepository.save(transaction);
+        return null;
     }
 
+    /**
+     * Scores before persisting, so each transaction is written with a single insert. Runs
+     * without a surrounding transaction: the insert commits on its own, and a request waiting
+     * for a group commit holds no connection the writer needs.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Transaction createAndAnalyzeTransaction(TransactionRequest request) {
         logger.info("Creating transaction for user: {}", request.getUserId());
+        long startNanos = System.nanoTime();
+        FraudStatus outcome = null;
+        try {
+            User user = findActiveUser(request.getUserId());
+            
+            // Record before scoring so the velocity checks count this transaction
+            Transaction transaction = buildTransaction(request, user);
+            velocityService.recordTransaction(transaction);
+            ipActivityService.recordTransaction(transaction);
+            
+            try {
+                RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+                scoreAndApply(transaction, snapshot);
+            } catch (RuntimeException e) {
+                velocityService.discardTransaction(transaction);
+                ipActivityService.discardTransaction(transaction);
+                throw e;
+            }
+            
+            // The write-behind writer discards transactions it fails to commit
+            transaction = writeBehindService.isEnabled()
+                    ? writeBehindService.write(transaction)
+                    : saveScored(transaction);
+            outcome = transaction.getFraudStatus();
+            
+            logger.info("Transaction {} analyzed - Status: {}, Score: {}", 
+                       transaction.getId(), transaction.getFraudStatus(), transaction.getFraudScore());
+            return transaction;
+        } finally {
+            fraudScoringService.getMetrics().recordTransaction(outcome, startNanos);
+        }
+    }
+    
+    private Transaction saveScored(Transaction transaction) {
+        try {
+            return transactionRepository.save(transaction);
+        } catch (RuntimeException e) {
+            velocityService.discardTransaction(transaction);
+            ipActivityService.discardTransaction(transaction);
+            throw e;
+        }
+    }
+
+    @Override
+    public Transaction createPendingTransaction(TransactionRequest request) {
+        logger.info("Creating pending transaction for user: {}", request.getUserId());
+        
+        User user = findActiveUser(request.getUserId());
+        
+        Transaction transaction = transactionRepository.save(buildTransaction(request, user));
+        velocityService.recordTransaction(transaction);
+        ipActivityService.recordTransaction(transaction);
+        return transaction;
+    }
+
+    @Override
+    public BatchTransactionResponse createAndAnalyzeTransactions(List<TransactionRequest> requests) {
+        logger.info("Creating batch of {} transactions", requests.size());
+        
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        Map<Long, User> users = findUsers(requests);
+        
+        BatchTransactionResult[] results = new BatchTransactionResult[requests.size()];
+        // Every transaction recorded in the windows, the one being scored included
+        List<Transaction> scored = new ArrayList<>(requests.size());
+        List<Integer> scoredIndexes = new ArrayList<>(requests.size());
         
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + request.getUserId()));
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                TransactionRequest request = requests.get(i);
+                String error = validateRequest(request);
+                if (error == null && !users.containsKey(request.getUserId())) {
+                    error = "User not found with id: " + request.getUserId();
+                } else if (error == null && Boolean.FALSE.equals(users.get(request.getUserId()).getIsActive())) {
+                    error = "User is inactive with id: " + request.getUserId();
+                }
+                if (error != null) {
+                    results[i] = BatchTransactionResult.failure(i, error);
+                    continue;
+                }
+                
+                // Record before scoring so later transactions of the same user see this one
+                Transaction transaction = buildTransaction(request, users.get(request.getUserId()));
+                velocityService.recordTransaction(transaction);
+                ipActivityService.recordTransaction(transaction);
+                scored.add(transaction);
+                scoredIndexes.add(i);
+                scoreAndApply(transaction, snapshot);
+            }
+            
+            transactionRepository.saveAll(scored);
+            transactionRepository.flush();
+        } catch (RuntimeException e) {
+            // Nothing of the batch is stored, so none of it may stay in the windows
+            scored.forEach(velocityService::discardTransaction);
+            scored.forEach(ipActivityService::discardTransaction);
+            throw e;
+        }
+        
+        for (int j = 0; j < scored.size(); j++) {
+            Transaction transaction = scored.get(j);
+            int index = scoredIndexes.get(j);
+            results[index] = BatchTransactionResult.success(index, transaction.getId(),
+                    transaction.getFraudStatus(), transaction.getFraudScore());
+        }
         
+        BatchTransactionResponse response = new BatchTransactionResponse(Arrays.asList(results));
+        logger.info("Batch completed - {} created, {} failed", response.getCreated(), response.getFailed());
+        return response;
+    }
+
+    private Map<Long, User> findUsers(List<TransactionRequest> requests) {
+        Set<Long> userIds = new HashSet<>();
+        for (TransactionRequest request : requests) {
+            if (request.getUserId() != null) {
+                userIds.add(request.getUserId());
+            }
+        }
+        return userLookupService.findUsers(userIds);
+    }
+
+    private User findActiveUser(Long userId) {
+        User user = userLookupService.findUser(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            throw new RuntimeException("User is inactive with id: " + userId);
+        }
+        return user;
+    }
+
+    private String validateRequest(TransactionRequest request) {
+        if (request == null) {
+            return "Transaction request is required";
+        }
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Transaction buildTransaction(TransactionRequest request, User user) {
         Transaction transaction = new Transaction();
         transaction.setUser(user);
         transaction.setAmount(request.getAmount());
@@ -90,149 +281,50 @@ public class FraudDetectionServiceImpl implements FraudDetectionService {
         transaction.setCardNumberMasked(request.getCardNumberMasked());
         transaction.setIpAddress(request.getIpAddress());
         transaction.setTransactionTime(LocalDateTime.now());
-        
-        // Save transaction first
-        transaction = transactionRepository.save(transaction);
-        
-        // Then analyze for fraud
-        return analyzeTransaction(transaction);
+        return transaction;
     }
 
+    // Scoring runs outside any transaction; the methods below only delegate to the scoring service
+
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public double calculateFraudScore(Transaction transaction) {
-        double totalScore = 0.0;
-        int ruleCount = 0;
-        
-        // Check amount threshold
-        if (checkAmountThreshold(transaction)) {
-            totalScore += 30.0;
-            ruleCount++;
-        }
-        
-        // Check velocity fraud
-        if (checkVelocityFraud(transaction)) {
-            totalScore += 40.0;
-            ruleCount++;
-        }
-        
-        // Check for unusual merchant category
-        if (checkUnusualMerchant(transaction)) {
-            totalScore += 25.0;
-            ruleCount++;
-        }
-        
-        // Check for unusual time patterns
-        if (checkUnusualTime(transaction)) {
-            totalScore += 20.0;
-            ruleCount++;
-        }
-        
-        // Check active fraud rules from database
-        List<FraudRule> activeRules = fraudRuleRepository.findByIsActive(true);
-        for (FraudRule rule : activeRules) {
-            if (applyFraudRule(transaction, rule)) {
-                totalScore += rule.getRiskScore();
-                ruleCount++;
-            }
-        }
-        
-        // Normalize score to 0-100 range
-        if (ruleCount == 0) {
-            return 0.0;
-        }
-        
-        return Math.min(100.0, totalScore);
+        return fraudScoringService.calculateFraudScore(transaction);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot, ActivityHistory history) {
+        return fraudScoringService.calculateFraudScore(transaction, snapshot, history);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean checkAmountThreshold(Transaction transaction) {
-        boolean isHighAmount = transaction.getAmount().compareTo(maxAmountThreshold) > 0;
-        
-        if (isHighAmount) {
-            logger.warn("High amount detected for transaction {}: {}", 
-                       transaction.getId(), transaction.getAmount());
-        }
-        
-        return isHighAmount;
+        return fraudScoringService.checkAmountThreshold(transaction);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean checkVelocityFraud(Transaction transaction) {
-        LocalDateTime windowStart = transaction.getTransactionTime().minusMinutes(velocityCheckWindowMinutes);
-        
-        long recentTransactionCount = transactionRepository.countTransactionsByUserInTimeWindow(
-                transaction.getUser(), windowStart, transaction.getTransactionTime());
-        
-        boolean isVelocityFraud = recentTransactionCount >= maxTransactionsPerWindow;
-        
-        if (isVelocityFraud) {
-            logger.warn("Velocity fraud detected for user {}: {} transactions in {} minutes", 
-                       transaction.getUser().getId(), recentTransactionCount, velocityCheckWindowMinutes);
-        }
-        
-        return isVelocityFraud;
+        return fraudScoringService.checkVelocityFraud(transaction);
     }
 
-    private boolean checkUnusualMerchant(Transaction transaction) {
-        if (transaction.getMerchantCategory() == null) {
-            return false;
-        }
-        
-        // Check if merchant category is high-risk
-        List<String> highRiskCategories = List.of("GAMBLING", "ADULT", "CRYPTOCURRENCY", "CASH_ADVANCE");
-        return highRiskCategories.contains(transaction.getMerchantCategory().toUpperCase());
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean checkUnusualMerchant(Transaction transaction) {
+        return fraudScoringService.checkUnusualMerchant(transaction);
     }
 
-    private boolean checkUnusualTime(Transaction transaction) {
-        int hour = transaction.getTransactionTime().getHour();
-        
-        // Transactions between 2 AM and 5 AM are considered unusual
-        return hour >= 2 && hour <= 5;
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean checkUnusualTime(Transaction transaction) {
+        return fraudScoringService.checkUnusualTime(transaction);
     }
 
-    private boolean applyFraudRule(Transaction transaction, FraudRule rule) {
-        switch (rule.getRuleType()) {
-            case AMOUNT_THRESHOLD:
-                if (rule.getThresholdAmount() != null) {
-                    return transaction.getAmount().compareTo(rule.getThresholdAmount()) > 0;
-                }
-                break;
-                
-            case VELOCITY_CHECK:
-                if (rule.getTimeWindowMinutes() != null && rule.getMaxOccurrences() != null) {
-                    LocalDateTime windowStart = transaction.getTransactionTime()
-                            .minusMinutes(rule.getTimeWindowMinutes());
-                    long count = transactionRepository.countTransactionsByUserInTimeWindow(
-                            transaction.getUser(), windowStart, transaction.getTransactionTime());
-                    return count >= rule.getMaxOccurrences();
-                }
-                break;
-                
-            case MERCHANT_CATEGORY:
-                if (rule.getMerchantCategory() != null && transaction.getMerchantCategory() != null) {
-                    return transaction.getMerchantCategory().equalsIgnoreCase(rule.getMerchantCategory());
-                }
-                break;
-                
-            case LOCATION_BASED:
-                if (rule.getLocationRestriction() != null && transaction.getLocation() != null) {
-                    return transaction.getLocation().toLowerCase()
-                            .contains(rule.getLocationRestriction().toLowerCase());
-                }
-                break;
-                
-            case TIME_BASED:
-                int hour = transaction.getTransactionTime().getHour();
-                return hour >= 2 && hour <= 5; // Unusual hours
-                
-            case IP_BASED:
-                // Could implement IP-based checks here
-                return false;
-                
-            default:
-                return false;
-        }
-        
-        return false;
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean applyFraudRule(Transaction transaction, CompiledRule rule) {
+        return fraudScoringService.applyFraudRule(transaction, rule);
     }
-}
\ No newline at end of file
+}
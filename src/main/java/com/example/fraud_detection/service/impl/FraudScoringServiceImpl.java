@@ -0,0 +1,481 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.AmountThreshold;
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.DecisionTrace;
+import com.example.fraud_detection.engine.IpPrefix;
+import com.example.fraud_detection.engine.MerchantCategoryIndex;
+import com.example.fraud_detection.engine.RuleMatches;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.engine.ScoringMetrics;
+import com.example.fraud_detection.engine.UserActivityTimeline;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import com.example.fraud_detection.service.VelocityService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Scores transactions against a rule snapshot.
+ *
+ * Deliberately not transactional: scoring reads no entities, and without a proxy around it a
+ * calculation allocates nothing in steady state.
+ */
+@Service
+public class FraudScoringServiceImpl implements FraudScoringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudScoringServiceImpl.class);
+
+    private static final String[] HIGH_RISK_CATEGORIES = {"GAMBLING", "ADULT", "CRYPTOCURRENCY", "CASH_ADVANCE"};
+
+    // Per-thread buffers so scoring a transaction allocates nothing in steady state
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private VelocityService velocityService;
+
+    @Autowired
+    private IpActivityService ipActivityService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.max-amount-threshold:10000.00}")
+    private BigDecimal maxAmountThreshold;
+
+    @Value("${fraud.detection.velocity-check-window-minutes:60}")
+    private int velocityCheckWindowMinutes;
+
+    @Value("${fraud.detection.max-transactions-per-window:5}")
+    private int maxTransactionsPerWindow;
+
+    @Value("${fraud.detection.scoring.early-stop.enabled:true}")
+    private boolean earlyStopEnabled;
+
+    // 100 never changes a result; the FRAUDULENT threshold of 80 keeps every status but not every score
+    @Value("${fraud.detection.scoring.early-stop.score:100.0}")
+    private double earlyStopScore;
+
+    // Without the journal nothing reads a transaction's trace, so none is kept
+    @Value("${fraud.detection.journal.enabled:true}")
+    private boolean journalEnabled;
+
+    @Value("${fraud.detection.metrics.enabled:true}")
+    private boolean metricsEnabled;
+
+    @Value("${fraud.detection.metrics.timing-sample-interval:16}")
+    private int timingSampleInterval;
+
+    private ScoringMetrics scoringMetrics;
+
+    // Scoring outside live traffic must not skew the production meters
+    private final ScoringMetrics unrecordedMetrics = ScoringMetrics.disabled();
+
+    private AmountThreshold amountThreshold;
+
+    // Score at which the remaining checks and rules can no longer change the outcome
+    private double decidedScore;
+
+    // Otherwise each user window read is a query, and live scoring loads a timeline instead
+    private boolean velocityInMemory;
+
+    // Live scoring reads the velocity and IP windows that every persisted transaction is recorded in
+    private final ActivityHistory liveHistory = new ActivityHistory() {
+        @Override
+        public long countUserTransactions(Long userId, long fromMinute, long toMinute) {
+            return velocityService.countTransactions(userId, fromMinute, toMinute);
+        }
+
+        @Override
+        public long sumUserAmountCents(Long userId, long fromMinute, long toMinute) {
+            return velocityService.sumAmountCents(userId, fromMinute, toMinute);
+        }
+
+        @Override
+        public boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+                                       int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+            return ipActivityService.reachesLimits(ipAddress, fromMinute, toMinute,
+                    maxTransactions, maxDistinctUsers, maxDistinctCards);
+        }
+    };
+
+    @PostConstruct
+    void initMetrics() {
+        scoringMetrics = metricsEnabled
+                ? ScoringMetrics.create(meterRegistry, timingSampleInterval)
+                : ScoringMetrics.disabled();
+        amountThreshold = new AmountThreshold(maxAmountThreshold);
+        decidedScore = earlyStopEnabled ? earlyStopScore : Double.POSITIVE_INFINITY;
+        velocityInMemory = velocityService.isInMemory();
+    }
+
+    @Override
+    public double calculateFraudScore(Transaction transaction) {
+        return calculateFraudScore(transaction, ruleSnapshotService.getCurrentSnapshot(), liveHistory, scoringMetrics);
+    }
+
+    @Override
+    public double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot) {
+        double score = calculateFraudScore(transaction, snapshot, liveHistory, scoringMetrics);
+        traceDecision(transaction);
+        return score;
+    }
+
+    @Override
+    public double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot, ActivityHistory history) {
+        double score = calculateFraudScore(transaction, snapshot, history, unrecordedMetrics);
+        traceDecision(transaction);
+        return score;
+    }
+
+    @Override
+    public ScoringMetrics getMetrics() {
+        return scoringMetrics;
+    }
+
+    /**
+     * Keeps what fired in this thread's last calculation on the transaction for the journal,
+     * in a pooled trace the journal releases once it has appended the decision.
+     */
+    private void traceDecision(Transaction transaction) {
+        if (!journalEnabled) {
+            return;
+        }
+        DecisionTrace trace = transaction.getDecisionTrace();
+        if (trace == null) {
+            trace = DecisionTrace.acquire();
+            transaction.setDecisionTrace(trace);
+        }
+        trace.copyFrom(SCRATCH.get().trace);
+    }
+
+    /**
+     * Detections are logged only for live scoring; a backtest would log every historical hit.
+     */
+    private double calculateFraudScore(Transaction transaction, RuleSnapshot snapshot,
+                                       ActivityHistory history, ScoringMetrics metrics) {
+        boolean live = history == liveHistory;
+        double totalScore = 0.0;
+        int ruleCount = 0;
+        long mark = metrics.startCalculation();
+        Scratch scratch = SCRATCH.get();
+        List<CompiledRule> rules = snapshot.getRules();
+        RuleMatches matches = scratch.matches;
+        matches.reset(rules.size());
+        DecisionTrace trace = scratch.trace;
+        trace.clear();
+        
+        // Check amount threshold
+        boolean hit = isHighAmount(transaction, live);
+        mark = metrics.check(ScoringMetrics.Check.AMOUNT_THRESHOLD).record(hit, mark);
+        if (hit) {
+            totalScore += 30.0;
+            ruleCount++;
+            trace.hitCheck(DecisionTrace.AMOUNT_CHECK);
+        }
+        
+        // Check for unusual merchant category
+        hit = checkUnusualMerchant(transaction);
+        mark = metrics.check(ScoringMetrics.Check.UNUSUAL_MERCHANT).record(hit, mark);
+        if (hit) {
+            totalScore += 25.0;
+            ruleCount++;
+            trace.hitCheck(DecisionTrace.MERCHANT_CHECK);
+        }
+        
+        // Check for unusual time patterns
+        hit = checkUnusualTime(transaction);
+        mark = metrics.check(ScoringMetrics.Check.UNUSUAL_TIME).record(hit, mark);
+        if (hit) {
+            totalScore += 20.0;
+            ruleCount++;
+            trace.hitCheck(DecisionTrace.TIME_CHECK);
+        }
+        
+        // Resolve every merchant category rule with one index lookup
+        ScoringMetrics.Meters[] ruleMeters = metrics.rules(snapshot);
+        MerchantCategoryIndex.Match categoryMatch =
+                snapshot.getMerchantCategoryIndex().find(transaction.getMerchantCategory());
+        mark = metrics.check(ScoringMetrics.Check.MERCHANT_CATEGORY_RULES).record(categoryMatch != null, mark);
+        if (categoryMatch != null) {
+            totalScore += categoryMatch.getCombinedScore();
+            ruleCount += categoryMatch.getRuleIndexes().length;
+            for (int i : categoryMatch.getRuleIndexes()) {
+                ruleMeters[i].record(true, ScoringMetrics.UNTIMED);
+                trace.hitRule(i);
+            }
+        }
+        
+        // Match every location rule in one pass over the location
+        hit = snapshot.getLocationMatcher().match(transaction.getLocation(), matches);
+        mark = metrics.check(ScoringMetrics.Check.LOCATION_RULES).record(hit, mark);
+        
+        // Match every IP rule with one walk down the prefix trie
+        String ipAddress = transaction.getIpAddress();
+        hit = ipAddress != null && IpPrefix.parseAddress(ipAddress.trim(), scratch.address, scratch.groups)
+                && snapshot.getIpPrefixTrie().match(scratch.address[0], scratch.address[1], matches);
+        mark = metrics.check(ScoringMetrics.Check.IP_RULES).record(hit, mark);
+        
+        for (int m = 0; m < matches.size(); m++) {
+            int i = matches.get(m);
+            totalScore += rules.get(i).getRiskScore();
+            ruleCount++;
+            ruleMeters[i].record(true, ScoringMetrics.UNTIMED);
+            trace.hitRule(i);
+        }
+        
+        // Scan the remaining rules, those on the transaction's own fields before the velocity check
+        // and the rules reading activity history, and stop once nothing left can change the outcome
+        long epochMinute = toEpochMinute(transaction.getTransactionTime());
+        int[] scanned = snapshot.getScannedRuleIndexes();
+        int historyOffset = snapshot.getHistoryRuleOffset();
+        boolean velocityChecked = false;
+        int next = 0;
+        while (totalScore + snapshot.getMinimumRemainingScore(next) < decidedScore) {
+            if (next == historyOffset && !velocityChecked) {
+                velocityChecked = true;
+                if (live && !velocityInMemory) {
+                    history = prefetchUserActivity(transaction, snapshot, epochMinute, scratch);
+                }
+                hit = isVelocityFraud(transaction, history, live);
+                mark = metrics.check(ScoringMetrics.Check.VELOCITY).record(hit, mark);
+                if (hit) {
+                    totalScore += 40.0;
+                    ruleCount++;
+                    trace.hitCheck(DecisionTrace.VELOCITY_CHECK);
+                }
+                continue;
+            }
+            if (next == scanned.length) {
+                break;
+            }
+            int i = scanned[next++];
+            CompiledRule rule = rules.get(i);
+            hit = applyScannedRule(transaction, rule, epochMinute, history);
+            mark = ruleMeters[i].record(hit, mark);
+            if (hit) {
+                totalScore += rule.getRiskScore();
+                ruleCount++;
+                trace.hitRule(i);
+            }
+        }
+        if (!velocityChecked || next < scanned.length) {
+            if (!velocityChecked) {
+                trace.skipCheck(DecisionTrace.VELOCITY_CHECK);
+            }
+            if (next < scanned.length) {
+                trace.skipRulesFrom(scanned[next]);
+            }
+            metrics.recordEarlyStop((velocityChecked ? 0 : 1) + scanned.length - next);
+        }
+        
+        // Normalize score to 0-100 range
+        if (ruleCount == 0) {
+            return 0.0;
+        }
+        
+        return Math.min(100.0, totalScore);
+    }
+
+    /**
+     * Loads the user's activity over the longest user window with one read, so the velocity
+     * check and every window rule of this calculation are answered from the timeline.
+     */
+    private ActivityHistory prefetchUserActivity(Transaction transaction, RuleSnapshot snapshot, long epochMinute,
+                                                 Scratch scratch) {
+        int lookbackMinutes = Math.max(velocityCheckWindowMinutes, snapshot.getLongestUserWindowMinutes());
+        velocityService.loadTimeline(transaction.getUser().getId(), epochMinute - lookbackMinutes, epochMinute,
+                scratch.timeline);
+        scratch.timelineHistory.fallback = liveHistory;
+        return scratch.timelineHistory;
+    }
+
+    @Override
+    public boolean checkAmountThreshold(Transaction transaction) {
+        return isHighAmount(transaction, true);
+    }
+
+    private boolean isHighAmount(Transaction transaction, boolean log) {
+        boolean isHighAmount = amountThreshold.isExceededBy(transaction.getAmountCents(), transaction.getAmount());
+        
+        if (isHighAmount && log && logger.isWarnEnabled()) {
+            logger.warn("High amount detected for transaction {}: {}", 
+                       transaction.getId(), transaction.getAmount());
+        }
+        
+        return isHighAmount;
+    }
+
+    @Override
+    public boolean checkVelocityFraud(Transaction transaction) {
+        return isVelocityFraud(transaction, liveHistory, true);
+    }
+
+    private boolean isVelocityFraud(Transaction transaction, ActivityHistory history, boolean log) {
+        long endMinute = toEpochMinute(transaction.getTransactionTime());
+        
+        long recentTransactionCount = history.countUserTransactions(
+                transaction.getUser().getId(), endMinute - velocityCheckWindowMinutes, endMinute);
+        
+        boolean isVelocityFraud = recentTransactionCount >= maxTransactionsPerWindow;
+        
+        if (isVelocityFraud && log && logger.isWarnEnabled()) {
+            logger.warn("Velocity fraud detected for user {}: {} transactions in {} minutes", 
+                       transaction.getUser().getId(), recentTransactionCount, velocityCheckWindowMinutes);
+        }
+        
+        return isVelocityFraud;
+    }
+
+    @Override
+    public boolean checkUnusualMerchant(Transaction transaction) {
+        String category = transaction.getMerchantCategory();
+        if (category == null) {
+            return false;
+        }
+        
+        // Check if merchant category is high-risk
+        for (String highRisk : HIGH_RISK_CATEGORIES) {
+            if (highRisk.equalsIgnoreCase(category)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean checkUnusualTime(Transaction transaction) {
+        int hour = transaction.getTransactionTime().getHour();
+        
+        // Transactions between 2 AM and 5 AM are considered unusual
+        return hour >= 2 && hour <= 5;
+    }
+
+    @Override
+    public boolean applyFraudRule(Transaction transaction, CompiledRule rule) {
+        return applyScannedRule(transaction, rule, toEpochMinute(transaction.getTransactionTime()), liveHistory);
+    }
+
+    /**
+     * Evaluates one rule with primitive comparisons; only the indexed rule types, which the
+     * calculation resolves through the snapshot's indexes instead, may allocate here.
+     */
+    private boolean applyScannedRule(Transaction transaction, CompiledRule rule, long epochMinute,
+                                     ActivityHistory history) {
+        // Required rule settings were validated when the snapshot was compiled
+        switch (rule.getRuleType()) {
+            case AMOUNT_THRESHOLD:
+                return rule.getAmountThreshold().isExceededBy(transaction.getAmountCents(), transaction.getAmount());
+                
+            case VELOCITY_CHECK:
+                long count = history.countUserTransactions(
+                        transaction.getUser().getId(), epochMinute - rule.getTimeWindowMinutes(), epochMinute);
+                return count >= rule.getMaxOccurrences();
+                
+            case SPEND_VELOCITY:
+                // The window already holds this transaction, which is recorded before it is scored
+                long spentCents = history.sumUserAmountCents(
+                        transaction.getUser().getId(), epochMinute - rule.getTimeWindowMinutes(), epochMinute);
+                return rule.getAmountThreshold().isExceededByTotal(spentCents);
+                
+            case MERCHANT_CATEGORY:
+                if (transaction.getMerchantCategory() != null) {
+                    return transaction.getMerchantCategory().equalsIgnoreCase(rule.getMerchantCategory());
+                }
+                break;
+                
+            case LOCATION_BASED:
+                if (transaction.getLocation() != null) {
+                    return transaction.getLocation().toLowerCase().contains(rule.getLocationRestriction());
+                }
+                break;
+                
+            case IP_FAN_OUT:
+                if (transaction.getIpAddress() != null) {
+                    return history.reachesIpLimits(transaction.getIpAddress(),
+                            epochMinute - rule.getTimeWindowMinutes(), epochMinute,
+                            rule.getMaxOccurrences(), rule.getMaxDistinctUsers(), rule.getMaxDistinctCards());
+                }
+                break;
+                
+            case TIME_BASED:
+                int hour = transaction.getTransactionTime().getHour();
+                return hour >= 2 && hour <= 5; // Unusual hours
+                
+            case IP_BASED:
+                return rule.matchesIpAddress(transaction.getIpAddress());
+                
+            default:
+                return false;
+        }
+        
+        return false;
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Reusable buffers of one scoring thread.
+     */
+    private static final class Scratch {
+
+        private final RuleMatches matches = new RuleMatches();
+        private final DecisionTrace trace = new DecisionTrace();
+        private final long[] address = new long[2];
+        private final int[] groups = new int[8];
+        private final UserActivityTimeline timeline = new UserActivityTimeline();
+        private final TimelineHistory timelineHistory = new TimelineHistory(timeline);
+    }
+
+    /**
+     * Answers user windows from a loaded timeline and everything else from the fallback.
+     */
+    private static final class TimelineHistory implements ActivityHistory {
+
+        private final UserActivityTimeline timeline;
+        private ActivityHistory fallback;
+
+        TimelineHistory(UserActivityTimeline timeline) {
+            this.timeline = timeline;
+        }
+
+        @Override
+        public long countUserTransactions(Long userId, long fromMinute, long toMinute) {
+            return timeline.covers(userId, fromMinute, toMinute)
+                    ? timeline.count(fromMinute, toMinute)
+                    : fallback.countUserTransactions(userId, fromMinute, toMinute);
+        }
+
+        @Override
+        public long sumUserAmountCents(Long userId, long fromMinute, long toMinute) {
+            return timeline.covers(userId, fromMinute, toMinute)
+                    ? timeline.sumCents(fromMinute, toMinute)
+                    : fallback.sumUserAmountCents(userId, fromMinute, toMinute);
+        }
+
+        @Override
+        public boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+                                       int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+            return fallback.reachesIpLimits(ipAddress, fromMinute, toMinute,
+                    maxTransactions, maxDistinctUsers, maxDistinctCards);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.fraud_detection.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a character stream into lines through one fixed-size buffer.
+ *
+ * Unlike {@code BufferedReader.readLine}, a line never grows past the configured length: the
+ * rest of an overlong line is skipped and the line is flagged as truncated, so one malformed
+ * record cannot make an import buffer an unbounded amount of input.
+ */
+final class ImportLineReader {
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final int maxLineLength;
+    private final StringBuilder line;
+    private int position;
+    private int limit;
+    private long lineNumber;
+    private boolean truncated;
+
+    ImportLineReader(Reader reader, int bufferSize, int maxLineLength) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.maxLineLength = maxLineLength;
+        this.line = new StringBuilder(Math.min(maxLineLength, 1024));
+    }
+
+    /**
+     * @return The next line without its terminator, cut to the maximum length, or null at the end
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (!read) {
+                        return null;
+                    }
+                    break;
+                }
+            }
+            read = true;
+            int newline = position;
+            while (newline < limit && buffer[newline] != '\n') {
+                newline++;
+            }
+            int room = maxLineLength - line.length();
+            int length = newline - position;
+            if (length > room) {
+                truncated = true;
+                length = room;
+            }
+            line.append(buffer, position, length);
+            if (newline < limit) {
+                position = newline + 1;
+                break;
+            }
+            position = limit;
+        }
+
+        lineNumber++;
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        // A byte order mark some spreadsheet exports put before the first line
+        if (lineNumber == 1 && line.length() > 0 && line.charAt(0) == '\uFEFF') {
+            line.deleteCharAt(0);
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return 1-based number of the line last read
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return true if the line last read was longer than the maximum length
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.TransactionType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Maps one line of an import body to a {@link TransactionRequest}.
+ *
+ * CSV headers name request properties, in any case and with or without underscores or dashes
+ * ({@code userId}, {@code user_id}); fields follow RFC 4180 quoting, but a quoted field cannot
+ * span lines, and an empty unquoted field is null. Values are only converted here; the batch
+ * ingestion path validates the requests.
+ */
+abstract class ImportRecordParser {
+
+    private static final String[] PROPERTIES = {"userId", "amount", "transactionType", "merchantName",
+            "merchantCategory", "location", "cardNumberMasked", "ipAddress"};
+    private static final String[] REQUIRED = {"userId", "amount", "transactionType"};
+
+    /**
+     * @throws IllegalArgumentException if the line cannot be mapped to a request
+     */
+    abstract TransactionRequest parse(String line);
+
+    static ImportRecordParser ndjson(ObjectMapper objectMapper) {
+        ObjectReader reader = objectMapper.readerFor(TransactionRequest.class);
+        return new ImportRecordParser() {
+            @Override
+            TransactionRequest parse(String line) {
+                try {
+                    return reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if the header names an unknown column or lacks a required one
+     */
+    static ImportRecordParser csv(String header) {
+        List<String> names = splitCsv(header);
+        int[] properties = new int[names.size()];
+        boolean[] present = new boolean[PROPERTIES.length];
+        for (int column = 0; column < properties.length; column++) {
+            String name = names.get(column) != null ? names.get(column).trim() : "";
+            properties[column] = propertyIndex(name);
+            if (properties[column] < 0) {
+                throw new IllegalArgumentException("Unknown CSV column: " + name);
+            }
+            present[properties[column]] = true;
+        }
+        for (String required : REQUIRED) {
+            if (!present[propertyIndex(required)]) {
+                throw new IllegalArgumentException("CSV header lacks required column " + required);
+            }
+        }
+
+        return new ImportRecordParser() {
+            @Override
+            TransactionRequest parse(String line) {
+                List<String> fields = splitCsv(line);
+                if (fields.size() != properties.length) {
+                    throw new IllegalArgumentException("Expected " + properties.length + " fields, found " + fields.size());
+                }
+                TransactionRequest request = new TransactionRequest();
+                for (int column = 0; column < properties.length; column++) {
+                    set(request, properties[column], fields.get(column));
+                }
+                return request;
+            }
+        };
+    }
+
+    private static int propertyIndex(String name) {
+        String normalized = name.replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+        for (int i = 0; i < PROPERTIES.length; i++) {
+            if (PROPERTIES[i].toLowerCase(Locale.ROOT).equals(normalized)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void set(TransactionRequest request, int property, String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            switch (property) {
+                case 0 -> request.setUserId(Long.valueOf(value.trim()));
+                case 1 -> request.setAmount(new BigDecimal(value.trim()));
+                case 2 -> request.setTransactionType(TransactionType.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+                case 3 -> request.setMerchantName(value);
+                case 4 -> request.setMerchantCategory(value);
+                case 5 -> request.setLocation(value);
+                case 6 -> request.setCardNumberMasked(value);
+                default -> request.setIpAddress(value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + PROPERTIES[property] + ": " + value);
+        }
+    }
+
+    /**
+     * @return The fields of one CSV line; empty unquoted fields are null
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+}
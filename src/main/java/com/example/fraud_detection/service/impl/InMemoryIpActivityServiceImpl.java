@@ -0,0 +1,202 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.IpActivityWindow;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.IpActivityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a bounded window of recent activity per IP address so fan-out rules never query the database.
+ *
+ * Memory is bounded twice: each IP keeps at most {@code max-events-per-ip} entries, and at most
+ * {@code max-tracked-ips} addresses are kept, dropping the least recently active ones first.
+ */
+@Service
+public class InMemoryIpActivityServiceImpl implements IpActivityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryIpActivityServiceImpl.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${fraud.detection.ip-activity.horizon-minutes:1440}")
+    private int horizonMinutes;
+
+    @Value("${fraud.detection.ip-activity.max-events-per-ip:512}")
+    private int maxEventsPerIp;
+
+    @Value("${fraud.detection.ip-activity.max-tracked-ips:100000}")
+    private int maxTrackedIps;
+
+    private volatile Map<String, IpActivityWindow> windows = new ConcurrentHashMap<>();
+
+    private final Object evictionLock = new Object();
+
+    private final RebuildLog rebuildLog = new RebuildLog();
+
+    @Override
+    public void recordTransaction(Transaction transaction) {
+        Lock changeLock = rebuildLog.changeLock();
+        changeLock.lock();
+        try {
+            record(windows, transaction);
+            rebuildLog.recorded(transaction);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public void discardTransaction(Transaction transaction) {
+        Lock changeLock = rebuildLog.changeLock();
+        changeLock.lock();
+        try {
+            discard(windows, transaction);
+            rebuildLog.discarded(transaction);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public IpActivityWindow.Counts countActivity(String ipAddress, LocalDateTime start, LocalDateTime end) {
+        String normalized = IpActivityWindow.normalizeAddress(ipAddress);
+        IpActivityWindow window = normalized != null ? windows.get(normalized) : null;
+        if (window == null) {
+            return IpActivityWindow.Counts.EMPTY;
+        }
+        long endMinute = toEpochMinute(end);
+        long startMinute = Math.max(toEpochMinute(start), endMinute - horizonMinutes);
+        return window.count(startMinute, endMinute);
+    }
+
+    @Override
+    public boolean reachesLimits(String ipAddress, long startMinute, long endMinute,
+                                 int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+        String normalized = IpActivityWindow.normalizeAddress(ipAddress);
+        IpActivityWindow window = normalized != null ? windows.get(normalized) : null;
+        if (window == null) {
+            return false;
+        }
+        return window.reaches(Math.max(startMinute, endMinute - horizonMinutes), endMinute,
+                maxTransactions, maxDistinctUsers, maxDistinctCards);
+    }
+
+    /**
+     * Not {@code @Transactional}: a proxy around this bean would box the arguments of every
+     * window read on the scoring path. Transactions recorded meanwhile keep going to the current
+     * windows and are carried over into the rebuilt ones at the swap.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(horizonMinutes);
+        logger.info("Rebuilding IP activity windows from transactions since {}", since);
+
+        rebuildLog.begin();
+        Map<String, IpActivityWindow> rebuilt = new ConcurrentHashMap<>();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long loaded = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<Object[]> activity = transactionRepository.streamIpActivitySince(since)) {
+                for (Object[] row : (Iterable<Object[]>) activity::iterator) {
+                    String ipAddress = IpActivityWindow.normalizeAddress((String) row[0]);
+                    if (ipAddress == null) {
+                        continue;
+                    }
+                    if (rebuilt.size() >= maxTrackedIps && !rebuilt.containsKey(ipAddress)) {
+                        evictLeastRecentlyActive(rebuilt);
+                    }
+                    rebuilt.computeIfAbsent(ipAddress, ip -> new IpActivityWindow(maxEventsPerIp))
+                            .add(toEpochMinute((LocalDateTime) row[3]), (Long) row[1], IpActivityWindow.cardKey((String) row[2]));
+                    rebuildLog.streamed((Long) row[4], (LocalDateTime) row[5]);
+                    count++;
+                }
+            }
+            return count;
+        });
+        int carriedOver = rebuildLog.finish(transaction -> record(rebuilt, transaction),
+                transaction -> discard(rebuilt, transaction), () -> windows = rebuilt);
+
+        logger.info("IP activity windows rebuilt - {} transactions across {} addresses, {} changes carried over",
+                   loaded, rebuilt.size(), carriedOver);
+    }
+
+    /**
+     * Drops addresses with no activity inside the horizon; every window they could answer is empty.
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.ip-activity.eviction-interval-ms:300000}")
+    public void evictIdleAddresses() {
+        long cutoff = toEpochMinute(LocalDateTime.now()) - horizonMinutes;
+        int before = windows.size();
+        windows.values().removeIf(window -> window.getLatestMinute() < cutoff);
+        int evicted = before - windows.size();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle IP activity windows", evicted);
+        }
+    }
+
+    /**
+     * Makes room by dropping the least recently active tenth of the tracked addresses.
+     */
+    private void evictLeastRecentlyActive(Map<String, IpActivityWindow> target) {
+        synchronized (evictionLock) {
+            if (target.size() < maxTrackedIps) {
+                return;
+            }
+            long[] latest = target.values().stream().mapToLong(IpActivityWindow::getLatestMinute).toArray();
+            Arrays.sort(latest);
+            long cutoff = latest[Math.min(latest.length - 1, Math.max(0, latest.length / 10))];
+            target.values().removeIf(window -> window.getLatestMinute() <= cutoff);
+            logger.debug("IP activity limit of {} addresses reached - evicted down to {}", maxTrackedIps, target.size());
+        }
+    }
+
+    private void record(Map<String, IpActivityWindow> target, Transaction transaction) {
+        String ipAddress = IpActivityWindow.normalizeAddress(transaction.getIpAddress());
+        if (ipAddress == null) {
+            return;
+        }
+        if (target.size() >= maxTrackedIps && !target.containsKey(ipAddress)) {
+            evictLeastRecentlyActive(target);
+        }
+        target.computeIfAbsent(ipAddress, ip -> new IpActivityWindow(maxEventsPerIp))
+                .add(toEpochMinute(transaction.getTransactionTime()), transaction.getUser().getId(),
+                        IpActivityWindow.cardKey(transaction.getCardNumberMasked()));
+    }
+
+    private static void discard(Map<String, IpActivityWindow> target, Transaction transaction) {
+        String ipAddress = IpActivityWindow.normalizeAddress(transaction.getIpAddress());
+        IpActivityWindow window = ipAddress != null ? target.get(ipAddress) : null;
+        if (window != null) {
+            window.remove(toEpochMinute(transaction.getTransactionTime()), transaction.getUser().getId(),
+                    IpActivityWindow.cardKey(transaction.getCardNumberMasked()));
+        }
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.engine.SlidingWindowCounter;
+import com.example.fraud_detection.engine.UserActivityTimeline;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.VelocityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+@Service
+@ConditionalOnProperty(name = "fraud.detection.velocity.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVelocityServiceImpl implements VelocityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryVelocityServiceImpl.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Grows to the longest rule window of an installed snapshot, never shrinks
+    @Value("${fraud.detection.velocity.horizon-minutes:1440}")
+    private volatile int horizonMinutes;
+
+    private volatile Map<Long, UserWindows> windows = new ConcurrentHashMap<>();
+
+    private final RebuildLog rebuildLog = new RebuildLog();
+
+    @Override
+    public void recordTransaction(Transaction transaction) {
+        Lock changeLock = rebuildLog.changeLock();
+        changeLock.lock();
+        try {
+            record(windows, transaction);
+            rebuildLog.recorded(transaction);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public void discardTransaction(Transaction transaction) {
+        Lock changeLock = rebuildLog.changeLock();
+        changeLock.lock();
+        try {
+            discard(windows, transaction);
+            rebuildLog.discarded(transaction);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Override
+    public long countTransactions(Long userId, LocalDateTime start, LocalDateTime end) {
+        return countTransactions(userId, toEpochMinute(start), toEpochMinute(end));
+    }
+
+    @Override
+    public long countTransactions(Long userId, long startMinute, long endMinute) {
+        UserWindows window = windows.get(userId);
+        if (window == null) {
+            return 0;
+        }
+        return window.transactions.count(startMinute, endMinute);
+    }
+
+    @Override
+    public long sumAmountCents(Long userId, long startMinute, long endMinute) {
+        UserWindows window = windows.get(userId);
+        if (window == null) {
+            return 0;
+        }
+        return window.spentCents.count(startMinute, endMinute);
+    }
+
+    /**
+     * Copies the windows minute by minute; scoring reads them directly and never needs this.
+     */
+    @Override
+    public void loadTimeline(Long userId, long startMinute, long endMinute, UserActivityTimeline timeline) {
+        timeline.begin(userId, startMinute, endMinute);
+        UserWindows window = windows.get(userId);
+        if (window != null) {
+            for (long minute = Math.max(startMinute, endMinute - horizonMinutes); minute <= endMinute; minute++) {
+                long count = window.transactions.count(minute, minute);
+                if (count != 0) {
+                    timeline.add(minute, count, window.spentCents.count(minute, minute));
+                }
+            }
+        }
+        timeline.complete();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return true;
+    }
+
+    /**
+     * Not {@code @Transactional}: a proxy around this bean would box the arguments of every
+     * window read on the scoring path. Transactions recorded meanwhile keep going to the current
+     * windows and are carried over into the rebuilt ones at the swap.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(horizonMinutes);
+        logger.info("Rebuilding velocity windows from transactions since {}", since);
+
+        rebuildLog.begin();
+        Map<Long, UserWindows> rebuilt = new ConcurrentHashMap<>();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long loaded = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<Object[]> activity = transactionRepository.streamUserActivitySince(since)) {
+                for (Object[] row : (Iterable<Object[]>) activity::iterator) {
+                    Long userId = (Long) row[0];
+                    LocalDateTime transactionTime = (LocalDateTime) row[1];
+                    BigDecimal amount = (BigDecimal) row[2];
+                    rebuilt.computeIfAbsent(userId, id -> new UserWindows(horizonMinutes))
+                            .add(toEpochMinute(transactionTime), 1, Transaction.toCents(amount));
+                    rebuildLog.streamed((Long) row[3], (LocalDateTime) row[4]);
+                    count++;
+                }
+            }
+            return count;
+        });
+        int carriedOver = rebuildLog.finish(transaction -> record(rebuilt, transaction),
+                transaction -> discard(rebuilt, transaction), () -> windows = rebuilt);
+
+        logger.info("Velocity windows rebuilt - {} transactions across {} users, {} changes carried over",
+                   loaded, rebuilt.size(), carriedOver);
+    }
+
+    /**
+     * Widens the horizon to the longest VELOCITY_CHECK or SPEND_VELOCITY window of a newly
+     * installed snapshot and rebuilds, so live scoring answers the same windows a backtest or
+     * re-analysis of that snapshot does instead of clamping them.
+     */
+    @EventListener
+    public void onSnapshotInstalled(RuleSnapshot snapshot) {
+        int longest = snapshot.getLongestUserWindowMinutes();
+        if (longest <= horizonMinutes) {
+            return;
+        }
+        synchronized (this) {
+            if (longest <= horizonMinutes) {
+                return;
+            }
+            logger.info("Widening velocity horizon from {} to {} minutes for rule snapshot version {}",
+                       horizonMinutes, longest, snapshot.getVersion());
+            horizonMinutes = longest;
+            rebuild();
+        }
+    }
+
+    /**
+     * Drops users with no activity inside the horizon; every window they could answer is empty.
+     * Each removal re-checks the user under its map entry, so a transaction recorded meanwhile
+     * keeps its window.
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.velocity.eviction-interval-ms:300000}")
+    public void evictIdleUsers() {
+        long cutoff = toEpochMinute(LocalDateTime.now()) - horizonMinutes;
+        Map<Long, UserWindows> current = windows;
+        int evicted = 0;
+        for (Long userId : current.keySet()) {
+            UserWindows idle = current.get(userId);
+            if (idle != null && idle.transactions.getLatestMinute() < cutoff
+                    && current.computeIfPresent(userId,
+                            (id, window) -> window.transactions.getLatestMinute() < cutoff ? null : window) == null) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle velocity windows", evicted);
+        }
+    }
+
+    /**
+     * Adds inside the map entry's compute so that eviction cannot drop the window in between.
+     */
+    private void record(Map<Long, UserWindows> target, Transaction transaction) {
+        long minute = toEpochMinute(transaction.getTransactionTime());
+        long cents = transaction.getAmountCents();
+        target.compute(transaction.getUser().getId(), (id, window) -> {
+            UserWindows recorded = window != null ? window : new UserWindows(horizonMinutes);
+            recorded.add(minute, 1, cents);
+            return recorded;
+        });
+    }
+
+    private static void discard(Map<Long, UserWindows> target, Transaction transaction) {
+        long minute = toEpochMinute(transaction.getTransactionTime());
+        long cents = transaction.getAmountCents();
+        target.computeIfPresent(transaction.getUser().getId(), (id, window) -> {
+            window.add(minute, -1, -cents);
+            return window;
+        });
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Transaction count and spend of one user; the running sums make spend windows as cheap
+     * as count windows.
+     */
+    private static final class UserWindows {
+
+        private final SlidingWindowCounter transactions;
+        private final SlidingWindowCounter spentCents;
+
+        UserWindows(int horizonMinutes) {
+            transactions = new SlidingWindowCounter(horizonMinutes);
+            spentCents = new SlidingWindowCounter(horizonMinutes);
+        }
+
+        void add(long epochMinute, long count, long cents) {
+            transactions.add(epochMinute, count);
+            spentCents.add(epochMinute, cents);
+        }
+    }
+}
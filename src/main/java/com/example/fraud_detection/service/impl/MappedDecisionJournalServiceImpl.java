@@ -0,0 +1,163 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.DecisionJournal;
+import com.example.fraud_detection.engine.DecisionTrace;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.service.DecisionJournalService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes every committed scoring decision to a {@link DecisionJournal}.
+ *
+ * Decisions follow Hibernate post-commit events like the dashboard counters, so inserts,
+ * group commits, batches and re-scores of loaded transactions are all journaled once they
+ * are durable; re-analysis writes with JDBC and records its chunks itself. Only transactions
+ * scored in this process carry a trace, so status edits are not journaled as decisions, and
+ * a re-score that changes no column is not written by Hibernate and has no record either.
+ *
+ * The manifest naming the rule positions of a snapshot version is written when the snapshot
+ * is installed, so appending a decision never blocks or touches the file system.
+ */
+@Service
+public class MappedDecisionJournalServiceImpl implements DecisionJournalService,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedDecisionJournalServiceImpl.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.journal.directory:data/journal}")
+    private String directory;
+
+    @Value("${fraud.detection.journal.records-per-segment:262144}")
+    private int recordsPerSegment;
+
+    @Value("${fraud.detection.journal.retained-segments:16}")
+    private int retainedSegments;
+
+    private DecisionJournal journal;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new DecisionJournal(Paths.get(directory), recordsPerSegment, retainedSegments);
+        FunctionCounter.builder("fraud.journal.dropped", journal, DecisionJournal::getDroppedCount)
+                .description("Decisions dropped because their journal segment was not mapped in time")
+                .register(meterRegistry);
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+
+        logger.info("Journaling decisions to {} from sequence {}",
+                   journal.getDirectory().toAbsolutePath(), journal.getNextSequence());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void record(Transaction transaction) {
+        DecisionTrace trace = transaction.getDecisionTrace();
+        if (journal == null || trace == null || transaction.getId() == null) {
+            return;
+        }
+        journal.append(transaction.getId(),
+                transaction.getUser() != null && transaction.getUser().getId() != null ? transaction.getUser().getId() : 0L,
+                System.currentTimeMillis(),
+                transaction.getRuleSetVersion() != null ? transaction.getRuleSetVersion() : 0L,
+                transaction.getFraudScore() != null ? transaction.getFraudScore() : 0.0,
+                transaction.getFraudStatus() != null ? transaction.getFraudStatus().ordinal() : 0,
+                trace);
+        transaction.setDecisionTrace(null);
+        DecisionTrace.release(trace);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Transaction transaction) {
+            record(transaction);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Transaction transaction) {
+            record(transaction);
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing was journaled before commit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing was journaled before commit
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Transaction.class;
+    }
+
+    /**
+     * Writes the manifest naming the rule positions of a newly installed snapshot, whether or
+     * not any decision is ever scored against it.
+     */
+    @EventListener
+    public void onSnapshotInstalled(RuleSnapshot snapshot) {
+        if (journal == null) {
+            return;
+        }
+        List<String> rules = new ArrayList<>(snapshot.getRules().size());
+        for (CompiledRule rule : snapshot.getRules()) {
+            rules.add(rule.getId() + ":" + rule.getRuleName());
+        }
+        try {
+            journal.describeSnapshot(snapshot.getVersion(), rules);
+        } catch (IOException e) {
+            logger.warn("Could not write the rule manifest of snapshot {}: {}", snapshot.getVersion(), e.getMessage());
+        }
+    }
+}
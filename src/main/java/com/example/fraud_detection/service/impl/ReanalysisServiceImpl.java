@@ -0,0 +1,306 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.ReanalysisRequest;
+import com.example.fraud_detection.engine.ReplayActivityHistory;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.ReanalysisJob;
+import com.example.fraud_detection.model.ReanalysisJobState;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.ReanalysisJobRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import com.example.fraud_detection.service.DecisionJournalService;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.ReanalysisService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs re-analysis jobs one at a time on a background thread.
+ *
+ * A job replays transactions in keyset order like a backtest, scores the selected ones on a
+ * fork-join pool and writes each chunk's results with one JDBC batch. The batch and the job's
+ * checkpoint commit together, so a job interrupted by a shutdown resumes after its last
+ * committed chunk, as long as the rule set it was scoring against is still installed. Rule
+ * set versions are not kept, so a job whose version was replaced starts over from the
+ * beginning of its range against the current one, rather than mixing two versions. Batched
+ * updates bypass the entity listeners, so dashboard counters are reconciled when a job stops.
+ */
+@Service
+public class ReanalysisServiceImpl implements ReanalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReanalysisServiceImpl.class);
+
+    private static final String UPDATE_SQL = "UPDATE transactions SET fraud_status = ?, fraud_score = ?, " +
+            "fraud_reason = COALESCE(?, fraud_reason), rule_set_version = ? WHERE id = ?";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ReanalysisJobRepository reanalysisJobRepository;
+
+    @Autowired
+    private RuleSnapshotService ruleSnapshotService;
+
+    @Autowired
+    private FraudScoringService fraudScoringService;
+
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+
+    @Autowired
+    private DecisionJournalService decisionJournalService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${fraud.detection.reanalysis.chunk-size:1000}")
+    private int chunkSize;
+
+    // Zero uses one worker per available processor
+    @Value("${fraud.detection.reanalysis.worker-count:0}")
+    private int workerCount;
+
+    @Value("${fraud.detection.velocity-check-window-minutes:60}")
+    private int velocityCheckWindowMinutes;
+
+    @Value("${fraud.detection.ip-activity.max-events-per-ip:512}")
+    private int maxEventsPerIp;
+
+    private final Set<Long> cancelRequested = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService runner;
+    private ForkJoinPool workers;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void start() {
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fraud-reanalysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers = new ForkJoinPool(workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Interrupts the running job; it stays RUNNING and resumes from its checkpoint on the next start
+        stopping = true;
+        runner.shutdownNow();
+        runner.awaitTermination(10, TimeUnit.SECONDS);
+        workers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        List<ReanalysisJob> unfinished = reanalysisJobRepository.findByStateInOrderByIdAsc(
+                EnumSet.of(ReanalysisJobState.QUEUED, ReanalysisJobState.RUNNING));
+        for (ReanalysisJob job : unfinished) {
+            submit(job.getId());
+        }
+        if (!unfinished.isEmpty()) {
+            logger.info("Resuming {} unfinished re-analysis jobs", unfinished.size());
+        }
+    }
+
+    @Override
+    public ReanalysisJob startJob(ReanalysisRequest request) {
+        if (!request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("Re-analysis range is empty: " + request.getFrom() + " to " + request.getTo());
+        }
+        ReanalysisJob job = new ReanalysisJob(request.getStatus(), request.getFrom(), request.getTo());
+        job.setTotal(transactionRepository.countInRange(request.getFrom(), request.getTo(), request.getStatus()));
+        job = reanalysisJobRepository.save(job);
+        logger.info("Queued re-analysis job {} for {} transactions", job.getId(), job.getTotal());
+        submit(job.getId());
+        return job;
+    }
+
+    @Override
+    public Optional<ReanalysisJob> findJob(Long jobId) {
+        return reanalysisJobRepository.findById(jobId);
+    }
+
+    @Override
+    public List<ReanalysisJob> findJobs() {
+        return reanalysisJobRepository.findAllByOrderByIdDesc();
+    }
+
+    @Override
+    public boolean cancelJob(Long jobId) {
+        Optional<ReanalysisJob> job = reanalysisJobRepository.findById(jobId);
+        if (job.isEmpty() || job.get().isFinished()) {
+            return false;
+        }
+        cancelRequested.add(jobId);
+        return true;
+    }
+
+    private void submit(Long jobId) {
+        runner.execute(() -> {
+            try {
+                run(jobId);
+            } catch (RuntimeException e) {
+                logger.error("Re-analysis job {} could not be run: {}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    private void run(Long jobId) {
+        ReanalysisJob job = reanalysisJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        if (cancelRequested.remove(jobId)) {
+            finish(job, ReanalysisJobState.CANCELLED, null);
+            return;
+        }
+
+        RuleSnapshot snapshot = ruleSnapshotService.getCurrentSnapshot();
+        if (job.getCheckpointTime() != null && job.getRuleSetVersion() != null
+                && job.getRuleSetVersion() != snapshot.getVersion()) {
+            logger.warn("Re-analysis job {} scored {} transactions against rule set {}, which is no longer installed; "
+                       + "restarting it against rule set {}", jobId, job.getProcessed(), job.getRuleSetVersion(),
+                       snapshot.getVersion());
+            job.setCheckpointTime(null);
+            job.setCheckpointId(null);
+            job.setProcessed(0);
+            job.setChanged(0);
+            job.setTotal(transactionRepository.countInRange(job.getRangeStart(), job.getRangeEnd(), job.getStatusFilter()));
+        }
+        job.setState(ReanalysisJobState.RUNNING);
+        job.setRuleSetVersion(snapshot.getVersion());
+        job = reanalysisJobRepository.save(job);
+
+        int horizonMinutes = ReplayChunk.horizonMinutes(snapshot, velocityCheckWindowMinutes);
+        ReplayActivityHistory history = new ReplayActivityHistory(horizonMinutes, maxEventsPerIp);
+        ReplayChunk chunk = new ReplayChunk(chunkSize);
+
+        // Score everything after the checkpoint; the horizon before it only warms up the windows
+        LocalDateTime selectAfterTime = job.getCheckpointTime() != null ? job.getCheckpointTime() : job.getRangeStart();
+        Long selectAfterId = job.getCheckpointId() != null ? job.getCheckpointId() : Long.MIN_VALUE;
+        LocalDateTime afterTime = selectAfterTime.minusMinutes(horizonMinutes);
+        Long afterId = Long.MIN_VALUE;
+        logger.info("Running re-analysis job {} against rule set {} from {}",
+                   jobId, snapshot.getVersion(), selectAfterTime);
+
+        try {
+            while (true) {
+                if (cancelRequested.remove(jobId)) {
+                    finish(job, ReanalysisJobState.CANCELLED, null);
+                    return;
+                }
+                List<Object[]> rows = transactionRepository.findReplayChunkAfter(
+                        job.getRangeEnd(), afterTime, afterId, Limit.of(chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                long startNanos = System.nanoTime();
+                chunk.load(rows, selectAfterTime, selectAfterId, job.getStatusFilter());
+                chunk.recordInto(history);
+                chunk.score(workers, fraudScoringService, snapshot, history);
+                job = commitChunk(job, chunk, snapshot, startNanos);
+
+                afterTime = job.getCheckpointTime();
+                afterId = job.getCheckpointId();
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+            }
+            finish(job, ReanalysisJobState.COMPLETED, null);
+        } catch (RuntimeException e) {
+            // The driver may swallow the interrupt, so the shutdown flag decides
+            if (stopping || Thread.currentThread().isInterrupted()) {
+                logger.info("Re-analysis job {} paused at {} / {}", jobId, job.getCheckpointTime(), job.getCheckpointId());
+                return;
+            }
+            logger.error("Re-analysis job {} failed: {}", jobId, e.getMessage());
+            finish(job, ReanalysisJobState.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the chunk's scores and advances the checkpoint in one database transaction.
+     */
+    private ReanalysisJob commitChunk(ReanalysisJob job, ReplayChunk chunk, RuleSnapshot snapshot, long startNanos) {
+        List<Object[]> updates = new ArrayList<>(chunk.size);
+        long changed = 0;
+        for (int i = 0; i < chunk.size; i++) {
+            if (!chunk.selected[i]) {
+                continue;
+            }
+            double score = chunk.scores[i];
+            FraudStatus status = FraudDetectionServiceImpl.statusForScore(score);
+            if (status != chunk.storedStatuses[i]) {
+                changed++;
+            }
+            Transaction transaction = chunk.transactions[i];
+            transaction.setFraudScore(score);
+            transaction.setFraudStatus(status);
+            transaction.setRuleSetVersion(snapshot.getVersion());
+            updates.add(new Object[] {status.name(), score, FraudDetectionServiceImpl.reasonForScore(score),
+                    snapshot.getVersion(), transaction.getId()});
+        }
+
+        Transaction last = chunk.last();
+        job.setCheckpointTime(last.getTransactionTime());
+        job.setCheckpointId(last.getId());
+        job.setProcessed(job.getProcessed() + updates.size());
+        job.setChanged(job.getChanged() + changed);
+        job.setActiveMillis(job.getActiveMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        ReanalysisJob saved = transactionTemplate.execute(status -> {
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            }
+            return reanalysisJobRepository.save(job);
+        });
+
+        // The batched updates raise no entity events, so the committed decisions are journaled here
+        for (int i = 0; i < chunk.size; i++) {
+            if (chunk.selected[i]) {
+                decisionJournalService.record(chunk.transactions[i]);
+            }
+        }
+        return saved;
+    }
+
+    private void finish(ReanalysisJob job, ReanalysisJobState state, String error) {
+        job.setState(state);
+        job.setError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        job.setFinishedAt(LocalDateTime.now());
+        reanalysisJobRepository.save(job);
+        dashboardCounterService.reconcile();
+        logger.info("Re-analysis job {} {} - {} re-scored, {} changed status",
+                   job.getId(), state, job.getProcessed(), job.getChanged());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * The records and discards an in-memory window store makes while its windows are rebuilt from
+ * the transactions table, so that the rebuilt windows take them over instead of losing them at
+ * the swap.
+ *
+ * Logging runs from construction until the first rebuild swaps its windows in, which covers the
+ * transactions recorded at startup before the rebuild begins, and from the start of any later
+ * rebuild. Changes are applied and logged under the shared change lock and the swap takes the
+ * exclusive one, so no change lands in the old windows after the log is replayed.
+ *
+ * A recorded transaction may also be committed in time for the rebuild to stream it. Streamed
+ * rows inserted since logging began are remembered by id, and logged changes for them are not
+ * replayed.
+ */
+final class RebuildLog {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> streamedIds = new HashSet<>();
+    private volatile Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private volatile LocalDateTime loggingSince = LocalDateTime.now();
+
+    /**
+     * @return The lock every record and discard holds while it changes the windows and logs
+     */
+    Lock changeLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Logs a recorded transaction if a rebuild is under way; called holding the change lock.
+     */
+    void recorded(Transaction transaction) {
+        Queue<Change> log = changes;
+        if (log != null) {
+            log.add(new Change(transaction, true));
+        }
+    }
+
+    /**
+     * Logs a discarded transaction if a rebuild is under way; called holding the change lock.
+     */
+    void discarded(Transaction transaction) {
+        Queue<Change> log = changes;
+        if (log != null) {
+            log.add(new Change(transaction, false));
+        }
+    }
+
+    /**
+     * Starts logging for a rebuild, unless logging since construction still runs.
+     */
+    void begin() {
+        lock.writeLock().lock();
+        try {
+            if (changes == null) {
+                changes = new ConcurrentLinkedQueue<>();
+                loggingSince = LocalDateTime.now();
+            }
+            streamedIds.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remembers a row the rebuild streamed, if it may also be in the log; called by the
+     * rebuilding thread only.
+     */
+    void streamed(Long id, LocalDateTime createdAt) {
+        if (createdAt != null && !createdAt.isBefore(loggingSince)) {
+            streamedIds.add(id);
+        }
+    }
+
+    /**
+     * Replays the logged changes the stream did not include into the rebuilt windows, swaps
+     * them in and stops logging, all while no change can run.
+     * @return Number of changes replayed
+     */
+    int finish(Consumer<Transaction> replayRecorded, Consumer<Transaction> replayDiscarded, Runnable swap) {
+        lock.writeLock().lock();
+        try {
+            int replayed = 0;
+            // A discard is replayed only with its record; the rebuilt windows never held the others
+            Set<Transaction> replayedRecords = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Change change : changes) {
+                Long id = change.transaction.getId();
+                if (id != null && streamedIds.contains(id)) {
+                    continue;
+                }
+                if (change.recorded) {
+                    replayRecorded.accept(change.transaction);
+                    replayedRecords.add(change.transaction);
+                } else if (replayedRecords.remove(change.transaction)) {
+                    replayDiscarded.accept(change.transaction);
+                } else {
+                    continue;
+                }
+                replayed++;
+            }
+            swap.run();
+            changes = null;
+            streamedIds.clear();
+            return replayed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Change {
+
+        private final Transaction transaction;
+        private final boolean recorded;
+
+        Change(Transaction transaction, boolean recorded) {
+            this.transaction = transaction;
+            this.recorded = recorded;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.DecisionTrace;
+import com.example.fraud_detection.engine.ReplayActivityHistory;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.service.FraudScoringService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Reusable buffers for one chunk of stored transactions replayed in time order, as read by
+ * {@code TransactionRepository.findReplayChunkAfter}.
+ *
+ * Every transaction of a chunk is recorded into the replay history, but only the selected
+ * ones are scored; the others just warm up the windows. Each is scored against the history
+ * as of its own record, so it sees the transactions before it and itself but none after it,
+ * in its own minute or later. Shared by backtests and bulk re-analysis.
+ */
+final class ReplayChunk {
+
+    final Transaction[] transactions;
+    final long[] minutes;
+    final boolean[] selected;
+    final FraudStatus[] storedStatuses;
+    final Double[] storedScores;
+    final double[] scores;
+    final long[] sequences;
+    int size;
+
+    ReplayChunk(int capacity) {
+        transactions = new Transaction[capacity];
+        minutes = new long[capacity];
+        selected = new boolean[capacity];
+        storedStatuses = new FraudStatus[capacity];
+        storedScores = new Double[capacity];
+        scores = new double[capacity];
+        sequences = new long[capacity];
+    }
+
+    /**
+     * @return The longest window any velocity or fan-out check of the snapshot looks back
+     */
+    static int horizonMinutes(RuleSnapshot snapshot, int velocityCheckWindowMinutes) {
+        int horizon = Math.max(1, velocityCheckWindowMinutes);
+        for (CompiledRule rule : snapshot.getRules()) {
+            switch (rule.getRuleType()) {
+                case VELOCITY_CHECK:
+                case SPEND_VELOCITY:
+                case IP_FAN_OUT:
+                    horizon = Math.max(horizon, rule.getTimeWindowMinutes());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return horizon;
+    }
+
+    /**
+     * Rebuilds detached transactions from the chunk query's scalar columns and selects those
+     * after the given keyset position, optionally only with the given stored status.
+     */
+    void load(List<Object[]> rows, LocalDateTime selectAfterTime, Long selectAfterId, FraudStatus statusFilter) {
+        size = rows.size();
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            User user = new User();
+            user.setId((Long) row[1]);
+
+            Transaction transaction = new Transaction();
+            transaction.setId((Long) row[0]);
+            transaction.setUser(user);
+            transaction.setAmount((BigDecimal) row[2]);
+            transaction.setMerchantCategory((String) row[3]);
+            transaction.setLocation((String) row[4]);
+            transaction.setIpAddress((String) row[5]);
+            transaction.setCardNumberMasked((String) row[6]);
+            LocalDateTime transactionTime = (LocalDateTime) row[7];
+            transaction.setTransactionTime(transactionTime);
+
+            transactions[i] = transaction;
+            minutes[i] = Math.floorDiv(transactionTime.toEpochSecond(ZoneOffset.UTC), 60);
+            storedStatuses[i] = row[8] != null ? (FraudStatus) row[8] : FraudStatus.PENDING;
+            storedScores[i] = (Double) row[9];
+            scores[i] = 0.0;
+
+            int order = transactionTime.compareTo(selectAfterTime);
+            selected[i] = (order > 0 || (order == 0 && transaction.getId() > selectAfterId))
+                    && (statusFilter == null || storedStatuses[i] == statusFilter);
+        }
+    }
+
+    /**
+     * Drops history no transaction of this chunk can reach, then records the chunk in time
+     * order, keeping each transaction's sequence number to score it as of its own record.
+     */
+    void recordInto(ReplayActivityHistory history) {
+        history.advanceTo(minutes[0]);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = transactions[i];
+            sequences[i] = history.record(transaction.getUser().getId(), minutes[i], transaction.getAmountCents(),
+                    transaction.getIpAddress(), transaction.getCardNumberMasked());
+        }
+    }
+
+    /**
+     * Scores the selected transactions in parallel on the pool, each against the history as
+     * of its own record; the history is only read.
+     */
+    void score(ForkJoinPool pool, FraudScoringService fraudScoringService, RuleSnapshot snapshot,
+               ReplayActivityHistory history) {
+        try {
+            pool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+                if (selected[i]) {
+                    scores[i] = fraudScoringService.calculateFraudScore(transactions[i], snapshot,
+                            history.asOf(sequences[i]));
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Replay scoring failed", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the decision traces of a chunk whose decisions are not journaled to the pool.
+     */
+    void releaseTraces() {
+        for (int i = 0; i < size; i++) {
+            DecisionTrace trace = transactions[i].getDecisionTrace();
+            if (trace != null) {
+                transactions[i].setDecisionTrace(null);
+                DecisionTrace.release(trace);
+            }
+        }
+    }
+
+    Transaction last() {
+        return transactions[size - 1];
+    }
+}
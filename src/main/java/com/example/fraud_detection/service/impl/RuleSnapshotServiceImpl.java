@@ -0,0 +1,120 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.CompiledRule;
+import com.example.fraud_detection.engine.IpRangeSource;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class RuleSnapshotServiceImpl implements RuleSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleSnapshotServiceImpl.class);
+
+    @Autowired
+    private FraudRuleRepository fraudRuleRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${fraud.detection.ip-ranges.directory:ip-ranges}")
+    private String ipRangeDirectory;
+
+    private volatile RuleSnapshot currentSnapshot;
+
+    @Override
+    public RuleSnapshot getCurrentSnapshot() {
+        RuleSnapshot snapshot = currentSnapshot;
+        return snapshot != null ? snapshot : refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInitialSnapshot() {
+        refresh();
+    }
+
+    /**
+     * Scoring threads keep using the previous snapshot while a new one, including its IP trie,
+     * is compiled; only the final reference swap is visible to them. The installed snapshot is
+     * then published as an application event, still inside the refresh so that listeners see
+     * versions in installation order.
+     */
+    @Override
+    public synchronized RuleSnapshot refresh() {
+        // Highest risk first, the order the snapshot evaluates each group of rules in
+        List<FraudRule> activeRules = fraudRuleRepository.findActiveRulesOrderByRiskScore();
+        RuleSnapshot snapshot = RuleSnapshot.compile(nextVersion(), activeRules, this::readIpRanges);
+        currentSnapshot = snapshot;
+
+        logger.info("Installed rule snapshot version {} with {} rules ({} rejected)",
+                   snapshot.getVersion(), snapshot.getRules().size(), snapshot.getRejectedRuleCount());
+        eventPublisher.publishEvent(snapshot);
+        return snapshot;
+    }
+
+    @Override
+    public RuleSnapshot compile(List<FraudRule> rules) {
+        List<FraudRule> activeRules = new ArrayList<>(rules.size());
+        for (FraudRule rule : rules) {
+            if (!Boolean.FALSE.equals(rule.getIsActive())) {
+                activeRules.add(rule);
+            }
+        }
+        return RuleSnapshot.compile(0L, activeRules, this::readIpRanges);
+    }
+
+    @Override
+    public boolean isCompilable(FraudRule rule) {
+        return CompiledRule.compile(rule, this::readIpRanges) != null;
+    }
+
+    /**
+     * Reads a range file from the configured directory; names that resolve outside it are refused.
+     * Blank lines and {@code #} comments are skipped.
+     */
+    private List<String> readIpRanges(String name) throws IOException {
+        Path directory = Paths.get(ipRangeDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory)) {
+            throw new IOException("IP range file outside " + directory + ": " + name);
+        }
+
+        List<String> ranges = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .forEach(ranges::add);
+        } catch (IOException e) {
+            logger.warn("Could not read IP range file {}: {}", file, e.getMessage());
+            throw e;
+        }
+        return ranges;
+    }
+
+    /**
+     * Versions are wall-clock based so they stay increasing across restarts.
+     */
+    private long nextVersion() {
+        RuleSnapshot previous = currentSnapshot;
+        long now = System.currentTimeMillis();
+        return previous == null ? now : Math.max(previous.getVersion() + 1, now);
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionCursor;
+import com.example.fraud_detection.dto.TransactionPage;
+import com.example.fraud_detection.engine.TransactionArchiveReader;
+import com.example.fraud_detection.engine.TransactionArchiveWriter;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.ReanalysisJobState;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionArchive;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.ReanalysisJobRepository;
+import com.example.fraud_detection.repository.TransactionArchiveRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import com.example.fraud_detection.service.TransactionArchiveService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the transactions table to the retention window by archiving whole calendar months.
+ *
+ * A month is a contiguous range of the (transaction_time, id) index, so it acts as the time
+ * partition: its rows are streamed in index order into a compressed columnar file, one
+ * bounded row group at a time, then dropped with one range delete that commits together with
+ * the catalogue entry. Before the delete the range's ids are locked and compared, in order,
+ * with the ids read back from the file, and the delete must remove exactly that many rows;
+ * otherwise it rolls back and the file is discarded, so a row written into an expired month
+ * while it is archived is kept for the next run.
+ * Archived rows are older than any velocity or fan-out horizon, so the in-memory windows are
+ * unaffected; the bulk delete bypasses the entity listeners, so dashboard counters are
+ * reconciled after a run.
+ */
+@Service
+public class TransactionArchiveServiceImpl implements TransactionArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveServiceImpl.class);
+
+    // The keyset order of listings, which every archive file is written in
+    private static final Comparator<Transaction> KEYSET_ORDER =
+            Comparator.comparing(Transaction::getTransactionTime).thenComparing(Transaction::getId);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchiveRepository transactionArchiveRepository;
+
+    @Autowired
+    private ReanalysisJobRepository reanalysisJobRepository;
+
+    @Autowired
+    private DashboardCounterService dashboardCounterService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${fraud.detection.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.archive.directory:data/archive}")
+    private String directory;
+
+    @Value("${fraud.detection.archive.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${fraud.detection.archive.row-group-size:65536}")
+    private int rowGroupSize;
+
+    @Value("${fraud.detection.listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${fraud.detection.listing.max-page-size:1000}")
+    private int maxPageSize;
+
+    // Serializes the scheduled run with runs requested through the API
+    private final Object archiveLock = new Object();
+
+    @PostConstruct
+    void start() {
+        if (retentionMonths < 1) {
+            throw new IllegalArgumentException("Archive retention must be at least one month: " + retentionMonths);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.detection.archive.interval-ms:3600000}",
+               initialDelayString = "${fraud.detection.archive.interval-ms:3600000}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveExpired();
+        }
+    }
+
+    @Override
+    public List<TransactionArchive> archiveExpired() {
+        synchronized (archiveLock) {
+            // A job rewriting scores of an expired month would be lost with the archived copy
+            if (!reanalysisJobRepository.findByStateInOrderByIdAsc(
+                    EnumSet.of(ReanalysisJobState.QUEUED, ReanalysisJobState.RUNNING)).isEmpty()) {
+                logger.info("Archiving postponed until unfinished re-analysis jobs complete");
+                return List.of();
+            }
+
+            LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+            List<TransactionArchive> archived = new ArrayList<>();
+            try {
+                LocalDateTime oldest;
+                while ((oldest = transactionRepository.findOldestTransactionTime()) != null
+                        && oldest.isBefore(cutoff)) {
+                    LocalDateTime bucketStart = YearMonth.from(oldest).atDay(1).atStartOfDay();
+                    TransactionArchive part = archiveBucket(bucketStart, bucketStart.plusMonths(1));
+                    if (part == null) {
+                        break;
+                    }
+                    archived.add(part);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                logger.error("Archiving stopped: {}", e.getMessage());
+            }
+
+            if (!archived.isEmpty()) {
+                dashboardCounterService.reconcile();
+                logger.info("Archived {} transactions in {} parts before {}",
+                           archived.stream().mapToLong(TransactionArchive::getRowCount).sum(), archived.size(), cutoff);
+            }
+            return archived;
+        }
+    }
+
+    /**
+     * Writes one month to a new archive part and drops it from the live table.
+     *
+     * @return The catalogued part, or null if rows changed while it was written
+     */
+    private TransactionArchive archiveBucket(LocalDateTime start, LocalDateTime end) throws IOException {
+        long part = transactionArchiveRepository.countByBucketStart(start);
+        String fileName = String.format("transactions-%s-%d.fta", YearMonth.from(start), part);
+        Path file = Paths.get(directory).resolve(fileName);
+
+        long byteSize;
+        try (TransactionArchiveWriter writer = new TransactionArchiveWriter(file, rowGroupSize)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = transactionRepository.streamForArchive(start, end)) {
+                    rows.forEach(row -> {
+                        try {
+                            writer.append(toTransaction(row));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+            byteSize = writer.finish();
+        }
+        TransactionArchiveReader written = TransactionArchiveReader.open(file);
+        long writtenIds = written.digestIds();
+
+        TransactionArchive archive = transactionTemplate.execute(status -> {
+            if (!lockedIdsMatch(start, end, written.getRowCount(), writtenIds)) {
+                status.setRollbackOnly();
+                return null;
+            }
+            int deleted = transactionRepository.deleteInRange(start, end);
+            if (deleted != written.getRowCount()) {
+                status.setRollbackOnly();
+                return null;
+            }
+            return transactionArchiveRepository.save(
+                    new TransactionArchive(start, end, fileName, deleted, byteSize));
+        });
+        if (archive == null) {
+            Files.deleteIfExists(file);
+            logger.warn("Transactions of {} changed while archiving; retrying on the next run", YearMonth.from(start));
+            return null;
+        }
+        logger.info("Archived {} transactions of {} to {} ({} bytes)",
+                   archive.getRowCount(), YearMonth.from(start), fileName, byteSize);
+        return archive;
+    }
+
+    /**
+     * Locks the rows of the range and compares their ids, in archive order, with the file's.
+     */
+    private boolean lockedIdsMatch(LocalDateTime start, LocalDateTime end, int archivedRows, long archivedIds) {
+        long rows = 0;
+        long digest = TransactionArchiveReader.INITIAL_ID_DIGEST;
+        try (Stream<Long> ids = transactionRepository.lockIdsForArchive(start, end)) {
+            for (Iterator<Long> it = ids.iterator(); it.hasNext(); rows++) {
+                digest = TransactionArchiveReader.digestId(digest, it.next());
+            }
+        }
+        return rows == archivedRows && digest == archivedIds;
+    }
+
+    private static Transaction toTransaction(Object[] row) {
+        User user = new User();
+        user.setId((Long) row[1]);
+
+        Transaction transaction = new Transaction();
+        transaction.setId((Long) row[0]);
+        transaction.setUser(user);
+        transaction.setAmount((BigDecimal) row[2]);
+        transaction.setTransactionType((TransactionType) row[3]);
+        transaction.setMerchantName((String) row[4]);
+        transaction.setMerchantCategory((String) row[5]);
+        transaction.setLocation((String) row[6]);
+        transaction.setTransactionTime((LocalDateTime) row[7]);
+        transaction.setCreatedAt((LocalDateTime) row[8]);
+        transaction.setFraudStatus((FraudStatus) row[9]);
+        transaction.setFraudScore((Double) row[10]);
+        transaction.setFraudReason((String) row[11]);
+        transaction.setCardNumberMasked((String) row[12]);
+        transaction.setIpAddress((String) row[13]);
+        transaction.setRuleSetVersion((Long) row[14]);
+        return transaction;
+    }
+
+    @Override
+    public List<TransactionArchive> findArchives() {
+        return transactionArchiveRepository.findAllByOrderByBucketStartAscIdAsc();
+    }
+
+    /**
+     * A month may have several parts, each in keyset order, so a page is the first rows after
+     * the cursor across the parts of each month, kept in a heap bounded by the page size.
+     * Months are disjoint and come in order, so the scan ends at the first month starting after
+     * a full page.
+     */
+    @Override
+    public TransactionPage findArchived(LocalDateTime from, LocalDateTime to, Long userId, FraudStatus status,
+                                        String cursor, Integer limit) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Archive range is empty: " + from + " to " + to);
+        }
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        TransactionCursor position = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        LocalDateTime scanFrom = position != null && position.getTransactionTime().isAfter(from)
+                ? position.getTransactionTime() : from;
+        // Keep one extra row to learn whether another page follows
+        int wanted = pageSize + 1;
+        PriorityQueue<Transaction> firstRows = new PriorityQueue<>(wanted, KEYSET_ORDER.reversed());
+
+        List<TransactionArchive> parts = transactionArchiveRepository
+                .findByBucketStartLessThanAndBucketEndGreaterThanOrderByBucketStartAscIdAsc(to, scanFrom);
+        for (TransactionArchive part : parts) {
+            if (firstRows.size() == wanted && firstRows.peek().getTransactionTime().isBefore(part.getBucketStart())) {
+                break;
+            }
+            try {
+                Path file = Paths.get(directory).resolve(part.getFileName());
+                TransactionArchiveReader.open(file).scan(scanFrom, to, userId, status, transaction -> {
+                    if (position != null && !isAfter(transaction, position)) {
+                        return true;
+                    }
+                    if (firstRows.size() < wanted) {
+                        firstRows.add(transaction);
+                        return true;
+                    }
+                    if (KEYSET_ORDER.compare(transaction, firstRows.peek()) >= 0) {
+                        // Every later row of this part follows it too
+                        return false;
+                    }
+                    firstRows.poll();
+                    firstRows.add(transaction);
+                    return true;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive " + part.getFileName(), e);
+            }
+        }
+
+        List<Transaction> rows = new ArrayList<>(firstRows);
+        rows.sort(KEYSET_ORDER);
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, pageSize);
+        return new TransactionPage(items, TransactionCursor.after(items.get(pageSize - 1)).encode());
+    }
+
+    private static boolean isAfter(Transaction transaction, TransactionCursor position) {
+        int byTime = transaction.getTransactionTime().compareTo(position.getTransactionTime());
+        return byTime > 0 || byTime == 0 && transaction.getId() > position.getId();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.BatchTransactionResponse;
+import com.example.fraud_detection.dto.BatchTransactionResult;
+import com.example.fraud_detection.dto.TransactionImportSummary;
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.service.FraudDetectionService;
+import com.example.fraud_detection.service.TransactionImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports transactions from a streamed body, one batch at a time.
+ *
+ * Records are read until a batch is full, scored and persisted with
+ * {@link FraudDetectionService#createAndAnalyzeTransactions}, and their results are written
+ * and flushed before reading on. A client that stops reading results therefore stops the
+ * import from reading its upload, and memory holds one read buffer, one line and one batch.
+ * A batch whose insert fails is reported as failed record by record and the import goes on.
+ */
+@Service
+public class TransactionImportServiceImpl implements TransactionImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionImportServiceImpl.class);
+
+    @Autowired
+    private FraudDetectionService fraudDetectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${fraud.detection.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${fraud.detection.import.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${fraud.detection.import.max-line-length:8192}")
+    private int maxLineLength;
+
+    @Override
+    public TransactionImportSummary importTransactions(InputStream body, Format format, OutputStream results)
+            throws IOException {
+        long startMillis = System.currentTimeMillis();
+        ImportLineReader lines = new ImportLineReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8), bufferSize, maxLineLength);
+
+        ImportRecordParser parser;
+        if (format == Format.CSV) {
+            String header = lines.readLine();
+            if (header == null || header.isBlank()) {
+                throw new IllegalArgumentException("CSV header is missing");
+            }
+            parser = ImportRecordParser.csv(header);
+        } else {
+            parser = ImportRecordParser.ndjson(objectMapper);
+        }
+
+        Batch batch = new Batch(batchSize);
+        long received = 0;
+        long created = 0;
+        // Flushed once per batch rather than after every result
+        try (SequenceWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n").writeValues(results)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                received++;
+                int lineNumber = (int) lines.getLineNumber();
+                if (lines.isTruncated()) {
+                    batch.fail(lineNumber, "Line exceeds " + maxLineLength + " characters");
+                } else {
+                    try {
+                        batch.add(lineNumber, parser.parse(line));
+                    } catch (IllegalArgumentException e) {
+                        batch.fail(lineNumber, e.getMessage());
+                    }
+                }
+                if (batch.isFull()) {
+                    created += batch.flush(writer);
+                }
+            }
+            created += batch.flush(writer);
+            TransactionImportSummary summary = new TransactionImportSummary(received, created, received - created,
+                    System.currentTimeMillis() - startMillis);
+            writer.write(summary);
+            writer.flush();
+            results.write('\n');
+            logger.info("Imported {} of {} {} records in {} ms", created, received, format, summary.getElapsedMillis());
+            return summary;
+        }
+    }
+
+    /**
+     * Records read since the last flush, with the result of each that already failed to parse.
+     */
+    private final class Batch {
+
+        private final int capacity;
+        private final List<Integer> lineNumbers;
+        private final List<TransactionRequest> requests;
+        private final List<BatchTransactionResult> failures;
+
+        Batch(int capacity) {
+            this.capacity = capacity;
+            this.lineNumbers = new ArrayList<>(capacity);
+            this.requests = new ArrayList<>(capacity);
+            this.failures = new ArrayList<>(capacity);
+        }
+
+        void add(int lineNumber, TransactionRequest request) {
+            lineNumbers.add(lineNumber);
+            requests.add(request);
+            failures.add(null);
+        }
+
+        void fail(int lineNumber, String error) {
+            lineNumbers.add(lineNumber);
+            requests.add(null);
+            failures.add(BatchTransactionResult.failure(lineNumber, error));
+        }
+
+        boolean isFull() {
+            return lineNumbers.size() >= capacity;
+        }
+
+        /**
+         * Scores and persists the parsed records, writes every result in line order and clears the batch.
+         *
+         * @return Number of transactions created
+         */
+        int flush(SequenceWriter writer) throws IOException {
+            if (lineNumbers.isEmpty()) {
+                return 0;
+            }
+            List<TransactionRequest> parsed = new ArrayList<>(requests.size());
+            for (TransactionRequest request : requests) {
+                if (request != null) {
+                    parsed.add(request);
+                }
+            }
+
+            List<BatchTransactionResult> scored = null;
+            String batchError = null;
+            if (!parsed.isEmpty()) {
+                try {
+                    BatchTransactionResponse response = fraudDetectionService.createAndAnalyzeTransactions(parsed);
+                    scored = response.getResults();
+                } catch (RuntimeException e) {
+                    logger.error("Import batch ending at line {} failed: {}",
+                                lineNumbers.get(lineNumbers.size() - 1), e.getMessage());
+                    batchError = "Batch failed: " + e.getMessage();
+                }
+            }
+
+            int created = 0;
+            int next = 0;
+            for (int i = 0; i < lineNumbers.size(); i++) {
+                BatchTransactionResult result = failures.get(i);
+                if (result == null) {
+                    result = scored != null ? scored.get(next++)
+                            : BatchTransactionResult.failure(lineNumbers.get(i), batchError);
+                    result.setIndex(lineNumbers.get(i));
+                    if (result.getError() == null) {
+                        created++;
+                    }
+                }
+                writer.write(result);
+            }
+            writer.flush();
+
+            lineNumbers.clear();
+            requests.clear();
+            failures.clear();
+            return created;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionCursor;
+import com.example.fraud_detection.dto.TransactionPage;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.TransactionQueryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class TransactionQueryServiceImpl implements TransactionQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionQueryServiceImpl.class);
+
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${fraud.detection.listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${fraud.detection.listing.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Override
+    public TransactionPage findPage(FraudStatus status, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        // Fetch one extra row to learn whether another page follows
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<Transaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = status == null
+                    ? transactionRepository.findFirstPage(fetchLimit)
+                    : transactionRepository.findFirstPageByStatus(status, fetchLimit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            rows = status == null
+                    ? transactionRepository.findPageBefore(position.getTransactionTime(), position.getId(), fetchLimit)
+                    : transactionRepository.findPageByStatusBefore(status, position.getTransactionTime(),
+                            position.getId(), fetchLimit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, pageSize);
+        return new TransactionPage(items, TransactionCursor.after(items.get(pageSize - 1)).encode());
+    }
+
+    @Override
+    public void exportTransactions(FraudStatus status, OutputStream outputStream) throws IOException {
+        long exported = 0;
+        try (Stream<Transaction> transactions = status == null
+                     ? transactionRepository.streamAllForExport()
+                     : transactionRepository.streamByStatusForExport(status);
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                writer.write(transaction);
+                // Keep the persistence context from accumulating every exported row
+                entityManager.detach(transaction);
+                if (++exported % EXPORT_FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                    entityManager.clear();
+                }
+            }
+            if (exported > 0) {
+                outputStream.write('\n');
+            }
+        }
+        logger.info("Exported {} transactions", exported);
+    }
+}
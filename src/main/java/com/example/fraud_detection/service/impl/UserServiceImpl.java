@@ -2,6 +2,7 @@ package com.example.fraud_detection.service.impl;
 
 import com.example.fraud_detection.model.User;
 import com.example.fraud_detection.repository.UserRepository;
+import com.example.fraud_detection.service.UserLookupService;
 import com.example.fraud_detection.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +22,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserLookupService userLookupService;
+
     @Override
     @Transactional(readOnly = true)
     public List<User> getAllUsers() {
@@ -78,6 +82,7 @@ public class UserServiceImpl implements UserService {
         }
         
         User savedUser = userRepository.save(user);
+        userLookupService.invalidate(savedUser.getId());
         logger.info("Updated user: {}", savedUser.getId());
         
         return savedUser;
@@ -93,6 +98,7 @@ public class UserServiceImpl implements UserService {
         }
         
         userRepository.deleteById(id);
+        userLookupService.invalidate(id);
         logger.info("Deleted user: {}", id);
     }
 
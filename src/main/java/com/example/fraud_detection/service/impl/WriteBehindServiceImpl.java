@@ -0,0 +1,286 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.VelocityService;
+import com.example.fraud_detection.service.WriteBehindService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers scored transactions and inserts them in group commits from a single writer thread.
+ *
+ * The writer waits at most one flush interval after the first queued transaction, so under
+ * load each commit carries many inserts while a lone request is delayed by a few
+ * milliseconds. A failed batch is retried row by row so one bad transaction does not fail
+ * the others; rows that still fail are dropped from the activity windows. With ENQUEUE
+ * acknowledgement a transaction is acknowledged before it is durable and without an id, and
+ * is lost if the process dies before its batch commits. Stopping commits what is buffered;
+ * if the writer is interrupted or does not finish in time, every write still buffered fails.
+ */
+@Service
+public class WriteBehindServiceImpl implements WriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindServiceImpl.class);
+
+    public enum Acknowledgement {
+        /** Answer once the transaction's batch has committed */
+        FLUSH,
+        /** Answer as soon as the transaction is buffered */
+        ENQUEUE
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private VelocityService velocityService;
+
+    @Autowired
+    private IpActivityService ipActivityService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.write-behind.acknowledgement:FLUSH}")
+    private Acknowledgement acknowledgement;
+
+    @Value("${fraud.detection.write-behind.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${fraud.detection.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${fraud.detection.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${fraud.detection.write-behind.flush-timeout-ms:5000}")
+    private long flushTimeoutMs;
+
+    private BlockingQueue<PendingWrite> queue;
+    private Thread writer;
+    private volatile boolean running;
+    // Held shared while checking running and queueing, so no write is queued after stop
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+
+    private DistributionSummary batchSizeSummary;
+    private Timer commitTimer;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("fraud.writebehind.queue.depth", queue, BlockingQueue::size)
+                .description("Scored transactions waiting to be committed")
+                .register(meterRegistry);
+        batchSizeSummary = meterRegistry.summary("fraud.writebehind.batch.size");
+        commitTimer = meterRegistry.timer("fraud.writebehind.commit");
+        rejectedCounter = meterRegistry.counter("fraud.writebehind.rejected");
+        failedCounter = meterRegistry.counter("fraud.writebehind.failed");
+
+        running = true;
+        writer = new Thread(this::writeLoop, "fraud-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+
+        logger.info("Write-behind enabled - acknowledgement {}, flush interval {} ms, batches of up to {}",
+                   acknowledgement, flushIntervalMs, maxBatchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // The writer drains what is already buffered before it exits
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (writer.isAlive()) {
+            logger.warn("Stopped with {} scored transactions not committed", queue.size());
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        failQueued(new IllegalStateException("Write-behind stopped before the transaction was committed"));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Transaction write(Transaction transaction) {
+        PendingWrite pending = new PendingWrite(transaction);
+        runningLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Write-behind is not running");
+            }
+            if (!queue.offer(pending)) {
+                rejectedCounter.increment();
+                throw new RejectedExecutionException("Write-behind buffer is full");
+            }
+        } finally {
+            runningLock.readLock().unlock();
+        }
+        if (acknowledgement == Acknowledgement.ENQUEUE) {
+            return transaction;
+        }
+        try {
+            return pending.result.get(flushTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new IllegalStateException("Write-behind failed", e.getCause());
+        } catch (TimeoutException e) {
+            // Still buffered, so it may yet commit; the caller only stops waiting for it
+            throw new IllegalStateException("Write-behind did not commit the transaction within "
+                    + flushTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind commit", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Nothing commits after an interrupt; fail the batch and everything still buffered
+                Thread.currentThread().interrupt();
+                fail(batch, e);
+                failQueued(e);
+                return;
+            } catch (RuntimeException e) {
+                // commit() settles every write itself; this only keeps the writer alive
+                logger.error("Write-behind writer error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            transactions.add(pending.transaction);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionRepository.saveAll(transactions);
+                transactionRepository.flush();
+            });
+            commitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            for (PendingWrite pending : batch) {
+                pending.result.complete(pending.transaction);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} transactions failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingWrite pending : batch) {
+                commitOne(pending);
+            }
+        }
+    }
+
+    private void commitOne(PendingWrite pending) {
+        // The failed batch may have assigned an id before rolling back
+        pending.transaction.setId(null);
+        try {
+            Transaction saved = transactionTemplate.execute(status -> transactionRepository.saveAndFlush(pending.transaction));
+            pending.result.complete(saved);
+        } catch (RuntimeException e) {
+            fail(List.of(pending), e);
+        }
+    }
+
+    private void failQueued(Exception cause) {
+        List<PendingWrite> queued = new ArrayList<>(queue.size());
+        queue.drainTo(queued);
+        fail(queued, cause);
+    }
+
+    private void fail(List<PendingWrite> writes, Exception cause) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        for (PendingWrite pending : writes) {
+            failedCounter.increment();
+            velocityService.discardTransaction(pending.transaction);
+            ipActivityService.discardTransaction(pending.transaction);
+            pending.result.completeExceptionally(cause);
+        }
+        logger.error("Dropped {} scored transactions that could not be committed: {}", writes.size(), cause.getMessage());
+    }
+
+    private static final class PendingWrite {
+
+        private final Transaction transaction;
+        private final CompletableFuture<Transaction> result = new CompletableFuture<>();
+
+        PendingWrite(Transaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
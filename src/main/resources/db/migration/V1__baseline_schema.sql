@@ -0,0 +1,71 @@
+-- Schema as Hibernate generated it before migrations took over
+
+CREATE TABLE users (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username     VARCHAR(255) NOT NULL UNIQUE,
+    email        VARCHAR(255) NOT NULL UNIQUE,
+    full_name    VARCHAR(255) NOT NULL,
+    phone_number VARCHAR(255),
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    is_active    BOOLEAN
+);
+
+CREATE SEQUENCE transactions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE transactions (
+    id                 BIGINT NOT NULL PRIMARY KEY,
+    user_id            BIGINT NOT NULL REFERENCES users (id),
+    amount             NUMERIC(19, 2) NOT NULL,
+    transaction_type   VARCHAR(255) NOT NULL,
+    merchant_name      VARCHAR(255),
+    merchant_category  VARCHAR(255),
+    location           VARCHAR(255),
+    transaction_time   TIMESTAMP(6) NOT NULL,
+    created_at         TIMESTAMP(6),
+    fraud_status       VARCHAR(255),
+    fraud_score        DOUBLE PRECISION,
+    fraud_reason       VARCHAR(500),
+    card_number_masked VARCHAR(255),
+    ip_address         VARCHAR(255),
+    rule_set_version   BIGINT
+);
+
+CREATE TABLE fraud_rules (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rule_name            VARCHAR(255) NOT NULL UNIQUE,
+    description          VARCHAR(500),
+    rule_type            VARCHAR(255) NOT NULL,
+    threshold_amount     NUMERIC(19, 2),
+    time_window_minutes  INTEGER,
+    max_occurrences      INTEGER,
+    max_distinct_users   INTEGER,
+    max_distinct_cards   INTEGER,
+    merchant_category    VARCHAR(255),
+    location_restriction VARCHAR(255),
+    ip_ranges            VARCHAR(4000),
+    ip_range_file        VARCHAR(255),
+    risk_score           DOUBLE PRECISION NOT NULL,
+    is_active            BOOLEAN NOT NULL,
+    created_at           TIMESTAMP(6),
+    updated_at           TIMESTAMP(6)
+);
+
+CREATE TABLE reanalysis_jobs (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    state            VARCHAR(255) NOT NULL,
+    status_filter    VARCHAR(255),
+    range_start      TIMESTAMP(6) NOT NULL,
+    range_end        TIMESTAMP(6) NOT NULL,
+    checkpoint_time  TIMESTAMP(6),
+    checkpoint_id    BIGINT,
+    total            BIGINT NOT NULL,
+    processed        BIGINT NOT NULL,
+    changed          BIGINT NOT NULL,
+    active_millis    BIGINT NOT NULL,
+    rule_set_version BIGINT,
+    error            VARCHAR(500),
+    created_at       TIMESTAMP(6),
+    updated_at       TIMESTAMP(6),
+    finished_at      TIMESTAMP(6)
+);
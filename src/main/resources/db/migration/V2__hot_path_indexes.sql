@@ -0,0 +1,17 @@
+-- Indexes behind the scoring, dashboard and replay queries; TransactionQueryPlanTests
+-- fails if one of those queries stops using them
+
+-- Per-user history: velocity lookups, user transaction lists
+CREATE INDEX idx_transactions_user_time ON transactions (user_id, transaction_time);
+
+-- Status filters, counts and keyset pages by status, newest first
+CREATE INDEX idx_transactions_status_time ON transactions (fraud_status, transaction_time, id);
+
+-- IP history since a point in time
+CREATE INDEX idx_transactions_ip_time ON transactions (ip_address, transaction_time);
+
+-- Reports by transaction type over a time range
+CREATE INDEX idx_transactions_type_time ON transactions (transaction_type, transaction_time);
+
+-- Keyset pages, exports, replay chunks and window warm-up in either time direction
+CREATE INDEX idx_transactions_time_id ON transactions (transaction_time, id);
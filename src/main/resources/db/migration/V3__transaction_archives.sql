@@ -0,0 +1,13 @@
+-- Catalogue of the monthly buckets moved out of the transactions table into archive files;
+-- a bucket that received rows after it was archived gets one more part
+CREATE TABLE transaction_archives (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    bucket_end   TIMESTAMP(6) NOT NULL,
+    file_name    VARCHAR(255) NOT NULL UNIQUE,
+    row_count    BIGINT NOT NULL,
+    byte_size    BIGINT NOT NULL,
+    created_at   TIMESTAMP(6)
+);
+
+CREATE INDEX idx_transaction_archives_bucket ON transaction_archives (bucket_start, bucket_end);
@@ -3,7 +3,10 @@ package com.example.fraud_detection;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"fraud.detection.journal.enabled=false",
+		"fraud.detection.archive.enabled=false"
+})
 class FraudDetectionApplicationTests {
 
 	@Test
@@ -0,0 +1,76 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecisionJournalTests {
+
+	private static final int RECORDS_PER_SEGMENT = 8;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsBackWhatWasAppended() throws IOException {
+		DecisionTrace trace = new DecisionTrace();
+		trace.hitCheck(DecisionTrace.AMOUNT_CHECK);
+		trace.hitRule(3);
+		trace.hitRule(70);
+		trace.skipCheck(DecisionTrace.TIME_CHECK);
+		trace.skipRulesFrom(90);
+
+		try (DecisionJournal journal = new DecisionJournal(directory, RECORDS_PER_SEGMENT, 4)) {
+			assertThat(journal.append(11L, 7L, 1_000L, 42L, 87.5, FraudStatus.FRAUDULENT.ordinal(), trace)).isTrue();
+			assertThat(journal.append(12L, 8L, 2_000L, 42L, 0.0, FraudStatus.LEGITIMATE.ordinal(), new DecisionTrace())).isTrue();
+		}
+
+		List<DecisionRecord> records = readAll();
+		assertThat(records).hasSize(2);
+		DecisionRecord first = records.get(0);
+		assertThat(first.getSequence()).isZero();
+		assertThat(first.getTransactionId()).isEqualTo(11L);
+		assertThat(first.getUserId()).isEqualTo(7L);
+		assertThat(first.getTimestamp().toEpochMilli()).isEqualTo(1_000L);
+		assertThat(first.getRuleSetVersion()).isEqualTo(42L);
+		assertThat(first.getScore()).isEqualTo(87.5);
+		assertThat(first.getStatus()).isEqualTo(FraudStatus.FRAUDULENT);
+		assertThat(first.getChecks()).isEqualTo(DecisionTrace.AMOUNT_CHECK);
+		assertThat(first.getHitRulePositions()).containsExactly(3, 70);
+		assertThat(first.isStoppedEarly()).isTrue();
+		assertThat(first.getSkippedChecks()).isEqualTo(DecisionTrace.TIME_CHECK);
+		assertThat(first.getFirstSkippedRule()).isEqualTo(90);
+		assertThat(records.get(1).getTransactionId()).isEqualTo(12L);
+		assertThat(records.get(1).getHitRulePositions()).isEmpty();
+		assertThat(records.get(1).isStoppedEarly()).isFalse();
+	}
+
+	@Test
+	void reopeningContinuesAfterWrittenSegmentsAndAppliesRetention() throws IOException {
+		int retained = 2;
+		for (long run = 0; run < 6; run++) {
+			try (DecisionJournal journal = new DecisionJournal(directory, RECORDS_PER_SEGMENT, retained)) {
+				// Each run writes into the segment the previous one mapped ahead and left unwritten
+				assertThat(journal.getNextSequence()).isEqualTo(run * RECORDS_PER_SEGMENT);
+				journal.append(run, 1L, run, 1L, 0.0, FraudStatus.LEGITIMATE.ordinal(), new DecisionTrace());
+			}
+			// The written segments within the retention, plus the one mapped ahead
+			assertThat(DecisionJournalReader.segments(directory)).hasSizeLessThanOrEqualTo(retained + 1);
+		}
+
+		assertThat(readAll()).extracting(DecisionRecord::getTransactionId).containsExactly(4L, 5L);
+	}
+
+	private List<DecisionRecord> readAll() throws IOException {
+		List<DecisionRecord> records = new ArrayList<>();
+		DecisionJournalReader.read(directory, records::add);
+		return records;
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.fraud_detection.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IpActivityWindowTests {
+
+	private static final long MINUTE = 28_000_000L;
+
+	@Test
+	void countsTransactionsUsersAndCardsInsideTheWindow() {
+		IpActivityWindow window = new IpActivityWindow(16);
+		window.add(MINUTE, 1L, IpActivityWindow.cardKey("****1111"));
+		window.add(MINUTE + 1, 1L, IpActivityWindow.cardKey("****2222"));
+		window.add(MINUTE + 2, 2L, IpActivityWindow.cardKey("****2222"));
+		window.add(MINUTE + 3, 3L, IpActivityWindow.NO_CARD);
+
+		IpActivityWindow.Counts counts = window.count(MINUTE, MINUTE + 3);
+		assertThat(counts.getTransactions()).isEqualTo(4);
+		assertThat(counts.getDistinctUsers()).isEqualTo(3);
+		assertThat(counts.getDistinctCards()).isEqualTo(2);
+		assertThat(window.count(MINUTE + 1, MINUTE + 2).getDistinctUsers()).isEqualTo(2);
+		assertThat(window.count(MINUTE + 4, MINUTE + 9).getTransactions()).isZero();
+		assertThat(window.getLatestMinute()).isEqualTo(MINUTE + 3);
+	}
+
+	@Test
+	void limitsOfZeroAreIgnored() {
+		IpActivityWindow window = new IpActivityWindow(16);
+		window.add(MINUTE, 1L, IpActivityWindow.cardKey("****1111"));
+		window.add(MINUTE, 2L, IpActivityWindow.cardKey("****1111"));
+
+		assertThat(window.reaches(MINUTE, MINUTE, 0, 0, 0)).isFalse();
+		assertThat(window.reaches(MINUTE, MINUTE, 2, 0, 0)).isTrue();
+		assertThat(window.reaches(MINUTE, MINUTE, 0, 2, 0)).isTrue();
+		assertThat(window.reaches(MINUTE, MINUTE, 0, 3, 2)).isFalse();
+	}
+
+	@Test
+	void removeForgetsOneMatchingEntry() {
+		IpActivityWindow window = new IpActivityWindow(16);
+		window.add(MINUTE, 1L, IpActivityWindow.NO_CARD);
+		window.add(MINUTE, 1L, IpActivityWindow.NO_CARD);
+		window.remove(MINUTE, 1L, IpActivityWindow.NO_CARD);
+		window.remove(MINUTE, 2L, IpActivityWindow.NO_CARD);
+
+		assertThat(window.count(MINUTE, MINUTE).getTransactions()).isEqualTo(1);
+	}
+
+	@Test
+	void agreesWithTheMostRecentEntriesWhenFull() {
+		int capacity = 8;
+		Random random = new Random(5);
+		IpActivityWindow window = new IpActivityWindow(capacity);
+		List<long[]> entries = new ArrayList<>();
+
+		for (int run = 0; run < 1_000; run++) {
+			long[] entry = {MINUTE + random.nextInt(20), random.nextInt(5), random.nextInt(4)};
+			window.add(entry[0], entry[1], (int) entry[2]);
+			entries.add(entry);
+
+			long from = MINUTE + random.nextInt(20);
+			long to = from + random.nextInt(10);
+			long transactions = 0;
+			Set<Long> users = new HashSet<>();
+			Set<Long> cards = new HashSet<>();
+			for (long[] held : entries.subList(Math.max(0, entries.size() - capacity), entries.size())) {
+				if (held[0] >= from && held[0] <= to) {
+					transactions++;
+					users.add(held[1]);
+					if (held[2] != IpActivityWindow.NO_CARD) {
+						cards.add(held[2]);
+					}
+				}
+			}
+			IpActivityWindow.Counts counts = window.count(from, to);
+			assertThat(counts.getTransactions()).isEqualTo(transactions);
+			assertThat(counts.getDistinctUsers()).isEqualTo(users.size());
+			assertThat(counts.getDistinctCards()).isEqualTo(cards.size());
+			assertThat(window.reaches(from, to, 0, users.size(), 0)).isEqualTo(!users.isEmpty());
+			assertThat(window.reaches(from, to, 0, users.size() + 1, cards.size() + 1)).isFalse();
+		}
+	}
+
+	@Test
+	void normalizesAddressesAndCardKeys() {
+		assertThat(IpActivityWindow.normalizeAddress(" 2001:DB8::1 ")).isEqualTo("2001:db8::1");
+		assertThat(IpActivityWindow.normalizeAddress("  ")).isNull();
+		assertThat(IpActivityWindow.normalizeAddress(null)).isNull();
+		assertThat(IpActivityWindow.cardKey(null)).isEqualTo(IpActivityWindow.NO_CARD);
+		assertThat(IpActivityWindow.cardKey("")).isEqualTo(IpActivityWindow.NO_CARD);
+		assertThat(IpActivityWindow.cardKey("****1111")).isNotEqualTo(IpActivityWindow.NO_CARD);
+		assertThatThrownBy(() -> new IpActivityWindow(0)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
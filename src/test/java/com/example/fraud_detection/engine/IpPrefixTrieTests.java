@@ -0,0 +1,106 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The trie against checking every range of every rule with {@link IpPrefix#contains}.
+ */
+class IpPrefixTrieTests {
+
+	@Test
+	void reportsEveryContainingRangeNotOnlyTheLongest() {
+		RuleSnapshot snapshot = snapshot("10.0.0.0/8", "10.1.0.0/16", "10.1.2.3", "192.168.0.0/16 172.16.0.0/12");
+
+		assertThat(matchedIds(snapshot, "10.1.2.3")).containsExactlyInAnyOrder(1L, 2L, 3L);
+		assertThat(matchedIds(snapshot, "10.1.9.9")).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(matchedIds(snapshot, "10.200.0.1")).containsExactly(1L);
+		assertThat(matchedIds(snapshot, "172.31.255.255")).containsExactly(4L);
+		assertThat(matchedIds(snapshot, "172.32.0.0")).isEmpty();
+		assertThat(matchedIds(snapshot, "11.0.0.0")).isEmpty();
+		assertThat(snapshot.getIpPrefixTrie().getPrefixCount()).isEqualTo(5);
+	}
+
+	@Test
+	void servesBothFamiliesFromOneTrie() {
+		RuleSnapshot snapshot = snapshot("2001:db8::/32", "0.0.0.0/0", "::/0", "10.0.0.0/8");
+
+		assertThat(matchedIds(snapshot, "2001:db8:1::1")).containsExactlyInAnyOrder(1L, 3L);
+		assertThat(matchedIds(snapshot, "2001:db9::1")).containsExactly(3L);
+		// IPv4 sits in ::ffff:0:0/96, so the IPv4 default route covers no other IPv6 address
+		assertThat(matchedIds(snapshot, "10.0.0.1")).containsExactlyInAnyOrder(2L, 3L, 4L);
+		assertThat(matchedIds(snapshot, "::ffff:10.0.0.1")).containsExactlyInAnyOrder(2L, 3L, 4L);
+	}
+
+	@Test
+	void skipsInvalidEntriesAndRulesWithoutValidRanges() {
+		RuleSnapshot snapshot = snapshot("10.0.0.0/33 10.0.0.0/8 not-an-address", "300.1.1.1");
+
+		assertThat(snapshot.getRules()).hasSize(1);
+		assertThat(snapshot.getRejectedRuleCount()).isEqualTo(1);
+		assertThat(matchedIds(snapshot, "10.9.9.9")).containsExactly(1L);
+	}
+
+	@Test
+	void agreesWithContainsOnRandomRanges() {
+		Random random = new Random(11);
+		String[] ranges = new String[60];
+		for (int i = 0; i < ranges.length; i++) {
+			ranges[i] = randomAddress(random) + "/" + (random.nextInt(25) + 8);
+		}
+		RuleSnapshot snapshot = snapshot(ranges);
+
+		for (int run = 0; run < 5_000; run++) {
+			String address = randomAddress(random);
+			IpPrefix parsed = IpPrefix.parseAddress(address);
+			List<Long> expected = new ArrayList<>();
+			for (int i = 0; i < ranges.length; i++) {
+				if (IpPrefix.parse(ranges[i]).contains(parsed)) {
+					expected.add(i + 1L);
+				}
+			}
+			assertThat(matchedIds(snapshot, address)).as(address).containsExactlyInAnyOrderElementsOf(expected);
+		}
+	}
+
+	/**
+	 * @return An address in a small space, so random ranges overlap and nest
+	 */
+	private static String randomAddress(Random random) {
+		return "10." + random.nextInt(4) + "." + random.nextInt(4) * 64 + "." + random.nextInt(256);
+	}
+
+	private static List<Long> matchedIds(RuleSnapshot snapshot, String address) {
+		long[] key = new long[2];
+		assertThat(IpPrefix.parseAddress(address, key, new int[8])).isTrue();
+		RuleMatches matches = new RuleMatches();
+		matches.reset(snapshot.getRules().size());
+		snapshot.getIpPrefixTrie().match(key[0], key[1], matches);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < matches.size(); i++) {
+			ids.add(snapshot.getRules().get(matches.get(i)).getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * @return A snapshot of IP rules with ids 1, 2, ... in the order of their range lists
+	 */
+	private static RuleSnapshot snapshot(String... ranges) {
+		List<FraudRule> rules = new ArrayList<>();
+		for (int i = 0; i < ranges.length; i++) {
+			FraudRule rule = new FraudRule("ip " + i, RuleType.IP_BASED, 10.0);
+			rule.setId(i + 1L);
+			rule.setIpRanges(ranges[i]);
+			rules.add(rule);
+		}
+		return RuleSnapshot.compile(1L, rules);
+	}
+}
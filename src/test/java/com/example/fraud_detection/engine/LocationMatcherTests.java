@@ -0,0 +1,102 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The automaton against the per-rule {@code location.toLowerCase().contains(restriction)} it replaced.
+ */
+class LocationMatcherTests {
+
+	@Test
+	void findsEveryOverlappingRestriction() {
+		RuleSnapshot snapshot = snapshot("he", "she", "his", "hers", "usher");
+
+		assertThat(matchedIds(snapshot, "ushers")).containsExactlyInAnyOrder(1L, 2L, 4L, 5L);
+		assertThat(matchedIds(snapshot, "this")).containsExactly(3L);
+		assertThat(matchedIds(snapshot, "xyz")).isEmpty();
+		assertThat(snapshot.getLocationMatcher().getPatternCount()).isEqualTo(5);
+	}
+
+	@Test
+	void foldsCaseOfAsciiAndNonAsciiLocations() {
+		RuleSnapshot snapshot = snapshot("Lagos", "ÅLAND", "new york");
+
+		assertThat(matchedIds(snapshot, "LAGOS, NG")).containsExactly(1L);
+		assertThat(matchedIds(snapshot, "Mariehamn, Åland")).containsExactly(2L);
+		assertThat(matchedIds(snapshot, "NEW YORK")).containsExactly(3L);
+		assertThat(matchedIds(snapshot, "newyork")).isEmpty();
+	}
+
+	@Test
+	void sharedAndEmptyRestrictions() {
+		RuleSnapshot snapshot = snapshot("paris", "PARIS", "");
+
+		// An empty restriction matches any location, but not a missing one
+		assertThat(matchedIds(snapshot, "Paris, FR")).containsExactlyInAnyOrder(1L, 2L, 3L);
+		assertThat(matchedIds(snapshot, "Berlin")).containsExactly(3L);
+		assertThat(matchedIds(snapshot, null)).isEmpty();
+		assertThat(snapshot.getLocationMatcher().getPatternCount()).isEqualTo(1);
+	}
+
+	@Test
+	void agreesWithContainsOnRandomText() {
+		Random random = new Random(7);
+		String[] restrictions = new String[40];
+		for (int i = 0; i < restrictions.length; i++) {
+			restrictions[i] = randomText(random, 1 + random.nextInt(4));
+		}
+		RuleSnapshot snapshot = snapshot(restrictions);
+
+		for (int run = 0; run < 2_000; run++) {
+			String location = randomText(random, random.nextInt(12));
+			List<Long> expected = new ArrayList<>();
+			for (int i = 0; i < restrictions.length; i++) {
+				if (location.toLowerCase().contains(restrictions[i].toLowerCase())) {
+					expected.add(i + 1L);
+				}
+			}
+			assertThat(matchedIds(snapshot, location)).as(location).containsExactlyInAnyOrderElementsOf(expected);
+		}
+	}
+
+	private static String randomText(Random random, int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append("abcAB".charAt(random.nextInt(5)));
+		}
+		return text.toString();
+	}
+
+	private static List<Long> matchedIds(RuleSnapshot snapshot, String location) {
+		RuleMatches matches = new RuleMatches();
+		matches.reset(snapshot.getRules().size());
+		snapshot.getLocationMatcher().match(location, matches);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < matches.size(); i++) {
+			ids.add(snapshot.getRules().get(matches.get(i)).getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * @return A snapshot of location rules with ids 1, 2, ... in the order of the restrictions
+	 */
+	private static RuleSnapshot snapshot(String... restrictions) {
+		List<FraudRule> rules = new ArrayList<>();
+		for (int i = 0; i < restrictions.length; i++) {
+			FraudRule rule = new FraudRule("location " + i, RuleType.LOCATION_BASED, 10.0);
+			rule.setId(i + 1L);
+			rule.setLocationRestriction(restrictions[i]);
+			rules.add(rule);
+		}
+		return RuleSnapshot.compile(1L, rules);
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The index against matching every category rule with {@link String#equalsIgnoreCase}.
+ */
+class MerchantCategoryIndexTests {
+
+	@Test
+	void groupsRulesWhoseCategoriesDifferOnlyInCase() {
+		RuleSnapshot snapshot = snapshot(new String[] {"gambling", "GAMBLING", "crypto"}, 30.0, 15.0, 40.0);
+		MerchantCategoryIndex index = snapshot.getMerchantCategoryIndex();
+
+		MerchantCategoryIndex.Match match = index.find("Gambling");
+		assertThat(match.getRules()).extracting(CompiledRule::getId).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(match.getCombinedScore()).isEqualTo(45.0);
+		for (int position : match.getRuleIndexes()) {
+			assertThat(match.getRules()).contains(snapshot.getRules().get(position));
+		}
+		assertThat(index.find("crypto").getRules()).extracting(CompiledRule::getId).containsExactly(3L);
+		assertThat(index.getCategoryCount()).isEqualTo(2);
+	}
+
+	@Test
+	void missesUnknownAndMissingCategories() {
+		MerchantCategoryIndex index = snapshot(new String[] {"gambling"}, 30.0).getMerchantCategoryIndex();
+
+		assertThat(index.find("gamblin")).isNull();
+		assertThat(index.find("gambling ")).isNull();
+		assertThat(index.find(null)).isNull();
+		assertThat(snapshot(new String[0]).getMerchantCategoryIndex().find("gambling")).isNull();
+	}
+
+	@Test
+	void foldsCaseBeyondAscii() {
+		MerchantCategoryIndex index = snapshot(new String[] {"épicerie", "straße"}, 10.0, 20.0).getMerchantCategoryIndex();
+
+		assertThat(index.find("ÉPICERIE").getCombinedScore()).isEqualTo(10.0);
+		assertThat(index.find("STRAßE").getCombinedScore()).isEqualTo(20.0);
+		// equalsIgnoreCase compares character by character, so ß never equals SS
+		assertThat(index.find("STRASSE")).isNull();
+	}
+
+	@Test
+	void findsEveryCategoryOfALargeIndex() {
+		String[] categories = new String[500];
+		for (int i = 0; i < categories.length; i++) {
+			categories[i] = "category-" + i;
+		}
+		MerchantCategoryIndex index = snapshot(categories).getMerchantCategoryIndex();
+
+		for (int i = 0; i < categories.length; i++) {
+			assertThat(index.find("CATEGORY-" + i).getRules()).extracting(CompiledRule::getId).containsExactly(i + 1L);
+		}
+		assertThat(index.find("category-500")).isNull();
+	}
+
+	/**
+	 * @return A snapshot of category rules with ids 1, 2, ..., scored 10 unless given
+	 */
+	private static RuleSnapshot snapshot(String[] categories, double... scores) {
+		List<FraudRule> rules = new ArrayList<>();
+		for (int i = 0; i < categories.length; i++) {
+			FraudRule rule = new FraudRule("category " + i, RuleType.MERCHANT_CATEGORY, i < scores.length ? scores[i] : 10.0);
+			rule.setId(i + 1L);
+			rule.setMerchantCategory(categories[i]);
+			rules.add(rule);
+		}
+		return RuleSnapshot.compile(1L, rules);
+	}
+}
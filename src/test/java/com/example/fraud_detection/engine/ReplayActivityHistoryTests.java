@@ -0,0 +1,91 @@
+package com.example.fraud_detection.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplayActivityHistoryTests {
+
+	private static final long MINUTE = 28_000_000L;
+	private static final Long USER = 1L;
+
+	@Test
+	void asOfSeesTheTransactionsBeforeItAndItselfOnly() {
+		ReplayActivityHistory history = new ReplayActivityHistory(60, 16);
+		long first = history.record(USER, MINUTE, 1_000, null, null);
+		long second = history.record(USER, MINUTE, 2_000, null, null);
+		long third = history.record(USER, MINUTE + 1, 4_000, null, null);
+
+		assertThat(history.asOf(first).countUserTransactions(USER, MINUTE - 60, MINUTE)).isEqualTo(1);
+		assertThat(history.asOf(second).countUserTransactions(USER, MINUTE - 60, MINUTE)).isEqualTo(2);
+		assertThat(history.asOf(second).countUserTransactions(USER, MINUTE - 60, MINUTE + 1)).isEqualTo(2);
+		assertThat(history.asOf(third).countUserTransactions(USER, MINUTE - 60, MINUTE + 1)).isEqualTo(3);
+		assertThat(history.asOf(first).sumUserAmountCents(USER, MINUTE - 60, MINUTE)).isEqualTo(1_000);
+		assertThat(history.asOf(third).sumUserAmountCents(USER, MINUTE + 1, MINUTE + 1)).isEqualTo(4_000);
+
+		assertThat(history.countUserTransactions(USER, MINUTE - 60, MINUTE + 1)).isEqualTo(3);
+		assertThat(history.sumUserAmountCents(USER, MINUTE - 60, MINUTE + 1)).isEqualTo(7_000);
+		assertThat(history.countUserTransactions(2L, MINUTE - 60, MINUTE + 1)).isZero();
+	}
+
+	@Test
+	void windowsAreClampedToTheHorizonAndPrunedBehindIt() {
+		ReplayActivityHistory history = new ReplayActivityHistory(10, 16);
+		history.record(USER, MINUTE, 100, "10.0.0.1", "****1");
+		history.record(USER, MINUTE + 5, 200, "10.0.0.1", "****2");
+		long last = history.record(USER, MINUTE + 20, 400, "10.0.0.1", "****3");
+
+		// A window longer than the horizon only reaches back one horizon
+		assertThat(history.countUserTransactions(USER, MINUTE - 100, MINUTE + 12)).isEqualTo(1);
+		assertThat(history.asOf(last).sumUserAmountCents(USER, MINUTE, MINUTE + 20)).isEqualTo(400);
+
+		history.advanceTo(MINUTE + 20);
+		assertThat(history.countUserTransactions(USER, MINUTE, MINUTE + 20)).isEqualTo(1);
+		assertThat(history.sumUserAmountCents(USER, MINUTE + 10, MINUTE + 20)).isEqualTo(400);
+		assertThat(history.reachesIpLimits("10.0.0.1", MINUTE + 10, MINUTE + 20, 2, 0, 0)).isFalse();
+		assertThat(history.reachesIpLimits("10.0.0.1", MINUTE + 10, MINUTE + 20, 1, 0, 0)).isTrue();
+	}
+
+	@Test
+	void ipLimitsCountUsersAndCardsAsOfEachTransaction() {
+		ReplayActivityHistory history = new ReplayActivityHistory(60, 16);
+		long first = history.record(1L, MINUTE, 100, " 10.0.0.1 ", "****1");
+		history.record(1L, MINUTE, 100, "10.0.0.1", "****1");
+		long third = history.record(2L, MINUTE, 100, "10.0.0.1", "****2");
+		long fourth = history.record(3L, MINUTE, 100, "10.0.0.1", null);
+
+		assertThat(history.asOf(first).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 2, 0, 0)).isFalse();
+		assertThat(history.asOf(third).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 2, 0)).isTrue();
+		assertThat(history.asOf(third).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 3, 0)).isFalse();
+		assertThat(history.asOf(fourth).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 3, 0)).isTrue();
+		// Transactions without a card do not count as a distinct card
+		assertThat(history.asOf(fourth).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 0, 3)).isFalse();
+		assertThat(history.asOf(fourth).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 0, 2)).isTrue();
+		assertThat(history.reachesIpLimits("10.0.0.2", MINUTE - 60, MINUTE, 1, 1, 1)).isFalse();
+		assertThat(history.reachesIpLimits(null, MINUTE - 60, MINUTE, 1, 1, 1)).isFalse();
+	}
+
+	@Test
+	void ipWindowsHoldOnlyTheMostRecentTransactionsLikeLiveWindows() {
+		ReplayActivityHistory history = new ReplayActivityHistory(60, 2);
+		long first = history.record(1L, MINUTE, 100, "10.0.0.1", null);
+		long second = history.record(2L, MINUTE, 100, "10.0.0.1", null);
+		long third = history.record(3L, MINUTE, 100, "10.0.0.1", null);
+
+		assertThat(history.asOf(second).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 2, 0)).isTrue();
+		// The window saturates at its capacity, so three distinct users never show
+		assertThat(history.asOf(third).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 0, 3, 0)).isFalse();
+		assertThat(history.asOf(first).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE, 2, 0, 0)).isFalse();
+
+		history.advanceTo(MINUTE + 1);
+		long fourth = history.record(4L, MINUTE + 1, 100, "10.0.0.1", null);
+		assertThat(history.asOf(fourth).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE + 1, 3, 0, 0)).isFalse();
+		assertThat(history.asOf(fourth).reachesIpLimits("10.0.0.1", MINUTE - 60, MINUTE + 1, 2, 0, 0)).isTrue();
+	}
+
+	@Test
+	void rejectsAnEmptyHorizon() {
+		assertThatThrownBy(() -> new ReplayActivityHistory(0, 16)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
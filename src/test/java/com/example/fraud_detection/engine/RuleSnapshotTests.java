@@ -0,0 +1,86 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Evaluation order of a compiled snapshot and what its scanned rules can still take away.
+ */
+class RuleSnapshotTests {
+
+	@Test
+	void ordersIndexedThenFieldThenHistoryRulesByDescendingScore() {
+		RuleSnapshot snapshot = RuleSnapshot.compile(1L, List.of(
+				velocity("velocity low", 10.0),
+				rule("night", RuleType.TIME_BASED, 15.0),
+				category("gambling", 20.0),
+				velocity("velocity high", 35.0),
+				amount("large", 40.0),
+				rule("allowlisted night", RuleType.TIME_BASED, -25.0),
+				category("crypto", 45.0)));
+
+		assertThat(snapshot.getRules()).extracting(CompiledRule::getRuleName).containsExactly(
+				"crypto", "gambling",
+				"large", "night", "allowlisted night",
+				"velocity high", "velocity low");
+		assertThat(snapshot.getScannedRuleIndexes()).containsExactly(2, 3, 4, 5, 6);
+		assertThat(snapshot.getHistoryRuleOffset()).isEqualTo(3);
+	}
+
+	@Test
+	void sumsTheNegativeScoresOfTheScannedRulesNotYetEvaluated() {
+		RuleSnapshot snapshot = RuleSnapshot.compile(1L, List.of(
+				amount("large", 40.0),
+				rule("allowlisted night", RuleType.TIME_BASED, -25.0),
+				velocity("velocity", 30.0),
+				velocity("trusted velocity", -10.0),
+				// Indexed rules are resolved before the scan and never count here
+				category("refunds", -50.0)));
+
+		// Scanned in order: large 40, allowlisted night -25, velocity 30, trusted velocity -10
+		assertThat(snapshot.getScannedRuleIndexes()).hasSize(4);
+		assertThat(snapshot.getMinimumRemainingScore(0)).isEqualTo(-35.0);
+		assertThat(snapshot.getMinimumRemainingScore(1)).isEqualTo(-35.0);
+		assertThat(snapshot.getMinimumRemainingScore(2)).isEqualTo(-10.0);
+		assertThat(snapshot.getMinimumRemainingScore(3)).isEqualTo(-10.0);
+		assertThat(snapshot.getMinimumRemainingScore(4)).isZero();
+	}
+
+	@Test
+	void leavesNothingToTakeAwayWithoutNegativeScores() {
+		RuleSnapshot snapshot = RuleSnapshot.compile(1L, List.of(amount("large", 40.0), velocity("velocity", 30.0)));
+
+		for (int offset = 0; offset <= snapshot.getScannedRuleIndexes().length; offset++) {
+			assertThat(snapshot.getMinimumRemainingScore(offset)).isZero();
+		}
+	}
+
+	private static FraudRule rule(String name, RuleType type, double riskScore) {
+		return new FraudRule(name, type, riskScore);
+	}
+
+	private static FraudRule amount(String name, double riskScore) {
+		FraudRule rule = rule(name, RuleType.AMOUNT_THRESHOLD, riskScore);
+		rule.setThresholdAmount(new BigDecimal("5000.00"));
+		return rule;
+	}
+
+	private static FraudRule velocity(String name, double riskScore) {
+		FraudRule rule = rule(name, RuleType.VELOCITY_CHECK, riskScore);
+		rule.setTimeWindowMinutes(60);
+		rule.setMaxOccurrences(5);
+		return rule;
+	}
+
+	private static FraudRule category(String name, double riskScore) {
+		FraudRule rule = rule(name, RuleType.MERCHANT_CATEGORY, riskScore);
+		rule.setMerchantCategory(name.toUpperCase());
+		return rule;
+	}
+}
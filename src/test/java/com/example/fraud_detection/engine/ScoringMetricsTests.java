@@ -0,0 +1,57 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ScoringMetrics metrics = ScoringMetrics.create(registry, 1);
+
+	@Test
+	void metersOfRulesMissingFromANewSnapshotAreRemoved() {
+		metrics.rules(RuleSnapshot.compile(1L, List.of(rule(1L, RuleType.TIME_BASED), rule(2L, RuleType.TIME_BASED))));
+		assertThat(ruleIds()).containsExactlyInAnyOrder("1", "2");
+
+		// Rule 1 is deleted, rule 2 changes type and rule 3 is added
+		ScoringMetrics.Meters[] meters = metrics.rules(RuleSnapshot.compile(2L,
+				List.of(rule(2L, RuleType.AMOUNT_THRESHOLD), rule(3L, RuleType.TIME_BASED))));
+
+		assertThat(meters).hasSize(2);
+		assertThat(ruleIds()).containsExactlyInAnyOrder("2", "3");
+		assertThat(registry.find("fraud.scoring.rule.hits").tag("rule.id", "2").counter().getId().getTag("rule.type"))
+				.isEqualTo(RuleType.AMOUNT_THRESHOLD.name());
+		assertThat(registry.find("fraud.scoring.rule").tag("rule.id", "1").timer()).isNull();
+	}
+
+	@Test
+	void anOlderSnapshotNeitherRegistersNorReplacesMeters() {
+		RuleSnapshot newer = RuleSnapshot.compile(2L, List.of(rule(2L, RuleType.TIME_BASED)));
+		ScoringMetrics.Meters[] current = metrics.rules(newer);
+
+		metrics.rules(RuleSnapshot.compile(1L, List.of(rule(1L, RuleType.TIME_BASED))))[0].record(true, ScoringMetrics.UNTIMED);
+
+		assertThat(ruleIds()).containsExactly("2");
+		assertThat(metrics.rules(newer)).isSameAs(current);
+	}
+
+	private List<String> ruleIds() {
+		return registry.find("fraud.scoring.rule.hits").counters().stream()
+				.map(counter -> counter.getId().getTag("rule.id"))
+				.toList();
+	}
+
+	private static FraudRule rule(Long id, RuleType type) {
+		FraudRule rule = new FraudRule("rule " + id, type, 10.0);
+		rule.setId(id);
+		rule.setThresholdAmount(new BigDecimal("100.00"));
+		return rule;
+	}
+}
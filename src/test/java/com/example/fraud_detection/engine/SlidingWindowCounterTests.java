@@ -0,0 +1,118 @@
+package com.example.fraud_detection.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The counter against summing a plain list of (minute, delta) events.
+ */
+class SlidingWindowCounterTests {
+
+	private static final long MINUTE = 28_000_000L;
+
+	@Test
+	void countsInclusiveWindowsAndCarriesTotalsOverIdleMinutes() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(60);
+		counter.add(MINUTE, 1);
+		counter.add(MINUTE, 1);
+		counter.add(MINUTE + 10, 1);
+
+		assertThat(counter.count(MINUTE, MINUTE)).isEqualTo(2);
+		assertThat(counter.count(MINUTE + 1, MINUTE + 9)).isZero();
+		assertThat(counter.count(MINUTE, MINUTE + 10)).isEqualTo(3);
+		assertThat(counter.count(MINUTE + 5, MINUTE + 100)).isEqualTo(1);
+		assertThat(counter.count(MINUTE + 10, MINUTE)).isZero();
+		assertThat(counter.getLatestMinute()).isEqualTo(MINUTE + 10);
+	}
+
+	@Test
+	void clampsWindowsToTheHorizon() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(10);
+		counter.add(MINUTE, 1);
+		counter.add(MINUTE + 5, 1);
+		counter.add(MINUTE + 12, 1);
+
+		// Only minutes after latest - horizon are still held
+		assertThat(counter.count(MINUTE - 100, MINUTE + 12)).isEqualTo(2);
+		assertThat(counter.count(MINUTE + 3, MINUTE + 12)).isEqualTo(2);
+
+		// A gap longer than the horizon leaves nothing of the old minutes
+		counter.add(MINUTE + 100, 1);
+		assertThat(counter.count(MINUTE, MINUTE + 100)).isEqualTo(1);
+	}
+
+	@Test
+	void foldsLateEventsAndNegativeDeltasIntoRunningSums() {
+		SlidingWindowCounter spend = new SlidingWindowCounter(60);
+		spend.add(MINUTE + 5, 2_500);
+		spend.add(MINUTE + 1, 1_000);
+		spend.add(MINUTE - 3, 400);
+		spend.add(MINUTE + 5, -2_500);
+
+		assertThat(spend.count(MINUTE - 3, MINUTE - 3)).isEqualTo(400);
+		assertThat(spend.count(MINUTE, MINUTE + 5)).isEqualTo(1_000);
+		assertThat(spend.count(MINUTE - 60, MINUTE + 5)).isEqualTo(1_400);
+		assertThat(spend.count(MINUTE + 5, MINUTE + 5)).isZero();
+	}
+
+	@Test
+	void agreesWithAPlainEventListInsideTheHorizon() {
+		int horizon = 30;
+		Random random = new Random(3);
+		SlidingWindowCounter counter = new SlidingWindowCounter(horizon);
+		List<long[]> events = new ArrayList<>();
+		long latest = MINUTE;
+
+		for (int run = 0; run < 3_000; run++) {
+			// Mostly moving forward, sometimes late, now and then jumping past the horizon
+			long minute = switch (random.nextInt(10)) {
+				case 0 -> latest - random.nextInt(2 * horizon);
+				case 1 -> latest + horizon + random.nextInt(horizon);
+				default -> latest + random.nextInt(3);
+			};
+			long delta = random.nextInt(5) == 0 ? -random.nextInt(100) : random.nextInt(1_000);
+			counter.add(minute, delta);
+			events.add(new long[] {minute, delta});
+			latest = Math.max(latest, minute);
+
+			long from = latest - horizon + 1 + random.nextInt(horizon + 2);
+			long to = from - 1 + random.nextInt(horizon + 2);
+			long expected = 0;
+			for (long[] event : events) {
+				if (event[0] >= from && event[0] <= to) {
+					expected += event[1];
+				}
+			}
+			assertThat(counter.count(from, to)).as("[%d, %d] after %d events", from, to, run + 1).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void keepsAnsweringAfterABurstIsFoldedOutOfTheHorizon() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(20);
+		for (int minute = 0; minute < 200; minute++) {
+			counter.add(MINUTE + minute, 1);
+		}
+		assertThat(counter.count(MINUTE, MINUTE + 199)).isEqualTo(20);
+
+		// The burst leaves the horizon in one step; a late event before it counts toward no window
+		counter.add(MINUTE + 1_000, 5);
+		counter.add(MINUTE + 150, 7);
+		assertThat(counter.count(MINUTE + 980, MINUTE + 1_000)).isEqualTo(5);
+		counter.add(MINUTE + 990, 2);
+		assertThat(counter.count(MINUTE + 981, MINUTE + 995)).isEqualTo(2);
+		assertThat(counter.count(MINUTE, MINUTE + 1_000)).isEqualTo(7);
+	}
+
+	@Test
+	void rejectsAnEmptyHorizon() {
+		assertThatThrownBy(() -> new SlidingWindowCounter(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(new SlidingWindowCounter(5).getLatestMinute()).isEqualTo(Long.MIN_VALUE);
+	}
+}
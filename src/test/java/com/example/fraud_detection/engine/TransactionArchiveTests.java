@@ -0,0 +1,181 @@
+package com.example.fraud_detection.engine;
+
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionArchiveTests {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+	private static final int ROWS = 10;
+	private static final int ROW_GROUP_SIZE = 3;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsBackEveryColumnAcrossRowGroups() throws IOException {
+		Path file = directory.resolve("transactions.fta");
+		List<Transaction> written = transactions();
+		write(file, written);
+
+		TransactionArchiveReader reader = TransactionArchiveReader.open(file);
+		assertThat(reader.getRowCount()).isEqualTo(ROWS);
+		assertThat(reader.getMinTime()).isEqualTo(written.get(0).getTransactionTime());
+		assertThat(reader.getMaxTime()).isEqualTo(written.get(ROWS - 1).getTransactionTime());
+
+		List<Transaction> read = scan(reader, START, START.plusDays(1), null, null);
+		assertThat(read).hasSize(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			Transaction expected = written.get(i);
+			Transaction actual = read.get(i);
+			assertThat(actual.getId()).isEqualTo(expected.getId());
+			assertThat(actual.getUser().getId()).isEqualTo(expected.getUser().getId());
+			assertThat(actual.getAmount()).isEqualByComparingTo(expected.getAmount());
+			assertThat(actual.getTransactionType()).isEqualTo(expected.getTransactionType());
+			assertThat(actual.getMerchantName()).isEqualTo(expected.getMerchantName());
+			assertThat(actual.getMerchantCategory()).isEqualTo(expected.getMerchantCategory());
+			assertThat(actual.getLocation()).isEqualTo(expected.getLocation());
+			assertThat(actual.getTransactionTime()).isEqualTo(expected.getTransactionTime());
+			assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+			assertThat(actual.getFraudStatus()).isEqualTo(expected.getFraudStatus());
+			assertThat(actual.getFraudScore()).isEqualTo(expected.getFraudScore());
+			assertThat(actual.getFraudReason()).isEqualTo(expected.getFraudReason());
+			assertThat(actual.getCardNumberMasked()).isEqualTo(expected.getCardNumberMasked());
+			assertThat(actual.getIpAddress()).isEqualTo(expected.getIpAddress());
+			assertThat(actual.getRuleSetVersion()).isEqualTo(expected.getRuleSetVersion());
+		}
+	}
+
+	@Test
+	void filtersByTimeUserAndStatus() throws IOException {
+		Path file = directory.resolve("transactions.fta");
+		write(file, transactions());
+		TransactionArchiveReader reader = TransactionArchiveReader.open(file);
+
+		assertThat(scan(reader, START.plusMinutes(2), START.plusMinutes(7), null, null))
+				.extracting(Transaction::getId).containsExactly(102L, 103L, 104L, 105L, 106L);
+		assertThat(scan(reader, START, START.plusDays(1), 2L, null))
+				.extracting(Transaction::getId).containsExactly(102L, 105L, 108L);
+		assertThat(scan(reader, START, START.plusDays(1), null, FraudStatus.FRAUDULENT))
+				.extracting(Transaction::getId).containsExactly(101L, 105L, 109L);
+		assertThat(scan(reader, START, START.plusDays(1), 2L, FraudStatus.FRAUDULENT))
+				.extracting(Transaction::getId).containsExactly(105L);
+		assertThat(scan(reader, START.plusDays(1), START.plusDays(2), null, null)).isEmpty();
+
+		List<Transaction> firstTwo = new ArrayList<>();
+		long visited = reader.scan(START, START.plusDays(1), null, null, transaction -> {
+			firstTwo.add(transaction);
+			return firstTwo.size() < 2;
+		});
+		assertThat(visited).isEqualTo(2);
+	}
+
+	@Test
+	void digestFollowsTheArchivedIds() throws IOException {
+		Path file = directory.resolve("transactions.fta");
+		List<Transaction> written = transactions();
+		write(file, written);
+
+		long expected = TransactionArchiveReader.INITIAL_ID_DIGEST;
+		for (Transaction transaction : written) {
+			expected = TransactionArchiveReader.digestId(expected, transaction.getId());
+		}
+		assertThat(TransactionArchiveReader.open(file).digestIds()).isEqualTo(expected);
+
+		long swapped = TransactionArchiveReader.INITIAL_ID_DIGEST;
+		for (long id : new long[] {101L, 100L}) {
+			swapped = TransactionArchiveReader.digestId(swapped, id);
+		}
+		long ordered = TransactionArchiveReader.digestId(
+				TransactionArchiveReader.digestId(TransactionArchiveReader.INITIAL_ID_DIGEST, 100L), 101L);
+		assertThat(swapped).isNotEqualTo(ordered);
+	}
+
+	@Test
+	void unfinishedWriterLeavesNoFile() throws IOException {
+		Path file = directory.resolve("transactions.fta");
+		try (TransactionArchiveWriter writer = new TransactionArchiveWriter(file, ROW_GROUP_SIZE)) {
+			for (Transaction transaction : transactions()) {
+				writer.append(transaction);
+			}
+		}
+
+		try (var files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+		assertThatThrownBy(() -> TransactionArchiveReader.open(file)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void emptyArchiveHasNoRows() throws IOException {
+		Path file = directory.resolve("transactions.fta");
+		write(file, List.of());
+
+		TransactionArchiveReader reader = TransactionArchiveReader.open(file);
+		assertThat(reader.getRowCount()).isZero();
+		assertThat(scan(reader, START, START.plusDays(1), null, null)).isEmpty();
+	}
+
+	/**
+	 * A minute apart from the start; users, statuses and nullable columns cycle so each row
+	 * group holds several of each.
+	 */
+	private static List<Transaction> transactions() {
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			User user = new User();
+			user.setId((long) (i % 3));
+
+			Transaction transaction = new Transaction();
+			transaction.setId(100L + i);
+			transaction.setUser(user);
+			transaction.setAmount(new BigDecimal("12.34").add(BigDecimal.valueOf(i)));
+			transaction.setTransactionType(i % 2 == 0 ? TransactionType.PURCHASE : TransactionType.REFUND);
+			transaction.setMerchantName(i % 3 == 0 ? null : "Merchant " + (i % 2));
+			transaction.setMerchantCategory("retail");
+			transaction.setLocation(i % 4 == 0 ? "US" : "DE");
+			transaction.setTransactionTime(START.plusMinutes(i).plusNanos(i * 1_000));
+			transaction.setCreatedAt(i % 5 == 0 ? null : START.plusMinutes(i).plusSeconds(1));
+			transaction.setFraudStatus(i % 4 == 1 ? FraudStatus.FRAUDULENT : FraudStatus.LEGITIMATE);
+			transaction.setFraudScore(i % 3 == 1 ? null : i * 7.5);
+			transaction.setFraudReason(i % 4 == 1 ? "Amount threshold" : null);
+			transaction.setCardNumberMasked("****" + (1000 + i));
+			transaction.setIpAddress(i % 2 == 0 ? "10.0.0." + i : null);
+			transaction.setRuleSetVersion(i % 2 == 0 ? 42L : null);
+			transactions.add(transaction);
+		}
+		return transactions;
+	}
+
+	private static void write(Path file, List<Transaction> transactions) throws IOException {
+		try (TransactionArchiveWriter writer = new TransactionArchiveWriter(file, ROW_GROUP_SIZE)) {
+			for (Transaction transaction : transactions) {
+				writer.append(transaction);
+			}
+			assertThat(writer.getRowCount()).isEqualTo(transactions.size());
+			writer.finish();
+		}
+	}
+
+	private static List<Transaction> scan(TransactionArchiveReader reader, LocalDateTime from, LocalDateTime to,
+										  Long userId, FraudStatus status) throws IOException {
+		List<Transaction> transactions = new ArrayList<>();
+		reader.scan(from, to, userId, status, transactions::add);
+		return transactions;
+	}
+}
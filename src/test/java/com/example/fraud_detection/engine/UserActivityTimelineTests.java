@@ -0,0 +1,105 @@
+package com.example.fraud_detection.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The running-total timeline against summing a plain list of (minute, count, cents) entries.
+ */
+class UserActivityTimelineTests {
+
+	private static final long MINUTE = 28_000_000L;
+	private static final Long USER = 1L;
+
+	@Test
+	void answersInclusiveWindowsInsideTheRange() {
+		UserActivityTimeline timeline = new UserActivityTimeline();
+		timeline.begin(USER, MINUTE, MINUTE + 60);
+		timeline.add(MINUTE + 5, 1, 1_000);
+		timeline.add(MINUTE + 5, 2, 500);
+		timeline.add(MINUTE + 1, 1, 250);
+		timeline.add(MINUTE + 30, 1, 4_000);
+		timeline.add(MINUTE + 61, 1, 9_999);
+		timeline.add(MINUTE - 1, 1, 9_999);
+		timeline.complete();
+
+		assertThat(timeline.size()).isEqualTo(3);
+		assertThat(timeline.count(MINUTE, MINUTE + 60)).isEqualTo(5);
+		assertThat(timeline.count(MINUTE + 5, MINUTE + 5)).isEqualTo(3);
+		assertThat(timeline.count(MINUTE + 6, MINUTE + 29)).isZero();
+		assertThat(timeline.sumCents(MINUTE + 1, MINUTE + 30)).isEqualTo(5_750);
+		assertThat(timeline.sumCents(MINUTE + 2, MINUTE + 5)).isEqualTo(1_500);
+		assertThat(timeline.count(MINUTE + 30, MINUTE + 1)).isZero();
+	}
+
+	@Test
+	void coversOnlyCompleteWindowsOfItsUser() {
+		UserActivityTimeline timeline = new UserActivityTimeline();
+		timeline.begin(USER, MINUTE, MINUTE + 60);
+		assertThat(timeline.covers(USER, MINUTE, MINUTE + 60)).isFalse();
+		timeline.complete();
+
+		assertThat(timeline.covers(USER, MINUTE, MINUTE + 60)).isTrue();
+		assertThat(timeline.covers(USER, MINUTE + 10, MINUTE + 20)).isTrue();
+		assertThat(timeline.covers(USER, MINUTE - 1, MINUTE + 60)).isFalse();
+		assertThat(timeline.covers(2L, MINUTE, MINUTE + 60)).isFalse();
+		assertThat(timeline.covers(null, MINUTE, MINUTE + 60)).isFalse();
+		assertThatThrownBy(() -> timeline.add(MINUTE, 1, 1)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void isEmptiedForTheNextUser() {
+		UserActivityTimeline timeline = new UserActivityTimeline();
+		timeline.begin(USER, MINUTE, MINUTE + 60);
+		timeline.add(MINUTE, 4, 400);
+		timeline.complete();
+
+		timeline.begin(2L, MINUTE, MINUTE + 60);
+		timeline.add(MINUTE + 1, 1, 100);
+		timeline.complete();
+
+		assertThat(timeline.getUserId()).isEqualTo(2L);
+		assertThat(timeline.count(MINUTE, MINUTE + 60)).isEqualTo(1);
+		assertThat(timeline.sumCents(MINUTE, MINUTE + 60)).isEqualTo(100);
+	}
+
+	@Test
+	void agreesWithAPlainEntryListForAnyInsertionOrder() {
+		Random random = new Random(9);
+		UserActivityTimeline timeline = new UserActivityTimeline();
+
+		for (int run = 0; run < 200; run++) {
+			List<long[]> entries = new ArrayList<>();
+			timeline.begin(USER, MINUTE, MINUTE + 100);
+			// Enough entries to grow the arrays, mostly ascending with some out of order
+			for (int i = 0; i < 40; i++) {
+				long minute = random.nextInt(4) == 0 ? MINUTE + random.nextInt(101) : MINUTE + i * 2L + random.nextInt(3);
+				long[] entry = {minute, 1 + random.nextInt(3), random.nextInt(10_000)};
+				timeline.add(entry[0], entry[1], entry[2]);
+				entries.add(entry);
+			}
+			timeline.complete();
+
+			for (int window = 0; window < 20; window++) {
+				long from = MINUTE + random.nextInt(101);
+				long to = from + random.nextInt(40);
+				long count = 0;
+				long cents = 0;
+				for (long[] entry : entries) {
+					if (entry[0] >= from && entry[0] <= Math.min(to, MINUTE + 100)) {
+						count += entry[1];
+						cents += entry[2];
+					}
+				}
+				assertThat(timeline.count(from, to)).isEqualTo(count);
+				assertThat(timeline.sumCents(from, to)).isEqualTo(cents);
+			}
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package com.example.fraud_detection.repository;
+
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Runs EXPLAIN on the SQL Hibernate generates for each hot transaction query against a seeded
+ * database and fails if the plan reads the transactions table with a full scan.
+ *
+ * Left out: findByAmountGreaterThan, an ad hoc lookup with no index behind it, and the
+ * inherited id lookups, which always use the primary key.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-plans",
+		"fraud.detection.journal.enabled=false",
+		"fraud.detection.archive.enabled=false"
+})
+class TransactionQueryPlanTests {
+
+	private static final int USERS = 200;
+	private static final int TRANSACTIONS = 20_000;
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private RecordingStatementInspector statements;
+
+	private User user;
+
+	@BeforeEach
+	void seed() {
+		Long seeded = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class);
+		if (seeded == 0) {
+			jdbcTemplate.update("INSERT INTO users (username, email, full_name, is_active, created_at) "
+					+ "SELECT 'plan-user-' || x, 'plan-user-' || x || '@example.com', 'Plan User ' || x, TRUE, "
+					+ "CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + USERS + ")");
+			// Half a minute apart, a week in total; statuses, IPs and types spread like live traffic
+			jdbcTemplate.update("INSERT INTO transactions (id, user_id, amount, transaction_type, merchant_category, "
+					+ "location, transaction_time, created_at, fraud_status, fraud_score, card_number_masked, ip_address) "
+					+ "SELECT NEXT VALUE FOR transactions_seq, (SELECT MIN(id) FROM users) + MOD(x, " + USERS + "), "
+					+ "10 + MOD(x, 900), CASE MOD(x, 10) WHEN 0 THEN 'REFUND' WHEN 1 THEN 'TRANSFER' ELSE 'PURCHASE' END, "
+					+ "'retail', 'US', DATEADD('SECOND', x * 30, TIMESTAMP '" + Timestamp.valueOf(START) + "'), CURRENT_TIMESTAMP, "
+					+ "CASE MOD(x, 20) WHEN 0 THEN 'FRAUDULENT' WHEN 1 THEN 'SUSPICIOUS' ELSE 'LEGITIMATE' END, "
+					+ "MOD(x, 100) / 100.0, '****' || MOD(x, 1000), '10.0.' || MOD(x, 250) || '.1' "
+					+ "FROM SYSTEM_RANGE(1, " + TRANSACTIONS + ")");
+			// Selectivity statistics, as a long-running database would have them
+			jdbcTemplate.execute("ANALYZE");
+		}
+		user = userRepository.findByUsername("plan-user-1").orElseThrow();
+	}
+
+	@Test
+	void findByUser() {
+		assertNoTableScan(() -> transactionRepository.findByUser(user));
+	}
+
+	@Test
+	void findByUserAndTransactionTimeBetween() {
+		assertNoTableScan(() -> transactionRepository.findByUserAndTransactionTimeBetween(
+				user, START, START.plusDays(1)));
+	}
+
+	@Test
+	void findRecentTransactionsByUser() {
+		assertNoTableScan(() -> transactionRepository.findRecentTransactionsByUser(user, START.plusDays(6)));
+	}
+
+	@Test
+	void countTransactionsByUserInTimeWindow() {
+		assertNoTableScan(() -> transactionRepository.countTransactionsByUserInTimeWindow(
+				user, START, START.plusHours(1)));
+	}
+
+	@Test
+	void sumAmountByUserInTimeWindow() {
+		assertNoTableScan(() -> transactionRepository.sumAmountByUserInTimeWindow(user, START, START.plusHours(1)));
+	}
+
+	@Test
+	void findByUserAndFraudStatus() {
+		assertNoTableScan(() -> transactionRepository.findByUserAndFraudStatus(user, FraudStatus.FRAUDULENT));
+	}
+
+	@Test
+	void findFraudulentTransactionsByUserSince() {
+		assertNoTableScan(() -> transactionRepository.findFraudulentTransactionsByUserSince(user, START));
+	}
+
+	@Test
+	void findByFraudStatus() {
+		assertNoTableScan(() -> transactionRepository.findByFraudStatus(FraudStatus.SUSPICIOUS));
+	}
+
+	@Test
+	void countByFraudStatus() {
+		assertNoTableScan(() -> transactionRepository.countByFraudStatus(FraudStatus.FRAUDULENT));
+	}
+
+	@Test
+	void countGroupedByFraudStatus() {
+		assertNoTableScan(() -> transactionRepository.countGroupedByFraudStatus());
+	}
+
+	@Test
+	void findIdsByFraudStatus() {
+		assertNoTableScan(() -> transactionRepository.findIdsByFraudStatus(FraudStatus.FRAUDULENT));
+	}
+
+	@Test
+	void findFirstPage() {
+		assertNoTableScan(() -> transactionRepository.findFirstPage(Limit.of(50)));
+	}
+
+	@Test
+	void findPageBefore() {
+		assertNoTableScan(() -> transactionRepository.findPageBefore(START.plusDays(3), Long.MAX_VALUE, Limit.of(50)));
+	}
+
+	@Test
+	void findFirstPageByStatus() {
+		assertNoTableScan(() -> transactionRepository.findFirstPageByStatus(FraudStatus.FRAUDULENT, Limit.of(50)));
+	}
+
+	@Test
+	void findPageByStatusBefore() {
+		assertNoTableScan(() -> transactionRepository.findPageByStatusBefore(
+				FraudStatus.FRAUDULENT, START.plusDays(3), Long.MAX_VALUE, Limit.of(50)));
+	}
+
+	@Test
+	void streamAllForExport() {
+		assertNoTableScan(() -> consume(transactionRepository.streamAllForExport()));
+	}
+
+	@Test
+	void streamByStatusForExport() {
+		assertNoTableScan(() -> consume(transactionRepository.streamByStatusForExport(FraudStatus.SUSPICIOUS)));
+	}
+
+	@Test
+	void findByTransactionTypeAndTimeBetween() {
+		assertNoTableScan(() -> transactionRepository.findByTransactionTypeAndTimeBetween(
+				TransactionType.REFUND, START, START.plusDays(1)));
+	}
+
+	@Test
+	void findByIpAddressSince() {
+		assertNoTableScan(() -> transactionRepository.findByIpAddressSince("10.0.1.1", START));
+	}
+
+	@Test
+	void findUserActivityBetween() {
+		assertNoTableScan(() -> transactionRepository.findUserActivityBetween(
+				user.getId(), START, START.plusDays(1)));
+	}
+
+	@Test
+	void streamUserActivitySince() {
+		assertNoTableScan(() -> consume(transactionRepository.streamUserActivitySince(START.plusDays(6))));
+	}
+
+	@Test
+	void streamIpActivitySince() {
+		assertNoTableScan(() -> consume(transactionRepository.streamIpActivitySince(START.plusDays(6))));
+	}
+
+	@Test
+	void findReplayChunkAfter() {
+		assertNoTableScan(() -> transactionRepository.findReplayChunkAfter(
+				START.plusDays(2), START.plusDays(1), Long.MIN_VALUE, Limit.of(1000)));
+	}
+
+	@Test
+	void countInRange() {
+		assertNoTableScan(() -> transactionRepository.countInRange(START, START.plusDays(1), null));
+		assertNoTableScan(() -> transactionRepository.countInRange(START, START.plusDays(1), FraudStatus.FRAUDULENT));
+	}
+
+	@Test
+	void findOldestTransactionTime() {
+		assertNoTableScan(() -> transactionRepository.findOldestTransactionTime());
+	}
+
+	@Test
+	void streamForArchive() {
+		assertNoTableScan(() -> consume(transactionRepository.streamForArchive(START, START.plusDays(1))));
+	}
+
+	@Test
+	void lockIdsForArchive() {
+		assertNoTableScan(() -> consume(transactionRepository.lockIdsForArchive(START, START.plusDays(1))));
+	}
+
+	/**
+	 * Runs the call, then explains every query it sent to the database.
+	 */
+	private void assertNoTableScan(Runnable call) {
+		statements.clear();
+		transactionTemplate.executeWithoutResult(status -> call.run());
+		List<String> queries = statements.queries();
+		assertThat(queries).as("queries sent by the call").isNotEmpty();
+
+		for (String sql : queries) {
+			String plan = explain(sql);
+			if (plan.contains("TRANSACTIONS.tableScan")) {
+				fail("Query falls back to a table scan:%n%s%nPlan:%n%s", sql, plan);
+			}
+		}
+	}
+
+	// The optimizer picks indexes from the shape of the conditions, so unset parameters are bound as null
+	private String explain(String sql) {
+		return jdbcTemplate.query("EXPLAIN " + sql, ps -> {
+			int parameters = ps.getParameterMetaData().getParameterCount();
+			for (int i = 1; i <= parameters; i++) {
+				ps.setObject(i, null);
+			}
+		}, rs -> {
+			StringBuilder plan = new StringBuilder();
+			while (rs.next()) {
+				plan.append(rs.getString(1)).append('\n');
+			}
+			return plan.toString();
+		});
+	}
+
+	private static void consume(Stream<?> stream) {
+		try (stream) {
+			stream.limit(100).forEach(row -> { });
+		}
+	}
+
+	@TestConfiguration
+	static class QueryRecordingConfiguration {
+
+		@Bean
+		RecordingStatementInspector recordingStatementInspector() {
+			return new RecordingStatementInspector();
+		}
+
+		@Bean
+		HibernatePropertiesCustomizer statementInspectorCustomizer(RecordingStatementInspector inspector) {
+			return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+		}
+	}
+
+	/**
+	 * Keeps the queries Hibernate prepares on the test thread, in order; background services
+	 * query concurrently.
+	 */
+	static class RecordingStatementInspector implements StatementInspector {
+
+		private final List<String> queries = new ArrayList<>();
+		private Thread recordingThread;
+
+		@Override
+		public synchronized String inspect(String sql) {
+			if (Thread.currentThread() == recordingThread && sql.regionMatches(true, 0, "select", 0, 6)) {
+				queries.add(sql);
+			}
+			return sql;
+		}
+
+		synchronized void clear() {
+			queries.clear();
+			recordingThread = Thread.currentThread();
+		}
+
+		synchronized List<String> queries() {
+			return new ArrayList<>(queries);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.FraudDetectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resuming and awaiting pending transactions with one worker and a one-slot queue, against a
+ * mocked repository and a scorer that marks every transaction legitimate.
+ */
+class AsyncScoringServiceImplTests {
+
+	private static final Long BLOCKING_ID = 1L;
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final FraudDetectionService fraudDetectionService = mock(FraudDetectionService.class);
+	private final Map<Long, Transaction> stored = new ConcurrentHashMap<>();
+	private final CountDownLatch releaseScoring = new CountDownLatch(1);
+
+	private AsyncScoringServiceImpl asyncScoring;
+
+	@BeforeEach
+	void setUp() {
+		asyncScoring = new AsyncScoringServiceImpl();
+		ReflectionTestUtils.setField(asyncScoring, "fraudDetectionService", fraudDetectionService);
+		ReflectionTestUtils.setField(asyncScoring, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(asyncScoring, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(asyncScoring, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(asyncScoring, "enabled", true);
+		ReflectionTestUtils.setField(asyncScoring, "workerCount", 1);
+		ReflectionTestUtils.setField(asyncScoring, "queueCapacity", 1);
+		ReflectionTestUtils.setField(asyncScoring, "saturationPolicy", AsyncScoringServiceImpl.SaturationPolicy.REJECT);
+		ReflectionTestUtils.setField(asyncScoring, "subscriptionTimeoutMs", 5_000L);
+		asyncScoring.start();
+
+		when(transactionRepository.findById(anyLong()))
+				.thenAnswer(call -> Optional.ofNullable(stored.get(call.<Long>getArgument(0))));
+		when(fraudDetectionService.analyzeTransaction(any(Transaction.class))).thenAnswer(call -> {
+			Transaction transaction = call.getArgument(0);
+			if (BLOCKING_ID.equals(transaction.getId())) {
+				releaseScoring.await(5, TimeUnit.SECONDS);
+			}
+			transaction.setFraudStatus(FraudStatus.LEGITIMATE);
+			return transaction;
+		});
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		releaseScoring.countDown();
+		asyncScoring.stop();
+	}
+
+	@Test
+	void resumeScoresThePendingTransactionsTheQueueHasNoRoomFor() throws Exception {
+		List<Long> pendingIds = new ArrayList<>();
+		for (long id = 1; id <= 5; id++) {
+			pendingIds.add(store(id).getId());
+		}
+		when(transactionRepository.findIdsByFraudStatus(FraudStatus.PENDING)).thenReturn(pendingIds);
+
+		// The worker is held on the first, so the rest overflow the queue
+		asyncScoring.resumePendingTransactions();
+		assertThat(stored.values()).filteredOn(transaction -> transaction.getFraudStatus() == FraudStatus.PENDING)
+				.hasSizeLessThanOrEqualTo(2);
+
+		releaseScoring.countDown();
+		for (Long id : pendingIds) {
+			assertThat(asyncScoring.awaitResult(id).get(5, TimeUnit.SECONDS).getFraudStatus())
+					.isEqualTo(FraudStatus.LEGITIMATE);
+		}
+	}
+
+	@Test
+	void awaitingAPendingTransactionWaitsForItsScore() throws Exception {
+		Transaction pending = store(7L);
+		when(transactionRepository.findIdsByFraudStatus(FraudStatus.PENDING)).thenReturn(List.of(7L));
+
+		CompletableFuture<Transaction> result = asyncScoring.awaitResult(7L);
+		assertThat(result).isNotDone();
+
+		asyncScoring.resumePendingTransactions();
+		assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(pending);
+		assertThat(pending.getFraudStatus()).isEqualTo(FraudStatus.LEGITIMATE);
+	}
+
+	@Test
+	void awaitingATransactionNothingQueuesTimesOutAndIsForgotten() throws Exception {
+		ReflectionTestUtils.setField(asyncScoring, "subscriptionTimeoutMs", 50L);
+		store(8L);
+
+		CompletableFuture<Transaction> result = asyncScoring.awaitResult(8L);
+		assertThat(result).failsWithin(5, TimeUnit.SECONDS)
+				.withThrowableOfType(ExecutionException.class)
+				.withCauseInstanceOf(TimeoutException.class);
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(asyncScoring, "inFlight")).isEmpty();
+
+		// A later subscriber waits afresh rather than getting the expired future
+		assertThat(asyncScoring.awaitResult(8L)).isNotSameAs(result);
+	}
+
+	@Test
+	void awaitingAScoredTransactionCompletesAtOnce() {
+		Transaction scored = store(9L);
+		scored.setFraudStatus(FraudStatus.SUSPICIOUS);
+
+		assertThat(asyncScoring.awaitResult(9L)).isCompletedWithValue(scored);
+		assertThat(asyncScoring.awaitResult(10L)).isCompletedExceptionally();
+	}
+
+	private Transaction store(Long id) {
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setFraudStatus(FraudStatus.PENDING);
+		stored.put(id, transaction);
+		return transaction;
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.BacktestChange;
+import com.example.fraud_detection.dto.BacktestReport;
+import com.example.fraud_detection.dto.BacktestRequest;
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.FraudRuleRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays stored rows from a mocked repository through the backtest, scoring each transaction
+ * by the number of the user's transactions its history shows.
+ */
+class BacktestServiceImplTests {
+
+	private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 12, 0);
+	private static final int VELOCITY_WINDOW_MINUTES = 60;
+	// The scoring stub flags a transaction once its user's window holds this many
+	private static final int FLAGGED_AT = 3;
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final FraudRuleRepository fraudRuleRepository = mock(FraudRuleRepository.class);
+	private final RuleSnapshotService ruleSnapshotService = mock(RuleSnapshotService.class);
+	private final FraudScoringService fraudScoringService = mock(FraudScoringService.class);
+	private final List<Object[]> stored = new ArrayList<>();
+
+	private BacktestServiceImpl backtestService;
+
+	@BeforeEach
+	void setUp() {
+		backtestService = new BacktestServiceImpl();
+		ReflectionTestUtils.setField(backtestService, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(backtestService, "fraudRuleRepository", fraudRuleRepository);
+		ReflectionTestUtils.setField(backtestService, "ruleSnapshotService", ruleSnapshotService);
+		ReflectionTestUtils.setField(backtestService, "fraudScoringService", fraudScoringService);
+		ReflectionTestUtils.setField(backtestService, "chunkSize", 3);
+		ReflectionTestUtils.setField(backtestService, "parallelism", 2);
+		ReflectionTestUtils.setField(backtestService, "maxReportedChanges", 100);
+		ReflectionTestUtils.setField(backtestService, "velocityCheckWindowMinutes", VELOCITY_WINDOW_MINUTES);
+		ReflectionTestUtils.setField(backtestService, "maxEventsPerIp", 16);
+		backtestService.start();
+
+		when(fraudRuleRepository.findByIsActive(true)).thenReturn(List.of());
+		when(ruleSnapshotService.compile(any())).thenReturn(RuleSnapshot.compile(0L, List.of()));
+		when(fraudScoringService.calculateFraudScore(any(Transaction.class), any(RuleSnapshot.class),
+				any(ActivityHistory.class))).thenAnswer(call -> {
+					Transaction transaction = call.getArgument(0);
+					ActivityHistory history = call.getArgument(2);
+					long minute = Math.floorDiv(transaction.getTransactionTime().toEpochSecond(ZoneOffset.UTC), 60);
+					long count = history.countUserTransactions(transaction.getUser().getId(),
+							minute - VELOCITY_WINDOW_MINUTES, minute);
+					return count >= FLAGGED_AT ? 90.0 : 10.0;
+				});
+		when(transactionRepository.findReplayChunkAfter(any(), any(), anyLong(), any(Limit.class)))
+				.thenAnswer(call -> chunkAfter(call.getArgument(0), call.getArgument(1), call.getArgument(2),
+						call.getArgument(3)));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		backtestService.stop();
+	}
+
+	@Test
+	void scoresEachTransactionAgainstTheHistoryUpToItself() {
+		// One before the range only warms up the window; four in the same minute, across chunks
+		store(1L, 1L, FROM.minusMinutes(5));
+		store(2L, 1L, FROM.plusMinutes(1));
+		store(3L, 1L, FROM.plusMinutes(1));
+		store(4L, 1L, FROM.plusMinutes(1));
+		store(5L, 1L, FROM.plusMinutes(1));
+		store(6L, 2L, FROM.plusMinutes(1));
+
+		BacktestReport report = backtestService.run(new BacktestRequest(FROM, FROM.plusHours(1), null));
+
+		assertThat(report.getReplayed()).isEqualTo(6);
+		assertThat(report.getScored()).isEqualTo(5);
+		// The first in-range transaction sees two, the later ones of its minute three and four
+		assertThat(report.getChanges()).extracting(BacktestChange::getTransactionId).containsExactly(3L, 4L, 5L);
+		assertThat(report.getChanged()).isEqualTo(3);
+		assertThat(report.getConfusion().get(FraudStatus.LEGITIMATE))
+				.containsEntry(FraudStatus.LEGITIMATE, 2L)
+				.containsEntry(FraudStatus.FRAUDULENT, 3L);
+	}
+
+	private void store(Long id, Long userId, LocalDateTime time) {
+		stored.add(new Object[] {id, userId, new BigDecimal("25.00"), "retail", "US", null, null, time,
+				FraudStatus.LEGITIMATE, 10.0});
+	}
+
+	/**
+	 * What the keyset query returns: rows after the position and before the end, in order.
+	 */
+	private List<Object[]> chunkAfter(LocalDateTime end, LocalDateTime time, Long id, Limit limit) {
+		return stored.stream()
+				.sorted(Comparator.comparing((Object[] row) -> (LocalDateTime) row[7]).thenComparing(row -> (Long) row[0]))
+				.filter(row -> ((LocalDateTime) row[7]).isBefore(end))
+				.filter(row -> {
+					int order = ((LocalDateTime) row[7]).compareTo(time);
+					return order > 0 || (order == 0 && (Long) row[0] > id);
+				})
+				.limit(limit.max())
+				.toList();
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counting post-commit events raised for a transaction that is scored in the transaction that
+ * inserted it, so the entity has moved on from the inserted state by the time the events run.
+ */
+class DashboardCounterServiceImplTests {
+
+	private final EntityPersister persister = mock(EntityPersister.class);
+	private final DashboardCounterServiceImpl counters = new DashboardCounterServiceImpl();
+
+	@Test
+	void insertIsCountedWithTheInsertedStatus() {
+		when(persister.getPropertyNames()).thenReturn(new String[] {"amount", "fraudStatus"});
+		Transaction transaction = new Transaction();
+		transaction.setFraudStatus(FraudStatus.FRAUDULENT);
+
+		counters.onPostInsert(new PostInsertEvent(transaction, 1L,
+				new Object[] {null, FraudStatus.PENDING}, persister, null));
+		counters.onPostUpdate(new PostUpdateEvent(transaction, 1L,
+				new Object[] {null, FraudStatus.FRAUDULENT}, new Object[] {null, FraudStatus.PENDING},
+				new int[] {1}, persister, null));
+
+		assertThat(counters.getTransactionCount()).isEqualTo(1);
+		assertThat(counters.getTransactionCount(FraudStatus.PENDING)).isZero();
+		assertThat(counters.getTransactionCount(FraudStatus.FRAUDULENT)).isEqualTo(1);
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.FraudScoringService;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import com.example.fraud_detection.service.UserLookupService;
+import com.example.fraud_detection.service.VelocityService;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A batch whose scoring fails part way leaves nothing it recorded in the activity windows.
+ */
+class FraudDetectionServiceImplTests {
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final VelocityService velocityService = mock(VelocityService.class);
+	private final IpActivityService ipActivityService = mock(IpActivityService.class);
+	private final FraudScoringService fraudScoringService = mock(FraudScoringService.class);
+
+	@Test
+	void scoringFailureDiscardsEveryRecordedTransactionOfTheBatch() {
+		FraudDetectionServiceImpl detectionService = detectionService();
+		when(fraudScoringService.calculateFraudScore(any(Transaction.class), any(RuleSnapshot.class)))
+				.thenReturn(10.0)
+				.thenThrow(new IllegalStateException("scoring failed"));
+
+		assertThatThrownBy(() -> detectionService.createAndAnalyzeTransactions(List.of(request(), request(), request())))
+				.hasMessage("scoring failed");
+
+		ArgumentCaptor<Transaction> recorded = ArgumentCaptor.forClass(Transaction.class);
+		verify(velocityService, times(2)).recordTransaction(recorded.capture());
+		verify(velocityService, times(2)).discardTransaction(any(Transaction.class));
+		verify(ipActivityService, times(2)).discardTransaction(any(Transaction.class));
+		for (Transaction transaction : recorded.getAllValues()) {
+			verify(velocityService).discardTransaction(transaction);
+			verify(ipActivityService).discardTransaction(transaction);
+		}
+		verify(transactionRepository, never()).saveAll(any());
+	}
+
+	@Test
+	void scoredBatchIsSavedWithoutDiscarding() {
+		FraudDetectionServiceImpl detectionService = detectionService();
+		when(fraudScoringService.calculateFraudScore(any(Transaction.class), any(RuleSnapshot.class))).thenReturn(10.0);
+
+		assertThat(detectionService.createAndAnalyzeTransactions(List.of(request(), request())).getCreated()).isEqualTo(2);
+		verify(velocityService, never()).discardTransaction(any(Transaction.class));
+		verify(ipActivityService, never()).discardTransaction(any(Transaction.class));
+	}
+
+	private FraudDetectionServiceImpl detectionService() {
+		User user = new User("alice", "alice@example.com", "Alice");
+		user.setId(1L);
+		UserLookupService userLookupService = mock(UserLookupService.class);
+		when(userLookupService.findUsers(anyCollection())).thenReturn(Map.of(1L, user));
+		RuleSnapshotService ruleSnapshotService = mock(RuleSnapshotService.class);
+		when(ruleSnapshotService.getCurrentSnapshot()).thenReturn(RuleSnapshot.compile(1L, List.of()));
+		Validator validator = mock(Validator.class);
+		when(validator.validate(any())).thenReturn(Set.of());
+
+		FraudDetectionServiceImpl detectionService = new FraudDetectionServiceImpl();
+		ReflectionTestUtils.setField(detectionService, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(detectionService, "userLookupService", userLookupService);
+		ReflectionTestUtils.setField(detectionService, "ruleSnapshotService", ruleSnapshotService);
+		ReflectionTestUtils.setField(detectionService, "velocityService", velocityService);
+		ReflectionTestUtils.setField(detectionService, "ipActivityService", ipActivityService);
+		ReflectionTestUtils.setField(detectionService, "validator", validator);
+		ReflectionTestUtils.setField(detectionService, "fraudScoringService", fraudScoringService);
+		return detectionService;
+	}
+
+	private static TransactionRequest request() {
+		return new TransactionRequest(1L, new BigDecimal("25.00"), TransactionType.PURCHASE);
+	}
+}
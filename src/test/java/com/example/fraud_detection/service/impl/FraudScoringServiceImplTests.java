@@ -0,0 +1,136 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.ActivityHistory;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.VelocityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scores with early stop against the same calculation run to the end.
+ */
+class FraudScoringServiceImplTests {
+
+	// 03:00 and over the 10,000.00 threshold in a high-risk category: 30 + 25 + 20 from the built-in checks
+	private static final LocalDateTime NIGHT = LocalDateTime.of(2024, 1, 1, 3, 0);
+
+	private final User user = new User("alice", "alice@example.com", "Alice");
+
+	@Test
+	void negativeScoresStillToComePreventAnEarlyStop() {
+		RuleSnapshot snapshot = RuleSnapshot.compile(1L, List.of(
+				rule("night", RuleType.TIME_BASED, 30.0),
+				amountRule("trusted large purchase", -40.0),
+				velocityRule("burst", 20.0)));
+		CountingHistory earlyStopHistory = new CountingHistory();
+		CountingHistory fullHistory = new CountingHistory();
+
+		double earlyStop = scoringService(true).calculateFraudScore(nightTransaction(), snapshot, earlyStopHistory);
+		double full = scoringService(false).calculateFraudScore(nightTransaction(), snapshot, fullHistory);
+
+		// 75 + 30 reaches 100, but the -40 still to come must be applied: 65, then the velocity checks
+		assertThat(earlyStop).isEqualTo(full).isEqualTo(65.0);
+		assertThat(earlyStopHistory.reads).isEqualTo(fullHistory.reads).isPositive();
+	}
+
+	@Test
+	void stopsOnceNothingLeftCanLowerTheScore() {
+		RuleSnapshot snapshot = RuleSnapshot.compile(1L, List.of(
+				rule("night", RuleType.TIME_BASED, 30.0),
+				velocityRule("burst", 20.0)));
+		CountingHistory earlyStopHistory = new CountingHistory();
+		CountingHistory fullHistory = new CountingHistory();
+
+		double earlyStop = scoringService(true).calculateFraudScore(nightTransaction(), snapshot, earlyStopHistory);
+		double full = scoringService(false).calculateFraudScore(nightTransaction(), snapshot, fullHistory);
+
+		assertThat(earlyStop).isEqualTo(full).isEqualTo(100.0);
+		assertThat(earlyStopHistory.reads).isZero();
+		assertThat(fullHistory.reads).isPositive();
+	}
+
+	private static FraudScoringServiceImpl scoringService(boolean earlyStopEnabled) {
+		VelocityService velocityService = mock(VelocityService.class);
+		when(velocityService.isInMemory()).thenReturn(true);
+
+		FraudScoringServiceImpl scoringService = new FraudScoringServiceImpl();
+		ReflectionTestUtils.setField(scoringService, "velocityService", velocityService);
+		ReflectionTestUtils.setField(scoringService, "ipActivityService", mock(IpActivityService.class));
+		ReflectionTestUtils.setField(scoringService, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(scoringService, "maxAmountThreshold", new BigDecimal("10000.00"));
+		ReflectionTestUtils.setField(scoringService, "velocityCheckWindowMinutes", 60);
+		ReflectionTestUtils.setField(scoringService, "maxTransactionsPerWindow", 5);
+		ReflectionTestUtils.setField(scoringService, "earlyStopEnabled", earlyStopEnabled);
+		ReflectionTestUtils.setField(scoringService, "earlyStopScore", 100.0);
+		ReflectionTestUtils.setField(scoringService, "metricsEnabled", false);
+		scoringService.initMetrics();
+		return scoringService;
+	}
+
+	private Transaction nightTransaction() {
+		user.setId(1L);
+		Transaction transaction = new Transaction(user, new BigDecimal("12000.00"), TransactionType.PURCHASE);
+		transaction.setMerchantCategory("GAMBLING");
+		transaction.setTransactionTime(NIGHT);
+		return transaction;
+	}
+
+	private static FraudRule rule(String name, RuleType type, double riskScore) {
+		return new FraudRule(name, type, riskScore);
+	}
+
+	private static FraudRule amountRule(String name, double riskScore) {
+		FraudRule rule = rule(name, RuleType.AMOUNT_THRESHOLD, riskScore);
+		rule.setThresholdAmount(new BigDecimal("5000.00"));
+		return rule;
+	}
+
+	private static FraudRule velocityRule(String name, double riskScore) {
+		FraudRule rule = rule(name, RuleType.VELOCITY_CHECK, riskScore);
+		rule.setTimeWindowMinutes(60);
+		rule.setMaxOccurrences(3);
+		return rule;
+	}
+
+	/**
+	 * A quiet history that counts how often the calculation reads it.
+	 */
+	private static final class CountingHistory implements ActivityHistory {
+
+		private int reads;
+
+		@Override
+		public long countUserTransactions(Long userId, long fromMinute, long toMinute) {
+			reads++;
+			return 0;
+		}
+
+		@Override
+		public long sumUserAmountCents(Long userId, long fromMinute, long toMinute) {
+			reads++;
+			return 0;
+		}
+
+		@Override
+		public boolean reachesIpLimits(String ipAddress, long fromMinute, long toMinute,
+									   int maxTransactions, int maxDistinctUsers, int maxDistinctCards) {
+			reads++;
+			return false;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.fraud_detection.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImportLineReaderTests {
+
+	@Test
+	void splitsLinesAcrossBufferRefills() throws IOException {
+		// A three-character buffer makes every line span several reads
+		ImportLineReader reader = new ImportLineReader(new StringReader("first\r\nsecond\n\nlast"), 3, 100);
+
+		assertThat(reader.readLine()).isEqualTo("first");
+		assertThat(reader.readLine()).isEqualTo("second");
+		assertThat(reader.readLine()).isEmpty();
+		assertThat(reader.readLine()).isEqualTo("last");
+		assertThat(reader.getLineNumber()).isEqualTo(4);
+		assertThat(reader.readLine()).isNull();
+	}
+
+	@Test
+	void cutsOverlongLinesAndResumesAtTheNextOne() throws IOException {
+		String overlong = "x".repeat(50);
+		ImportLineReader reader = new ImportLineReader(new StringReader("short\n" + overlong + "\nafter\n"), 8, 10);
+
+		assertThat(reader.readLine()).isEqualTo("short");
+		assertThat(reader.isTruncated()).isFalse();
+		assertThat(reader.readLine()).isEqualTo("x".repeat(10));
+		assertThat(reader.isTruncated()).isTrue();
+		assertThat(reader.readLine()).isEqualTo("after");
+		assertThat(reader.isTruncated()).isFalse();
+		assertThat(reader.getLineNumber()).isEqualTo(3);
+		assertThat(reader.readLine()).isNull();
+	}
+
+	@Test
+	void dropsAByteOrderMarkOnTheFirstLineOnly() throws IOException {
+		ImportLineReader reader = new ImportLineReader(new StringReader("\uFEFFheader\n\uFEFFvalue"), 64, 100);
+
+		assertThat(reader.readLine()).isEqualTo("header");
+		assertThat(reader.readLine()).isEqualTo("\uFEFFvalue");
+	}
+
+	@Test
+	void emptyInputHasNoLines() throws IOException {
+		ImportLineReader reader = new ImportLineReader(new StringReader(""), 64, 100);
+
+		assertThat(reader.readLine()).isNull();
+		assertThat(reader.getLineNumber()).isZero();
+	}
+}
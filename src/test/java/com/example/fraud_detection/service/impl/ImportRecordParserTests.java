@@ -0,0 +1,73 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionRequest;
+import com.example.fraud_detection.model.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportRecordParserTests {
+
+	@Test
+	void splitsQuotedFieldsAsRfc4180() {
+		assertThat(ImportRecordParser.splitCsv("a,\"b,c\",\"say \"\"hi\"\"\",,\"\""))
+				.containsExactly("a", "b,c", "say \"hi\"", null, "");
+		assertThat(ImportRecordParser.splitCsv("")).containsExactly((String) null);
+		assertThat(ImportRecordParser.splitCsv("x,")).containsExactly("x", null);
+		assertThatThrownBy(() -> ImportRecordParser.splitCsv("a,\"open"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Unterminated");
+	}
+
+	@Test
+	void mapsColumnsByLooselyMatchedHeaderNames() {
+		ImportRecordParser parser = ImportRecordParser.csv("User_Id, amount ,transaction-type,merchant_name,location");
+
+		TransactionRequest request = parser.parse("42,19.99,purchase,\"Acme, Inc.\",");
+
+		assertThat(request.getUserId()).isEqualTo(42L);
+		assertThat(request.getAmount()).isEqualByComparingTo(new BigDecimal("19.99"));
+		assertThat(request.getTransactionType()).isEqualTo(TransactionType.PURCHASE);
+		assertThat(request.getMerchantName()).isEqualTo("Acme, Inc.");
+		assertThat(request.getLocation()).isNull();
+	}
+
+	@Test
+	void rejectsBadHeadersAndRecords() {
+		assertThatThrownBy(() -> ImportRecordParser.csv("userId,amount,transactionType,colour"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("colour");
+		assertThatThrownBy(() -> ImportRecordParser.csv("userId,amount"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("transactionType");
+
+		ImportRecordParser parser = ImportRecordParser.csv("userId,amount,transactionType");
+		assertThatThrownBy(() -> parser.parse("1,2"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Expected 3 fields, found 2");
+		assertThatThrownBy(() -> parser.parse("1,ten,PURCHASE"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid amount: ten");
+		assertThatThrownBy(() -> parser.parse("1,10,GIFT"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid transactionType: GIFT");
+	}
+
+	@Test
+	void parsesNdjsonAndReportsMalformedLines() {
+		ImportRecordParser parser = ImportRecordParser.ndjson(new ObjectMapper());
+
+		TransactionRequest request = parser.parse("{\"userId\":7,\"amount\":5.5,\"transactionType\":\"REFUND\",\"ipAddress\":\"10.0.0.1\"}");
+
+		assertThat(request.getUserId()).isEqualTo(7L);
+		assertThat(request.getTransactionType()).isEqualTo(TransactionType.REFUND);
+		assertThat(request.getIpAddress()).isEqualTo("10.0.0.1");
+		assertThatThrownBy(() -> parser.parse("{\"userId\":"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageStartingWith("Malformed JSON");
+	}
+}
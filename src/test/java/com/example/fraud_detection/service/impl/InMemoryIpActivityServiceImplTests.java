@@ -0,0 +1,79 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.IpActivityWindow;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rebuilding the IP activity windows from a mocked stream while transactions keep being recorded.
+ */
+class InMemoryIpActivityServiceImplTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.now();
+	private static final String IP = "10.0.0.1";
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+
+	private InMemoryIpActivityServiceImpl ipActivityService;
+
+	@BeforeEach
+	void setUp() {
+		ipActivityService = new InMemoryIpActivityServiceImpl();
+		ReflectionTestUtils.setField(ipActivityService, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(ipActivityService, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(ipActivityService, "horizonMinutes", 1440);
+		ReflectionTestUtils.setField(ipActivityService, "maxEventsPerIp", 64);
+		ReflectionTestUtils.setField(ipActivityService, "maxTrackedIps", 1000);
+	}
+
+	@Test
+	void rebuildKeepsWhatWasRecordedWithoutCountingItTwice() {
+		Transaction committed = transaction(10L, 1L, "****1111");
+		ipActivityService.recordTransaction(committed);
+		Transaction recordedMeanwhile = transaction(null, 2L, "****2222");
+		Transaction discardedMeanwhile = transaction(null, 3L, "****3333");
+
+		when(transactionRepository.streamIpActivitySince(any())).thenAnswer(call -> {
+			ipActivityService.recordTransaction(recordedMeanwhile);
+			ipActivityService.recordTransaction(discardedMeanwhile);
+			ipActivityService.discardTransaction(discardedMeanwhile);
+			return Stream.<Object[]>of(
+					new Object[] {IP, 4L, "****4444", NOW.minusHours(2), 3L, NOW.minusHours(2)},
+					new Object[] {IP, 1L, "****1111", NOW, 10L, committed.getCreatedAt()});
+		});
+
+		ipActivityService.rebuild();
+
+		IpActivityWindow.Counts counts = ipActivityService.countActivity(IP, NOW.minusHours(3), NOW);
+		assertThat(counts.getTransactions()).isEqualTo(3);
+		assertThat(counts.getDistinctUsers()).isEqualTo(3);
+		assertThat(counts.getDistinctCards()).isEqualTo(3);
+	}
+
+	private Transaction transaction(Long id, Long userId, String card) {
+		User user = new User("user" + userId, "user" + userId + "@example.com", "User " + userId);
+		user.setId(userId);
+		Transaction transaction = new Transaction(user, new BigDecimal("10.00"), TransactionType.PURCHASE);
+		transaction.setId(id);
+		transaction.setIpAddress(IP);
+		transaction.setCardNumberMasked(card);
+		transaction.setTransactionTime(NOW);
+		transaction.setCreatedAt(LocalDateTime.now());
+		return transaction;
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rebuilding the velocity windows from a mocked stream while transactions keep being recorded,
+ * and sizing and evicting them.
+ */
+class InMemoryVelocityServiceImplTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.now();
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final User user = new User("alice", "alice@example.com", "Alice");
+
+	private InMemoryVelocityServiceImpl velocityService;
+
+	@BeforeEach
+	void setUp() {
+		user.setId(1L);
+		velocityService = new InMemoryVelocityServiceImpl();
+		ReflectionTestUtils.setField(velocityService, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(velocityService, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(velocityService, "horizonMinutes", 1440);
+	}
+
+	@Test
+	void rebuildKeepsWhatWasRecordedWithoutCountingItTwice() {
+		// Recorded at startup and committed before the rebuild streams it
+		Transaction committed = transaction(10L, "10.00");
+		velocityService.recordTransaction(committed);
+		Transaction recordedMeanwhile = transaction(null, "20.00");
+		Transaction discardedMeanwhile = transaction(null, "40.00");
+
+		when(transactionRepository.streamUserActivitySince(any())).thenAnswer(call -> {
+			velocityService.recordTransaction(recordedMeanwhile);
+			velocityService.recordTransaction(discardedMeanwhile);
+			velocityService.discardTransaction(discardedMeanwhile);
+			return Stream.<Object[]>of(
+					new Object[] {1L, NOW.minusHours(2), new BigDecimal("5.00"), 3L, NOW.minusHours(2)},
+					new Object[] {1L, NOW, new BigDecimal("10.00"), 10L, committed.getCreatedAt()});
+		});
+
+		velocityService.rebuild();
+
+		long minute = NOW.toEpochSecond(ZoneOffset.UTC) / 60;
+		assertThat(velocityService.countTransactions(1L, minute - 1440, minute)).isEqualTo(3);
+		assertThat(velocityService.sumAmountCents(1L, minute - 1440, minute)).isEqualTo(3_500);
+
+		// Logging stops at the swap; later changes go to the rebuilt windows only
+		velocityService.discardTransaction(recordedMeanwhile);
+		assertThat(velocityService.countTransactions(1L, minute - 1440, minute)).isEqualTo(2);
+	}
+
+	@Test
+	void widensTheHorizonToTheLongestRuleWindowOfAnInstalledSnapshot() {
+		Transaction twoDaysAgo = transaction(null, "25.00");
+		twoDaysAgo.setTransactionTime(NOW.minusDays(2));
+		when(transactionRepository.streamUserActivitySince(any())).thenAnswer(call -> Stream.<Object[]>of(
+				new Object[] {1L, twoDaysAgo.getTransactionTime(), new BigDecimal("25.00"), 4L, twoDaysAgo.getTransactionTime()},
+				new Object[] {1L, NOW, new BigDecimal("10.00"), 5L, NOW}));
+
+		velocityService.onSnapshotInstalled(snapshot(1L, 60));
+		verify(transactionRepository, never()).streamUserActivitySince(any());
+
+		velocityService.onSnapshotInstalled(snapshot(2L, 3 * 1440));
+		long minute = NOW.toEpochSecond(ZoneOffset.UTC) / 60;
+		assertThat(velocityService.countTransactions(1L, minute - 3 * 1440, minute)).isEqualTo(2);
+		assertThat(velocityService.sumAmountCents(1L, minute - 3 * 1440, minute)).isEqualTo(3_500);
+	}
+
+	@Test
+	void evictsOnlyUsersIdleForTheWholeHorizon() {
+		Transaction stale = transaction(null, "10.00");
+		stale.setTransactionTime(NOW.minusDays(2));
+		velocityService.recordTransaction(stale);
+		long minute = NOW.toEpochSecond(ZoneOffset.UTC) / 60;
+		assertThat(velocityService.countTransactions(1L, minute - 3 * 1440, minute)).isEqualTo(1);
+
+		velocityService.evictIdleUsers();
+		assertThat(velocityService.countTransactions(1L, minute - 3 * 1440, minute)).isZero();
+
+		velocityService.recordTransaction(transaction(null, "10.00"));
+		velocityService.evictIdleUsers();
+		assertThat(velocityService.countTransactions(1L, minute - 1440, minute)).isEqualTo(1);
+	}
+
+	private static RuleSnapshot snapshot(long version, int windowMinutes) {
+		FraudRule rule = new FraudRule("velocity", RuleType.VELOCITY_CHECK, 30.0);
+		rule.setTimeWindowMinutes(windowMinutes);
+		rule.setMaxOccurrences(3);
+		return RuleSnapshot.compile(version, List.of(rule));
+	}
+
+	private Transaction transaction(Long id, String amount) {
+		Transaction transaction = new Transaction(user, new BigDecimal(amount), TransactionType.PURCHASE);
+		transaction.setId(id);
+		transaction.setTransactionTime(NOW);
+		transaction.setCreatedAt(LocalDateTime.now());
+		return transaction;
+	}
+}
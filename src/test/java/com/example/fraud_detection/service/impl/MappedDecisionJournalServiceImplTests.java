@@ -0,0 +1,49 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.DecisionJournal;
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.FraudRule;
+import com.example.fraud_detection.model.RuleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rule manifests written as snapshots are installed, without any decision recorded.
+ */
+class MappedDecisionJournalServiceImplTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void describesEveryInstalledSnapshotBeforeItsFirstDecision() throws IOException {
+		MappedDecisionJournalServiceImpl journalService = new MappedDecisionJournalServiceImpl();
+		try (DecisionJournal journal = new DecisionJournal(directory, 8, 4)) {
+			ReflectionTestUtils.setField(journalService, "journal", journal);
+
+			journalService.onSnapshotInstalled(snapshot(7L, "night", "gambling"));
+			// Replaced before anything was scored against the first one
+			journalService.onSnapshotInstalled(snapshot(8L, "night"));
+		}
+
+		assertThat(Files.readAllLines(directory.resolve("snapshot-7.rules"))).containsExactly("1:night", "2:gambling");
+		assertThat(Files.readAllLines(directory.resolve("snapshot-8.rules"))).containsExactly("1:night");
+	}
+
+	private static RuleSnapshot snapshot(long version, String... names) {
+		FraudRule[] rules = new FraudRule[names.length];
+		for (int i = 0; i < names.length; i++) {
+			rules[i] = new FraudRule(names[i], RuleType.TIME_BASED, 50.0 - i);
+			rules[i].setId(i + 1L);
+		}
+		return RuleSnapshot.compile(version, List.of(rules));
+	}
+}
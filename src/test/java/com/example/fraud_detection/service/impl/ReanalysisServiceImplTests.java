@@ -0,0 +1,115 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.engine.RuleSnapshot;
+import com.example.fraud_detection.model.ReanalysisJob;
+import com.example.fraud_detection.model.ReanalysisJobState;
+import com.example.fraud_detection.repository.ReanalysisJobRepository;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.DashboardCounterService;
+import com.example.fraud_detection.service.RuleSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resuming an interrupted re-analysis job, against mocked repositories holding no further
+ * transactions, so each run goes straight from its starting position to completion.
+ */
+class ReanalysisServiceImplTests {
+
+	private static final LocalDateTime RANGE_START = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final LocalDateTime CHECKPOINT = RANGE_START.plusDays(3);
+	private static final int VELOCITY_WINDOW_MINUTES = 60;
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final ReanalysisJobRepository reanalysisJobRepository = mock(ReanalysisJobRepository.class);
+	private final RuleSnapshotService ruleSnapshotService = mock(RuleSnapshotService.class);
+
+	private ReanalysisServiceImpl reanalysisService;
+	private ReanalysisJob job;
+
+	@BeforeEach
+	void setUp() {
+		reanalysisService = new ReanalysisServiceImpl();
+		ReflectionTestUtils.setField(reanalysisService, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(reanalysisService, "reanalysisJobRepository", reanalysisJobRepository);
+		ReflectionTestUtils.setField(reanalysisService, "ruleSnapshotService", ruleSnapshotService);
+		ReflectionTestUtils.setField(reanalysisService, "dashboardCounterService", mock(DashboardCounterService.class));
+		ReflectionTestUtils.setField(reanalysisService, "chunkSize", 100);
+		ReflectionTestUtils.setField(reanalysisService, "workerCount", 1);
+		ReflectionTestUtils.setField(reanalysisService, "velocityCheckWindowMinutes", VELOCITY_WINDOW_MINUTES);
+		ReflectionTestUtils.setField(reanalysisService, "maxEventsPerIp", 16);
+		reanalysisService.start();
+
+		// Paused by a shutdown after committing chunks against rule set 100
+		job = new ReanalysisJob(null, RANGE_START, RANGE_START.plusDays(7));
+		job.setId(1L);
+		job.setState(ReanalysisJobState.RUNNING);
+		job.setRuleSetVersion(100L);
+		job.setCheckpointTime(CHECKPOINT);
+		job.setCheckpointId(500L);
+		job.setTotal(1000);
+		job.setProcessed(400);
+		job.setChanged(12);
+		when(reanalysisJobRepository.findByStateInOrderByIdAsc(any())).thenReturn(List.of(job));
+		when(reanalysisJobRepository.findById(1L)).thenReturn(Optional.of(job));
+		when(reanalysisJobRepository.save(any(ReanalysisJob.class))).thenAnswer(call -> call.getArgument(0));
+		when(transactionRepository.findReplayChunkAfter(any(), any(), anyLong(), any(Limit.class))).thenReturn(List.of());
+		when(transactionRepository.countInRange(any(), any(), any())).thenReturn(1200L);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		reanalysisService.stop();
+	}
+
+	@Test
+	void resumesAfterTheCheckpointWhileItsRuleSetIsInstalled() {
+		when(ruleSnapshotService.getCurrentSnapshot()).thenReturn(RuleSnapshot.compile(100L, List.of()));
+
+		reanalysisService.resumeJobs();
+
+		verify(transactionRepository, timeout(5000)).findReplayChunkAfter(eq(job.getRangeEnd()),
+				eq(CHECKPOINT.minusMinutes(VELOCITY_WINDOW_MINUTES)), eq(Long.MIN_VALUE), any(Limit.class));
+		awaitFinished();
+		assertThat(job.getRuleSetVersion()).isEqualTo(100L);
+		assertThat(job.getProcessed()).isEqualTo(400);
+		assertThat(job.getChanged()).isEqualTo(12);
+		assertThat(job.getTotal()).isEqualTo(1000);
+	}
+
+	@Test
+	void restartsFromTheRangeStartWhenItsRuleSetWasReplaced() {
+		when(ruleSnapshotService.getCurrentSnapshot()).thenReturn(RuleSnapshot.compile(200L, List.of()));
+
+		reanalysisService.resumeJobs();
+
+		verify(transactionRepository, timeout(5000)).findReplayChunkAfter(eq(job.getRangeEnd()),
+				eq(RANGE_START.minusMinutes(VELOCITY_WINDOW_MINUTES)), eq(Long.MIN_VALUE), any(Limit.class));
+		awaitFinished();
+		assertThat(job.getRuleSetVersion()).isEqualTo(200L);
+		assertThat(job.getProcessed()).isZero();
+		assertThat(job.getChanged()).isZero();
+		assertThat(job.getTotal()).isEqualTo(1200);
+	}
+
+	private void awaitFinished() {
+		verify(reanalysisJobRepository, timeout(5000).atLeast(2)).save(job);
+		assertThat(job.getState()).isEqualTo(ReanalysisJobState.COMPLETED);
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.dto.TransactionPage;
+import com.example.fraud_detection.engine.TransactionArchiveWriter;
+import com.example.fraud_detection.model.FraudStatus;
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.model.TransactionArchive;
+import com.example.fraud_detection.model.TransactionType;
+import com.example.fraud_detection.model.User;
+import com.example.fraud_detection.repository.TransactionArchiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Paging archived transactions with a keyset cursor across months and across the parts of one
+ * month, whose rows interleave in time.
+ */
+class TransactionArchiveServiceImplTests {
+
+	private static final LocalDateTime MARCH = LocalDateTime.of(2024, 3, 1, 0, 0);
+	private static final LocalDateTime APRIL = MARCH.plusMonths(1);
+
+	@TempDir
+	Path directory;
+
+	private final TransactionArchiveRepository transactionArchiveRepository = mock(TransactionArchiveRepository.class);
+
+	private TransactionArchiveServiceImpl archiveService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		archiveService = new TransactionArchiveServiceImpl();
+		ReflectionTestUtils.setField(archiveService, "transactionArchiveRepository", transactionArchiveRepository);
+		ReflectionTestUtils.setField(archiveService, "directory", directory.toString());
+		ReflectionTestUtils.setField(archiveService, "defaultPageSize", 50);
+		ReflectionTestUtils.setField(archiveService, "maxPageSize", 1000);
+
+		// March was archived in two runs, the second holding rows written into it meanwhile
+		List<TransactionArchive> parts = List.of(
+				part(MARCH, "march-1.fta", row(1L, MARCH.plusMinutes(1)), row(2L, MARCH.plusMinutes(3)),
+						row(4L, MARCH.plusMinutes(5))),
+				part(MARCH, "march-2.fta", row(3L, MARCH.plusMinutes(3)), row(9L, MARCH.plusMinutes(4))),
+				part(APRIL, "april-1.fta", row(10L, APRIL), row(11L, APRIL.plusMinutes(1))));
+		when(transactionArchiveRepository.findByBucketStartLessThanAndBucketEndGreaterThanOrderByBucketStartAscIdAsc(
+				any(), any())).thenAnswer(call -> {
+					LocalDateTime to = call.getArgument(0);
+					LocalDateTime from = call.getArgument(1);
+					return parts.stream()
+							.filter(part -> part.getBucketStart().isBefore(to) && part.getBucketEnd().isAfter(from))
+							.toList();
+				});
+	}
+
+	@Test
+	void pagesInKeysetOrderAcrossPartsAndMonths() {
+		List<Long> ids = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String cursor = null;
+		do {
+			TransactionPage page = archiveService.findArchived(MARCH, APRIL.plusMonths(1), null, null, cursor, 2);
+			page.getItems().forEach(transaction -> ids.add(transaction.getId()));
+			pageSizes.add(page.getItems().size());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+
+		assertThat(ids).containsExactly(1L, 2L, 3L, 9L, 4L, 10L, 11L);
+		assertThat(pageSizes).containsExactly(2, 2, 2, 1);
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		TransactionPage page = archiveService.findArchived(MARCH, APRIL, null, null, null, 5);
+
+		assertThat(page.getItems()).extracting(Transaction::getId).containsExactly(1L, 2L, 3L, 9L, 4L);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void rejectsAnEmptyRangeAndAMalformedCursor() {
+		assertThatThrownBy(() -> archiveService.findArchived(APRIL, MARCH, null, null, null, 5))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> archiveService.findArchived(MARCH, APRIL, null, null, "bm90LWEtY3Vyc29y", 5))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private TransactionArchive part(LocalDateTime bucketStart, String fileName, Transaction... rows) throws IOException {
+		try (TransactionArchiveWriter writer = new TransactionArchiveWriter(directory.resolve(fileName), 2)) {
+			for (Transaction row : rows) {
+				writer.append(row);
+			}
+			writer.finish();
+		}
+		return new TransactionArchive(bucketStart, bucketStart.plusMonths(1), fileName, rows.length, 0L);
+	}
+
+	private static Transaction row(long id, LocalDateTime transactionTime) {
+		User user = new User();
+		user.setId(1L);
+		Transaction transaction = new Transaction();
+		transaction.setId(id);
+		transaction.setUser(user);
+		transaction.setAmount(new BigDecimal("10.00"));
+		transaction.setTransactionType(TransactionType.PURCHASE);
+		transaction.setTransactionTime(transactionTime);
+		transaction.setFraudStatus(FraudStatus.LEGITIMATE);
+		return transaction;
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.fraud_detection.service.impl;
+
+import com.example.fraud_detection.model.Transaction;
+import com.example.fraud_detection.repository.TransactionRepository;
+import com.example.fraud_detection.service.IpActivityService;
+import com.example.fraud_detection.service.VelocityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Failure paths of the write-behind writer against a mocked repository.
+ */
+class WriteBehindServiceImplTests {
+
+	private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+	private final VelocityService velocityService = mock(VelocityService.class);
+	private final IpActivityService ipActivityService = mock(IpActivityService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CountDownLatch commitEntered = new CountDownLatch(1);
+	private final CountDownLatch releaseCommit = new CountDownLatch(1);
+
+	private WriteBehindServiceImpl writeBehind;
+
+	@BeforeEach
+	void setUp() {
+		writeBehind = new WriteBehindServiceImpl();
+		ReflectionTestUtils.setField(writeBehind, "transactionRepository", transactionRepository);
+		ReflectionTestUtils.setField(writeBehind, "velocityService", velocityService);
+		ReflectionTestUtils.setField(writeBehind, "ipActivityService", ipActivityService);
+		ReflectionTestUtils.setField(writeBehind, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(writeBehind, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(writeBehind, "enabled", true);
+		ReflectionTestUtils.setField(writeBehind, "acknowledgement", WriteBehindServiceImpl.Acknowledgement.FLUSH);
+		ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 200L);
+		ReflectionTestUtils.setField(writeBehind, "maxBatchSize", 500);
+		ReflectionTestUtils.setField(writeBehind, "queueCapacity", 100);
+		ReflectionTestUtils.setField(writeBehind, "flushTimeoutMs", 5000L);
+		when(transactionRepository.saveAndFlush(any(Transaction.class))).thenAnswer(call -> call.getArgument(0));
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		releaseCommit.countDown();
+		writeBehind.stop();
+	}
+
+	@Test
+	void failedBatchIsRetriedRowByRowAndOnlyTheBadRowFails() throws Exception {
+		Transaction good = new Transaction();
+		Transaction bad = new Transaction();
+		when(transactionRepository.saveAll(anyList())).thenThrow(new IllegalArgumentException("batch rejected"));
+		when(transactionRepository.saveAndFlush(bad)).thenThrow(new IllegalArgumentException("bad row"));
+		writeBehind.start();
+
+		CompletableFuture<Transaction> goodWrite = CompletableFuture.supplyAsync(() -> writeBehind.write(good));
+		CompletableFuture<Transaction> badWrite = CompletableFuture.supplyAsync(() -> writeBehind.write(bad));
+
+		assertThat(goodWrite.get(5, TimeUnit.SECONDS)).isSameAs(good);
+		assertThatThrownBy(() -> badWrite.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasRootCauseMessage("bad row");
+		verify(velocityService).discardTransaction(bad);
+		verify(ipActivityService).discardTransaction(bad);
+		verify(velocityService, never()).discardTransaction(good);
+		assertThat(meterRegistry.counter("fraud.writebehind.failed").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void flushAcknowledgementStopsWaitingAfterTheTimeout() {
+		ReflectionTestUtils.setField(writeBehind, "flushTimeoutMs", 50L);
+		blockCommits();
+		writeBehind.start();
+
+		assertThatThrownBy(() -> writeBehind.write(new Transaction()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("within 50 ms");
+	}
+
+	@Test
+	void interruptedWriterFailsEverythingStillBuffered() throws Exception {
+		ReflectionTestUtils.setField(writeBehind, "acknowledgement", WriteBehindServiceImpl.Acknowledgement.ENQUEUE);
+		ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 1L);
+		ReflectionTestUtils.setField(writeBehind, "maxBatchSize", 1);
+		blockCommits();
+		writeBehind.start();
+
+		writeBehind.write(new Transaction());
+		assertThat(commitEntered.await(5, TimeUnit.SECONDS)).isTrue();
+		List<Transaction> buffered = List.of(new Transaction(), new Transaction(), new Transaction());
+		buffered.forEach(writeBehind::write);
+
+		Thread writer = (Thread) ReflectionTestUtils.getField(writeBehind, "writer");
+		writer.interrupt();
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+
+		assertThat(writer.isAlive()).isFalse();
+		for (Transaction transaction : buffered) {
+			verify(velocityService).discardTransaction(transaction);
+			verify(ipActivityService).discardTransaction(transaction);
+		}
+		assertThat(meterRegistry.counter("fraud.writebehind.failed").count()).isEqualTo(3.0);
+	}
+
+	@Test
+	void writesAfterStopAreRefused() throws InterruptedException {
+		writeBehind.start();
+		writeBehind.stop();
+
+		assertThatThrownBy(() -> writeBehind.write(new Transaction()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("not running");
+	}
+
+	/**
+	 * Makes group commits wait until released; an interrupt ends the wait and fails the commit.
+	 */
+	private void blockCommits() {
+		when(transactionRepository.saveAll(anyList())).thenAnswer(call -> {
+			commitEntered.countDown();
+			try {
+				releaseCommit.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Commit interrupted");
+			}
+			return call.getArgument(0);
+		});
+	}
+}